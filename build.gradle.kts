@@ -1,5 +1,6 @@
 plugins {
     id("java")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 repositories {
@@ -20,10 +21,37 @@ tasks.withType<JavaCompile> {
 
 version = "1.0"
 
+// JMH基准测试（src/jmh/java），运行：./gradlew jmh
+// 结果为吞吐 + gc profiler 的分配速率，输出到 build/results/jmh/results.json
+jmh {
+    jmhVersion.set("1.37")
+    resultFormat.set("JSON")
+    profilers.set(listOf("gc"))
+    includes.set(listOf(project.findProperty("jmhInclude")?.toString() ?: ".*"))
+}
+
+// 端到端吞吐测试（src/bench/java，普通main程序，不依赖JMH），运行：./gradlew e2eBench -Pargs="--packages 50 --parallel 4"
+val bench: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + configurations.runtimeClasspath.get()
+    runtimeClasspath += output + compileClasspath
+}
+
+tasks.register<JavaExec>("e2eBench") {
+    group = "benchmark"
+    description = "生成合成wxapkg语料并端到端测量吞吐、延迟和峰值堆内存"
+    classpath = bench.runtimeClasspath
+    mainClass.set("EndToEndHarness")
+    args = (project.findProperty("args")?.toString() ?: "").split(" ").filter { it.isNotBlank() }
+}
+
 tasks.jar {
     val appName = "JaySenWxapkg"
     val dynamicName = "${appName}-${version}.jar"
     archiveFileName.set(dynamicName)
+    // java -jar 直接运行命令行批量解析（Burp加载插件不受影响）
+    manifest {
+        attributes["Main-Class"] = "WxapkgBatchCli"
+    }
 
     duplicatesStrategy = DuplicatesStrategy.EXCLUDE
     from(configurations.runtimeClasspath.get().filter { it.isDirectory })
@@ -0,0 +1,177 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 端到端吞吐测试：生成N个合成包，完整走 解密 → 解包 → 扫描 流程，
+ * 报告 包/s、MB/s、单包延迟p50/p99、峰值堆内存
+ * 运行：./gradlew e2eBench -Pargs="--packages 50 --parallel 4 --encrypted-ratio 0.5"
+ */
+public class EndToEndHarness {
+    public static void main(String[] args) throws Exception {
+        int packages = 50;
+        int parallel = 4;
+        int threads = 5;
+        int warmup = 5;
+        double encryptedRatio = 0;
+        boolean keep = false;
+        Path corpus = null;
+        WxapkgCorpusGenerator generator = new WxapkgCorpusGenerator();
+        int min = 512, max = 64 * 1024;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--packages" -> packages = Integer.parseInt(args[++i]);
+                case "--parallel" -> parallel = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+                case "--files" -> generator.fileCount(Integer.parseInt(args[++i]));
+                case "--min" -> min = Integer.parseInt(args[++i]);
+                case "--max" -> max = Integer.parseInt(args[++i]);
+                case "--encrypted-ratio" -> encryptedRatio = Double.parseDouble(args[++i]);
+                case "--corpus" -> corpus = Paths.get(args[++i]);
+                case "--keep" -> keep = true;
+                default -> throw new IllegalArgumentException("未知参数：" + args[i]);
+            }
+        }
+        generator.fileBytes(min, max);
+
+        Path workDir = Files.createTempDirectory("jaysen-e2e");
+        try {
+            // 1. 准备语料（前 encryptedRatio 比例的包为V1MMWX加密）
+            List<Path> files = new ArrayList<>();
+            long plantedApis = 0, plantedSecrets = 0;
+            if (corpus != null) {
+                try (var stream = Files.walk(corpus)) {
+                    stream.filter(p -> p.toString().endsWith(".wxapkg")).sorted().forEach(files::add);
+                }
+            } else {
+                int encryptedCount = (int) Math.round(packages * encryptedRatio);
+                for (int i = 0; i < packages; i++) {
+                    String wxid = String.format("wx%016x", new Random(i).nextLong());
+                    Path file = workDir.resolve("corpus").resolve(String.format("%05d", i)).resolve(wxid).resolve("__APP__.wxapkg");
+                    WxapkgCorpusGenerator.GeneratedPackage pkg = generator.encrypted(i < encryptedCount).generate(file, wxid, i);
+                    plantedApis += pkg.getPlantedApis();
+                    plantedSecrets += pkg.getPlantedSecrets();
+                    files.add(file);
+                }
+                System.out.printf("语料：%d 个包（加密 %d 个），埋入API %d，敏感信息 %d%n",
+                        files.size(), encryptedCount, plantedApis, plantedSecrets);
+            }
+
+            // 2. 预热（JIT、PBKDF2、正则编译），不计入结果
+            if (warmup > 0) {
+                runBatch(files.subList(0, Math.min(warmup, files.size())), workDir.resolve("warmup"), parallel, threads, new PipelineMetrics());
+            }
+
+            // 3. 正式运行
+            System.gc();
+            PipelineMetrics metrics = new PipelineMetrics();
+            BatchResult result = runBatch(files, workDir.resolve("out"), parallel, threads, metrics);
+            report(result, metrics, parallel, threads);
+        } finally {
+            if (!keep) {
+                BatchRunner.deleteQuietly(workDir);
+            } else {
+                System.out.println("工作目录已保留：" + workDir);
+            }
+        }
+    }
+
+    private static BatchResult runBatch(List<Path> files, Path outRoot, int parallel, int threads, PipelineMetrics metrics) throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        AtomicLong peakHeap = new AtomicLong(memory.getHeapMemoryUsage().getUsed());
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+                0, 10, TimeUnit.MILLISECONDS);
+
+        long[] latencies = new long[files.size()];
+        AtomicLong bytes = new AtomicLong();
+        AtomicLong apis = new AtomicLong();
+        AtomicLong secrets = new AtomicLong();
+        AtomicInteger failed = new AtomicInteger();
+        metrics.packagesQueued(files.size());
+        ExecutorService executor = Executors.newFixedThreadPool(parallel);
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            int job = i;
+            futures.add(executor.submit(() -> {
+                // execute会清空outputDir，每个包独立目录
+                WxAppletDecompiler decompiler = new WxAppletDecompiler(files.get(job).toString(),
+                        outRoot.resolve("job-" + job).toString(), threads, null, null, null, null);
+                decompiler.setMetrics(metrics);
+                decompiler.setQueryAppInfoEnabled(false);
+                long begin = System.nanoTime();
+                decompiler.execute();
+                latencies[job] = System.nanoTime() - begin;
+                bytes.addAndGet(files.get(job).toFile().length());
+                apis.addAndGet(decompiler.getApiStore().size());
+                secrets.addAndGet(decompiler.getSensitiveStore().size());
+                // 解包成功时（直接解包或解密后解包）会记录"解包结果"
+                if (decompiler.getAppInfoList().stream().noneMatch(info -> "解包结果".equals(info.getKey()))) {
+                    failed.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        sampler.shutdownNow();
+        peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+        return new BatchResult(files.size(), elapsed, bytes.get(), latencies, peakHeap.get(), apis.get(), secrets.get(), failed.get());
+    }
+
+    private static void report(BatchResult r, PipelineMetrics metrics, int parallel, int threads) {
+        double seconds = r.elapsedNanos / 1e9;
+        long[] sorted = r.latencies.clone();
+        Arrays.sort(sorted);
+        System.out.printf("包数 %d | 并发 %d | 解包线程 %d | 总大小 %.2fMB | 耗时 %.2fs%n",
+                r.packages, parallel, threads, r.bytes / 1024.0 / 1024.0, seconds);
+        System.out.printf("吞吐：%.2f 包/s，%.2f MB/s%n", r.packages / seconds, r.bytes / 1024.0 / 1024.0 / seconds);
+        System.out.printf("单包延迟：p50 %.1fms，p99 %.1fms，max %.1fms%n",
+                percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6, sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+        System.out.printf("峰值堆内存：%.1fMB（-Xmx %.0fMB）%n", r.peakHeap / 1024.0 / 1024.0, Runtime.getRuntime().maxMemory() / 1024.0 / 1024.0);
+        System.out.printf("结果：API %d，敏感信息 %d，失败包 %d%n", r.apis, r.secrets, r.failed);
+        System.out.printf("解包写出：%d 个文件，平均系统调用 %.1f 次/文件%n", metrics.getEntriesWritten(), metrics.getSyscallsPerEntry());
+        StringBuilder stages = new StringBuilder("阶段耗时（各线程累计）：");
+        for (PipelineMetrics.Stage stage : PipelineMetrics.Stage.values()) {
+            if (metrics.getStageCount(stage) > 0) {
+                stages.append(stage.getLabel()).append(' ').append(metrics.getStageNanos(stage) / 1_000_000).append("ms  ");
+            }
+        }
+        System.out.println(stages.toString().trim());
+    }
+
+    // 最近秩法
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    private record BatchResult(int packages, long elapsedNanos, long bytes, long[] latencies, long peakHeap,
+                               long apis, long secrets, int failed) {}
+}
@@ -0,0 +1,93 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import jaysenwxapkg.bench.Workloads;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Workloads 的默认包实现，直接调用生产类（与生产类同在默认包，包内可见的方法也能访问）
+ */
+public class BenchmarkWorkloads implements Workloads {
+    private final WxapkgAesDe aesDe = new WxapkgAesDe();
+
+    @Override
+    public Pattern apiPattern() {
+        return Config.DEFAULT_API_PATTERN;
+    }
+
+    @Override
+    public Map<String, Pattern> sensitivePatterns() {
+        return Config.DEFAULT_SENSITIVE_PATTERNS;
+    }
+
+    @Override
+    public Set<String> prefixBlacklist() {
+        return Config.DEFAULT_PREFIX_BLACKLIST;
+    }
+
+    @Override
+    public Set<String> suffixBlacklist() {
+        return Config.DEFAULT_SUFFIX_BLACKLIST;
+    }
+
+    @Override
+    public byte[] pack(Map<String, byte[]> entries) throws IOException {
+        return WxapkgCorpusGenerator.pack(entries);
+    }
+
+    @Override
+    public byte[] encrypt(byte[] plain, String wxid) throws Exception {
+        return aesDe.encrypt(wxid, plain);
+    }
+
+    @Override
+    public Predicate<CharSequence> urlFilter(Collection<String> blacklist, Collection<String> suffixes) {
+        return UrlFilter.compile(blacklist, suffixes)::isFiltered;
+    }
+
+    @Override
+    public SecretKey deriveKey(String wxid, String salt) throws Exception {
+        return aesDe.generatePBKDF2Key(wxid, salt);
+    }
+
+    @Override
+    public byte[] xorDecrypt(byte[] data, int xorKey) {
+        return aesDe.xorDecrypt(data, xorKey);
+    }
+
+    @Override
+    public void decrypt(String wxid, String encryptedFile, String decryptedFile) throws Exception {
+        aesDe.decrypt(wxid, encryptedFile, decryptedFile);
+    }
+
+    @Override
+    public IntSupplier unpacker(String packageFile, String outputDir, int threadNum) {
+        WxAppletDecompiler decompiler = new WxAppletDecompiler(packageFile, outputDir, threadNum, null, null, null, null);
+        return () -> decompiler.unpack(packageFile, outputDir, threadNum);
+    }
+
+    @Override
+    public int detect(String packageFile, String unpackDir) {
+        WxAppletDecompiler decompiler = new WxAppletDecompiler(packageFile, unpackDir, 4, null, null, null, null);
+        decompiler.infoLeakDetect(unpackDir);
+        return decompiler.getApiStore().size() + decompiler.getSensitiveStore().size();
+    }
+}
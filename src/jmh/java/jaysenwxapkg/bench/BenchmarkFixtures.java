@@ -0,0 +1,97 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+package jaysenwxapkg.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+
+/**
+ * 基准测试用的固定数据：类压缩后的小程序JS和条目集合（打包、加密经 Workloads 复用WxapkgCorpusGenerator/WxapkgAesDe）
+ * 随机种子固定，保证每次运行输入一致
+ */
+public final class BenchmarkFixtures {
+    public static final String WXID = "wx0123456789abcdef";
+
+    private BenchmarkFixtures() {}
+
+    /**
+     * 生成类似构建产物的单行JS，混入API、手机号、邮箱、密钥等可命中的内容
+     */
+    public static String minifiedJs(int approxBytes, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(approxBytes + 256);
+        String[] apis = {"/api/user/info", "/api/order/list?page=1", "https://api.example.com/v2/pay/create",
+                "//cdn.example.com/lib/sdk.js", "../common/request.js", "user/login.action", "upload.php?type=img",
+                "pages/index/index", "/static/img/banner.png", "components/nav/nav"};
+        String[] secrets = {"appSecret", "session_key", "13812345678", "110101199003077777", "dev@example.com",
+                "192.168.1.10", "client_secret"};
+        while (sb.length() < approxBytes) {
+            switch (random.nextInt(6)) {
+                case 0 -> sb.append("var ").append(ident(random)).append("=\"").append(apis[random.nextInt(apis.length)]).append("\";");
+                case 1 -> sb.append(ident(random)).append(".request({url:'").append(apis[random.nextInt(apis.length)])
+                        .append("',method:\"POST\",data:{id:").append(random.nextInt(10000)).append("}});");
+                case 2 -> sb.append("e.").append(ident(random)).append("=\"").append(secrets[random.nextInt(secrets.length)]).append("\";");
+                case 3 -> sb.append("function ").append(ident(random)).append("(t,n,r){return t&&n?r(t):n||")
+                        .append(random.nextInt(100)).append("}");
+                case 4 -> sb.append("define(\"").append(ident(random)).append("/").append(ident(random))
+                        .append(".js\",function(require,module,exports){");
+                default -> sb.append("if(").append(ident(random)).append("[").append(random.nextInt(64))
+                        .append("]!==void 0){").append(ident(random)).append("++}");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String ident(Random random) {
+        int len = 1 + random.nextInt(6);
+        char[] chars = new char[len];
+        for (int i = 0; i < len; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 生成包含 fileCount 个JS文件的条目集合
+     */
+    public static Map<String, byte[]> entries(int fileCount, int approxFileBytes, long seed) {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        for (int i = 0; i < fileCount; i++) {
+            entries.put("/pages/p" + i + "/index.js", minifiedJs(approxFileBytes, seed + i).getBytes(StandardCharsets.UTF_8));
+        }
+        return entries;
+    }
+
+    public static void deleteRecursively(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+package jaysenwxapkg.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 完整的信息泄露检测（读文件 + API提取 + 黑名单过滤 + 全部敏感规则）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InfoLeakDetectBenchmark {
+    @Param({"100"})
+    public int fileCount;
+
+    @Param({"16384"})
+    public int fileBytes;
+
+    private Workloads workloads;
+    private Path workDir;
+    private String packageFile;
+    private String unpackDir;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        workloads = Workloads.load();
+        workDir = Files.createTempDirectory("jaysen-jmh-detect");
+        packageFile = workDir.resolve("__APP__.wxapkg").toString();
+        Files.write(Path.of(packageFile), workloads.pack(BenchmarkFixtures.entries(fileCount, fileBytes, 3)));
+        unpackDir = workDir.resolve("out").toString();
+        workloads.unpacker(packageFile, unpackDir, 4).getAsInt();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkFixtures.deleteRecursively(workDir);
+    }
+
+    // 每次调用新建实例，结果收集器不跨调用累积
+    @Benchmark
+    public int detect() {
+        return workloads.detect(packageFile, unpackDir);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+package jaysenwxapkg.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * DEFAULT_SENSITIVE_PATTERNS 逐条规则的匹配吞吐
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SensitivePatternBenchmark {
+    @Param({"微信小程序 session_key 泄露", "AppSecret 泄露", "手机号", "身份证号", "邮箱地址", "IP地址", "车牌"})
+    public String rule;
+
+    @Param({"1048576"})
+    public int contentBytes;
+
+    private String content;
+    private Pattern pattern;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        content = BenchmarkFixtures.minifiedJs(contentBytes, 2);
+        pattern = Workloads.load().sensitivePatterns().get(rule);
+        if (pattern == null) {
+            throw new IllegalStateException("未知规则：" + rule);
+        }
+    }
+
+    @Benchmark
+    public int findAll() {
+        Matcher matcher = pattern.matcher(content);
+        int count = 0;
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+}
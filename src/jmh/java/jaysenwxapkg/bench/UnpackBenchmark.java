@@ -0,0 +1,68 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+package jaysenwxapkg.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * 解包基准：读取包、解析索引、逐文件写出
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UnpackBenchmark {
+    @Param({"200", "2000"})
+    public int fileCount;
+
+    @Param({"1", "5"})
+    public int threadNum;
+
+    private Path workDir;
+    private String packageFile;
+    private Path outputDir;
+    private IntSupplier unpacker;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Workloads workloads = Workloads.load();
+        workDir = Files.createTempDirectory("jaysen-jmh-unpack");
+        packageFile = workDir.resolve("__APP__.wxapkg").toString();
+        Files.write(Path.of(packageFile), workloads.pack(BenchmarkFixtures.entries(fileCount, 4096, 7)));
+        outputDir = workDir.resolve("out");
+        unpacker = workloads.unpacker(packageFile, outputDir.toString(), threadNum);
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanOutput() throws Exception {
+        BenchmarkFixtures.deleteRecursively(outputDir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkFixtures.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public int unpack() {
+        return unpacker.getAsInt();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+package jaysenwxapkg.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * 上千条黑名单时的URL过滤吞吐：逐条 contains + 取后缀查表（原实现） vs 编译后的 UrlFilter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlFilterBenchmark {
+    @Param({"10", "1000", "5000"})
+    public int rules;
+
+    private Set<String> blacklist;
+    private Set<String> suffixes;
+    private String[] urls;
+    private Predicate<CharSequence> filter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Workloads workloads = Workloads.load();
+        Random random = new Random(42);
+        blacklist = new HashSet<>(workloads.prefixBlacklist());
+        suffixes = new HashSet<>(workloads.suffixBlacklist());
+        while (blacklist.size() < rules) {
+            blacklist.add("/" + word(random) + "/" + word(random) + "/");
+        }
+        for (int i = 0; i < rules / 10; i++) {
+            suffixes.add(word(random));
+        }
+        urls = new String[1024];
+        for (int i = 0; i < urls.length; i++) {
+            String path = "/" + word(random) + "/" + word(random) + "/" + word(random);
+            urls[i] = switch (i % 4) {
+                case 0 -> "https://api" + random.nextInt(100) + ".example.com" + path + "?id=" + random.nextInt(1000);
+                case 1 -> path + "." + word(random);
+                case 2 -> "pages/" + word(random) + "/index";
+                default -> "https://cdn.example.com" + path + ".png";
+            };
+        }
+        filter = workloads.urlFilter(blacklist, suffixes);
+    }
+
+    private static String word(Random random) {
+        int length = 3 + random.nextInt(6);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    public int naive() {
+        int filtered = 0;
+        for (String url : urls) {
+            boolean needFilter = false;
+            for (String prefix : blacklist) {
+                if (url.contains(prefix)) {
+                    needFilter = true;
+                    break;
+                }
+            }
+            if (!needFilter && !url.contains("?")) {
+                String cleanUrl = url.split("\\?")[0].split("#")[0];
+                int lastDot = cleanUrl.lastIndexOf('.');
+                needFilter = lastDot >= 0 && lastDot < cleanUrl.length() - 1
+                        && suffixes.contains(cleanUrl.substring(lastDot + 1).toLowerCase());
+            }
+            if (needFilter) {
+                filtered++;
+            }
+        }
+        return filtered;
+    }
+
+    @Benchmark
+    public int compiled() {
+        int filtered = 0;
+        for (String url : urls) {
+            if (filter.test(url)) {
+                filtered++;
+            }
+        }
+        return filtered;
+    }
+}
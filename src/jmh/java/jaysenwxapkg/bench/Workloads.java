@@ -0,0 +1,71 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+package jaysenwxapkg.bench;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * 基准测试访问生产代码的桥
+ * JMH要求基准类不在默认包，而生产类都在默认包、命名包无法引用，
+ * 因此由默认包的 BenchmarkWorkloads 实现本接口，只通过JDK类型交换数据；
+ * 基准在 @Setup 中用 load() 取得实例，被测方法里只有一次单态接口调用
+ */
+public interface Workloads {
+    String IMPLEMENTATION = "BenchmarkWorkloads";
+
+    static Workloads load() {
+        try {
+            return (Workloads) Class.forName(IMPLEMENTATION).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("加载基准桥失败：" + IMPLEMENTATION, e);
+        }
+    }
+
+    // ========== 默认配置 ==========
+    Pattern apiPattern();
+
+    Map<String, Pattern> sensitivePatterns();
+
+    Set<String> prefixBlacklist();
+
+    Set<String> suffixBlacklist();
+
+    // ========== 测试数据 ==========
+    byte[] pack(Map<String, byte[]> entries) throws IOException;
+
+    byte[] encrypt(byte[] plain, String wxid) throws Exception;
+
+    // ========== 被测操作 ==========
+    // 编译后的URL黑名单，test 即 UrlFilter.isFiltered
+    Predicate<CharSequence> urlFilter(Collection<String> blacklist, Collection<String> suffixes);
+
+    SecretKey deriveKey(String wxid, String salt) throws Exception;
+
+    byte[] xorDecrypt(byte[] data, int xorKey);
+
+    void decrypt(String wxid, String encryptedFile, String decryptedFile) throws Exception;
+
+    // 复用同一个解包器，每次调用解包一次并返回写出的文件数
+    IntSupplier unpacker(String packageFile, String outputDir, int threadNum);
+
+    // 每次调用新建解包器（结果收集器不跨调用累积），返回API数 + 敏感信息数
+    int detect(String packageFile, String unpackDir);
+}
@@ -0,0 +1,76 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+package jaysenwxapkg.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKey;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 解密基准：PBKDF2密钥派生、XOR解密、完整decrypt分开测量
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WxapkgAesDeBenchmark {
+    @Param({"1048576", "16777216"})
+    public int packageBytes;
+
+    private final Workloads workloads = Workloads.load();
+    private byte[] xorInput;
+    private Path workDir;
+    private String encryptedFile;
+    private String decryptedFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        workDir = Files.createTempDirectory("jaysen-jmh-aes");
+        byte[] plain = workloads.pack(BenchmarkFixtures.entries(
+                Math.max(1, packageBytes / 65536), 65536, 42));
+        byte[] encrypted = workloads.encrypt(plain, BenchmarkFixtures.WXID);
+        encryptedFile = workDir.resolve("__APP__.wxapkg").toString();
+        decryptedFile = workDir.resolve("__APP___jaysentmp.wxapkg").toString();
+        Files.write(Path.of(encryptedFile), encrypted);
+        xorInput = new byte[packageBytes];
+        System.arraycopy(encrypted, 0, xorInput, 0, Math.min(encrypted.length, packageBytes));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkFixtures.deleteRecursively(workDir);
+    }
+
+    // PBKDF2 1000轮，与包大小无关
+    @Benchmark
+    public SecretKey keyDerivation() throws Exception {
+        return workloads.deriveKey(BenchmarkFixtures.WXID, "saltiest");
+    }
+
+    @Benchmark
+    public byte[] xor() {
+        return workloads.xorDecrypt(xorInput, 'e');
+    }
+
+    // 读盘 + 派生 + AES + XOR + 写盘
+    @Benchmark
+    public void fullDecrypt() throws Exception {
+        workloads.decrypt(BenchmarkFixtures.WXID, encryptedFile, decryptedFile);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.concurrent.CancellationException;
+
+/**
+ * 内存预算准入控制：开始处理一个包之前按包大小预留内存，预留总和不超过预算，
+ * 超出时调度线程阻塞等待（背压），直到有包处理完释放
+ * 按申请顺序放行（先到先得），大包不会被源源不断的小包饿死；
+ * 超过整个预算的单个包在没有其他包处理时单独放行
+ */
+public class AdmissionController {
+    // 加密包：原文件 + AES/XOR中间数据 + 拼接结果 + 解包时再读一份
+    private static final int ENCRYPTED_FACTOR = 5;
+    // 明文包：整包读入 + 逐文件拷贝
+    private static final int PLAIN_FACTOR = 2;
+
+    private final long budget;
+    private long inUse;
+    // 排队中的申请（队首才能放行）
+    private final ArrayDeque<Object> queue = new ArrayDeque<>();
+    private boolean cancelled;
+
+    /**
+     * @param budget 预算字节数，<=0 表示不限制
+     */
+    public AdmissionController(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * 按包大小和是否加密估算处理时的峰值内存
+     */
+    public static long estimate(File wxapkgFile) {
+        long size = Math.max(1, wxapkgFile.length());
+        return size * (isEncrypted(wxapkgFile) ? ENCRYPTED_FACTOR : PLAIN_FACTOR);
+    }
+
+    // 只读文件头6字节判断V1MMWX标识
+    private static boolean isEncrypted(File wxapkgFile) {
+        byte[] header = new byte[6];
+        try (FileInputStream in = new FileInputStream(wxapkgFile)) {
+            return in.readNBytes(header, 0, 6) == 6 && "V1MMWX".equals(new String(header, StandardCharsets.US_ASCII));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 预留内存，预算不足时阻塞
+     * @return 预留凭证，处理结束后close释放
+     * @throws InterruptedException 等待中被中断
+     * @throws CancellationException 已取消
+     */
+    public synchronized Lease acquire(long bytes) throws InterruptedException {
+        Object ticket = new Object();
+        queue.addLast(ticket);
+        try {
+            while (!cancelled && (queue.peekFirst() != ticket || !fits(bytes))) {
+                wait();
+            }
+            if (cancelled) {
+                throw new CancellationException("批量解析已取消");
+            }
+            inUse += bytes;
+            return new Lease(bytes);
+        } finally {
+            // 放行、中断或取消都出队，唤醒下一个
+            queue.remove(ticket);
+            notifyAll();
+        }
+    }
+
+    private boolean fits(long bytes) {
+        return budget <= 0 || inUse == 0 || inUse + bytes <= budget;
+    }
+
+    private synchronized void release(long bytes) {
+        inUse -= bytes;
+        notifyAll();
+    }
+
+    /**
+     * 取消：唤醒所有等待者并拒绝后续申请
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        notifyAll();
+    }
+
+    // ========== 状态（统计页面展示） ==========
+    public long getBudget() { return budget; }
+    public synchronized long getInUse() { return inUse; }
+    public synchronized int getWaiting() { return queue.size(); }
+    public synchronized boolean isCancelled() { return cancelled; }
+
+    /**
+     * 预留凭证（重复close只释放一次）
+     */
+    public class Lease implements AutoCloseable {
+        private final long bytes;
+        private boolean released;
+
+        private Lease(long bytes) {
+            this.bytes = bytes;
+        }
+
+        public long getBytes() { return bytes; }
+
+        @Override
+        public void close() {
+            synchronized (AdmissionController.this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+            }
+            release(bytes);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * API提取：API正则取第1~5个非空分组作为URL，经黑名单过滤（UrlFilter）后记为API接口
+ */
+public class ApiDetector implements Detector {
+    public static final String RULE_NAME = "API提取";
+
+    private final Pattern pattern;
+    private final UrlFilter filter;
+    private final List<String> prerequisites;
+
+    public ApiDetector(Pattern pattern, UrlFilter filter) {
+        this.pattern = pattern;
+        this.filter = filter;
+        RegexDetector.Literal literal = RegexDetector.Literal.required(pattern);
+        this.prerequisites = literal == null ? List.of() : List.of(literal.text);
+    }
+
+    @Override
+    public String getName() { return RULE_NAME; }
+
+    // 默认API正则分支多、回溯多，是最慢的规则
+    @Override
+    public long getEstimatedCost() { return 40_000; }
+
+    @Override
+    public List<String> getPrerequisites() { return prerequisites; }
+
+    @Override
+    public int detect(Context context, Sink sink) {
+        int matches = 0;
+        Matcher urlMatcher = pattern.matcher(context.getText());
+        while (urlMatcher.find()) {
+            matches++;
+            String url = null;
+            // 遍历正则分组，获取有效URL
+            for (int i = 1; i <= 5 && i <= urlMatcher.groupCount(); i++) {
+                String group = urlMatcher.group(i);
+                if (group != null && !group.trim().isEmpty()) {
+                    url = group.trim();
+                    break;
+                }
+            }
+            // 空值过滤；接口黑名单（包含/域名/通配符）+ 无参数URL的后缀黑名单，一遍判断
+            if (url == null || url.isEmpty() || filter.isFiltered(url)) {
+                continue;
+            }
+            sink.api(url, urlMatcher.start());
+        }
+        return matches;
+    }
+}
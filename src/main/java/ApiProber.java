@@ -0,0 +1,319 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import okhttp3.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * API存活探测：相对路径拼接到基础URL后，通过OkHttp异步调度并发发送HEAD/GET，
+ * 记录每个接口的状态码、响应长度和耗时
+ * 并发由Dispatcher控制（总数/每主机），每主机另有按时间片的速率限制，探测不会阻塞调用线程以外的线程
+ * 默认只探测基础URL所在主机，包里的其他主机（第三方域名、CDN等）需显式 allowOtherHosts 才会发送请求
+ */
+public class ApiProber {
+    public enum Method { HEAD, GET }
+
+    // GET只读取这么多响应体用于统计长度（Content-Length缺失时）
+    private static final long GET_READ_LIMIT = 1024 * 1024;
+    // 所有探测共用的连接池（不同轮次复用keep-alive连接）
+    private static final ConnectionPool CONNECTION_POOL = new ConnectionPool(32, 5, TimeUnit.MINUTES);
+
+    /**
+     * 探测结果回调（在OkHttp线程中调用）
+     */
+    public interface Listener {
+        void onResult(String endpoint, ProbeResult result);
+    }
+
+    // ========== 探测参数 ==========
+    private String baseUrl;
+    private Method method = Method.HEAD;
+    private int maxConcurrency = 64;
+    private int perHostConcurrency = 16;
+    private int perHostRate = 200;      // 每主机每秒最多请求数，0为不限制
+    private long timeoutMs = 5000;
+    private boolean allowOtherHosts;    // 是否探测基础URL以外的主机
+
+    // ========== 运行状态 ==========
+    private volatile boolean cancelled;
+    private volatile Dispatcher dispatcher;
+    private volatile ScheduledExecutorService scheduler;
+    private volatile CountDownLatch remaining;
+    private final Map<String, Long> nextSlot = new ConcurrentHashMap<>();
+
+    public ApiProber baseUrl(String baseUrl) { this.baseUrl = baseUrl; return this; }
+    public ApiProber method(Method method) { this.method = method; return this; }
+    public ApiProber maxConcurrency(int maxConcurrency) { this.maxConcurrency = Math.max(1, maxConcurrency); return this; }
+    public ApiProber perHostConcurrency(int perHostConcurrency) { this.perHostConcurrency = Math.max(1, perHostConcurrency); return this; }
+    public ApiProber perHostRate(int perHostRate) { this.perHostRate = Math.max(0, perHostRate); return this; }
+    public ApiProber timeoutMs(long timeoutMs) { this.timeoutMs = timeoutMs; return this; }
+    public ApiProber allowOtherHosts(boolean allowOtherHosts) { this.allowOtherHosts = allowOtherHosts; return this; }
+
+    /**
+     * 把提取到的接口解析为完整URL：完整URL原样使用，"//"开头补基础URL的协议，
+     * 其余相对路径（/api、./api、api）拼接在基础URL之后
+     * 含空白/控制字符或非法%转义的接口直接视为非法（OkHttp解析时会自动编码这些字符，不能据此判断）
+     * @return 无法得到合法URL时返回null
+     */
+    public static String resolve(String baseUrl, String endpoint) {
+        String value = endpoint.trim();
+        if (!isUrlText(value)) {
+            return null;
+        }
+        String lower = value.toLowerCase();
+        if (lower.startsWith("http://") || lower.startsWith("https://")) {
+            return HttpUrl.parse(value) != null ? value : null;
+        }
+        if (baseUrl == null || baseUrl.trim().isEmpty()) {
+            return null;
+        }
+        String base = baseUrl.trim();
+        String url;
+        if (value.startsWith("//")) {
+            int scheme = base.indexOf("://");
+            url = (scheme > 0 ? base.substring(0, scheme) : "https") + ":" + value;
+        } else {
+            while (value.startsWith("./")) {
+                value = value.substring(2);
+            }
+            while (value.startsWith("/")) {
+                value = value.substring(1);
+            }
+            url = (base.endsWith("/") ? base : base + "/") + value;
+        }
+        return HttpUrl.parse(url) != null ? url : null;
+    }
+
+    // 不含空白、控制字符，且每个%后都是两位十六进制
+    private static boolean isUrlText(String value) {
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c <= 0x20 || c == 0x7f || Character.isWhitespace(c) || Character.isISOControl(c)) {
+                return false;
+            }
+            if (c == '%' && (i + 2 >= n || Character.digit(value.charAt(i + 1), 16) < 0
+                    || Character.digit(value.charAt(i + 2), 16) < 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 并发探测全部接口，全部完成（或取消）后返回
+     * 未开启 allowOtherHosts 时，主机与基础URL不同的接口记为跳过，不发送请求
+     * @return 完成探测的接口数（不含无法解析和跳过的）
+     */
+    public int probe(List<String> endpoints, Listener listener) throws InterruptedException {
+        cancelled = false;
+        nextSlot.clear();
+        Dispatcher runDispatcher = new Dispatcher();
+        runDispatcher.setMaxRequests(maxConcurrency);
+        runDispatcher.setMaxRequestsPerHost(perHostConcurrency);
+        dispatcher = runDispatcher;
+        OkHttpClient client = new OkHttpClient.Builder()
+                .dispatcher(runDispatcher)
+                .connectionPool(CONNECTION_POOL)
+                .connectTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .readTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .callTimeout(timeoutMs * 2, TimeUnit.MILLISECONDS)
+                .followRedirects(false)
+                .retryOnConnectionFailure(false)
+                .build();
+        // 限速的请求到点后再交给Dispatcher，单线程定时器不阻塞
+        ScheduledExecutorService runScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "JaySenWxapkg-prober");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CountDownLatch runRemaining = new CountDownLatch(endpoints.size());
+        // 先发布计数器再发布定时器，cancel() 拿到本轮定时器时一定能看到本轮计数器
+        remaining = runRemaining;
+        scheduler = runScheduler;
+        HttpUrl base = baseUrl == null ? null : HttpUrl.parse(baseUrl.trim());
+        String baseHost = base == null ? null : base.host();
+        AtomicInteger probed = new AtomicInteger();
+        try {
+            for (String endpoint : endpoints) {
+                if (cancelled) {
+                    runRemaining.countDown();
+                    continue;
+                }
+                String url = resolve(baseUrl, endpoint);
+                HttpUrl httpUrl = url == null ? null : HttpUrl.parse(url);
+                if (httpUrl == null) {
+                    listener.onResult(endpoint, ProbeResult.failed("无法解析为URL（请填写基础URL）", 0));
+                    runRemaining.countDown();
+                    continue;
+                }
+                if (!allowOtherHosts && !httpUrl.host().equals(baseHost)) {
+                    listener.onResult(endpoint, ProbeResult.failed("已跳过：不是基础URL的主机 " + httpUrl.host(), 0));
+                    runRemaining.countDown();
+                    continue;
+                }
+                Request.Builder builder = new Request.Builder().url(httpUrl)
+                        .header("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/83.0.4103.116 Safari/537.36");
+                Request request = method == Method.HEAD ? builder.head().build() : builder.get().build();
+                Runnable send = () -> enqueue(client, request, endpoint, listener, runRemaining, probed);
+                long delay = reserveSlot(httpUrl.host() + ":" + httpUrl.port());
+                if (delay <= 0) {
+                    send.run();
+                } else {
+                    try {
+                        runScheduler.schedule(send, delay, TimeUnit.NANOSECONDS);
+                    } catch (RejectedExecutionException e) {
+                        // 取消时定时器已关闭
+                        runRemaining.countDown();
+                    }
+                }
+            }
+            runRemaining.await();
+        } finally {
+            runScheduler.shutdownNow();
+            runDispatcher.executorService().shutdown();
+        }
+        return probed.get();
+    }
+
+    /**
+     * 取消：丢弃未发送的请求（包括限速等待中的）并中断进行中的请求，probe随即返回
+     */
+    public void cancel() {
+        cancelled = true;
+        ScheduledExecutorService pending = scheduler;
+        CountDownLatch latch = remaining;
+        if (pending != null) {
+            // 每个丢弃的定时发送都不会再计数，这里替它计一次
+            for (int i = pending.shutdownNow().size(); i > 0; i--) {
+                latch.countDown();
+            }
+        }
+        Dispatcher current = dispatcher;
+        if (current != null) {
+            current.cancelAll();
+        }
+    }
+
+    public boolean isCancelled() { return cancelled; }
+
+    // 每主机按固定间隔分配发送时间，返回距离该时间片的纳秒数
+    private long reserveSlot(String hostKey) {
+        if (perHostRate <= 0) {
+            return 0;
+        }
+        long interval = 1_000_000_000L / perHostRate;
+        long now = System.nanoTime();
+        long slot = nextSlot.merge(hostKey, now, (previous, current) -> Math.max(previous + interval, current));
+        return slot - now;
+    }
+
+    private void enqueue(OkHttpClient client, Request request, String endpoint, Listener listener,
+                         CountDownLatch remaining, AtomicInteger probed) {
+        if (cancelled) {
+            listener.onResult(endpoint, ProbeResult.failed("已取消", 0));
+            remaining.countDown();
+            return;
+        }
+        long start = System.nanoTime();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                long latencyMs = (System.nanoTime() - start) / 1_000_000;
+                listener.onResult(endpoint, ProbeResult.failed(cancelled ? "已取消" : e.getClass().getSimpleName() + ": " + e.getMessage(), latencyMs));
+                probed.incrementAndGet();
+                remaining.countDown();
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    // 耗时取发出请求到收到响应头（不含Dispatcher排队）
+                    long latencyMs = response.receivedResponseAtMillis() - response.sentRequestAtMillis();
+                    listener.onResult(endpoint, new ProbeResult(response.code(), contentLength(response), latencyMs, null));
+                } catch (IOException e) {
+                    listener.onResult(endpoint, ProbeResult.failed(e.getMessage(), (System.nanoTime() - start) / 1_000_000));
+                } finally {
+                    probed.incrementAndGet();
+                    remaining.countDown();
+                }
+            }
+        });
+    }
+
+    // Content-Length优先；GET且未声明长度时读取响应体计数（最多GET_READ_LIMIT）
+    private long contentLength(Response response) throws IOException {
+        String header = response.header("Content-Length");
+        if (header != null) {
+            try {
+                return Long.parseLong(header.trim());
+            } catch (NumberFormatException ignored) {
+                // 非法长度按未知处理
+            }
+        }
+        if (method == Method.HEAD || response.body() == null) {
+            return -1;
+        }
+        long total = 0;
+        byte[] buffer = new byte[8192];
+        try (InputStream in = response.body().byteStream()) {
+            int n;
+            while (total < GET_READ_LIMIT && (n = in.read(buffer)) != -1) {
+                total += n;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 单个接口的探测结果
+     */
+    public static class ProbeResult {
+        private final int status;       // HTTP状态码，失败为-1
+        private final long length;      // 响应长度，未知为-1
+        private final long latencyMs;
+        private final String error;
+
+        public ProbeResult(int status, long length, long latencyMs, String error) {
+            this.status = status;
+            this.length = length;
+            this.latencyMs = latencyMs;
+            this.error = error;
+        }
+
+        static ProbeResult failed(String error, long latencyMs) {
+            return new ProbeResult(-1, -1, latencyMs, error);
+        }
+
+        public int getStatus() { return status; }
+        public long getLength() { return length; }
+        public long getLatencyMs() { return latencyMs; }
+        public String getError() { return error; }
+
+        /**
+         * 表格显示：状态码 · 长度 · 耗时
+         */
+        @Override
+        public String toString() {
+            if (status < 0) {
+                return "失败 · " + error;
+            }
+            return status + " · " + (length < 0 ? "-" : length + "B") + " · " + latencyMs + "ms";
+        }
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * 批量解析引擎（不依赖Swing/Montoya，插件界面和命令行共用）
+ * 多个包并行处理，每个包使用独立的输出子目录；提交前通过AdmissionController按包大小预留内存，
+ * 预算不足时暂停提交新包；cancel() 停止排队和处理中的包并删除其未完成的输出
+ */
+public class BatchRunner {
+    /**
+     * 结果回调（在工作线程中调用，实现方需自行保证线程安全）
+     */
+    public interface Listener {
+        void onPackageDone(WxAppletDecompiler decompiler);
+
+        default void onPackageFailed(File wxapkgFile, Throwable error) {}
+
+        default void onPackageCancelled(File wxapkgFile) {}
+
+        /**
+         * 边遍历边解析时每发现一个包回调一次（在遍历线程中调用）
+         */
+        default void onPackageFound(File wxapkgFile) {}
+
+        default void onDiscoveryFailed(Path path, IOException error) {}
+    }
+
+    // ========== 规则（与WxAppletDecompiler构造参数一致，null使用默认） ==========
+    private final Pattern apiPattern;
+    private final Map<String, Pattern> sensitivePatterns;
+    private final Set<String> suffixBlacklist;
+    private final Set<String> prefixBlacklist;
+    private final UrlFilter urlFilter;
+    // 所有包共用一个检测引擎，实测成本在包之间累积（第一个包开始时按当时的配置创建）
+    private DetectorEngine detectorEngine;
+
+    // ========== 运行参数 ==========
+    private final File outputRoot;
+    private int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private int unpackThreads = 2;
+    private long memoryBudget = Runtime.getRuntime().maxMemory() / 2;
+    private boolean keepOutput = true;
+    private boolean queryAppInfo = true;
+    private boolean archiveOutput;
+    private boolean moduleFiles;
+    private EntropyDetector entropyDetector = new EntropyDetector();
+    private EndpointIndex index;
+    private Comparator<PackageScheduler.Candidate> priority =
+            PackageScheduler.comparator(PackageScheduler.DEFAULT_POLICIES, Set.of());
+    private long agingMillis = PackageScheduler.DEFAULT_AGING_MILLIS;
+    private PipelineMetrics metrics = new PipelineMetrics();
+    // 路径中没有AppID的加密包从这些候选中查找（同批其他包的路径在入队时自动加入）
+    private WxidRecovery wxidRecovery = new WxidRecovery();
+
+    // ========== 运行状态 ==========
+    private volatile AdmissionController admission = new AdmissionController(0);
+    private final Set<WxAppletDecompiler> active = ConcurrentHashMap.newKeySet();
+    private volatile WxapkgDiscovery discovery;
+    private volatile boolean cancelled;
+
+    public BatchRunner(File outputRoot, Pattern apiPattern, Map<String, Pattern> sensitivePatterns,
+                       Set<String> suffixBlacklist, Set<String> prefixBlacklist) {
+        this.outputRoot = outputRoot;
+        this.apiPattern = apiPattern;
+        this.sensitivePatterns = sensitivePatterns;
+        this.suffixBlacklist = suffixBlacklist;
+        this.prefixBlacklist = prefixBlacklist;
+        this.urlFilter = WxAppletDecompiler.compileUrlFilter(suffixBlacklist, prefixBlacklist);
+    }
+
+    public BatchRunner parallelism(int parallelism) { this.parallelism = Math.max(1, parallelism); return this; }
+    public BatchRunner unpackThreads(int unpackThreads) { this.unpackThreads = Math.max(1, unpackThreads); return this; }
+    public BatchRunner memoryBudget(long memoryBudget) { this.memoryBudget = memoryBudget; return this; }
+    public BatchRunner keepOutput(boolean keepOutput) { this.keepOutput = keepOutput; return this; }
+    public BatchRunner queryAppInfo(boolean queryAppInfo) { this.queryAppInfo = queryAppInfo; return this; }
+    public BatchRunner archiveOutput(boolean archiveOutput) { this.archiveOutput = archiveOutput; return this; }
+    public BatchRunner moduleFiles(boolean moduleFiles) { this.moduleFiles = moduleFiles; return this; }
+    public BatchRunner entropyDetector(EntropyDetector entropyDetector) { this.entropyDetector = entropyDetector; return this; }
+    public BatchRunner index(EndpointIndex index) { this.index = index; return this; }
+    public BatchRunner priority(Comparator<PackageScheduler.Candidate> priority) { this.priority = priority; return this; }
+    public BatchRunner agingMillis(long agingMillis) { this.agingMillis = agingMillis; return this; }
+    public BatchRunner metrics(PipelineMetrics metrics) { this.metrics = metrics; return this; }
+    public BatchRunner wxidRecovery(WxidRecovery wxidRecovery) { this.wxidRecovery = wxidRecovery; return this; }
+
+    public PipelineMetrics getMetrics() { return metrics; }
+    public AdmissionController getAdmission() { return admission; }
+    public boolean isCancelled() { return cancelled; }
+
+    /**
+     * 取消：不再启动新包，处理中的包在下一个检查点停止，其输出目录会被删除
+     * 可在任意线程调用
+     */
+    public void cancel() {
+        cancelled = true;
+        admission.cancel();
+        WxapkgDiscovery current = discovery;
+        if (current != null) {
+            current.cancel();
+        }
+        for (WxAppletDecompiler decompiler : active) {
+            decompiler.cancel();
+        }
+    }
+
+    /**
+     * 处理一批包，全部完成后返回
+     * @return 成功回调的包数
+     */
+    public int run(List<File> wxapkgFiles, Listener listener) throws InterruptedException {
+        PackageScheduler scheduler = new PackageScheduler(priority, agingMillis);
+        for (File wxapkgFile : wxapkgFiles) {
+            wxidRecovery.addFrom(wxapkgFile.getPath());
+            scheduler.add(wxapkgFile);
+        }
+        scheduler.finish();
+        metrics.packagesQueued(wxapkgFiles.size());
+        return run(scheduler, listener);
+    }
+
+    /**
+     * 边遍历边解析：遍历线程找到的包直接进入处理队列，第一个包找到即开始处理，全部完成后返回
+     * @param inputs 目录（按 discovery 的深度/链接设置递归查找）或wxapkg文件
+     * @return 成功回调的包数
+     */
+    public int run(List<File> inputs, WxapkgDiscovery discovery, Listener listener) throws InterruptedException {
+        PackageScheduler scheduler = new PackageScheduler(priority, agingMillis);
+        this.discovery = discovery;
+        if (cancelled) {
+            discovery.cancel();
+        }
+        Thread walker = new Thread(() -> {
+            try {
+                discovery.walk(inputs, new WxapkgDiscovery.Listener() {
+                    @Override
+                    public void onFound(File wxapkgFile) {
+                        metrics.packagesQueued(1);
+                        wxidRecovery.addFrom(wxapkgFile.getPath());
+                        scheduler.add(wxapkgFile);
+                        listener.onPackageFound(wxapkgFile);
+                    }
+
+                    @Override
+                    public void onError(Path path, IOException error) {
+                        listener.onDiscoveryFailed(path, error);
+                    }
+                });
+            } finally {
+                scheduler.finish();
+            }
+        }, "JaySenWxapkg-discovery");
+        walker.setDaemon(true);
+        walker.start();
+        try {
+            return run(scheduler, listener);
+        } finally {
+            // 正常结束时遍历已完成；取消或中断时等遍历线程在下一个检查点退出
+            discovery.cancel();
+            walker.join();
+            this.discovery = null;
+        }
+    }
+
+    // 有空闲工作线程时才从调度队列取优先级最高的包提交，直到队列结束；取消时剩余的包按取消回调
+    private int run(PackageScheduler scheduler, Listener listener) throws InterruptedException {
+        admission = new AdmissionController(memoryBudget);
+        if (cancelled) {
+            admission.cancel();
+        }
+        AtomicInteger done = new AtomicInteger();
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "JaySenWxapkg-batch-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 合并文件按模块拆分后的扫描任务共用一个线程池，线程数不随并行包数成倍增加
+        AtomicInteger scanThreadIndex = new AtomicInteger();
+        ExecutorService scanExecutor = Executors.newFixedThreadPool(unpackThreads, r -> {
+            Thread thread = new Thread(r, "JaySenWxapkg-scan-" + scanThreadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 不预先把包堆进线程池队列，否则后发现的高优先级包要排在已提交的包后面
+        Semaphore idleWorkers = new Semaphore(parallelism);
+        List<Future<?>> futures = new ArrayList<>();
+        boolean ended = false;
+        try {
+            while (!cancelled) {
+                idleWorkers.acquire();
+                File wxapkgFile = scheduler.take();
+                if (wxapkgFile == null) {
+                    ended = true;
+                    break;
+                }
+                // 背压：预算不足时在这里等待
+                AdmissionController.Lease lease;
+                try {
+                    lease = admission.acquire(AdmissionController.estimate(wxapkgFile));
+                } catch (CancellationException e) {
+                    metrics.packagesQueued(-1);
+                    listener.onPackageCancelled(wxapkgFile);
+                    break;
+                }
+                File jobDir = new File(outputRoot, String.format("%05d", futures.size()));
+                futures.add(executor.submit(() -> {
+                    try {
+                        runJob(wxapkgFile, jobDir, lease, scanExecutor, listener, done);
+                    } finally {
+                        idleWorkers.release();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // 任务内部已捕获并回调，这里不会出现
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            scanExecutor.shutdownNow();
+            if (!ended) {
+                cancelRemaining(scheduler, listener);
+            }
+            // 批量结束后不再保留空闲缓冲区，下一批次重新按需分配
+            BufferPool.SHARED.trim();
+        }
+        return done.get();
+    }
+
+    // 取消后未提交的包不再处理：停止遍历并等队列结束，其间入队的包都按取消回调（被中断时只处理已入队的）
+    private void cancelRemaining(PackageScheduler scheduler, Listener listener) {
+        WxapkgDiscovery current = discovery;
+        if (current != null) {
+            current.cancel();
+        }
+        boolean interrupted = false;
+        while (true) {
+            List<File> remaining = scheduler.drain();
+            if (!interrupted) {
+                // 遍历线程结束前可能还有包入队
+                try {
+                    File next = scheduler.take();
+                    if (next != null) {
+                        remaining.add(next);
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            for (File wxapkgFile : remaining) {
+                listener.onPackageCancelled(wxapkgFile);
+                metrics.packagesQueued(-1);
+            }
+            if (remaining.isEmpty() || interrupted) {
+                break;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized DetectorEngine detectorEngine() {
+        if (detectorEngine == null) {
+            detectorEngine = WxAppletDecompiler.createDetectorEngine(apiPattern, sensitivePatterns, entropyDetector, urlFilter);
+        }
+        return detectorEngine;
+    }
+
+    private void runJob(File wxapkgFile, File jobDir, AdmissionController.Lease lease, ExecutorService scanExecutor,
+            Listener listener, AtomicInteger done) {
+        try (lease) {
+            if (cancelled) {
+                // 已提交但还没开始
+                metrics.packagesQueued(-1);
+                listener.onPackageCancelled(wxapkgFile);
+                return;
+            }
+            WxAppletDecompiler decompiler = new WxAppletDecompiler(wxapkgFile.getAbsolutePath(),
+                    jobDir.getAbsolutePath(), unpackThreads, apiPattern, sensitivePatterns,
+                    suffixBlacklist, prefixBlacklist);
+            decompiler.setMetrics(metrics);
+            decompiler.setQueryAppInfoEnabled(queryAppInfo);
+            decompiler.setArchiveOutput(archiveOutput);
+            decompiler.setModuleFiles(moduleFiles);
+            decompiler.setEntropyDetector(entropyDetector);
+            decompiler.setWxidRecovery(wxidRecovery);
+            decompiler.setUrlFilter(urlFilter);
+            decompiler.setDetectorEngine(detectorEngine());
+            decompiler.setScanExecutor(scanExecutor);
+            active.add(decompiler);
+            // 加入active之后再检查一次，避免与cancel()交错时漏掉
+            if (cancelled) {
+                decompiler.cancel();
+            }
+            try {
+                decompiler.execute();
+            } finally {
+                active.remove(decompiler);
+            }
+            if (decompiler.isCancelled()) {
+                // 清理未完成的输出
+                deleteQuietly(jobDir.toPath());
+                listener.onPackageCancelled(wxapkgFile);
+                return;
+            }
+            if (index != null) {
+                // 每个包完成即写入一个索引段，中途取消也不丢已完成的包
+                try {
+                    index.add(decompiler);
+                } catch (IOException e) {
+                    decompiler.addAppInfo("警告", "写入索引失败：" + e.getMessage());
+                }
+            }
+            listener.onPackageDone(decompiler);
+            done.incrementAndGet();
+        } catch (Throwable t) {
+            listener.onPackageFailed(wxapkgFile, t);
+        } finally {
+            if (!keepOutput) {
+                deleteQuietly(jobDir.toPath());
+            }
+        }
+    }
+
+    static void deleteQuietly(Path root) {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                    Files.delete(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException ignored) {
+            // 清理失败不影响结果
+        }
+    }
+}
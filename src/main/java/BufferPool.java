@@ -0,0 +1,252 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分级缓冲池：读包、解密、解包、扫描各阶段的大数组从池中借用，包处理完统一归还，后续的包直接复用，
+ * 不再每个阶段、每个文件都新分配整包大小的数组
+ * 容量按级取整（2的幂之间再分4级，浪费不超过25%），空闲数组总量超过上限时多余的直接丢弃交给GC
+ * 借出的数组长度可能大于申请长度，调用方需自行记录有效长度；归还后内容不清零
+ */
+public class BufferPool {
+    // 最小级别，更小的申请也按此分配
+    private static final int MIN_CAPACITY = 4096;
+    // 超过此大小不入池（按需分配，用完丢弃）
+    private static final int MAX_POOLED = 1 << 30;
+
+    /**
+     * 全局共享池：空闲数组最多保留最大堆的1/8（Burp中与其他插件共用堆内存），批量结束和插件卸载时清空
+     */
+    public static final BufferPool SHARED = new BufferPool(Runtime.getRuntime().maxMemory() / 8);
+
+    private final long maxRetainedBytes;
+    private final Map<Integer, ArrayDeque<byte[]>> freeBytes = new HashMap<>();
+    private final Map<Integer, ArrayDeque<char[]>> freeChars = new HashMap<>();
+    private long retainedBytes;
+    // 统计：新分配的字节数和复用次数
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder reuses = new LongAdder();
+
+    /**
+     * @param maxRetainedBytes 空闲数组最多保留的字节数，≤0 不保留（每次都新分配）
+     */
+    public BufferPool(long maxRetainedBytes) {
+        this.maxRetainedBytes = maxRetainedBytes;
+    }
+
+    /**
+     * 开始一个作业（一个包）的借用，close时归还所有借出的数组
+     */
+    public Lease lease() {
+        return new Lease();
+    }
+
+    /**
+     * 申请长度对应的容量级别
+     */
+    static int capacityFor(int length) {
+        if (length <= MIN_CAPACITY) {
+            return MIN_CAPACITY;
+        }
+        if (length > MAX_POOLED) {
+            return length;
+        }
+        // 2^k < length ≤ 2^(k+1)，按 2^(k-2) 步长向上取整
+        int k = 31 - Integer.numberOfLeadingZeros(length - 1);
+        int step = 1 << (k - 2);
+        return (int) Math.min(Integer.MAX_VALUE - 8, ((long) length + step - 1) / step * step);
+    }
+
+    private synchronized byte[] takeBytes(int capacity) {
+        ArrayDeque<byte[]> free = freeBytes.get(capacity);
+        byte[] array = free != null ? free.pollFirst() : null;
+        if (array != null) {
+            retainedBytes -= capacity;
+            reuses.increment();
+            return array;
+        }
+        allocatedBytes.add(capacity);
+        return null;
+    }
+
+    private synchronized char[] takeChars(int capacity) {
+        ArrayDeque<char[]> free = freeChars.get(capacity);
+        char[] array = free != null ? free.pollFirst() : null;
+        if (array != null) {
+            retainedBytes -= capacity * 2L;
+            reuses.increment();
+            return array;
+        }
+        allocatedBytes.add(capacity * 2L);
+        return null;
+    }
+
+    private synchronized void giveBytes(byte[] array) {
+        if (array.length > MAX_POOLED || retainedBytes + array.length > maxRetainedBytes) {
+            return;
+        }
+        freeBytes.computeIfAbsent(array.length, c -> new ArrayDeque<>()).addFirst(array);
+        retainedBytes += array.length;
+    }
+
+    private synchronized void giveChars(char[] array) {
+        long size = array.length * 2L;
+        if (array.length > MAX_POOLED || retainedBytes + size > maxRetainedBytes) {
+            return;
+        }
+        freeChars.computeIfAbsent(array.length, c -> new ArrayDeque<>()).addFirst(array);
+        retainedBytes += size;
+    }
+
+    /**
+     * 丢弃所有空闲数组（批量解析结束和插件卸载时调用）
+     */
+    public synchronized void trim() {
+        freeBytes.clear();
+        freeChars.clear();
+        retainedBytes = 0;
+    }
+
+    /**
+     * 把文件前 length 字节读入 buffer（buffer 通常来自 Lease），返回实际读取的字节数（文件变短时小于length）
+     */
+    public static int readFully(Path file, byte[] buffer, int length) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.readNBytes(buffer, 0, length);
+        }
+    }
+
+    // ========== 状态 ==========
+    public synchronized long getRetainedBytes() { return retainedBytes; }
+    public long getAllocatedBytes() { return allocatedBytes.sum(); }
+    public long getReuses() { return reuses.sum(); }
+
+    /**
+     * 一个作业的借用记录（线程安全，同一包的多个解包/扫描线程共用）
+     * 作业内 release 的数组先留在本作业中复用，close 时连同未归还的一起还给池
+     */
+    public class Lease implements AutoCloseable {
+        private final List<byte[]> outstandingBytes = new ArrayList<>();
+        private final List<char[]> outstandingChars = new ArrayList<>();
+        private final ArrayDeque<byte[]> idleBytes = new ArrayDeque<>();
+        private final ArrayDeque<char[]> idleChars = new ArrayDeque<>();
+        private boolean closed;
+
+        private Lease() {
+        }
+
+        /**
+         * 借用至少 length 字节的数组
+         */
+        public byte[] bytes(int length) {
+            int capacity = capacityFor(length);
+            synchronized (this) {
+                checkOpen();
+                for (Iterator<byte[]> it = idleBytes.iterator(); it.hasNext(); ) {
+                    byte[] array = it.next();
+                    if (array.length >= capacity) {
+                        it.remove();
+                        return array;
+                    }
+                }
+            }
+            byte[] array = takeBytes(capacity);
+            if (array == null) {
+                array = new byte[capacity];
+            }
+            synchronized (this) {
+                outstandingBytes.add(array);
+            }
+            return array;
+        }
+
+        /**
+         * 借用至少 length 个字符的数组
+         */
+        public char[] chars(int length) {
+            int capacity = capacityFor(length);
+            synchronized (this) {
+                checkOpen();
+                for (Iterator<char[]> it = idleChars.iterator(); it.hasNext(); ) {
+                    char[] array = it.next();
+                    if (array.length >= capacity) {
+                        it.remove();
+                        return array;
+                    }
+                }
+            }
+            char[] array = takeChars(capacity);
+            if (array == null) {
+                array = new char[capacity];
+            }
+            synchronized (this) {
+                outstandingChars.add(array);
+            }
+            return array;
+        }
+
+        /**
+         * 提前归还（作业内后续申请可复用）
+         */
+        public synchronized void release(byte[] array) {
+            if (!closed && array != null) {
+                idleBytes.addFirst(array);
+            }
+        }
+
+        public synchronized void release(char[] array) {
+            if (!closed && array != null) {
+                idleChars.addFirst(array);
+            }
+        }
+
+        private void checkOpen() {
+            if (closed) {
+                throw new IllegalStateException("缓冲区借用已结束");
+            }
+        }
+
+        /**
+         * 作业结束：所有借出的数组归还给池（之后不得再使用）
+         */
+        @Override
+        public void close() {
+            List<byte[]> bytes;
+            List<char[]> chars;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                bytes = new ArrayList<>(outstandingBytes);
+                chars = new ArrayList<>(outstandingChars);
+                outstandingBytes.clear();
+                outstandingChars.clear();
+                idleBytes.clear();
+                idleChars.clear();
+            }
+            for (byte[] array : bytes) {
+                giveBytes(array);
+            }
+            for (char[] array : chars) {
+                giveChars(array);
+            }
+        }
+    }
+}
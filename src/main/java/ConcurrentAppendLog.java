@@ -0,0 +1,101 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁追加日志：每个线程写自己的分段缓冲，追加时只做一次原子自增取序号，
+ * 读取时按序号归并，顺序与单线程ArrayList追加一致
+ * 读取应在写线程结束之后进行（线程池关闭/latch等待提供可见性）
+ */
+public class ConcurrentAppendLog<T> {
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentLinkedQueue<Stripe<T>> stripes = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Stripe<T>> localStripe = ThreadLocal.withInitial(() -> {
+        Stripe<T> stripe = new Stripe<>();
+        stripes.add(stripe);
+        return stripe;
+    });
+    // 归并结果缓存（无新追加时直接复用）
+    private volatile List<T> merged = Collections.emptyList();
+    private volatile long mergedSequence;
+
+    public void add(T item) {
+        // 先取得线程私有分段，再取序号，保证同一线程内序号递增
+        Stripe<T> stripe = localStripe.get();
+        stripe.add(sequence.getAndIncrement(), item);
+    }
+
+    public int size() {
+        return (int) sequence.get();
+    }
+
+    /**
+     * 按追加顺序归并所有分段
+     */
+    public List<T> toList() {
+        long seq = sequence.get();
+        if (seq == mergedSequence) {
+            return merged;
+        }
+        List<Stripe<T>> all = new ArrayList<>(stripes);
+        int[] cursors = new int[all.size()];
+        List<T> result = new ArrayList<>((int) seq);
+        // 分段数量等于写线程数，直接线性选最小序号即可
+        while (true) {
+            int best = -1;
+            long bestSeq = Long.MAX_VALUE;
+            for (int i = 0; i < all.size(); i++) {
+                Stripe<T> stripe = all.get(i);
+                if (cursors[i] < stripe.size && stripe.seqs[cursors[i]] < bestSeq) {
+                    bestSeq = stripe.seqs[cursors[i]];
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            result.add(all.get(best).item(cursors[best]++));
+        }
+        List<T> list = Collections.unmodifiableList(result);
+        merged = list;
+        mergedSequence = result.size();
+        return list;
+    }
+
+    /**
+     * 单线程独占的分段缓冲
+     */
+    private static final class Stripe<T> {
+        private long[] seqs = new long[16];
+        private Object[] items = new Object[16];
+        private int size;
+
+        void add(long seq, T item) {
+            if (size == seqs.length) {
+                seqs = Arrays.copyOf(seqs, size * 2);
+                items = Arrays.copyOf(items, size * 2);
+            }
+            seqs[size] = seq;
+            items[size] = item;
+            size++;
+        }
+
+        @SuppressWarnings("unchecked")
+        T item(int i) {
+            return (T) items[i];
+        }
+    }
+}
@@ -53,6 +53,8 @@ public class Config {
         private Map<String, String> sensitiveRegexMap; // 敏感信息正则（类型:正则）
         private Set<String> suffixBlacklist; // 后缀黑名单
         private Set<String> prefixBlacklist; // 前缀黑名单
+        private Map<String, Double> entropyThresholds; // 高熵字符串阈值（字符集:位/字符，≤0关闭）
+        private Set<String> entropyAllowlist; // 高熵字符串白名单（框架常量）
 
         // 空构造（Jackson反序列化需要）
         public SavedConfig() {}
@@ -74,6 +76,17 @@ public class Config {
         public void setSuffixBlacklist(Set<String> suffixBlacklist) { this.suffixBlacklist = suffixBlacklist; }
         public Set<String> getPrefixBlacklist() { return prefixBlacklist; }
         public void setPrefixBlacklist(Set<String> prefixBlacklist) { this.prefixBlacklist = prefixBlacklist; }
+        public Map<String, Double> getEntropyThresholds() { return entropyThresholds; }
+        public void setEntropyThresholds(Map<String, Double> entropyThresholds) { this.entropyThresholds = entropyThresholds; }
+        public Set<String> getEntropyAllowlist() { return entropyAllowlist; }
+        public void setEntropyAllowlist(Set<String> entropyAllowlist) { this.entropyAllowlist = entropyAllowlist; }
+
+        /**
+         * 按配置创建高熵字符串检测器（未配置的项使用默认阈值和白名单）
+         */
+        public EntropyDetector entropyDetector() {
+            return new EntropyDetector(entropyThresholds, entropyAllowlist);
+        }
     }
 
     // 将用户输入的逗号分隔字符串转为前缀黑名单Set
@@ -128,8 +141,13 @@ public class Config {
         Set<String> finalSuffixBlacklist = (customSuffixBlacklist == null || customSuffixBlacklist.isEmpty())
                 ? DEFAULT_SUFFIX_BLACKLIST : customSuffixBlacklist;
 
-        // 4. 封装为配置实体
+        // 4. 封装为配置实体（界面未提供的高熵检测配置沿用文件中已有的值）
         SavedConfig savedConfig = new SavedConfig(finalApiRegex, finalSensitiveMap, finalSuffixBlacklist,customprefixBlacklist);
+        if (configFile.exists()) {
+            SavedConfig existing = loadConfigFile();
+            savedConfig.setEntropyThresholds(existing.getEntropyThresholds());
+            savedConfig.setEntropyAllowlist(existing.getEntropyAllowlist());
+        }
 
         // 5. Jackson序列化为格式化JSON
         ObjectMapper objectMapper = new ObjectMapper();
@@ -171,6 +189,13 @@ public class Config {
         }
     }
 
+    /**
+     * 从指定JSON文件读取配置（命令行使用，格式同jaysenwxapkg.json，解析失败直接抛出）
+     */
+    public static SavedConfig readConfigFile(File configFile) throws IOException {
+        return new ObjectMapper().readValue(configFile, SavedConfig.class);
+    }
+
     // ========== 工具方法：敏感信息正则字符串（UI多行）→ Map ==========
     /**
      * 把UI中"类型:正则"的多行字符串转换为Map
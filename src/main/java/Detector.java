@@ -0,0 +1,142 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 检测器：对单个文件做一种检测（正则规则、字面量规则、高熵字符串、API提取，或插件jar中的自定义检测），
+ * 由 DetectorEngine 按成本从低到高依次执行
+ * 自定义检测器：实现本接口，在jar的 META-INF/services/Detector 中写上实现类名，
+ * 放入 ~/.burp/JaySenWxapkgDetectors 目录即可加载；实现须线程安全（同一实例在多个扫描线程中同时使用）
+ * 本接口位于默认（无名）包，具名包中的类无法import它，因此实现类也必须放在默认包（不写package声明）
+ */
+public interface Detector {
+    /**
+     * 检测需要的输入：原始字节、解码后的文本、文本中的字符串字面量（"、'、` 包围，每个文件只提取一次）
+     */
+    enum Input {
+        BYTES, TEXT, LITERALS
+    }
+
+    /**
+     * 规则名（运行统计中按此汇总）
+     */
+    String getName();
+
+    default Input getInput() { return Input.TEXT; }
+
+    /**
+     * 预估成本（每千字符纳秒数），执行过一定次数后改用实测值
+     */
+    default long getEstimatedCost() { return 50_000; }
+
+    /**
+     * 前置条件：文件中至少包含其中一个（忽略ASCII大小写）才执行，空列表表示总是执行
+     */
+    default List<String> getPrerequisites() { return List.of(); }
+
+    /**
+     * 检测一个文件，返回命中数
+     */
+    int detect(Context context, Sink sink);
+
+    /**
+     * 命中输出：API接口或敏感信息（偏移为命中在文本中的位置）
+     */
+    interface Sink {
+        void api(String url, int offset);
+        void sensitive(String type, String value, int offset);
+
+        /**
+         * 检测器执行出错（已跳过该检测器在本文件上的剩余检测）
+         */
+        default void failed(String rule, RuntimeException error) {}
+    }
+
+    /**
+     * 单个文件的检测输入
+     */
+    class Context {
+        private final String path;
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+        private final CharSequence text;
+        private final BooleanSupplier cancelled;
+        private int[] literals;
+
+        /**
+         * @param bytes 原始字节（没有时为null，需要BYTES的检测器跳过）
+         */
+        public Context(String path, byte[] bytes, int offset, int length, CharSequence text, BooleanSupplier cancelled) {
+            this.path = path;
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+            this.text = text;
+            this.cancelled = cancelled;
+        }
+
+        public String getPath() { return path; }
+        public byte[] getBytes() { return bytes; }
+        public int getOffset() { return offset; }
+        public int getLength() { return length; }
+        public CharSequence getText() { return text; }
+        public boolean isCancelled() { return cancelled != null && cancelled.getAsBoolean(); }
+
+        boolean has(Input input) {
+            return switch (input) {
+                case BYTES -> bytes != null;
+                case TEXT, LITERALS -> text != null;
+            };
+        }
+
+        /**
+         * 字符串字面量区间（不含引号）：[start0, end0, start1, end1, ...]
+         * 反斜杠转义下一个字符，遇到同种引号或换行结束，文件末尾未结束的字面量不计入
+         */
+        public int[] getLiterals() {
+            if (literals == null) {
+                literals = extractLiterals(text);
+            }
+            return literals;
+        }
+
+        private static int[] extractLiterals(CharSequence text) {
+            int[] spans = new int[64];
+            int count = 0;
+            char quote = 0;
+            int start = 0;
+            for (int i = 0, n = text.length(); i < n; i++) {
+                char c = text.charAt(i);
+                if (quote == 0) {
+                    if (c == '"' || c == '\'' || c == '`') {
+                        quote = c;
+                        start = i + 1;
+                    }
+                } else if (c == '\\') {
+                    i++;
+                } else if (c == quote || c == '\n') {
+                    if (count + 2 > spans.length) {
+                        spans = java.util.Arrays.copyOf(spans, spans.length * 2);
+                    }
+                    spans[count++] = start;
+                    spans[count++] = i;
+                    quote = 0;
+                }
+            }
+            return java.util.Arrays.copyOf(spans, count);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 检测引擎：对每个文件按成本从低到高执行所有检测器
+ * 执行前检查输入（需要原始字节但没有时跳过）和前置字面量（同一字面量每个文件只查一次），不满足直接跳过；
+ * 每次执行计时，执行次数足够后按实测的每千字符耗时重新排序；取消时剩余（较贵的）检测器不再执行
+ * 同一引擎可在多个扫描线程、多个包之间共用
+ */
+public class DetectorEngine {
+    // 插件目录（可用 -Djaysenwxapkg.detectors=<目录> 覆盖）
+    public static final Path DEFAULT_PLUGIN_DIR = Paths.get(System.getProperty("jaysenwxapkg.detectors",
+            System.getProperty("user.home") + File.separator + ".burp" + File.separator + "JaySenWxapkgDetectors"));
+    // 实测次数达到后改用实测成本
+    private static final int MIN_SAMPLES = 16;
+
+    private static volatile Plugins plugins;
+
+    private final Entry[] entries;
+
+    public DetectorEngine(List<Detector> detectors) {
+        entries = new Entry[detectors.size()];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = new Entry(detectors.get(i));
+        }
+    }
+
+    public List<Detector> getDetectors() {
+        List<Detector> result = new ArrayList<>(entries.length);
+        for (Entry entry : entries) {
+            result.add(entry.detector);
+        }
+        return result;
+    }
+
+    /**
+     * 检测一个文件，返回总命中数
+     * @param stats 单包统计（每个检测器按规则名记录耗时和命中数，可为null）
+     */
+    public int scan(Detector.Context context, Detector.Sink sink, PipelineMetrics.PackageStats stats) {
+        Entry[] ordered = entries.clone();
+        Arrays.sort(ordered, Comparator.comparingLong(Entry::cost));
+        int length = context.getText() != null ? context.getText().length() : context.getLength();
+        Map<String, Boolean> present = new HashMap<>();
+        int total = 0;
+        for (Entry entry : ordered) {
+            if (context.isCancelled()) {
+                break;
+            }
+            Detector detector = entry.detector;
+            if (!context.has(detector.getInput())) {
+                continue;
+            }
+            long start = System.nanoTime();
+            int matches = 0;
+            if (hasPrerequisite(context, detector.getPrerequisites(), present)) {
+                try {
+                    matches = detector.detect(context, sink);
+                } catch (RuntimeException e) {
+                    // 单个检测器出错（自定义检测器的bug、正则分组不符等）不影响其他检测器
+                    entry.failures.increment();
+                    sink.failed(detector.getName(), e);
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            entry.record(elapsed, length);
+            if (stats != null) {
+                stats.recordRule(detector.getName(), elapsed, matches);
+            }
+            total += matches;
+        }
+        return total;
+    }
+
+    // 任一前置字面量出现即满足（忽略ASCII大小写）
+    private static boolean hasPrerequisite(Detector.Context context, List<String> prerequisites, Map<String, Boolean> present) {
+        if (prerequisites.isEmpty()) {
+            return true;
+        }
+        if (context.getText() == null) {
+            return false;
+        }
+        for (String literal : prerequisites) {
+            Boolean found = present.get(literal);
+            if (found == null) {
+                found = literal.isEmpty() || LiteralDetector.indexOf(context.getText(), literal, 0, true) >= 0;
+                present.put(literal, found);
+            }
+            if (found) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 当前成本（每千字符纳秒数）：预估值或实测值，按此排序
+     */
+    public Map<String, Long> getCosts() {
+        Map<String, Long> costs = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            costs.put(entry.detector.getName(), entry.cost());
+        }
+        return costs;
+    }
+
+    /**
+     * 执行时抛出异常的次数（按规则名）
+     */
+    public Map<String, Long> getFailures() {
+        Map<String, Long> failures = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            if (entry.failures.sum() > 0) {
+                failures.put(entry.detector.getName(), entry.failures.sum());
+            }
+        }
+        return failures;
+    }
+
+    private static class Entry {
+        private final Detector detector;
+        private final long estimatedCost;
+        private final LongAdder runs = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder chars = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        Entry(Detector detector) {
+            this.detector = detector;
+            this.estimatedCost = detector.getEstimatedCost();
+        }
+
+        void record(long elapsedNanos, int length) {
+            runs.increment();
+            nanos.add(elapsedNanos);
+            chars.add(length);
+        }
+
+        long cost() {
+            long totalChars = chars.sum();
+            if (runs.sum() < MIN_SAMPLES || totalChars == 0) {
+                return estimatedCost;
+            }
+            return nanos.sum() * 1000 / totalChars;
+        }
+    }
+
+    // ========== 插件 ==========
+
+    /**
+     * 插件目录中所有jar提供的检测器（首次调用时加载一次，closePlugins 之后再调用会重新加载）
+     */
+    public static Plugins plugins() {
+        Plugins loaded = plugins;
+        if (loaded == null) {
+            synchronized (DetectorEngine.class) {
+                loaded = plugins;
+                if (loaded == null) {
+                    loaded = loadPlugins(DEFAULT_PLUGIN_DIR.toFile());
+                    plugins = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 关闭已加载插件的类加载器（释放jar文件句柄，插件卸载时调用）
+     */
+    public static void closePlugins() {
+        Plugins loaded;
+        synchronized (DetectorEngine.class) {
+            loaded = plugins;
+            plugins = null;
+        }
+        if (loaded != null) {
+            loaded.close();
+        }
+    }
+
+    /**
+     * 用 ServiceLoader 加载目录中jar及classpath上的 Detector 实现（META-INF/services/Detector），单个实现加载失败只记录错误
+     */
+    public static Plugins loadPlugins(File dir) {
+        List<Detector> detectors = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        File[] jars = dir.listFiles((d, name) -> name.toLowerCase().endsWith(".jar"));
+        if (jars == null) {
+            jars = new File[0];
+        }
+        Arrays.sort(jars);
+        List<URL> urls = new ArrayList<>();
+        for (File jar : jars) {
+            try {
+                urls.add(jar.toURI().toURL());
+            } catch (MalformedURLException e) {
+                errors.add(jar + "：" + e.getMessage());
+            }
+        }
+        // 插件目录为空时仍查找插件自身classpath上的实现（命令行 -cp 加入的jar）
+        URLClassLoader jarLoader = urls.isEmpty() ? null
+                : new URLClassLoader(urls.toArray(new URL[0]), DetectorEngine.class.getClassLoader());
+        ClassLoader loader = jarLoader != null ? jarLoader : DetectorEngine.class.getClassLoader();
+        Iterator<Detector> it = ServiceLoader.load(Detector.class, loader).iterator();
+        // 配置文件本身损坏时迭代器可能反复报同一个错误
+        while (errors.size() < 100) {
+            try {
+                if (!it.hasNext()) {
+                    break;
+                }
+                detectors.add(it.next());
+            } catch (ServiceConfigurationError | LinkageError e) {
+                errors.add(e.getMessage());
+            }
+        }
+        return new Plugins(detectors, errors, jarLoader);
+    }
+
+    /**
+     * 插件加载结果（持有插件jar的类加载器，close后插件检测器不能再加载新的类）
+     */
+    public static class Plugins implements Closeable {
+        private final List<Detector> detectors;
+        private final List<String> errors;
+        private final URLClassLoader loader;   // 没有插件jar时为null
+
+        Plugins(List<Detector> detectors, List<String> errors, URLClassLoader loader) {
+            this.detectors = Collections.unmodifiableList(detectors);
+            this.errors = Collections.unmodifiableList(errors);
+            this.loader = loader;
+        }
+
+        public List<Detector> getDetectors() { return detectors; }
+        public List<String> getErrors() { return errors; }
+
+        @Override
+        public void close() {
+            if (loader != null) {
+                try {
+                    loader.close();
+                } catch (IOException ignored) {
+                    // 卸载时忽略
+                }
+            }
+        }
+    }
+}
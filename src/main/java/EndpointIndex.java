@@ -0,0 +1,638 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 跨小程序的持久化倒排索引：规范化后的主机、路径和敏感值 → (AppID, 包, 文件) 倒排列表
+ * 每个包解析完成后写入一个只追加的段文件；同一层级的段攒够 MERGE_FACTOR 个时合并为上一层级的一个段
+ * 段内词项按字节序排序并带偏移表，查询时对内存映射的词典二分查找，不把索引读入堆内存
+ * 当前有效段记录在 MANIFEST 中（原子替换），合并后无法删除的旧段（Windows下仍被映射）在下次打开时清理
+ */
+public class EndpointIndex implements AutoCloseable {
+    private static final int MAGIC = 0x4A574958; // "JWIX"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int MERGE_FACTOR = 8;
+    private static final int MAX_VALUE_LENGTH = 256;
+    private static final String MANIFEST = "MANIFEST";
+    private static final String SEGMENT_SUFFIX = ".jwi";
+
+    /**
+     * 词项类型，写入时作为词项前缀
+     */
+    public enum Kind {
+        HOST("h:", "主机"),
+        PATH("p:", "路径"),
+        VALUE("v:", "敏感值");
+
+        private final String prefix;
+        private final String label;
+        Kind(String prefix, String label) {
+            this.prefix = prefix;
+            this.label = label;
+        }
+        public String getLabel() { return label; }
+
+        @Override
+        public String toString() { return label; }
+    }
+
+    private final Path dir;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private long nextSeq;
+
+    private EndpointIndex(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * 打开（不存在则创建）索引目录
+     */
+    public static EndpointIndex open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        EndpointIndex index = new EndpointIndex(dir);
+        Path manifest = dir.resolve(MANIFEST);
+        Set<String> live = new LinkedHashSet<>();
+        if (Files.exists(manifest)) {
+            for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+                if (!line.trim().isEmpty()) {
+                    live.add(line.trim());
+                }
+            }
+        }
+        for (String name : live) {
+            index.segments.add(Segment.open(dir.resolve(name)));
+            index.nextSeq = Math.max(index.nextSeq, Segment.seqOf(name) + 1);
+        }
+        // 清理未登记的段（合并后残留或写入中断）
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                if (!live.contains(file.getFileName().toString())) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException ignored) {
+                        // 仍被其他进程映射，下次再删
+                    }
+                }
+            }
+        }
+        return index;
+    }
+
+    // ========== 写入 ==========
+
+    /**
+     * 把一个包的API和敏感信息结果写入新段
+     * @return 写入的倒排项数
+     */
+    public int add(WxAppletDecompiler decompiler) throws IOException {
+        return add(decompiler.getAppId(), decompiler.getWxapkgFilePath(),
+                decompiler.getApiStore(), decompiler.getSensitiveStore());
+    }
+
+    /**
+     * @param apis API结果（值为接口）
+     * @param sensitive 敏感信息结果（值为匹配内容）
+     */
+    public int add(String appId, String pkg, ResultStore apis, ResultStore sensitive) throws IOException {
+        SegmentBuilder builder = new SegmentBuilder();
+        for (int row = 0; row < apis.size(); row++) {
+            int doc = builder.doc(appId, pkg, apis.getPath(row));
+            String api = apis.getValue(row);
+            builder.add(Kind.HOST, normalizeHost(api), doc);
+            builder.add(Kind.PATH, normalizePath(api), doc);
+        }
+        for (int row = 0; row < sensitive.size(); row++) {
+            int doc = builder.doc(appId, pkg, sensitive.getPath(row));
+            builder.add(Kind.VALUE, normalizeValue(sensitive.getValue(row)), doc);
+        }
+        if (builder.postings == 0) {
+            return 0;
+        }
+        synchronized (this) {
+            Path file = segmentPath(0);
+            builder.write(file);
+            segments.add(Segment.open(file));
+            writeManifest();
+            mergeLevels();
+        }
+        return builder.postings;
+    }
+
+    // 同一层级的段达到合并阈值时合并，逐层向上
+    private void mergeLevels() throws IOException {
+        for (int level = 0; ; level++) {
+            List<Segment> same = new ArrayList<>();
+            for (Segment segment : segments) {
+                if (segment.level == level) {
+                    same.add(segment);
+                }
+            }
+            if (same.isEmpty()) {
+                return;
+            }
+            if (same.size() < MERGE_FACTOR) {
+                continue;
+            }
+            Path file = segmentPath(level + 1);
+            merge(same, file);
+            Segment merged = Segment.open(file);
+            // 先登记新段再移除旧段，查询线程始终能看到完整数据
+            segments.add(merged);
+            segments.removeAll(same);
+            writeManifest();
+            for (Segment old : same) {
+                try {
+                    Files.deleteIfExists(old.file);
+                } catch (IOException ignored) {
+                    // Windows下映射中的文件无法删除，下次打开时清理
+                }
+            }
+        }
+    }
+
+    // 多路归并：词项按字节序合并，文档表去重后重新编号
+    private static void merge(List<Segment> inputs, Path target) throws IOException {
+        SegmentWriter writer = new SegmentWriter();
+        int[][] docMaps = new int[inputs.size()][];
+        for (int s = 0; s < inputs.size(); s++) {
+            Segment segment = inputs.get(s);
+            docMaps[s] = new int[segment.docCount];
+            for (int d = 0; d < segment.docCount; d++) {
+                String[] doc = segment.doc(d);
+                docMaps[s][d] = writer.doc(doc[0], doc[1], doc[2]);
+            }
+        }
+        // 游标：{段下标, 词项下标}，各段当前词项缓存在 current 中，比较时不重复读取
+        byte[][] current = new byte[inputs.size()][];
+        PriorityQueue<int[]> heap = new PriorityQueue<>((x, y) -> Arrays.compareUnsigned(current[x[0]], current[y[0]]));
+        for (int s = 0; s < inputs.size(); s++) {
+            if (inputs.get(s).termCount > 0) {
+                current[s] = inputs.get(s).term(0);
+                heap.add(new int[]{s, 0});
+            }
+        }
+        int[] postings = new int[64];
+        List<int[]> same = new ArrayList<>();
+        while (!heap.isEmpty()) {
+            int[] head = heap.poll();
+            byte[] term = current[head[0]];
+            same.clear();
+            same.add(head);
+            while (!heap.isEmpty() && Arrays.equals(current[heap.peek()[0]], term)) {
+                same.add(heap.poll());
+            }
+            int n = 0;
+            for (int[] cursor : same) {
+                Segment segment = inputs.get(cursor[0]);
+                int[] docs = segment.postings(cursor[1]);
+                if (n + docs.length > postings.length) {
+                    postings = Arrays.copyOf(postings, Math.max(postings.length * 2, n + docs.length));
+                }
+                for (int doc : docs) {
+                    postings[n++] = docMaps[cursor[0]][doc];
+                }
+            }
+            writer.term(term, postings, n);
+            for (int[] cursor : same) {
+                if (++cursor[1] < inputs.get(cursor[0]).termCount) {
+                    current[cursor[0]] = inputs.get(cursor[0]).term(cursor[1]);
+                    heap.add(cursor);
+                }
+            }
+        }
+        writer.write(target);
+    }
+
+    private Path segmentPath(int level) {
+        return dir.resolve(String.format("seg-%d-%010d%s", level, nextSeq++, SEGMENT_SUFFIX));
+    }
+
+    private void writeManifest() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (Segment segment : segments) {
+            content.append(segment.file.getFileName()).append('\n');
+        }
+        Path temp = dir.resolve(MANIFEST + ".tmp");
+        Files.write(temp, content.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, dir.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // ========== 查询 ==========
+
+    /**
+     * 查询词项（按与写入相同的规则规范化），prefix为true时匹配所有以其开头的词项
+     * @param limit 最多返回的命中数（去重后）
+     */
+    public SearchResult search(Kind kind, String query, boolean prefix, int limit) {
+        long start = System.nanoTime();
+        String normalized = switch (kind) {
+            case HOST -> {
+                String host = normalizeHost(query);
+                yield host != null ? host : query.trim().toLowerCase();
+            }
+            case PATH -> normalizePath(query);
+            case VALUE -> normalizeValue(query);
+        };
+        List<Hit> hits = new ArrayList<>();
+        if (normalized == null || normalized.isEmpty()) {
+            return new SearchResult(hits, false, System.nanoTime() - start);
+        }
+        byte[] key = (kind.prefix + normalized).getBytes(StandardCharsets.UTF_8);
+        Set<String> seen = new HashSet<>();
+        boolean truncated = false;
+        outer:
+        for (Segment segment : segments) {
+            for (int t = segment.lowerBound(key); t < segment.termCount; t++) {
+                byte[] term = segment.term(t);
+                if (prefix ? !startsWith(term, key) : !Arrays.equals(term, key)) {
+                    break;
+                }
+                String termText = new String(term, kind.prefix.length(), term.length - kind.prefix.length(), StandardCharsets.UTF_8);
+                for (int doc : segment.postings(t)) {
+                    String[] fields = segment.doc(doc);
+                    if (seen.add(termText + '\0' + fields[0] + '\0' + fields[1] + '\0' + fields[2])) {
+                        if (hits.size() >= limit) {
+                            truncated = true;
+                            break outer;
+                        }
+                        hits.add(new Hit(termText, fields[0], fields[1], fields[2]));
+                    }
+                }
+            }
+        }
+        return new SearchResult(hits, truncated, System.nanoTime() - start);
+    }
+
+    public int getSegmentCount() { return segments.size(); }
+
+    public long getTermCount() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.termCount;
+        }
+        return total;
+    }
+
+    public long getPostingCount() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.postingCount;
+        }
+        return total;
+    }
+
+    public Path getDirectory() { return dir; }
+
+    @Override
+    public synchronized void close() throws IOException {
+        // 段不持有通道，映射随段对象回收
+        segments.clear();
+    }
+
+    // ========== 规范化 ==========
+
+    /**
+     * 完整URL（含 // 开头）的主机名：小写，去掉端口和用户信息；相对路径返回null
+     */
+    static String normalizeHost(String api) {
+        String value = api.trim().toLowerCase();
+        int scheme = value.startsWith("//") ? 0 : value.indexOf("://");
+        if (scheme < 0) {
+            return null;
+        }
+        int start = value.startsWith("//") ? 2 : scheme + 3;
+        int end = start;
+        while (end < value.length() && "/?#".indexOf(value.charAt(end)) < 0) {
+            end++;
+        }
+        String host = value.substring(start, end);
+        host = host.substring(host.lastIndexOf('@') + 1);
+        int port = host.lastIndexOf(':');
+        if (port >= 0 && host.indexOf(']') < port) {
+            host = host.substring(0, port);
+        }
+        return host.isEmpty() ? null : host;
+    }
+
+    /**
+     * 路径：去掉协议主机、查询参数和片段，去掉 ./ ../ 前缀，合并重复的/，去掉结尾/，小写
+     */
+    static String normalizePath(String api) {
+        String value = api.trim();
+        if (value.startsWith("//") || value.contains("://")) {
+            int start = value.startsWith("//") ? 2 : value.indexOf("://") + 3;
+            int slash = value.indexOf('/', start);
+            value = slash < 0 ? "" : value.substring(slash);
+        }
+        int cut = value.length();
+        for (char c : new char[]{'?', '#'}) {
+            int at = value.indexOf(c);
+            if (at >= 0) {
+                cut = Math.min(cut, at);
+            }
+        }
+        value = value.substring(0, cut);
+        while (value.startsWith("./") || value.startsWith("../")) {
+            value = value.substring(value.indexOf('/') + 1);
+        }
+        value = ("/" + value).replaceAll("/{2,}", "/");
+        if (value.length() > 1 && value.endsWith("/")) {
+            value = value.substring(0, value.length() - 1);
+        }
+        return value.equals("/") ? null : value.toLowerCase();
+    }
+
+    static String normalizeValue(String value) {
+        String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        return trimmed.length() > MAX_VALUE_LENGTH ? trimmed.substring(0, MAX_VALUE_LENGTH) : trimmed;
+    }
+
+    private static boolean startsWith(byte[] term, byte[] prefix) {
+        return term.length >= prefix.length && Arrays.equals(term, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    // ========== 段写入 ==========
+
+    // 单个包的结果：词项 → 文档集合，写出前排序
+    private static class SegmentBuilder {
+        private final SegmentWriter writer = new SegmentWriter();
+        private final Map<String, BitSet> terms = new HashMap<>();
+        private int postings;
+
+        int doc(String appId, String pkg, String file) {
+            return writer.doc(appId, pkg, file);
+        }
+
+        void add(Kind kind, String value, int doc) {
+            if (value == null) {
+                return;
+            }
+            BitSet docs = terms.computeIfAbsent(kind.prefix + value, k -> new BitSet());
+            if (!docs.get(doc)) {
+                docs.set(doc);
+                postings++;
+            }
+        }
+
+        void write(Path file) throws IOException {
+            List<byte[]> keys = new ArrayList<>(terms.size());
+            Map<byte[], BitSet> byBytes = new IdentityHashMap<>();
+            for (Map.Entry<String, BitSet> entry : terms.entrySet()) {
+                byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                keys.add(key);
+                byBytes.put(key, entry.getValue());
+            }
+            keys.sort(Arrays::compareUnsigned);
+            for (byte[] key : keys) {
+                int[] docs = byBytes.get(key).stream().toArray();
+                writer.term(key, docs, docs.length);
+            }
+            writer.write(file);
+        }
+    }
+
+    /**
+     * 段文件格式（大端）：
+     * 头部 magic, version, termCount, docCount, postingCount(long), termTablePos, docTablePos
+     * 词项区 [len][utf8][n][docId × n]（按字节序）… 词项偏移表 int × termCount
+     * 文档区 [len][appId][len][包][len][文件] … 文档偏移表 int × docCount
+     */
+    private static class SegmentWriter {
+        private final ByteArrayOutputStream termBytes = new ByteArrayOutputStream();
+        private final DataOutputStream terms = new DataOutputStream(termBytes);
+        private int[] termOffsets = new int[256];
+        private int termCount;
+        private final Map<String, Integer> docIds = new HashMap<>();
+        private final List<String[]> docs = new ArrayList<>();
+        private long postingCount;
+
+        int doc(String appId, String pkg, String file) {
+            String key = appId + '\0' + pkg + '\0' + file;
+            Integer id = docIds.get(key);
+            if (id == null) {
+                id = docs.size();
+                docIds.put(key, id);
+                docs.add(new String[]{appId, pkg, file});
+            }
+            return id;
+        }
+
+        // postings可重复、无序，写出前排序去重
+        void term(byte[] term, int[] postings, int n) throws IOException {
+            int[] sorted = Arrays.copyOf(postings, n);
+            Arrays.sort(sorted);
+            int unique = 0;
+            for (int i = 0; i < n; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    sorted[unique++] = sorted[i];
+                }
+            }
+            if (termCount == termOffsets.length) {
+                termOffsets = Arrays.copyOf(termOffsets, termCount * 2);
+            }
+            termOffsets[termCount++] = HEADER_SIZE + terms.size();
+            terms.writeInt(term.length);
+            terms.write(term);
+            terms.writeInt(unique);
+            for (int i = 0; i < unique; i++) {
+                terms.writeInt(sorted[i]);
+            }
+            postingCount += unique;
+        }
+
+        void write(Path file) throws IOException {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024))) {
+                terms.flush();
+                int termTablePos = HEADER_SIZE + termBytes.size();
+                int docsPos = termTablePos + termCount * 4;
+                ByteArrayOutputStream docBytes = new ByteArrayOutputStream();
+                DataOutputStream docOut = new DataOutputStream(docBytes);
+                int[] docOffsets = new int[docs.size()];
+                for (int i = 0; i < docs.size(); i++) {
+                    docOffsets[i] = docsPos + docOut.size();
+                    for (String field : docs.get(i)) {
+                        byte[] bytes = (field == null ? "" : field).getBytes(StandardCharsets.UTF_8);
+                        docOut.writeInt(bytes.length);
+                        docOut.write(bytes);
+                    }
+                }
+                docOut.flush();
+                int docTablePos = docsPos + docBytes.size();
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(termCount);
+                out.writeInt(docs.size());
+                out.writeLong(postingCount);
+                out.writeInt(termTablePos);
+                out.writeInt(docTablePos);
+                termBytes.writeTo(out);
+                for (int i = 0; i < termCount; i++) {
+                    out.writeInt(termOffsets[i]);
+                }
+                docBytes.writeTo(out);
+                for (int offset : docOffsets) {
+                    out.writeInt(offset);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    // ========== 段读取（内存映射） ==========
+    private static class Segment {
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private final int level;
+        private final int termCount;
+        private final int docCount;
+        private final long postingCount;
+        private final int termTablePos;
+        private final int docTablePos;
+
+        // 映射建立后即关闭通道（映射在通道关闭后仍然有效），段不占用文件描述符，合并后丢弃即可
+        private Segment(Path file) throws IOException {
+            this.file = file;
+            this.level = levelOf(file.getFileName().toString());
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("索引段格式错误：" + file);
+            }
+            this.termCount = buffer.getInt(8);
+            this.docCount = buffer.getInt(12);
+            this.postingCount = buffer.getLong(16);
+            this.termTablePos = buffer.getInt(24);
+            this.docTablePos = buffer.getInt(28);
+        }
+
+        static Segment open(Path file) throws IOException {
+            return new Segment(file);
+        }
+
+        // 文件名 seg-<层级>-<序号>.jwi
+        static int levelOf(String name) {
+            return Integer.parseInt(name.split("-")[1]);
+        }
+
+        static long seqOf(String name) {
+            String seq = name.split("-")[2];
+            return Long.parseLong(seq.substring(0, seq.length() - SEGMENT_SUFFIX.length()));
+        }
+
+        byte[] term(int t) {
+            int pos = buffer.getInt(termTablePos + t * 4);
+            byte[] term = new byte[buffer.getInt(pos)];
+            buffer.get(pos + 4, term);
+            return term;
+        }
+
+        int[] postings(int t) {
+            int pos = buffer.getInt(termTablePos + t * 4);
+            pos += 4 + buffer.getInt(pos);
+            int[] docs = new int[buffer.getInt(pos)];
+            for (int i = 0; i < docs.length; i++) {
+                docs[i] = buffer.getInt(pos + 4 + i * 4);
+            }
+            return docs;
+        }
+
+        String[] doc(int d) {
+            int pos = buffer.getInt(docTablePos + d * 4);
+            String[] fields = new String[3];
+            for (int i = 0; i < 3; i++) {
+                byte[] bytes = new byte[buffer.getInt(pos)];
+                buffer.get(pos + 4, bytes);
+                fields[i] = new String(bytes, StandardCharsets.UTF_8);
+                pos += 4 + bytes.length;
+            }
+            return fields;
+        }
+
+        // 第一个 ≥ key 的词项下标（直接比较映射区中的字节，不创建词项数组）
+        int lowerBound(byte[] key) {
+            int low = 0;
+            int high = termCount;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compareTerm(mid, key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int compareTerm(int t, byte[] key) {
+            int pos = buffer.getInt(termTablePos + t * 4);
+            int length = buffer.getInt(pos);
+            int common = Math.min(length, key.length);
+            for (int i = 0; i < common; i++) {
+                int c = Integer.compare(buffer.get(pos + 4 + i) & 0xFF, key[i] & 0xFF);
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return Integer.compare(length, key.length);
+        }
+    }
+
+    // ========== 查询结果 ==========
+    public static class Hit {
+        private final String term;
+        private final String appId;
+        private final String pkg;
+        private final String file;
+
+        public Hit(String term, String appId, String pkg, String file) {
+            this.term = term;
+            this.appId = appId;
+            this.pkg = pkg;
+            this.file = file;
+        }
+
+        public String getTerm() { return term; }
+        public String getAppId() { return appId; }
+        public String getPackage() { return pkg; }
+        public String getFile() { return file; }
+    }
+
+    public static class SearchResult {
+        private final List<Hit> hits;
+        private final boolean truncated;
+        private final long elapsedNanos;
+
+        public SearchResult(List<Hit> hits, boolean truncated, long elapsedNanos) {
+            this.hits = hits;
+            this.truncated = truncated;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public List<Hit> getHits() { return hits; }
+        public boolean isTruncated() { return truncated; }
+        public long getElapsedNanos() { return elapsedNanos; }
+    }
+}
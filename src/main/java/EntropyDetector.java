@@ -0,0 +1,228 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.util.*;
+
+/**
+ * 高熵字符串检测：找出字符串字面量中连续的 base64/hex 字符片段，
+ * 用固定窗口滑动计算香农熵（整型直方图 + n·log2(n) 查表增量更新，逐字符无对象分配），
+ * 任一窗口超过该字符集阈值即视为疑似密钥/令牌，用于发现不符合命名正则的随机API Key
+ * 与其他规则在同一次文件扫描中执行（使用检测引擎共享的字符串字面量区间），结果按敏感信息行输出
+ */
+public class EntropyDetector implements Detector {
+    public static final String CHARSET_BASE64 = "base64";
+    public static final String CHARSET_HEX = "hex";
+    public static final String RULE_NAME = "高熵字符串";
+
+    // 默认阈值（位/字符）：窗口24时随机base64约4.2，随机hex约3.5，普通标识符和路径明显更低
+    public static final Map<String, Double> DEFAULT_THRESHOLDS = Map.of(CHARSET_BASE64, 4.0, CHARSET_HEX, 3.2);
+    // 默认白名单：框架中常见的编码表、字符表常量
+    public static final Set<String> DEFAULT_ALLOWLIST = new LinkedHashSet<>(Arrays.asList(
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/=",
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_",
+            "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789",
+            "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ",
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz",
+            "0123456789abcdefghijklmnopqrstuvwxyz",
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ",
+            "0123456789abcdef",
+            "0123456789ABCDEF"
+    ));
+
+    private static final int WINDOW = 24;
+    private static final int MIN_LENGTH = 20;
+    private static final int MAX_LENGTH = 512;
+    // n·log2(n) 查表，n ≤ WINDOW
+    private static final double[] N_LOG_N = new double[WINDOW + 1];
+    static {
+        for (int n = 1; n <= WINDOW; n++) {
+            N_LOG_N[n] = n * (Math.log(n) / Math.log(2));
+        }
+    }
+
+    /**
+     * 命中回调：片段在内容中的区间、字符集和最高窗口熵
+     */
+    public interface Sink {
+        void onSecret(int start, int end, String charset, double entropy);
+    }
+
+    private final double base64Threshold;
+    private final double hexThreshold;
+    private final Set<String> allowlist;
+
+    /**
+     * @param thresholds 字符集 → 阈值（base64/hex），缺省使用默认值，≤0 关闭该字符集
+     * @param allowlist 白名单（片段与任一条目互相包含即忽略），null使用默认
+     */
+    public EntropyDetector(Map<String, Double> thresholds, Set<String> allowlist) {
+        this.base64Threshold = threshold(thresholds, CHARSET_BASE64);
+        this.hexThreshold = threshold(thresholds, CHARSET_HEX);
+        this.allowlist = allowlist != null ? new LinkedHashSet<>(allowlist) : DEFAULT_ALLOWLIST;
+    }
+
+    public EntropyDetector() {
+        this(null, null);
+    }
+
+    private static double threshold(Map<String, Double> thresholds, String charset) {
+        Double value = thresholds != null ? thresholds.get(charset) : null;
+        return value != null ? value : DEFAULT_THRESHOLDS.get(charset);
+    }
+
+    public boolean isEnabled() {
+        return base64Threshold > 0 || hexThreshold > 0;
+    }
+
+    @Override
+    public String getName() { return RULE_NAME; }
+
+    @Override
+    public Input getInput() { return Input.LITERALS; }
+
+    // 只看字面量内的字符，约为正则规则的1/4
+    @Override
+    public long getEstimatedCost() { return 5_000; }
+
+    @Override
+    public int detect(Context context, Detector.Sink sink) {
+        CharSequence content = context.getText();
+        return scanLiterals(content, context.getLiterals(), (start, end, charset, entropy) ->
+                sink.sensitive(RULE_NAME + "(" + charset + ")", content.subSequence(start, end).toString(), start));
+    }
+
+    /**
+     * 扫描内容中所有字符串字面量（"、'、`），返回命中数
+     */
+    public int scan(CharSequence content, Sink sink) {
+        return scanLiterals(content, new Context(null, null, 0, 0, content, null).getLiterals(), sink);
+    }
+
+    /**
+     * 扫描给定的字面量区间（Context.getLiterals() 的格式）
+     */
+    public int scanLiterals(CharSequence content, int[] literals, Sink sink) {
+        if (!isEnabled()) {
+            return 0;
+        }
+        int[] histogram = new int[128];
+        char[] window = new char[WINDOW];
+        int matches = 0;
+        for (int s = 0; s < literals.length; s += 2) {
+            int end = literals[s + 1];
+            int runStart = -1;
+            for (int i = literals[s]; i < end; i++) {
+                char c = content.charAt(i);
+                if (isBase64Char(c)) {
+                    if (runStart < 0) {
+                        runStart = i;
+                    }
+                    continue;
+                }
+                // 片段结束（遇到非字符集字符），反斜杠转义的字符不计入
+                if (runStart >= 0) {
+                    matches += check(content, runStart, i, histogram, window, sink);
+                    runStart = -1;
+                }
+                if (c == '\\') {
+                    i++;
+                }
+            }
+            if (runStart >= 0) {
+                matches += check(content, runStart, end, histogram, window, sink);
+            }
+        }
+        return matches;
+    }
+
+    // 检查一个候选片段 [start, end)
+    private int check(CharSequence content, int start, int end, int[] histogram, char[] window, Sink sink) {
+        int length = end - start;
+        if (length < MIN_LENGTH || length > MAX_LENGTH) {
+            return 0;
+        }
+        boolean hex = true;
+        boolean digit = false;
+        boolean letter = false;
+        for (int i = start; i < end; i++) {
+            char c = content.charAt(i);
+            digit |= c >= '0' && c <= '9';
+            letter |= (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+            hex &= isHexChar(c);
+        }
+        // 随机令牌几乎总是字母数字混合，纯单词/纯数字直接跳过；以/开头的是接口路径
+        if (!digit || !letter || content.charAt(start) == '/') {
+            return 0;
+        }
+        double threshold = hex ? hexThreshold : base64Threshold;
+        if (threshold <= 0) {
+            return 0;
+        }
+        double entropy = maxWindowEntropy(content, start, end, histogram, window);
+        if (entropy < threshold || isAllowed(content, start, end)) {
+            return 0;
+        }
+        sink.onSecret(start, end, hex ? CHARSET_HEX : CHARSET_BASE64, entropy);
+        return 1;
+    }
+
+    /**
+     * 滑动窗口的最大香农熵：H = log2(W) - Σ n·log2(n) / W，窗口移动时只更新进出两个字符的计数
+     */
+    private static double maxWindowEntropy(CharSequence content, int start, int end, int[] histogram, char[] window) {
+        int size = Math.min(WINDOW, end - start);
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            char c = content.charAt(start + i);
+            window[i] = c;
+            sum += N_LOG_N[histogram[c] + 1] - N_LOG_N[histogram[c]];
+            histogram[c]++;
+        }
+        double log2Size = Math.log(size) / Math.log(2);
+        double max = log2Size - sum / size;
+        for (int i = start + size; i < end; i++) {
+            char out = window[(i - start) % size];
+            char in = content.charAt(i);
+            window[(i - start) % size] = in;
+            sum += N_LOG_N[histogram[out] - 1] - N_LOG_N[histogram[out]];
+            histogram[out]--;
+            sum += N_LOG_N[histogram[in] + 1] - N_LOG_N[histogram[in]];
+            histogram[in]++;
+            max = Math.max(max, log2Size - sum / size);
+        }
+        // 清空直方图供下一个片段复用
+        for (int i = 0; i < size; i++) {
+            histogram[window[i]] = 0;
+        }
+        return max;
+    }
+
+    private boolean isAllowed(CharSequence content, int start, int end) {
+        String value = content.subSequence(start, end).toString();
+        for (String allowed : allowlist) {
+            if (allowed.contains(value) || value.contains(allowed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBase64Char(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '+' || c == '/' || c == '=' || c == '-' || c == '_';
+    }
+
+    private static boolean isHexChar(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+}
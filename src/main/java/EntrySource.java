@@ -0,0 +1,57 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 可按文件随机读取的包内容（原始wxapkg或单文件归档输出），包浏览共用
+ */
+public interface EntrySource extends Closeable {
+    File getFile();
+
+    List<WxAppletDecompiler.FileMeta> getEntries();
+
+    /**
+     * 读取单个文件的前 limit 字节
+     */
+    byte[] read(WxAppletDecompiler.FileMeta meta, int limit) throws IOException;
+
+    /**
+     * 实际读取的字节数（验证按需读取）
+     */
+    long getBytesRead();
+
+    /**
+     * 状态栏显示的类型说明
+     */
+    String describe();
+
+    default byte[] read(WxAppletDecompiler.FileMeta meta) throws IOException {
+        return read(meta, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 导出单个文件
+     */
+    default void extract(WxAppletDecompiler.FileMeta meta, Path target) throws IOException {
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        Files.write(target, read(meta));
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 解包写出：目录树根据索引一次性创建，文件按大小分批交给解包线程，
+ * 每个线程复用一块直接缓冲区通过FileChannel写出，避免每个文件重复 stat/mkdir
+ * 同时统计实际发出的系统调用次数（mkdir/open/write/close）
+ */
+public class EntryWriter {
+    // 每个线程复用的写缓冲区，超过的文件分段写出
+    private static final int BUFFER_SIZE = 256 * 1024;
+    // 单批最多的字节数/文件数（大文件单独成批）
+    private static final long BATCH_BYTES = 1024 * 1024;
+    private static final int BATCH_ENTRIES = 128;
+    private static final ThreadLocal<ByteBuffer> BUFFERS =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private final String outputPath;
+    private final byte[] data;
+    private final int length;
+    private final LongAdder syscalls = new LongAdder();
+    private final LongAdder entriesWritten = new LongAdder();
+    private int directoriesCreated;
+
+    /**
+     * @param outputPath 解包输出目录
+     * @param data 解密后的完整包数据
+     */
+    public EntryWriter(String outputPath, byte[] data) {
+        this(outputPath, data, data.length);
+    }
+
+    /**
+     * @param length data 中的有效字节数（池中借用的缓冲区可能更长）
+     */
+    public EntryWriter(String outputPath, byte[] data, int length) {
+        this.outputPath = outputPath;
+        this.data = data;
+        this.length = length;
+    }
+
+    public long getSyscalls() { return syscalls.sum(); }
+    public long getEntriesWritten() { return entriesWritten.sum(); }
+    public int getDirectoriesCreated() { return directoriesCreated; }
+
+    /**
+     * 根据索引一次性创建全部目录：去重后按路径排序，父目录总在子目录之前，每个目录只 mkdir 一次
+     */
+    public void prepareDirectories(List<WxAppletDecompiler.FileMeta> entries) throws IOException {
+        Path root = Paths.get(outputPath).normalize();
+        Files.createDirectories(root);
+        syscalls.increment();
+        TreeSet<Path> dirs = new TreeSet<>();
+        for (WxAppletDecompiler.FileMeta meta : entries) {
+            Path parent = target(meta).getParent();
+            // 逐级加入父目录，已加入的祖先不再重复遍历
+            while (parent != null && parent.startsWith(root) && !parent.equals(root) && dirs.add(parent)) {
+                parent = parent.getParent();
+            }
+        }
+        for (Path dir : dirs) {
+            try {
+                Files.createDirectory(dir);
+                directoriesCreated++;
+            } catch (FileAlreadyExistsException ignored) {
+                // 已存在（例如重复解包到同一目录）
+            }
+            syscalls.increment();
+        }
+    }
+
+    /**
+     * 按大小分批：从大到小排序，大文件单独一批，小文件凑满 BATCH_BYTES 或 BATCH_ENTRIES 为一批
+     * 大文件先提交，避免最后只剩一个线程在写大文件
+     */
+    public List<List<WxAppletDecompiler.FileMeta>> batches(List<WxAppletDecompiler.FileMeta> entries) {
+        List<WxAppletDecompiler.FileMeta> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingLong(WxAppletDecompiler.FileMeta::getSize).reversed());
+        List<List<WxAppletDecompiler.FileMeta>> result = new ArrayList<>();
+        List<WxAppletDecompiler.FileMeta> current = new ArrayList<>();
+        long currentBytes = 0;
+        for (WxAppletDecompiler.FileMeta meta : sorted) {
+            if (!current.isEmpty() && (currentBytes + meta.getSize() > BATCH_BYTES || current.size() >= BATCH_ENTRIES)) {
+                result.add(current);
+                current = new ArrayList<>();
+                currentBytes = 0;
+            }
+            current.add(meta);
+            currentBytes += meta.getSize();
+        }
+        if (!current.isEmpty()) {
+            result.add(current);
+        }
+        return result;
+    }
+
+    /**
+     * 写出一批文件（目录需已由 prepareDirectories 创建）
+     * @param cancelled 取消检查，每个文件写出前调用
+     * @return 出错的文件及原因（文件名 → 错误信息）
+     */
+    public Map<String, String> writeBatch(List<WxAppletDecompiler.FileMeta> batch, BooleanSupplier cancelled) {
+        Map<String, String> errors = new LinkedHashMap<>();
+        ByteBuffer buffer = BUFFERS.get();
+        for (WxAppletDecompiler.FileMeta meta : batch) {
+            if (cancelled.getAsBoolean()) {
+                break;
+            }
+            long offset = meta.getOffset();
+            long size = meta.getSize();
+            if (offset + size > length) {
+                errors.put(meta.getName(), "文件数据越界");
+                continue;
+            }
+            try {
+                write(target(meta), (int) offset, (int) size, buffer);
+                entriesWritten.increment();
+            } catch (IOException e) {
+                errors.put(meta.getName(), e.getMessage());
+            }
+        }
+        return errors;
+    }
+
+    private void write(Path file, int offset, int size, ByteBuffer buffer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            syscalls.increment();
+            int written = 0;
+            while (written < size) {
+                int chunk = Math.min(buffer.capacity(), size - written);
+                buffer.clear();
+                buffer.put(data, offset + written, chunk);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                    syscalls.increment();
+                }
+                written += chunk;
+            }
+        }
+        syscalls.increment();
+    }
+
+    // 与原有写出路径一致：输出目录 + 索引中的文件名
+    private Path target(WxAppletDecompiler.FileMeta meta) {
+        return Paths.get(outputPath + File.separator + meta.getName()).normalize();
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 索引搜索：在持久化倒排索引（EndpointIndex）中按主机、路径或敏感值查询，
+ * 列出历史上扫描过的所有小程序中出现该项的 AppID/包/文件，不需要重新扫描
+ */
+public class IndexSearchPanel {
+    // 单次查询最多展示的命中数
+    private static final int RESULT_LIMIT = 10000;
+
+    private final EndpointIndex index;
+    private final JPanel panel = new JPanel(new BorderLayout(0, 5));
+    private final JTextField queryField = new JTextField(40);
+    private final JComboBox<EndpointIndex.Kind> kindBox = new JComboBox<>(EndpointIndex.Kind.values());
+    private final JCheckBox prefixCheckBox = new JCheckBox("前缀匹配");
+    private final JLabel statusLabel = new JLabel(" ");
+    private final HitTableModel tableModel = new HitTableModel();
+
+    /**
+     * @param index 索引（打开失败时为null，面板只显示提示）
+     */
+    public IndexSearchPanel(EndpointIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * 构建面板并注册监听（加入标签页时调用一次）
+     */
+    public Component getUiComponent() {
+        JButton searchBtn = new JButton("搜索");
+        searchBtn.addActionListener(e -> search());
+        queryField.addActionListener(e -> search());
+        queryField.setToolTipText("主机可直接粘贴完整URL；路径会去掉参数并统一为小写");
+        prefixCheckBox.setToolTipText("匹配所有以输入内容开头的项，例如路径 /api/user 匹配 /api/user/login");
+        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        topPanel.add(new JLabel("🔎 "));
+        topPanel.add(kindBox);
+        topPanel.add(queryField);
+        topPanel.add(prefixCheckBox);
+        topPanel.add(searchBtn);
+
+        JTable table = new JTable(tableModel);
+        table.setAutoCreateRowSorter(true);
+        int[] widths = {300, 160, 300, 300};
+        for (int i = 0; i < widths.length; i++) {
+            table.getColumnModel().getColumn(i).setPreferredWidth(widths[i]);
+        }
+
+        statusLabel.setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
+        panel.add(topPanel, BorderLayout.NORTH);
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        panel.add(statusLabel, BorderLayout.SOUTH);
+        if (index == null) {
+            searchBtn.setEnabled(false);
+            statusLabel.setText("❌ 索引不可用（打开索引目录失败，详见插件错误日志）");
+        } else {
+            updateStatus(null);
+        }
+        return panel;
+    }
+
+    private void search() {
+        String query = queryField.getText().trim();
+        if (index == null || query.isEmpty()) {
+            return;
+        }
+        EndpointIndex.Kind kind = (EndpointIndex.Kind) kindBox.getSelectedItem();
+        boolean prefix = prefixCheckBox.isSelected();
+        new SwingWorker<EndpointIndex.SearchResult, Void>() {
+            @Override
+            protected EndpointIndex.SearchResult doInBackground() {
+                return index.search(kind, query, prefix, RESULT_LIMIT);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    EndpointIndex.SearchResult result = get();
+                    tableModel.setHits(result.getHits());
+                    updateStatus(result);
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    statusLabel.setText("❌ 查询失败：" + cause.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private void updateStatus(EndpointIndex.SearchResult result) {
+        String summary = String.format("索引：%d 个段 ｜ %d 个词项 ｜ %d 条倒排 ｜ %s",
+                index.getSegmentCount(), index.getTermCount(), index.getPostingCount(), index.getDirectory());
+        if (result == null) {
+            statusLabel.setText(summary);
+            return;
+        }
+        statusLabel.setText(String.format("命中 %d 条%s ｜ 耗时 %.2fms ｜ %s", result.getHits().size(),
+                result.isTruncated() ? "（仅显示前" + RESULT_LIMIT + "条）" : "",
+                result.getElapsedNanos() / 1_000_000.0, summary));
+    }
+
+    // ========== 结果表格 ==========
+    @SuppressWarnings("serial")
+    private static class HitTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"命中项", "AppID", "来源包", "文件"};
+        private List<EndpointIndex.Hit> hits = new ArrayList<>();
+
+        void setHits(List<EndpointIndex.Hit> hits) {
+            this.hits = hits;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() { return hits.size(); }
+
+        @Override
+        public int getColumnCount() { return COLUMNS.length; }
+
+        @Override
+        public String getColumnName(int column) { return COLUMNS[column]; }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            EndpointIndex.Hit hit = hits.get(rowIndex);
+            return switch (columnIndex) {
+                case 0 -> hit.getTerm();
+                case 1 -> hit.getAppId();
+                case 2 -> hit.getPackage();
+                default -> hit.getFile();
+            };
+        }
+    }
+}
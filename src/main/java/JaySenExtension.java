@@ -34,7 +34,22 @@ public class JaySenExtension implements BurpExtension {
                 Version: V1.0
                 """);
         // 注册标签页面
-        JaySenSuiteTab jaysenSuiteTab = new JaySenSuiteTab();
+        JaySenSuiteTab jaysenSuiteTab = new JaySenSuiteTab(montoyaApi);
         montoyaApi.userInterface().registerSuiteTab("JaySenWxapkg", jaysenSuiteTab.getUiComponent());
+        // 代理捕获wxapkg（默认关闭，在界面勾选后生效）：队列最多8个包，单包上限64MB
+        WxapkgCaptureHandler captureHandler = new WxapkgCaptureHandler(montoyaApi.logging(),
+                jaysenSuiteTab::newCaptureDecompiler, jaysenSuiteTab::showCapturedResult, 8, 64L * 1024 * 1024);
+        montoyaApi.http().registerHttpHandler(captureHandler);
+        jaysenSuiteTab.setCaptureHandler(captureHandler);
+        // 卸载插件时停止后台解析并清理未完成的输出
+        montoyaApi.extension().registerUnloadingHandler(() -> {
+            jaysenSuiteTab.cancelRunning();
+            jaysenSuiteTab.stopStatsTimer();
+            jaysenSuiteTab.closeSearchBars();
+            captureHandler.close();
+            jaysenSuiteTab.closeIndex();
+            BufferPool.SHARED.trim();
+            DetectorEngine.closePlugins();
+        });
     }
 }
\ No newline at end of file
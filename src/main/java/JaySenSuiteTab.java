@@ -11,14 +11,22 @@
  * GitHub：https://github.com/Jaysen13/jaysenwxapkg
  * 许可证详情：参见项目根目录 LICENSE 文件
  */
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.proxy.ProxyHttpRequestResponse;
+
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
+import javax.swing.table.AbstractTableModel;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.StringSelection;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.List;
 import java.util.regex.Pattern;
@@ -38,11 +46,48 @@ public class JaySenSuiteTab {
     private JTextArea sensitiveRegexArea;   // 敏感信息正则
     private JTextField suffixBlacklistField;// 后缀黑名单
     private JTextField prefixBlacklistField; // 接口前缀过滤黑名单
+    // 批量结果聚合（表格默认展示去重后的结果）
+    private final ResultAggregator aggregator = new ResultAggregator();
+    private ResultTableModel apiTableModel;
+    private ResultTableModel sensitiveTableModel;
+    // 运行统计（统计页面定时刷新）
+    private final PipelineMetrics metrics = new PipelineMetrics();
+    private javax.swing.Timer statsTimer;
+    // 当前批量解析（取消按钮和统计页面使用）
+    private volatile BatchRunner activeRunner;
+    private JSpinner parallelSpinner;   // 同时解析的包数
+    private JSpinner budgetSpinner;     // 内存预算(MB)
+    private JSpinner depthSpinner;      // 目录遍历深度（0不限制）
+    private JCheckBox followLinksCheckBox;  // 遍历时跟随符号链接
+    private JComboBox<PackageScheduler.Policy> policyBox;  // 处理顺序
+    private JTextField pinnedAppIdField;    // 置顶AppID（逗号分隔）
+    private JTextField wxidCandidatesField; // 候选AppID（路径中没有AppID的加密包从中查找密钥）
+    private JCheckBox archiveCheckBox;  // 单文件归档输出
+    private JCheckBox moduleFilesCheckBox;  // app-service.js模块落盘
+    private JCheckBox captureCheckBox;  // 捕获代理流量中的wxapkg
+    private WxapkgCaptureHandler captureHandler;
+    // API存活探测结果（按API值），聚合视图中显示
+    private final Map<String, ApiProber.ProbeResult> probeResults = new java.util.concurrent.ConcurrentHashMap<>();
+    private volatile ApiProber activeProber;
+    // 跨批次的持久化倒排索引（打开失败时为null）
+    private EndpointIndex endpointIndex;
+    // 结果保存到Burp项目数据，首次打开页面时恢复（无Burp环境时为null）
+    private ResultPersistence persistence;
+    private SwingWorker<Void, ResultPersistence.Chunk> restoreWorker;
+    private int restoreCount;   // 打开项目时已有的块数，之后新增的块已经实时展示过
+    private final MontoyaApi montoyaApi;
+
+    public JaySenSuiteTab(MontoyaApi montoyaApi) {
+        this.montoyaApi = montoyaApi;
+    }
 
     // ========== 核心方法：返回UI组件 ==========
     public Component getUiComponent() {
         // 1. 先加载保存的配置（初始化UI用）
         Config.SavedConfig savedConfig = Config.loadConfigFile();
+        endpointIndex = openIndex();
+        persistence = openPersistence();
+        restoreCount = persistence != null ? persistence.getChunkCount() : 0;
 
         // 2. 主面板（左右分割布局）
         JSplitPane mainSplitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT);
@@ -102,6 +147,53 @@ public class JaySenSuiteTab {
             }
         });
 
+        // 并发和内存预算（Burp堆内存与其他插件共用，默认只用最大堆的1/4）
+        int cores = Runtime.getRuntime().availableProcessors();
+        parallelSpinner = new JSpinner(new SpinnerNumberModel(Math.min(4, cores), 1, Math.max(cores * 2, 4), 1));
+        long maxHeapMb = Runtime.getRuntime().maxMemory() / 1024 / 1024;
+        budgetSpinner = new JSpinner(new SpinnerNumberModel((int) Math.max(64, maxHeapMb / 4), 16, (int) Math.max(64, maxHeapMb), 64));
+        // 目录遍历：边遍历边解析，深度和符号链接可配置
+        depthSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 64, 1));
+        depthSpinner.setToolTipText("目录遍历最大深度，所选目录下的文件为第1层，0表示不限制");
+        followLinksCheckBox = new JCheckBox("跟随链接");
+        followLinksCheckBox.setToolTipText("遍历时进入符号链接/快捷方式指向的目录（成环的链接会跳过并记录到错误日志）");
+        // 处理顺序：置顶AppID始终最先，其次按所选策略（排队过久的包会被提前，不会饿死）
+        policyBox = new JComboBox<>(new PackageScheduler.Policy[]{PackageScheduler.Policy.MAIN_FIRST,
+                PackageScheduler.Policy.SMALLEST_FIRST, PackageScheduler.Policy.NEWEST_FIRST});
+        policyBox.setToolTipText("决定先解析哪些包：主包通常包含大部分接口，小包最快出结果");
+        pinnedAppIdField = new JTextField(16);
+        pinnedAppIdField.setToolTipText("置顶的AppID（逗号分隔），这些小程序的包最先解析");
+        // 路径中没有AppID的加密包：从候选中并行查找密钥（附近目录名、同批其他包路径、代理历史会自动加入）
+        wxidCandidatesField = new JTextField(16);
+        wxidCandidatesField.setToolTipText("加密包路径中没有AppID时，从这些AppID中查找密钥（逗号分隔）；"
+                + "包附近的目录名、同批其他包路径和代理历史中的AppID会自动加入");
+        // 归档输出：每个包只生成一个zip，减少小文件创建/删除
+        archiveCheckBox = new JCheckBox("归档输出");
+        archiveCheckBox.setToolTipText("每个包解包为单个zip（可在「包浏览」中打开），不再生成大量零散文件");
+        // app-service.js 总是按模块拆分扫描，勾选后模块额外按原始路径写到解包目录
+        moduleFilesCheckBox = new JCheckBox("模块落盘");
+        moduleFilesCheckBox.setToolTipText("把app-service.js中define的模块按原始路径写成文件（归档输出时不生效）");
+        // 代理捕获：微信走Burp代理时，下载的wxapkg直接在内存中解析（插件注册处理器后可用）
+        captureCheckBox = new JCheckBox("捕获代理wxapkg");
+        captureCheckBox.setToolTipText("识别代理响应中的wxapkg并直接在内存中解析，结果追加到下方各结果页");
+        captureCheckBox.setEnabled(false);
+        captureCheckBox.addActionListener(e -> {
+            if (captureHandler != null) {
+                captureHandler.setEnabled(captureCheckBox.isSelected());
+            }
+        });
+
+        // 取消按钮（解析过程中可用）
+        JButton cancelBtn = new JButton("取消解析");
+        cancelBtn.setEnabled(false);
+        cancelBtn.addActionListener(e -> {
+            BatchRunner runner = activeRunner;
+            if (runner != null) {
+                cancelBtn.setEnabled(false);
+                runner.cancel();
+            }
+        });
+
         // 解析按钮（核心：先保存配置，再解析）
         JButton parseBtn = new JButton("批量解析所有wxapkg");
         parseBtn.setBackground(new Color(0, 114, 187));
@@ -124,12 +216,10 @@ public class JaySenSuiteTab {
                 return;
             }
 
-            // 第三步：扫描所有wxapkg文件
-            List<File> wxapkgFiles = scanWxapkgFiles(targetFolder);
-            if (wxapkgFiles.isEmpty()) {
-                JOptionPane.showMessageDialog(leftPanel, "该目录下未找到任何wxapkg文件！", "提示", JOptionPane.INFORMATION_MESSAGE);
-                return;
-            }
+            // 第三步：目录遍历设置（遍历在后台进行，找到的包立即开始解析）
+            WxapkgDiscovery discovery = new WxapkgDiscovery()
+                    .maxDepth((Integer) depthSpinner.getValue())
+                    .followLinks(followLinksCheckBox.isSelected());
 
             // 第四步：读取UI配置（转换为解析所需格式）
             Pattern customApiPattern = null;
@@ -169,67 +259,110 @@ public class JaySenSuiteTab {
             Set<String> prefixBlacklist = Config.parsePrefixTextToSet(prefixText);
             // 第五步：清空历史结果
             ((DefaultTableModel) appInfoTable.getModel()).setRowCount(0);
-            ((DefaultTableModel) apiTable.getModel()).setRowCount(0);
-            ((DefaultTableModel) sensitiveTable.getModel()).setRowCount(0);
+            aggregator.clear();
+            probeResults.clear();
+            clearPersistedResults();
+            apiTableModel.refresh();
+            sensitiveTableModel.refresh();
+            metrics.reset();
 
-            // 第六步：异步批量解析
-            Pattern finalCustomApiPattern = customApiPattern;
-            Set<String> finalSuffixBlacklist = suffixBlacklist;
+            // 第六步：异步批量解析（多包并行，按内存预算准入，可取消）
+            String outputDir = System.getProperty("user.home") + File.separator +".burp" + File.separator + "JaySenWxapkgOutput";
+            BatchRunner runner = new BatchRunner(new File(outputDir), customApiPattern, customSensitivePatterns,
+                    suffixBlacklist, prefixBlacklist)
+                    .parallelism((Integer) parallelSpinner.getValue())
+                    .unpackThreads(2)
+                    .memoryBudget((Integer) budgetSpinner.getValue() * 1024L * 1024L)
+                    .archiveOutput(archiveCheckBox.isSelected())
+                    .moduleFiles(moduleFilesCheckBox.isSelected())
+                    .entropyDetector(Config.loadConfigFile().entropyDetector())
+                    .index(endpointIndex)
+                    .priority(PackageScheduler.comparator(selectedPolicies(),
+                            Config.parsePrefixTextToSet(pinnedAppIdField.getText())))
+                    .wxidRecovery(wxidRecovery())
+                    .metrics(metrics);
+            activeRunner = runner;
+            parseBtn.setEnabled(false);
+            cancelBtn.setEnabled(true);
+            java.util.concurrent.atomic.AtomicInteger cancelledCount = new java.util.concurrent.atomic.AtomicInteger();
+            java.util.concurrent.atomic.AtomicInteger failedCount = new java.util.concurrent.atomic.AtomicInteger();
+            java.util.concurrent.atomic.AtomicInteger foundCount = new java.util.concurrent.atomic.AtomicInteger();
+            java.util.concurrent.atomic.AtomicInteger discoveryErrorCount = new java.util.concurrent.atomic.AtomicInteger();
             new SwingWorker<Void, WxAppletDecompiler>() {
                 @Override
                 protected Void doInBackground() throws Exception {
-                    String outputDir = System.getProperty("user.home") + File.separator +".burp" + File.separator + "JaySenWxapkgOutput";
-                    for (File wxapkgFile : wxapkgFiles) {
-                        WxAppletDecompiler decompiler = new WxAppletDecompiler(
-                                wxapkgFile.getAbsolutePath(),
-                                outputDir,
-                                5,
-                                finalCustomApiPattern,
-                                customSensitivePatterns,
-                                finalSuffixBlacklist,
-                                prefixBlacklist
-                        );
-                        decompiler.execute();
-                        publish(decompiler);
-                    }
-                    return null;
-                }
+                    // 清除上一轮的解包缓存（每个包输出到独立子目录）
+                    BatchRunner.deleteQuietly(new File(outputDir).toPath());
+                    runner.run(List.of(targetFolder), discovery, new BatchRunner.Listener() {
+                        @Override
+                        public void onPackageDone(WxAppletDecompiler decompiler) {
+                            persistResult(decompiler);
+                            publish(decompiler);
+                        }
 
-                @Override
-                protected void process(List<WxAppletDecompiler> chunks) {
-                    for (WxAppletDecompiler decompiler : chunks) {
-                        String pkgType = decompiler.getPackageType();
-                        String pkgPath = decompiler.getAppInfoList().get(0).getValue().contains("解包wxapkg文件")
-                                ? decompiler.getAppInfoList().get(0).getValue().split("：")[1]
-                                : decompiler.getAppInfoList().get(1).getValue();
-
-                        // 填充小程序信息
-                        DefaultTableModel appModel = (DefaultTableModel) appInfoTable.getModel();
-                        appModel.addRow(new Object[]{"=== " + pkgType + " ===", pkgPath});
-                        for (WxAppletDecompiler.AppInfo appInfo : decompiler.getAppInfoList()) {
-                            appModel.addRow(new Object[]{appInfo.getKey(), appInfo.getValue()});
+                        @Override
+                        public void onPackageFailed(File wxapkgFile, Throwable error) {
+                            failedCount.incrementAndGet();
+                            if (montoyaApi != null) {
+                                montoyaApi.logging().logToError("[JaySenWxapkg] 解析失败 " + wxapkgFile + "：" + error);
+                            }
+                        }
+
+                        @Override
+                        public void onPackageCancelled(File wxapkgFile) {
+                            cancelledCount.incrementAndGet();
                         }
-                        appModel.addRow(new Object[]{"---", "---"});
 
-                        // 填充API结果
-                        DefaultTableModel apiModel = (DefaultTableModel) apiTable.getModel();
-                        for (WxAppletDecompiler.ApiInfo apiInfo : decompiler.getApiInfoList()) {
-                            apiModel.addRow(new Object[]{apiInfo.getIndex(), apiInfo.getFile(), apiInfo.getApi()});
+                        @Override
+                        public void onPackageFound(File wxapkgFile) {
+                            foundCount.incrementAndGet();
                         }
 
-                        // 填充敏感信息
-                        DefaultTableModel sensitiveModel = (DefaultTableModel) sensitiveTable.getModel();
-                        for (WxAppletDecompiler.SensitiveInfo sensitiveInfo : decompiler.getSensitiveInfoList()) {
-                            sensitiveModel.addRow(new Object[]{sensitiveInfo.getFile(), sensitiveInfo.getType(), sensitiveInfo.getContent()});
+                        @Override
+                        public void onDiscoveryFailed(Path path, IOException error) {
+                            discoveryErrorCount.incrementAndGet();
+                            if (montoyaApi != null) {
+                                montoyaApi.logging().logToError("[JaySenWxapkg] 遍历失败 " + path + "：" + error);
+                            }
                         }
+                    });
+                    return null;
+                }
+
+                @Override
+                protected void process(List<WxAppletDecompiler> chunks) {
+                    for (WxAppletDecompiler decompiler : chunks) {
+                        showResult(decompiler);
                     }
+                    apiTableModel.refresh();
+                    sensitiveTableModel.refresh();
                 }
 
                 @Override
                 protected void done() {
-                    JOptionPane.showMessageDialog(leftPanel,
-                            "批量解析完成！共处理 " + wxapkgFiles.size() + " 个wxapkg文件",
-                            "完成",
+                    activeRunner = null;
+                    parseBtn.setEnabled(true);
+                    cancelBtn.setEnabled(false);
+                    if (foundCount.get() == 0 && !runner.isCancelled()) {
+                        String message = "该目录下未找到任何wxapkg文件！";
+                        if (discoveryErrorCount.get() > 0) {
+                            message += "（" + discoveryErrorCount.get() + " 个目录/文件无法访问，详见Burp错误日志）";
+                        }
+                        JOptionPane.showMessageDialog(leftPanel, message, "提示", JOptionPane.INFORMATION_MESSAGE);
+                        return;
+                    }
+                    int finished = foundCount.get() - cancelledCount.get() - failedCount.get();
+                    String message = runner.isCancelled()
+                            ? "已取消！完成 " + finished + " 个，取消 " + cancelledCount.get() + " 个（未完成的解包输出已清理）"
+                            : "批量解析完成！共处理 " + foundCount.get() + " 个wxapkg文件";
+                    if (failedCount.get() > 0) {
+                        message += "，失败 " + failedCount.get() + " 个（详见Burp错误日志）";
+                    }
+                    if (discoveryErrorCount.get() > 0) {
+                        message += "，" + discoveryErrorCount.get() + " 个目录/文件无法访问（详见Burp错误日志）";
+                    }
+                    JOptionPane.showMessageDialog(leftPanel, message,
+                            runner.isCancelled() ? "已取消" : "完成",
                             JOptionPane.INFORMATION_MESSAGE
                     );
                 }
@@ -240,7 +373,24 @@ public class JaySenSuiteTab {
         funcPanel.add(new JLabel("📁 目录："));
         funcPanel.add(folderPathField);
         funcPanel.add(selectFolderBtn);
+        funcPanel.add(new JLabel("并发："));
+        funcPanel.add(parallelSpinner);
+        funcPanel.add(new JLabel("内存预算(MB)："));
+        funcPanel.add(budgetSpinner);
+        funcPanel.add(new JLabel("遍历深度："));
+        funcPanel.add(depthSpinner);
+        funcPanel.add(followLinksCheckBox);
+        funcPanel.add(new JLabel("处理顺序："));
+        funcPanel.add(policyBox);
+        funcPanel.add(new JLabel("置顶AppID："));
+        funcPanel.add(pinnedAppIdField);
+        funcPanel.add(new JLabel("候选AppID："));
+        funcPanel.add(wxidCandidatesField);
+        funcPanel.add(archiveCheckBox);
+        funcPanel.add(moduleFilesCheckBox);
+        funcPanel.add(captureCheckBox);
         funcPanel.add(parseBtn);
+        funcPanel.add(cancelBtn);
 
         // 左侧结果展示区（标签页+表格）
         JTabbedPane resultTabbedPane = new JTabbedPane();
@@ -252,40 +402,93 @@ public class JaySenSuiteTab {
         appInfoTable.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
         appInfoTable.getColumnModel().getColumn(0).setPreferredWidth(150);
         appInfoTable.getColumnModel().getColumn(1).setPreferredWidth(600);
-        resultTabbedPane.addTab("小程序信息", new JScrollPane(appInfoTable));
+        JPanel appInfoPanel = new JPanel(new BorderLayout());
+        appInfoPanel.add(new JScrollPane(appInfoTable), BorderLayout.CENTER);
+        JButton exportAppInfoBtn = new JButton("导出小程序信息");
+        exportAppInfoBtn.addActionListener(e -> exportResults(appInfoPanel, ResultExporter.Scope.APP_INFO, false));
+        appInfoPanel.add(exportAppInfoBtn, BorderLayout.SOUTH);
+        resultTabbedPane.addTab("小程序信息", appInfoPanel);
 
-        // ② API提取结果表格（+一键复制）
-        DefaultTableModel apiTableModel = new DefaultTableModel(new String[]{"序号", "文件", "API接口"}, 0);
+        // ② API提取结果表格（+一键复制，默认按API去重聚合）
+        apiTableModel = new ResultTableModel(false);
         apiTable = new JTable(apiTableModel);
         apiTable.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
-        apiTable.getColumnModel().getColumn(0).setPreferredWidth(50);
-        apiTable.getColumnModel().getColumn(1).setPreferredWidth(200);
-        apiTable.getColumnModel().getColumn(2).setPreferredWidth(500);
+        apiTableModel.applyColumnWidths(apiTable);
         JPanel apiPanel = new JPanel(new BorderLayout());
+        apiPanel.add(apiTableModel.createSearchBar(apiTable).getUiComponent(), BorderLayout.NORTH);
         apiPanel.add(new JScrollPane(apiTable), BorderLayout.CENTER);
         JButton copyApiBtn = new JButton("一键复制API接口");
         copyApiBtn.addActionListener(e -> {
-            StringBuilder apiSb = new StringBuilder();
-            DefaultTableModel model = (DefaultTableModel) apiTable.getModel();
-            for (int i = 0; i < model.getRowCount(); i++) {
-                apiSb.append(model.getValueAt(i, 2)).append("\n");
-            }
-            StringSelection selection = new StringSelection(apiSb.toString().trim());
-            Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
-            clipboard.setContents(selection, null);
-            JOptionPane.showMessageDialog(apiPanel, "已复制所有API接口到剪贴板！", "提示", JOptionPane.INFORMATION_MESSAGE);
+            // 从聚合结果复制，每个API只出现一次；聚合结果只在EDT上追加，先在EDT上取出接口值，后台只负责拼接
+            List<ResultAggregator.AggregatedEntry> entries = aggregator.getApiEntries();
+            int apiCount = entries.size();
+            List<String> apis = new ArrayList<>(apiCount);
+            for (int i = 0; i < apiCount; i++) {
+                apis.add(entries.get(i).getValue());
+            }
+            copyApiBtn.setEnabled(false);
+            new SwingWorker<String, Void>() {
+                @Override
+                protected String doInBackground() {
+                    StringBuilder apiSb = new StringBuilder();
+                    for (String api : apis) {
+                        apiSb.append(api).append("\n");
+                    }
+                    return apiSb.toString().trim();
+                }
+
+                @Override
+                protected void done() {
+                    copyApiBtn.setEnabled(true);
+                    try {
+                        StringSelection selection = new StringSelection(get());
+                        Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
+                        clipboard.setContents(selection, null);
+                        JOptionPane.showMessageDialog(apiPanel, "已复制所有API接口到剪贴板（已去重，共 " + apiCount + " 个）！", "提示", JOptionPane.INFORMATION_MESSAGE);
+                    } catch (Exception ex) {
+                        JOptionPane.showMessageDialog(apiPanel, "复制失败：" + ex.getMessage(), "错误", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            }.execute();
         });
-        apiPanel.add(copyApiBtn, BorderLayout.SOUTH);
+        JButton exportApiBtn = new JButton("导出API结果");
+        exportApiBtn.addActionListener(e -> exportResults(apiPanel, ResultExporter.Scope.API, apiTableModel.isRaw()));
+        JCheckBox apiRawCheck = new JCheckBox("显示原始明细");
+        apiRawCheck.addActionListener(e -> apiTableModel.setRaw(apiTable, apiRawCheck.isSelected()));
+        JPanel apiBottomPanel = new JPanel(new BorderLayout());
+        apiBottomPanel.add(createProbePanel(apiPanel), BorderLayout.NORTH);
+        apiBottomPanel.add(apiRawCheck, BorderLayout.WEST);
+        apiBottomPanel.add(copyApiBtn, BorderLayout.CENTER);
+        apiBottomPanel.add(exportApiBtn, BorderLayout.EAST);
+        apiPanel.add(apiBottomPanel, BorderLayout.SOUTH);
         resultTabbedPane.addTab("API提取结果", apiPanel);
 
-        // ③ 敏感信息表格
-        DefaultTableModel sensitiveTableModel = new DefaultTableModel(new String[]{"文件", "类型", "泄露内容"}, 0);
+        // ③ 敏感信息表格（默认按类型+内容去重聚合）
+        sensitiveTableModel = new ResultTableModel(true);
         sensitiveTable = new JTable(sensitiveTableModel);
         sensitiveTable.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
-        sensitiveTable.getColumnModel().getColumn(0).setPreferredWidth(300);
-        sensitiveTable.getColumnModel().getColumn(1).setPreferredWidth(150);
-        sensitiveTable.getColumnModel().getColumn(2).setPreferredWidth(300);
-        resultTabbedPane.addTab("敏感信息", new JScrollPane(sensitiveTable));
+        sensitiveTableModel.applyColumnWidths(sensitiveTable);
+        JPanel sensitivePanel = new JPanel(new BorderLayout());
+        sensitivePanel.add(sensitiveTableModel.createSearchBar(sensitiveTable).getUiComponent(), BorderLayout.NORTH);
+        sensitivePanel.add(new JScrollPane(sensitiveTable), BorderLayout.CENTER);
+        JCheckBox sensitiveRawCheck = new JCheckBox("显示原始明细");
+        sensitiveRawCheck.addActionListener(e -> sensitiveTableModel.setRaw(sensitiveTable, sensitiveRawCheck.isSelected()));
+        JButton exportSensitiveBtn = new JButton("导出敏感信息");
+        exportSensitiveBtn.addActionListener(e -> exportResults(sensitivePanel, ResultExporter.Scope.SENSITIVE, sensitiveTableModel.isRaw()));
+        JPanel sensitiveBottomPanel = new JPanel(new BorderLayout());
+        sensitiveBottomPanel.add(sensitiveRawCheck, BorderLayout.WEST);
+        sensitiveBottomPanel.add(exportSensitiveBtn, BorderLayout.EAST);
+        sensitivePanel.add(sensitiveBottomPanel, BorderLayout.SOUTH);
+        resultTabbedPane.addTab("敏感信息", sensitivePanel);
+
+        // ④ 运行统计
+        resultTabbedPane.addTab("运行统计", createStatisticsPanel());
+
+        // ⑤ 包浏览（只解析索引，按需读取单个文件）
+        resultTabbedPane.addTab("包浏览", new PackageBrowserPanel(this::wxidRecovery).getUiComponent());
+
+        // ⑥ 索引搜索（历史扫描结果，按主机/路径/敏感值反查小程序）
+        resultTabbedPane.addTab("索引搜索", new IndexSearchPanel(endpointIndex).getUiComponent());
 
         // 组装左侧面板
         leftPanel.add(titleLabel);
@@ -340,6 +543,7 @@ public class JaySenSuiteTab {
         JPanel prefixBlackPanel = new JPanel(new BorderLayout());
         prefixBlackPanel.setBorder(BorderFactory.createTitledBorder("接口关键词过滤黑名单（主要过滤前端文件路径，逗号分隔，如：/pages,/components）"));
         prefixBlacklistField = new JTextField(Config.convertPrefixSetToText(savedConfig.getPrefixBlacklist())); // 加载保存的配置
+        prefixBlacklistField.setToolTipText("普通文本：URL包含即过滤；host:域名 过滤该域名及子域名；glob:模式 整个URL匹配通配符（*、?）即过滤");
         prefixBlacklistField.getDocument().addDocumentListener(new ConfigChangeListener()); // 自动保存监听
         prefixBlackPanel.add(prefixBlacklistField, BorderLayout.CENTER);
 
@@ -367,6 +571,12 @@ public class JaySenSuiteTab {
         // 组装主分割面板
         mainSplitPane.setLeftComponent(leftPanel);
         mainSplitPane.setRightComponent(rightPanel);
+        // 首次显示时再读取项目中保存的结果，插件加载不受影响
+        mainSplitPane.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & java.awt.event.HierarchyEvent.SHOWING_CHANGED) != 0 && mainSplitPane.isShowing()) {
+                restoreResults();
+            }
+        });
 
         return mainSplitPane;
     }
@@ -381,6 +591,640 @@ public class JaySenSuiteTab {
         public void changedUpdate(DocumentEvent e) { saveCurrentUiConfig(); }
     }
 
+    // ========== 内部类：结果表格模型（直接读取聚合器，不复制行数据） ==========
+    @SuppressWarnings("serial")
+    private class ResultTableModel extends AbstractTableModel implements ResultSearchBar.RowSource {
+        private final boolean sensitive;
+        private boolean raw;
+        private int lastRowCount;
+        private ResultSearchBar searchBar;
+
+        ResultTableModel(boolean sensitive) {
+            this.sensitive = sensitive;
+        }
+
+        private String[] columns() {
+            if (sensitive) {
+                return raw ? new String[]{"文件", "类型", "泄露内容"}
+                        : new String[]{"类型", "泄露内容", "命中次数", "文件", "来源包", "AppID"};
+            }
+            return raw ? new String[]{"序号", "文件", "API接口"}
+                    : new String[]{"序号", "API接口", "命中次数", "文件", "来源包", "AppID", "存活探测"};
+        }
+
+        private int[] columnWidths() {
+            if (sensitive) {
+                return raw ? new int[]{300, 150, 300} : new int[]{150, 300, 70, 300, 300, 150};
+            }
+            return raw ? new int[]{50, 200, 500} : new int[]{50, 500, 70, 300, 300, 150, 220};
+        }
+
+        void applyColumnWidths(JTable table) {
+            int[] widths = columnWidths();
+            for (int i = 0; i < widths.length; i++) {
+                table.getColumnModel().getColumn(i).setPreferredWidth(widths[i]);
+            }
+        }
+
+        boolean isRaw() { return raw; }
+
+        // 创建表格的搜索框（表格视图改为经过RowSorter过滤）
+        ResultSearchBar createSearchBar(JTable table) {
+            searchBar = new ResultSearchBar(table, this);
+            return searchBar;
+        }
+
+        // 切换聚合/原始明细视图
+        void setRaw(JTable table, boolean raw) {
+            this.raw = raw;
+            lastRowCount = getRowCount();
+            fireTableStructureChanged();
+            applyColumnWidths(table);
+            takeChangedRows();
+            if (searchBar != null) {
+                searchBar.reset();
+            }
+        }
+
+        // 新增的行通知插入，已有行（命中次数可能变化）通知更新
+        void refresh() {
+            int rowCount = getRowCount();
+            int[] changedRows = takeChangedRows();
+            if (rowCount < lastRowCount) {
+                fireTableDataChanged();
+                if (searchBar != null) {
+                    searchBar.reset();
+                }
+            } else {
+                if (searchBar != null) {
+                    searchBar.rowsChanged(lastRowCount, rowCount, changedRows);
+                }
+                if (lastRowCount > 0) {
+                    fireTableRowsUpdated(0, lastRowCount - 1);
+                }
+                if (rowCount > lastRowCount) {
+                    fireTableRowsInserted(lastRowCount, rowCount - 1);
+                }
+            }
+            lastRowCount = rowCount;
+        }
+
+        // 原始明细只追加不变化，聚合结果的文件/包/AppID会增加
+        private int[] takeChangedRows() {
+            int[] rows = sensitive ? aggregator.takeChangedSensitiveRows() : aggregator.takeChangedApiRows();
+            return raw ? new int[0] : rows;
+        }
+
+        @Override
+        public ResultSearchIndex.Row getRow(int row) {
+            if (raw) {
+                ResultStore store = sensitive ? aggregator.getRawSensitiveStore() : aggregator.getRawApiStore();
+                return new ResultSearchIndex.Row(store.getValue(row), store.getType(row), listOf(store.getPackage(row)),
+                        listOf(store.getAppId(row)), listOf(store.getPath(row)));
+            }
+            ResultAggregator.AggregatedEntry entry = sensitive
+                    ? aggregator.getSensitiveEntries().get(row)
+                    : aggregator.getApiEntries().get(row);
+            return new ResultSearchIndex.Row(entry.getValue(), sensitive ? entry.getType() : null,
+                    new ArrayList<>(entry.getPackages()), new ArrayList<>(entry.getAppIds()), entry.getFiles());
+        }
+
+        private List<String> listOf(String value) {
+            return value == null ? List.of() : List.of(value);
+        }
+
+        @Override
+        public int getRowCount() {
+            if (sensitive) {
+                return raw ? aggregator.getRawSensitiveStore().size() : aggregator.getSensitiveEntries().size();
+            }
+            return raw ? aggregator.getRawApiStore().size() : aggregator.getApiEntries().size();
+        }
+
+        @Override
+        public int getColumnCount() { return columns().length; }
+
+        @Override
+        public String getColumnName(int column) { return columns()[column]; }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            if (raw) {
+                ResultStore store = sensitive ? aggregator.getRawSensitiveStore() : aggregator.getRawApiStore();
+                if (sensitive) {
+                    return switch (columnIndex) {
+                        case 0 -> store.getPath(rowIndex);
+                        case 1 -> store.getType(rowIndex);
+                        default -> store.getValue(rowIndex);
+                    };
+                }
+                return switch (columnIndex) {
+                    case 0 -> store.getIndex(rowIndex);
+                    case 1 -> store.getPath(rowIndex);
+                    default -> store.getValue(rowIndex);
+                };
+            }
+            ResultAggregator.AggregatedEntry entry = sensitive
+                    ? aggregator.getSensitiveEntries().get(rowIndex)
+                    : aggregator.getApiEntries().get(rowIndex);
+            return switch (columnIndex) {
+                case 0 -> sensitive ? entry.getType() : rowIndex + 1;
+                case 1 -> entry.getValue();
+                case 2 -> entry.getHitCount();
+                case 3 -> entry.getFilesText();
+                case 4 -> String.join(", ", entry.getPackages());
+                case 5 -> String.join(", ", entry.getAppIds());
+                default -> {
+                    ApiProber.ProbeResult result = probeResults.get(entry.getValue());
+                    yield result == null ? "" : result.toString();
+                }
+            };
+        }
+    }
+
+    // ========== API存活探测 ==========
+    private JPanel createProbePanel(JPanel apiPanel) {
+        JTextField baseUrlField = new JTextField(28);
+        baseUrlField.setToolTipText("相对路径拼接在该URL之后，例如 https://api.example.com/v1");
+        JComboBox<ApiProber.Method> methodBox = new JComboBox<>(ApiProber.Method.values());
+        JSpinner rateSpinner = new JSpinner(new SpinnerNumberModel(200, 0, 10000, 50));
+        rateSpinner.setToolTipText("每个主机每秒最多请求数，0为不限制");
+        JCheckBox otherHostsBox = new JCheckBox("探测其他主机");
+        otherHostsBox.setToolTipText("默认只探测基础URL所在主机，勾选后包里的其他域名（第三方、CDN等）也会发送请求");
+        JButton probeBtn = new JButton("探测存活");
+        probeBtn.addActionListener(e -> {
+            ApiProber running = activeProber;
+            if (running != null) {
+                running.cancel();
+                return;
+            }
+            List<String> endpoints = new ArrayList<>();
+            for (ResultAggregator.AggregatedEntry entry : new ArrayList<>(aggregator.getApiEntries())) {
+                endpoints.add(entry.getValue());
+            }
+            if (endpoints.isEmpty()) {
+                JOptionPane.showMessageDialog(apiPanel, "暂无API结果，请先解析", "提示", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            ApiProber prober = new ApiProber()
+                    .baseUrl(baseUrlField.getText().trim())
+                    .method((ApiProber.Method) methodBox.getSelectedItem())
+                    .perHostRate((Integer) rateSpinner.getValue())
+                    .allowOtherHosts(otherHostsBox.isSelected());
+            activeProber = prober;
+            probeBtn.setText("停止探测");
+            new SwingWorker<Integer, Void>() {
+                @Override
+                protected Integer doInBackground() throws Exception {
+                    // 结果直接写入并发Map，表格按批刷新
+                    java.util.concurrent.atomic.AtomicInteger pending = new java.util.concurrent.atomic.AtomicInteger();
+                    return prober.probe(endpoints, (endpoint, result) -> {
+                        probeResults.put(endpoint, result);
+                        if (pending.incrementAndGet() % 50 == 0) {
+                            publish();
+                        }
+                    });
+                }
+
+                @Override
+                protected void process(List<Void> chunks) {
+                    apiTableModel.refresh();
+                }
+
+                @Override
+                protected void done() {
+                    activeProber = null;
+                    probeBtn.setText("探测存活");
+                    apiTableModel.refresh();
+                    try {
+                        int probed = get();
+                        if (!prober.isCancelled()) {
+                            JOptionPane.showMessageDialog(apiPanel, "探测完成！共探测 " + probed + " / " + endpoints.size() + " 个接口",
+                                    "完成", JOptionPane.INFORMATION_MESSAGE);
+                        }
+                    } catch (Exception ex) {
+                        JOptionPane.showMessageDialog(apiPanel, "探测失败：" + ex.getMessage(), "错误", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            }.execute();
+        });
+        JPanel probePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        probePanel.add(new JLabel("🌐 基础URL："));
+        probePanel.add(baseUrlField);
+        probePanel.add(methodBox);
+        probePanel.add(new JLabel("每主机QPS："));
+        probePanel.add(rateSpinner);
+        probePanel.add(otherHostsBox);
+        probePanel.add(probeBtn);
+        return probePanel;
+    }
+
+    // ========== 运行统计页面（每秒刷新） ==========
+    private JPanel createStatisticsPanel() {
+        JPanel statsPanel = new JPanel(new BorderLayout(0, 5));
+        JLabel overviewLabel = new JLabel();
+        overviewLabel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+
+        DefaultTableModel stageModel = new DefaultTableModel(new String[]{"阶段", "次数", "耗时(ms)", "占比", "数据量(MB)", "吞吐(MB/s)"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) { return false; }
+        };
+        DefaultTableModel ruleModel = new DefaultTableModel(new String[]{"规则", "执行次数", "命中数", "耗时(ms)", "平均耗时(μs/次)"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) { return false; }
+        };
+        JSplitPane tablesPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+                new JScrollPane(new JTable(stageModel)), new JScrollPane(new JTable(ruleModel)));
+        tablesPane.setResizeWeight(0.5);
+        statsPanel.add(overviewLabel, BorderLayout.NORTH);
+        statsPanel.add(tablesPane, BorderLayout.CENTER);
+
+        statsTimer = new javax.swing.Timer(1000, e -> {
+            if (!statsPanel.isShowing()) {
+                return;
+            }
+            BatchRunner runner = activeRunner;
+            String admissionText = runner == null ? "" : String.format("<br>内存预算 已预留 %.1f / %.0f MB ｜ 等待准入 %d",
+                    runner.getAdmission().getInUse() / 1024.0 / 1024.0, runner.getAdmission().getBudget() / 1024.0 / 1024.0,
+                    runner.getAdmission().getWaiting());
+            overviewLabel.setText(String.format(
+                    "<html>已完成 <b>%d</b> 个包 ｜ 处理中 <b>%d</b> ｜ 排队 <b>%d</b> ｜ 解包文件 %d（系统调用 %.1f/文件） ｜ 扫描文件 %d<br>"
+                            + "吞吐 <b>%.2f MB/s</b> ｜ <b>%.1f 文件/s</b> ｜ 已用时 %.1fs%s</html>",
+                    metrics.getPackagesDone(), metrics.getPackagesInFlight(), metrics.getPackagesQueued(),
+                    metrics.getEntriesWritten(), metrics.getSyscallsPerEntry(), metrics.getFilesScanned(),
+                    metrics.getThroughputMBps(), metrics.getFilesPerSecond(), metrics.getElapsedSeconds(), admissionText));
+
+            long totalNanos = 0;
+            for (PipelineMetrics.Stage stage : PipelineMetrics.Stage.values()) {
+                totalNanos += metrics.getStageNanos(stage);
+            }
+            stageModel.setRowCount(0);
+            for (PipelineMetrics.Stage stage : PipelineMetrics.Stage.values()) {
+                long nanos = metrics.getStageNanos(stage);
+                double mb = metrics.getStageBytes(stage) / 1024.0 / 1024.0;
+                stageModel.addRow(new Object[]{
+                        stage.getLabel(),
+                        metrics.getStageCount(stage),
+                        nanos / 1_000_000,
+                        totalNanos == 0 ? "-" : String.format("%.1f%%", nanos * 100.0 / totalNanos),
+                        String.format("%.2f", mb),
+                        nanos == 0 ? "-" : String.format("%.2f", mb / (nanos / 1e9))
+                });
+            }
+            ruleModel.setRowCount(0);
+            for (Map.Entry<String, PipelineMetrics.RuleStats> entry : new TreeMap<>(metrics.getRuleStats()).entrySet()) {
+                PipelineMetrics.RuleStats rule = entry.getValue();
+                ruleModel.addRow(new Object[]{
+                        entry.getKey(),
+                        rule.getRuns(),
+                        rule.getMatches(),
+                        rule.getNanos() / 1_000_000,
+                        rule.getRuns() == 0 ? "-" : String.format("%.1f", rule.getNanos() / 1000.0 / rule.getRuns())
+                });
+            }
+        });
+        statsTimer.start();
+        return statsPanel;
+    }
+
+    /**
+     * 取消正在进行的批量解析（插件卸载时调用）
+     */
+    public void cancelRunning() {
+        BatchRunner runner = activeRunner;
+        if (runner != null) {
+            runner.cancel();
+        }
+    }
+
+    /**
+     * 停止结果表格搜索的后台线程（插件卸载时调用）
+     */
+    public void closeSearchBars() {
+        SwingUtilities.invokeLater(() -> {
+            for (ResultTableModel model : new ResultTableModel[]{apiTableModel, sensitiveTableModel}) {
+                if (model != null && model.searchBar != null) {
+                    model.searchBar.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * 停止统计页面的定时刷新（插件卸载时调用）
+     */
+    public void stopStatsTimer() {
+        SwingUtilities.invokeLater(() -> {
+            if (statsTimer != null) {
+                statsTimer.stop();
+            }
+        });
+    }
+
+    // 置顶AppID → 所选策略 → 默认策略中的其余项
+    private List<PackageScheduler.Policy> selectedPolicies() {
+        List<PackageScheduler.Policy> policies = new ArrayList<>();
+        policies.add(PackageScheduler.Policy.PINNED_FIRST);
+        policies.add((PackageScheduler.Policy) policyBox.getSelectedItem());
+        for (PackageScheduler.Policy policy : PackageScheduler.DEFAULT_POLICIES) {
+            if (!policies.contains(policy)) {
+                policies.add(policy);
+            }
+        }
+        return policies;
+    }
+
+    // 候选AppID：输入框中的列表，代理历史在第一次需要查找时才读取
+    private WxidRecovery wxidRecovery() {
+        WxidRecovery recovery = new WxidRecovery();
+        recovery.addFrom(wxidCandidatesField.getText());
+        if (montoyaApi != null) {
+            recovery.deferred(this::addProxyHistoryWxIds);
+        }
+        return recovery;
+    }
+
+    // 小程序请求的Referer为 https://servicewechat.com/<AppID>/<版本>/page-frame.html，下载包的URL中也带AppID
+    private void addProxyHistoryWxIds(WxidRecovery recovery) {
+        try {
+            for (ProxyHttpRequestResponse item : montoyaApi.proxy().history()) {
+                HttpRequest request = item.finalRequest();
+                recovery.addFrom(request.url());
+                String referer = request.headerValue("Referer");
+                if (referer != null) {
+                    recovery.addFrom(referer);
+                }
+            }
+        } catch (RuntimeException e) {
+            montoyaApi.logging().logToError("[JaySenWxapkg] 读取代理历史失败：" + e);
+        }
+    }
+
+    // 索引目录：~/.burp/JaySenWxapkgIndex
+    private EndpointIndex openIndex() {
+        Path dir = Paths.get(System.getProperty("user.home"), ".burp", "JaySenWxapkgIndex");
+        try {
+            return EndpointIndex.open(dir);
+        } catch (IOException e) {
+            montoyaApi.logging().logToError("[JaySenWxapkg] 打开索引失败 " + dir + "：" + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 关闭索引（插件卸载时调用）
+     */
+    public void closeIndex() {
+        EndpointIndex index = endpointIndex;
+        endpointIndex = null;
+        if (index != null) {
+            try {
+                index.close();
+            } catch (IOException ignored) {
+                // 卸载时忽略
+            }
+        }
+    }
+
+    /**
+     * 关联代理捕获处理器（由插件入口注册后调用）
+     */
+    public void setCaptureHandler(WxapkgCaptureHandler captureHandler) {
+        this.captureHandler = captureHandler;
+        captureCheckBox.setEnabled(captureHandler != null);
+    }
+
+    /**
+     * 为代理捕获的包创建解析器：规则取已保存的配置（界面修改会自动保存），正则无效时使用默认规则
+     */
+    public WxAppletDecompiler newCaptureDecompiler(String sourceUrl) {
+        Config.SavedConfig config = Config.loadConfigFile();
+        Pattern apiPattern = null;
+        Map<String, Pattern> sensitivePatterns = new HashMap<>();
+        try {
+            if (config.getApiRegex() != null && !config.getApiRegex().trim().isEmpty()) {
+                apiPattern = Pattern.compile(config.getApiRegex().trim());
+            }
+            if (config.getSensitiveRegexMap() != null) {
+                for (Map.Entry<String, String> entry : config.getSensitiveRegexMap().entrySet()) {
+                    sensitivePatterns.put(entry.getKey(), Pattern.compile(entry.getValue()));
+                }
+            }
+        } catch (PatternSyntaxException e) {
+            apiPattern = null;
+            sensitivePatterns.clear();
+        }
+        WxAppletDecompiler decompiler = new WxAppletDecompiler(sourceUrl, null, 1, apiPattern, sensitivePatterns,
+                config.getSuffixBlacklist(), config.getPrefixBlacklist());
+        decompiler.setMetrics(metrics);
+        decompiler.setEntropyDetector(config.entropyDetector());
+        return decompiler;
+    }
+
+    /**
+     * 代理捕获的包解析完成（捕获线程回调，切换到EDT展示）
+     */
+    public void showCapturedResult(WxAppletDecompiler decompiler) {
+        if (endpointIndex != null) {
+            try {
+                endpointIndex.add(decompiler);
+            } catch (IOException e) {
+                montoyaApi.logging().logToError("[JaySenWxapkg] 写入索引失败：" + e.getMessage());
+            }
+        }
+        persistResult(decompiler);
+        SwingUtilities.invokeLater(() -> {
+            showResult(decompiler);
+            apiTableModel.refresh();
+            sensitiveTableModel.refresh();
+        });
+    }
+
+    // 单包结果追加到各结果页（EDT调用）
+    private void showResult(WxAppletDecompiler decompiler) {
+        showChunk(ResultPersistence.Chunk.of(decompiler));
+        logPackageSummary(decompiler);
+    }
+
+    private void showChunk(ResultPersistence.Chunk chunk) {
+        // 填充小程序信息
+        DefaultTableModel appModel = (DefaultTableModel) appInfoTable.getModel();
+        appModel.addRow(new Object[]{"=== " + chunk.getPackageType() + " ===", chunk.getPackagePath()});
+        for (WxAppletDecompiler.AppInfo appInfo : chunk.getAppInfos()) {
+            appModel.addRow(new Object[]{appInfo.getKey(), appInfo.getValue()});
+        }
+        appModel.addRow(new Object[]{"---", "---"});
+
+        // 合并API结果和敏感信息（去重聚合）
+        aggregator.add(chunk.getPackage(), chunk.getAppId(), chunk.getAppInfos(),
+                chunk.getApiStore(), chunk.getSensitiveStore());
+    }
+
+    // ========== 结果持久化（Burp项目数据） ==========
+    private ResultPersistence openPersistence() {
+        if (montoyaApi == null) {
+            return null;
+        }
+        try {
+            return ResultPersistence.forProject(montoyaApi);
+        } catch (RuntimeException e) {
+            montoyaApi.logging().logToError("[JaySenWxapkg] 项目数据不可用，结果不会保存：" + e.getMessage());
+            return null;
+        }
+    }
+
+    // 解析线程调用：单包结果编码后写入项目
+    private void persistResult(WxAppletDecompiler decompiler) {
+        if (persistence == null) {
+            return;
+        }
+        try {
+            persistence.save(decompiler);
+        } catch (IOException | RuntimeException e) {
+            montoyaApi.logging().logToError("[JaySenWxapkg] 保存结果失败：" + e.getMessage());
+        }
+    }
+
+    // 清空结果时一并删除保存的结果，并停止尚未完成的恢复
+    private void clearPersistedResults() {
+        if (restoreWorker != null) {
+            restoreWorker.cancel(false);
+        }
+        if (persistence != null) {
+            persistence.clear();
+        }
+        restoreCount = 0;
+    }
+
+    // 后台逐块解码，EDT上按块追加到表格（只执行一次）
+    private void restoreResults() {
+        if (persistence == null || restoreWorker != null) {
+            return;
+        }
+        int chunkCount = restoreCount;
+        restoreWorker = new SwingWorker<>() {
+            @Override
+            protected Void doInBackground() {
+                long start = System.nanoTime();
+                int restored = 0;
+                for (int i = 0; i < chunkCount && !isCancelled(); i++) {
+                    try {
+                        ResultPersistence.Chunk chunk = persistence.load(i);
+                        if (chunk != null) {
+                            publish(chunk);
+                            restored++;
+                        }
+                    } catch (IOException e) {
+                        montoyaApi.logging().logToError("[JaySenWxapkg] 恢复第 " + (i + 1) + " 个结果块失败：" + e.getMessage());
+                    }
+                }
+                if (restored > 0) {
+                    montoyaApi.logging().logToOutput(String.format("[JaySenWxapkg] 已从项目恢复 %d 个包的结果，耗时 %dms",
+                            restored, (System.nanoTime() - start) / 1_000_000));
+                }
+                return null;
+            }
+
+            @Override
+            protected void process(List<ResultPersistence.Chunk> chunks) {
+                if (isCancelled()) {
+                    return;
+                }
+                for (ResultPersistence.Chunk chunk : chunks) {
+                    showChunk(chunk);
+                }
+                apiTableModel.refresh();
+                sensitiveTableModel.refresh();
+            }
+        };
+        restoreWorker.execute();
+    }
+
+    // 单包摘要写入Burp日志
+    private void logPackageSummary(WxAppletDecompiler decompiler) {
+        PipelineMetrics.PackageStats stats = decompiler.getStats();
+        if (montoyaApi == null || stats == null) {
+            return;
+        }
+        montoyaApi.logging().logToOutput(stats.summary(decompiler.getAppId(),
+                decompiler.getApiStore().size(), decompiler.getSensitiveStore().size()));
+    }
+
+    // ========== 工具方法：后台流式导出结果（带过滤和进度） ==========
+    private void exportResults(Component parent, ResultExporter.Scope scope, boolean raw) {
+        // 1. 过滤条件和格式
+        JComboBox<ResultExporter.Format> formatBox = new JComboBox<>(ResultExporter.Format.values());
+        JTextField keywordField = new JTextField(20);
+        JTextField typeField = new JTextField(20);
+        JTextField appIdField = new JTextField(20);
+        JTextField packageField = new JTextField(20);
+        JPanel optionPanel = new JPanel(new GridLayout(0, 2, 5, 5));
+        optionPanel.add(new JLabel("导出格式："));
+        optionPanel.add(formatBox);
+        optionPanel.add(new JLabel("内容包含："));
+        optionPanel.add(keywordField);
+        if (scope != ResultExporter.Scope.API) {
+            optionPanel.add(new JLabel(scope == ResultExporter.Scope.APP_INFO ? "配置项包含：" : "类型包含："));
+            optionPanel.add(typeField);
+        }
+        optionPanel.add(new JLabel("AppID包含："));
+        optionPanel.add(appIdField);
+        optionPanel.add(new JLabel("来源包包含："));
+        optionPanel.add(packageField);
+        if (JOptionPane.showConfirmDialog(parent, optionPanel, "导出过滤条件（留空不过滤）",
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
+            return;
+        }
+        ResultExporter.Format format = (ResultExporter.Format) formatBox.getSelectedItem();
+
+        // 2. 选择保存文件
+        JFileChooser fileChooser = new JFileChooser();
+        String extension = format == ResultExporter.Format.JSONL ? ".jsonl" : ".csv";
+        fileChooser.setSelectedFile(new File("jaysenwxapkg_" + scope.name().toLowerCase() + extension));
+        if (fileChooser.showSaveDialog(parent) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File target = fileChooser.getSelectedFile();
+
+        // 3. 后台导出，进度条可取消
+        ResultExporter exporter = new ResultExporter(format, scope, raw)
+                .keyword(keywordField.getText())
+                .typeFilter(typeField.getText())
+                .appIdFilter(appIdField.getText())
+                .packageFilter(packageField.getText());
+        ProgressMonitor monitor = new ProgressMonitor(parent, "正在导出到 " + target.getName(), null, 0, 100);
+        java.util.concurrent.atomic.AtomicBoolean cancelled = new java.util.concurrent.atomic.AtomicBoolean();
+        SwingWorker<Integer, Void> worker = new SwingWorker<>() {
+            @Override
+            protected Integer doInBackground() throws Exception {
+                return exporter.export(aggregator, target,
+                        (done, total) -> setProgress(total == 0 ? 100 : (int) (done * 100L / total)),
+                        cancelled::get);
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                try {
+                    int written = get();
+                    String message = cancelled.get() ? "导出已取消，已写出 " + written + " 行：" : "导出完成，共 " + written + " 行：";
+                    JOptionPane.showMessageDialog(parent, message + target.getAbsolutePath(), "提示", JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception ex) {
+                    JOptionPane.showMessageDialog(parent, "导出失败：" + ex.getMessage(), "错误", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        worker.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName())) {
+                monitor.setProgress((Integer) evt.getNewValue());
+                if (monitor.isCanceled()) {
+                    cancelled.set(true);
+                }
+            }
+        });
+        worker.execute();
+    }
+
     // ========== 核心方法：保存当前UI配置到JSON ==========
     private void saveCurrentUiConfig() {
         try {
@@ -397,26 +1241,6 @@ public class JaySenSuiteTab {
         }
     }
 
-    // ========== 工具方法：扫描目录下所有wxapkg文件（递归） ==========
-    private List<File> scanWxapkgFiles(File rootDir) {
-        List<File> wxapkgFiles = new ArrayList<>();
-        if (!rootDir.exists() || !rootDir.isDirectory()) {
-            return wxapkgFiles;
-        }
-        File[] files = rootDir.listFiles();
-        if (files == null) {
-            return wxapkgFiles;
-        }
-        for (File file : files) {
-            if (file.isDirectory()) {
-                wxapkgFiles.addAll(scanWxapkgFiles(file));
-            } else if (file.isFile() && file.getName().toLowerCase().endsWith(".wxapkg")) {
-                wxapkgFiles.add(file);
-            }
-        }
-        return wxapkgFiles;
-    }
-
     // ========== 工具方法：给JTextField添加占位符 ==========
     private void setPlaceholder(JTextField textField, String placeholder) {
         textField.putClientProperty("JTextField.placeholder", placeholder);
@@ -0,0 +1,86 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.util.List;
+
+/**
+ * 字面量规则：规则正则不含任何元字符（或以 Pattern.LITERAL 编译）时直接查找字符串，结果与正则逐个匹配一致
+ */
+public class LiteralDetector implements Detector {
+    private final String name;
+    private final String literal;
+    private final boolean ignoreCase;   // 只忽略ASCII大小写（与正则 (?i) 一致）
+
+    public LiteralDetector(String name, String literal, boolean ignoreCase) {
+        if (literal.isEmpty()) {
+            throw new IllegalArgumentException("字面量规则不能为空：" + name);
+        }
+        this.name = name;
+        this.literal = literal;
+        this.ignoreCase = ignoreCase;
+    }
+
+    @Override
+    public String getName() { return name; }
+
+    @Override
+    public long getEstimatedCost() { return 2_000; }
+
+    @Override
+    public List<String> getPrerequisites() { return List.of(); }
+
+    @Override
+    public int detect(Context context, Sink sink) {
+        CharSequence text = context.getText();
+        int matches = 0;
+        int from = 0;
+        int found;
+        while ((found = indexOf(text, literal, from, ignoreCase)) >= 0) {
+            matches++;
+            sink.sensitive(name, text.subSequence(found, found + literal.length()).toString(), found);
+            from = found + literal.length();
+        }
+        return matches;
+    }
+
+    /**
+     * text 中 from 之后第一次出现 literal 的位置（ignoreCase 时只忽略ASCII大小写），没有返回-1
+     */
+    static int indexOf(CharSequence text, String literal, int from, boolean ignoreCase) {
+        char first = literal.charAt(0);
+        char firstLower = ignoreCase ? asciiLower(first) : first;
+        int last = text.length() - literal.length();
+        for (int i = from; i <= last; i++) {
+            char c = text.charAt(i);
+            if (c != first && (!ignoreCase || asciiLower(c) != firstLower)) {
+                continue;
+            }
+            int k = 1;
+            while (k < literal.length() && same(text.charAt(i + k), literal.charAt(k), ignoreCase)) {
+                k++;
+            }
+            if (k == literal.length()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean same(char a, char b, boolean ignoreCase) {
+        return a == b || ignoreCase && asciiLower(a) == asciiLower(b);
+    }
+
+    private static char asciiLower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * app-service.js 模块拆分：编译后的小程序代码由 define("路径", function(...){...}) 包装拼接而成，
+ * 一次线性扫描（跳过字符串、模板字符串、注释和正则字面量，记录括号深度）找出同一层级的每个 define 调用，
+ * 按字节区间切成虚拟文件，扫描结果可以归属到原始模块路径；define 之间的框架代码归属合并文件本身
+ * 词法状态异常（结尾括号不平衡或字符串未闭合）时视为无法拆分，按整个文件处理
+ */
+public class ModuleSplitter {
+    public static final String BUNDLE_NAME = "app-service.js";
+    private static final byte[] DEFINE = "define(".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * 是否为需要拆分的合并文件（主包和分包的 app-service.js）
+     */
+    public static boolean isBundle(String path) {
+        String normalized = path.replace('\\', '/');
+        return normalized.equals(BUNDLE_NAME) || normalized.endsWith("/" + BUNDLE_NAME);
+    }
+
+    /**
+     * 拆分 data[offset, offset+length)
+     * @return 按出现顺序的模块；define 之外的代码（前导、模块之间和结尾）作为 name 为 null 的段；
+     *         没有 define 或无法可靠拆分时返回空列表
+     */
+    public static List<Module> split(byte[] data, int offset, int length) {
+        List<Module> modules = new ArrayList<>();
+        int end = offset + length;
+        int depth = 0;
+        int moduleDepth = -1;           // 第一个define所在的括号深度，之后只在该深度切分
+        int[] templates = new int[16];  // 模板字符串 ${ 所在的深度栈
+        int templateTop = 0;
+        int moduleStart = -1;           // 当前未闭合的define起点
+        String moduleName = null;
+        int gapStart = offset;          // define之外代码段的起点
+        boolean found = false;
+        int lastSignificant = -1;       // 上一个非空白字符的位置，用于区分除号和正则
+        int i = offset;
+        while (i < end) {
+            int c = data[i] & 0xFF;
+            switch (c) {
+                case '"', '\'' -> {
+                    i = skipString(data, i, end, c);
+                    if (i < 0) {
+                        return List.of();
+                    }
+                    lastSignificant = i - 1;
+                    continue;
+                }
+                case '`' -> {
+                    i = skipTemplate(data, i + 1, end);
+                    if (i < 0) {
+                        return List.of();
+                    }
+                    if (data[i - 1] == '{') {
+                        // 停在 ${ 之后：记录表达式结束时要回到的深度
+                        if (templateTop == templates.length) {
+                            templates = java.util.Arrays.copyOf(templates, templateTop * 2);
+                        }
+                        templates[templateTop++] = depth;
+                        depth++;
+                    }
+                    lastSignificant = i - 1;
+                    continue;
+                }
+                case '/' -> {
+                    if (i + 1 < end && data[i + 1] == '/') {
+                        i = skipLine(data, i + 2, end);
+                        continue;
+                    }
+                    if (i + 1 < end && data[i + 1] == '*') {
+                        i = skipBlockComment(data, i + 2, end);
+                        if (i < 0) {
+                            return List.of();
+                        }
+                        continue;
+                    }
+                    if (regexAllowed(data, offset, lastSignificant)) {
+                        i = skipRegex(data, i + 1, end);
+                        if (i < 0) {
+                            return List.of();
+                        }
+                        lastSignificant = i - 1;
+                        continue;
+                    }
+                }
+                case '{', '(', '[' -> depth++;
+                case '}', ')', ']' -> {
+                    depth--;
+                    if (c == '}' && templateTop > 0 && templates[templateTop - 1] == depth) {
+                        // ${...} 结束，继续模板字符串
+                        templateTop--;
+                        i = skipTemplate(data, i + 1, end);
+                        if (i < 0) {
+                            return List.of();
+                        }
+                        if (data[i - 1] == '{') {
+                            templates[templateTop++] = depth;
+                            depth++;
+                        }
+                        lastSignificant = i - 1;
+                        continue;
+                    }
+                    if (depth < 0) {
+                        return List.of();
+                    }
+                    if (c == ')' && moduleStart >= 0 && depth == moduleDepth) {
+                        // define(...) 调用结束
+                        modules.add(new Module(moduleName, moduleStart, i + 1 - moduleStart));
+                        moduleStart = -1;
+                        gapStart = i + 1;
+                    }
+                }
+                case 'd' -> {
+                    if (moduleStart < 0 && (moduleDepth < 0 || depth == moduleDepth) && startsDefine(data, offset, i, end)) {
+                        String name = readModuleName(data, i + DEFINE.length, end);
+                        if (name != null) {
+                            addGap(modules, data, gapStart, i);
+                            moduleDepth = depth;
+                            moduleStart = i;
+                            moduleName = name;
+                            found = true;
+                        }
+                    }
+                }
+                default -> {
+                }
+            }
+            if (c > ' ') {
+                lastSignificant = i;
+            }
+            i++;
+        }
+        if (!found || moduleStart >= 0 || depth != 0 || templateTop != 0) {
+            return List.of();
+        }
+        addGap(modules, data, gapStart, end);
+        return modules;
+    }
+
+    // define之外的代码段，只有分隔符和空白时忽略
+    private static void addGap(List<Module> modules, byte[] data, int start, int end) {
+        for (int i = start; i < end; i++) {
+            int c = data[i];
+            if (c != ';' && c != ',' && c > ' ') {
+                modules.add(new Module(null, start, end - start));
+                return;
+            }
+        }
+    }
+
+    // define( 前面必须不是标识符字符（排除 xdefine( / a.define(）
+    private static boolean startsDefine(byte[] data, int offset, int i, int end) {
+        if (end - i < DEFINE.length + 2) {
+            return false;
+        }
+        for (int k = 0; k < DEFINE.length; k++) {
+            if (data[i + k] != DEFINE[k]) {
+                return false;
+            }
+        }
+        if (i > offset) {
+            int prev = data[i - 1] & 0xFF;
+            return !isIdentifierPart(prev) && prev != '.';
+        }
+        return true;
+    }
+
+    // define( 之后的第一个参数必须是字符串字面量，否则不是模块定义
+    private static String readModuleName(byte[] data, int i, int end) {
+        while (i < end && (data[i] == ' ' || data[i] == '\n' || data[i] == '\r' || data[i] == '\t')) {
+            i++;
+        }
+        if (i >= end || (data[i] != '"' && data[i] != '\'')) {
+            return null;
+        }
+        byte quote = data[i];
+        int start = i + 1;
+        int close = start;
+        while (close < end && data[close] != quote && data[close] != '\n') {
+            if (data[close] == '\\') {
+                return null;
+            }
+            close++;
+        }
+        if (close >= end || data[close] != quote || close == start) {
+            return null;
+        }
+        return new String(data, start, close - start, StandardCharsets.UTF_8);
+    }
+
+    // 返回字符串结束引号之后的位置，未闭合返回-1
+    private static int skipString(byte[] data, int i, int end, int quote) {
+        i++;
+        while (i < end) {
+            int c = data[i];
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                return i + 1;
+            } else if (c == '\n') {
+                return -1;
+            } else {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    // 从模板字符串内容开始扫描，返回结束反引号或 ${ 之后的位置，未闭合返回-1
+    private static int skipTemplate(byte[] data, int i, int end) {
+        while (i < end) {
+            int c = data[i];
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '`') {
+                return i + 1;
+            } else if (c == '$' && i + 1 < end && data[i + 1] == '{') {
+                return i + 2;
+            } else {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipLine(byte[] data, int i, int end) {
+        while (i < end && data[i] != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipBlockComment(byte[] data, int i, int end) {
+        while (i + 1 < end) {
+            if (data[i] == '*' && data[i + 1] == '/') {
+                return i + 2;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    // 正则字面量：支持转义和字符类 [...] 中的 /，返回结束 / 之后的位置
+    private static int skipRegex(byte[] data, int i, int end) {
+        boolean inClass = false;
+        while (i < end) {
+            int c = data[i];
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '\n') {
+                return -1;
+            }
+            if (inClass) {
+                inClass = c != ']';
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == '/') {
+                return i + 1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    // 前一个有效字符是运算符/左括号/关键字时，/ 开始的是正则而不是除号
+    private static boolean regexAllowed(byte[] data, int offset, int lastSignificant) {
+        if (lastSignificant < offset) {
+            return true;
+        }
+        int prev = data[lastSignificant] & 0xFF;
+        if (prev == ')' || prev == ']' || prev == '}') {
+            return false;
+        }
+        if (!isIdentifierPart(prev)) {
+            return true;
+        }
+        int start = lastSignificant;
+        while (start > offset && isIdentifierPart(data[start - 1] & 0xFF)) {
+            start--;
+        }
+        String word = new String(data, start, lastSignificant - start + 1, StandardCharsets.US_ASCII);
+        return switch (word) {
+            case "return", "typeof", "case", "void", "throw", "in", "of", "delete", "instanceof", "new", "else", "do" -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isIdentifierPart(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '_' || c == '$' || c >= 0x80;
+    }
+
+    /**
+     * 拆分出的模块：原始路径和在合并文件中的字节区间
+     */
+    public static class Module {
+        private final String name;      // define 的模块路径，前导段为null
+        private final int offset;
+        private final int length;
+
+        public Module(String name, int offset, int length) {
+            this.name = name;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public String getName() { return name; }
+        public int getOffset() { return offset; }
+        public int getLength() { return length; }
+    }
+}
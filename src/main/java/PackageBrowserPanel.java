@@ -0,0 +1,377 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.List;
+
+/**
+ * 包浏览：只解析wxapkg索引（或归档输出的zip目录），以目录树展示文件名和大小；
+ * 选中文件时才按 offset/size 读取内容预览，导出也只读取选中的文件
+ */
+public class PackageBrowserPanel {
+    // 预览最多读取的字节数
+    private static final int PREVIEW_LIMIT = 256 * 1024;
+
+    private final JPanel panel = new JPanel(new BorderLayout(0, 5));
+    private final JTextField pathField = new JTextField(40);
+    private final JLabel statusLabel = new JLabel(" ");
+    private final JTree tree = new JTree(new DefaultTreeModel(new DefaultMutableTreeNode("未打开")));
+    private final JTextArea previewArea = new JTextArea();
+    private EntrySource reader;
+    // 加密包路径中没有AppID时的候选来源（每次打开时取一次）
+    private final java.util.function.Supplier<WxidRecovery> wxidRecovery;
+
+    public PackageBrowserPanel() {
+        this(WxidRecovery::new);
+    }
+
+    public PackageBrowserPanel(java.util.function.Supplier<WxidRecovery> wxidRecovery) {
+        this.wxidRecovery = wxidRecovery;
+    }
+
+    /**
+     * 构建面板并注册监听（加入标签页时调用一次）
+     */
+    public Component getUiComponent() {
+        // 顶部：选择包 + 打开
+        JButton chooseBtn = new JButton("选择包");
+        chooseBtn.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setFileFilter(new FileNameExtensionFilter("wxapkg文件/归档输出", "wxapkg", "zip"));
+            if (!pathField.getText().trim().isEmpty()) {
+                chooser.setCurrentDirectory(new File(pathField.getText().trim()).getParentFile());
+            }
+            if (chooser.showOpenDialog(panel) == JFileChooser.APPROVE_OPTION) {
+                pathField.setText(chooser.getSelectedFile().getAbsolutePath());
+                openPackage(chooser.getSelectedFile());
+            }
+        });
+        JButton openBtn = new JButton("打开");
+        openBtn.addActionListener(e -> openPackage(new File(pathField.getText().trim())));
+        JButton exportBtn = new JButton("导出选中");
+        exportBtn.addActionListener(e -> exportSelected());
+        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        topPanel.add(new JLabel("📦 包："));
+        topPanel.add(pathField);
+        topPanel.add(chooseBtn);
+        topPanel.add(openBtn);
+        topPanel.add(exportBtn);
+
+        // 中间：左侧目录树，右侧预览
+        tree.addTreeSelectionListener(e -> previewSelected());
+        previewArea.setEditable(false);
+        previewArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT,
+                new JScrollPane(tree), new JScrollPane(previewArea));
+        splitPane.setDividerLocation(300);
+
+        statusLabel.setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
+        panel.add(topPanel, BorderLayout.NORTH);
+        panel.add(splitPane, BorderLayout.CENTER);
+        panel.add(statusLabel, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    /**
+     * 打开包（后台解析索引，完成后替换目录树）
+     */
+    public void openPackage(File file) {
+        if (!file.isFile()) {
+            JOptionPane.showMessageDialog(panel, "文件不存在：" + file, "错误", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        statusLabel.setText("正在解析索引：" + file.getName());
+        WxidRecovery recovery = wxidRecovery.get();
+        new SwingWorker<EntrySource, Void>() {
+            private long elapsedMs;
+
+            @Override
+            protected EntrySource doInBackground() throws Exception {
+                long start = System.nanoTime();
+                EntrySource opened = UnpackArchive.isArchive(file) ? UnpackArchive.open(file) : WxapkgReader.open(file, null, recovery);
+                elapsedMs = (System.nanoTime() - start) / 1_000_000;
+                return opened;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    EntrySource opened = get();
+                    closeReader();
+                    reader = opened;
+                    tree.setModel(new DefaultTreeModel(buildTree(file.getName(), opened.getEntries())));
+                    previewArea.setText("");
+                    statusLabel.setText(String.format("%s ｜ %s ｜ 共 %d 个文件 ｜ 索引解析 %dms",
+                            file.getName(), opened.describe(),
+                            opened.getEntries().size(), elapsedMs));
+                    updateBytesRead();
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    statusLabel.setText("❌ 打开失败：" + cause.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    // ========== 目录树 ==========
+    // 路径按"/"拆分，目录节点通过 目录路径 → 节点 的映射查找，整体线性时间
+    private static DefaultMutableTreeNode buildTree(String rootName, List<WxAppletDecompiler.FileMeta> entries) {
+        DefaultMutableTreeNode root = new DefaultMutableTreeNode(new EntryNode(rootName, null));
+        Map<String, DefaultMutableTreeNode> dirs = new HashMap<>();
+        for (WxAppletDecompiler.FileMeta meta : entries) {
+            String[] parts = meta.getName().split("/");
+            DefaultMutableTreeNode parent = root;
+            StringBuilder dirPath = new StringBuilder();
+            for (int i = 0; i < parts.length - 1; i++) {
+                if (parts[i].isEmpty()) {
+                    continue;
+                }
+                dirPath.append('/').append(parts[i]);
+                DefaultMutableTreeNode finalParent = parent;
+                String name = parts[i];
+                parent = dirs.computeIfAbsent(dirPath.toString(), k -> {
+                    DefaultMutableTreeNode dir = new DefaultMutableTreeNode(new EntryNode(name, null));
+                    finalParent.add(dir);
+                    return dir;
+                });
+            }
+            parent.add(new DefaultMutableTreeNode(new EntryNode(parts[parts.length - 1], meta), false));
+        }
+        sortAndSum(root);
+        return root;
+    }
+
+    // 目录在前、按名称排序，同时累计目录大小和文件数
+    private static void sortAndSum(DefaultMutableTreeNode node) {
+        if (node.getChildCount() == 0) {
+            return;
+        }
+        List<DefaultMutableTreeNode> children = new ArrayList<>();
+        for (int i = 0; i < node.getChildCount(); i++) {
+            children.add((DefaultMutableTreeNode) node.getChildAt(i));
+        }
+        children.sort(Comparator.comparing((DefaultMutableTreeNode c) -> ((EntryNode) c.getUserObject()).meta != null)
+                .thenComparing(c -> ((EntryNode) c.getUserObject()).name));
+        node.removeAllChildren();
+        EntryNode entry = (EntryNode) node.getUserObject();
+        for (DefaultMutableTreeNode child : children) {
+            node.add(child);
+            sortAndSum(child);
+            EntryNode childEntry = (EntryNode) child.getUserObject();
+            entry.totalSize += childEntry.totalSize;
+            entry.fileCount += childEntry.fileCount;
+        }
+    }
+
+    /**
+     * 树节点：文件节点持有索引项，目录节点 meta 为null
+     */
+    private static class EntryNode {
+        private final String name;
+        private final WxAppletDecompiler.FileMeta meta;
+        private long totalSize;
+        private int fileCount;
+
+        EntryNode(String name, WxAppletDecompiler.FileMeta meta) {
+            this.name = name;
+            this.meta = meta;
+            if (meta != null) {
+                totalSize = meta.getSize();
+                fileCount = 1;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return meta != null ? name + "  (" + formatSize(totalSize) + ")"
+                    : name + "  [" + fileCount + "个文件, " + formatSize(totalSize) + "]";
+        }
+    }
+
+    // ========== 预览/导出 ==========
+    private void previewSelected() {
+        EntryNode entry = selectedEntry();
+        EntrySource current = reader;
+        if (entry == null || entry.meta == null || current == null) {
+            return;
+        }
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() throws Exception {
+                byte[] data = current.read(entry.meta, PREVIEW_LIMIT);
+                String text = isBinary(data) ? hexDump(data, 4096) : new String(data, StandardCharsets.UTF_8);
+                if (entry.meta.getSize() > PREVIEW_LIMIT) {
+                    text += "\n\n…… 仅预览前 " + formatSize(PREVIEW_LIMIT) + "，完整内容请导出";
+                }
+                return text;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    previewArea.setText(get());
+                    previewArea.setCaretPosition(0);
+                } catch (Exception ex) {
+                    previewArea.setText("❌ 读取失败：" + (ex.getCause() != null ? ex.getCause().getMessage() : ex.getMessage()));
+                }
+                updateBytesRead();
+            }
+        }.execute();
+    }
+
+    // 文件节点导出为单个文件，目录节点导出其下所有文件（保持相对路径）
+    private void exportSelected() {
+        DefaultMutableTreeNode node = selectedNode();
+        EntrySource current = reader;
+        if (node == null || current == null) {
+            JOptionPane.showMessageDialog(panel, "请先在目录树中选择文件或目录", "提示", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        EntryNode entry = (EntryNode) node.getUserObject();
+        JFileChooser chooser = new JFileChooser();
+        if (entry.meta != null) {
+            chooser.setSelectedFile(new File(entry.name));
+        } else {
+            chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        }
+        if (chooser.showSaveDialog(panel) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File target = chooser.getSelectedFile();
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() throws IOException {
+                if (entry.meta != null) {
+                    current.extract(entry.meta, target.toPath());
+                    return 1;
+                }
+                int count = 0;
+                Enumeration<?> all = node.depthFirstEnumeration();
+                while (all.hasMoreElements()) {
+                    DefaultMutableTreeNode child = (DefaultMutableTreeNode) all.nextElement();
+                    WxAppletDecompiler.FileMeta meta = ((EntryNode) child.getUserObject()).meta;
+                    if (meta != null) {
+                        String name = meta.getName().startsWith("/") ? meta.getName().substring(1) : meta.getName();
+                        Path out = target.toPath().resolve(name).normalize();
+                        // 防止 ../ 路径写出目标目录
+                        if (!out.startsWith(target.toPath())) {
+                            continue;
+                        }
+                        current.extract(meta, out);
+                        count++;
+                    }
+                }
+                return count;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    JOptionPane.showMessageDialog(panel, "已导出 " + get() + " 个文件到：" + target,
+                            "完成", JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception ex) {
+                    JOptionPane.showMessageDialog(panel, "导出失败：" + ex.getMessage(),
+                            "错误", JOptionPane.ERROR_MESSAGE);
+                }
+                updateBytesRead();
+            }
+        }.execute();
+    }
+
+    private DefaultMutableTreeNode selectedNode() {
+        TreePath path = tree.getSelectionPath();
+        return path == null ? null : (DefaultMutableTreeNode) path.getLastPathComponent();
+    }
+
+    private EntryNode selectedEntry() {
+        DefaultMutableTreeNode node = selectedNode();
+        return node == null || !(node.getUserObject() instanceof EntryNode entry) ? null : entry;
+    }
+
+    // 状态栏显示实际读取的字节数（只包含索引和打开过的文件）
+    private void updateBytesRead() {
+        EntrySource current = reader;
+        if (current == null) {
+            return;
+        }
+        String text = statusLabel.getText();
+        int cut = text.indexOf(" ｜ 已读取 ");
+        if (cut >= 0) {
+            text = text.substring(0, cut);
+        }
+        statusLabel.setText(text + " ｜ 已读取 " + formatSize(current.getBytesRead()) + " / " + formatSize(current.getFile().length()));
+    }
+
+    private void closeReader() {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException ignored) {
+                // 关闭失败不影响打开新包
+            }
+            reader = null;
+        }
+    }
+
+    private static boolean isBinary(byte[] data) {
+        int check = Math.min(data.length, 8192);
+        for (int i = 0; i < check; i++) {
+            if (data[i] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String hexDump(byte[] data, int limit) {
+        StringBuilder sb = new StringBuilder();
+        int len = Math.min(data.length, limit);
+        for (int i = 0; i < len; i += 16) {
+            sb.append(String.format("%08x  ", i));
+            StringBuilder ascii = new StringBuilder();
+            for (int j = i; j < i + 16; j++) {
+                if (j < len) {
+                    sb.append(String.format("%02x ", data[j] & 0xFF));
+                    ascii.append(data[j] >= 0x20 && data[j] < 0x7F ? (char) data[j] : '.');
+                } else {
+                    sb.append("   ");
+                }
+            }
+            sb.append(' ').append(ascii).append('\n');
+        }
+        if (data.length > len) {
+            sb.append("…… 二进制文件仅显示前 ").append(len).append(" 字节\n");
+        }
+        return sb.toString();
+    }
+
+    private static String formatSize(long bytes) {
+        if (bytes < 1024) {
+            return bytes + "B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1fKB", bytes / 1024.0);
+        }
+        return String.format("%.2fMB", bytes / 1024.0 / 1024.0);
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.io.File;
+import java.util.*;
+
+/**
+ * 包调度队列：批量解析时有空闲工作线程才取下一个包，按优先级策略（主包优先、小包优先、最新优先、置顶AppID）
+ * 决定先处理哪个，点击解析后尽快看到有价值的结果；策略可组合，也可传入自定义比较器
+ * 老化：等待超过期限的包不论优先级按到达顺序先处理，持续有高优先级包入队时大包也不会饿死
+ */
+public class PackageScheduler {
+    public static final long DEFAULT_AGING_MILLIS = 30_000;
+
+    /**
+     * 内置优先级策略（按列表顺序依次比较，都相同时按发现顺序）
+     */
+    public enum Policy {
+        PINNED_FIRST("pinned", "置顶AppID优先"),
+        MAIN_FIRST("main", "主包优先"),
+        SMALLEST_FIRST("smallest", "小包优先"),
+        NEWEST_FIRST("newest", "最新优先");
+
+        private final String id;
+        private final String label;
+
+        Policy(String id, String label) {
+            this.id = id;
+            this.label = label;
+        }
+
+        public String getId() { return id; }
+
+        Comparator<Candidate> comparator(Set<String> pinnedAppIds) {
+            return switch (this) {
+                case PINNED_FIRST -> Comparator.comparing((Candidate c) -> !pinnedAppIds.contains(c.getAppId()));
+                case MAIN_FIRST -> Comparator.comparing((Candidate c) -> !c.isMainPackage());
+                case SMALLEST_FIRST -> Comparator.comparingLong(Candidate::getSize);
+                case NEWEST_FIRST -> Comparator.comparingLong((Candidate c) -> -c.getLastModified());
+            };
+        }
+
+        /**
+         * 按命令行名称（pinned/main/smallest/newest）查找
+         */
+        public static Policy parse(String id) {
+            for (Policy policy : values()) {
+                if (policy.id.equalsIgnoreCase(id.trim())) {
+                    return policy;
+                }
+            }
+            throw new IllegalArgumentException("未知调度策略：" + id);
+        }
+
+        @Override
+        public String toString() { return label; }
+    }
+
+    public static final List<Policy> DEFAULT_POLICIES = List.of(Policy.PINNED_FIRST, Policy.MAIN_FIRST, Policy.SMALLEST_FIRST);
+
+    /**
+     * 组合策略：依次比较，全部相同时按发现顺序
+     * @param pinnedAppIds 置顶的AppID（PINNED_FIRST使用）
+     */
+    public static Comparator<Candidate> comparator(List<Policy> policies, Set<String> pinnedAppIds) {
+        Set<String> pinned = pinnedAppIds != null ? pinnedAppIds : Set.of();
+        Comparator<Candidate> result = null;
+        for (Policy policy : policies) {
+            result = result == null ? policy.comparator(pinned) : result.thenComparing(policy.comparator(pinned));
+        }
+        return result;
+    }
+
+    // 两个视图保存同一批包，一边取出后另一边在到达队首时惰性跳过
+    private final PriorityQueue<Candidate> queue;
+    private final ArrayDeque<Candidate> arrivals = new ArrayDeque<>();   // 按到达顺序，用于老化检查
+    private int pending;
+    private final long agingNanos;
+    private long sequence;
+    private boolean finished;
+
+    /**
+     * @param priority 优先级比较器（null按发现顺序）
+     * @param agingMillis 老化期限，≤0 不老化
+     */
+    public PackageScheduler(Comparator<Candidate> priority, long agingMillis) {
+        Comparator<Candidate> fifo = Comparator.comparingLong(Candidate::getSequence);
+        this.queue = new PriorityQueue<>(priority != null ? priority.thenComparing(fifo) : fifo);
+        this.agingNanos = agingMillis > 0 ? agingMillis * 1_000_000 : Long.MAX_VALUE;
+    }
+
+    /**
+     * 入队（读取文件大小和修改时间，在发现线程中调用）
+     */
+    public void add(File wxapkgFile) {
+        Candidate candidate = new Candidate(wxapkgFile, wxapkgFile.length(), wxapkgFile.lastModified(),
+                WxAppletDecompiler.isMainPackage(wxapkgFile), WxAppletDecompiler.extractWxId(wxapkgFile.getPath()));
+        synchronized (this) {
+            candidate.sequence = sequence++;
+            candidate.enqueuedNanos = System.nanoTime();
+            queue.add(candidate);
+            arrivals.addLast(candidate);
+            pending++;
+            notifyAll();
+        }
+    }
+
+    /**
+     * 不会再有新包入队
+     */
+    public synchronized void finish() {
+        finished = true;
+        notifyAll();
+    }
+
+    /**
+     * 取优先级最高的包（等待最久的包超过老化期限时先取它），队列为空时等待
+     * @return 下一个包；队列已空且 finish() 之后返回null
+     */
+    public synchronized File take() throws InterruptedException {
+        while (pending == 0 && !finished) {
+            wait();
+        }
+        if (pending == 0) {
+            return null;
+        }
+        Candidate oldest = peekLive(arrivals::peekFirst, arrivals::pollFirst);
+        Candidate next = System.nanoTime() - oldest.enqueuedNanos >= agingNanos
+                ? oldest : peekLive(queue::peek, queue::poll);
+        next.taken = true;
+        pending--;
+        return next.file;
+    }
+
+    // 跳过已从另一视图取出的包
+    private static Candidate peekLive(java.util.function.Supplier<Candidate> peek, Runnable poll) {
+        Candidate candidate = peek.get();
+        while (candidate.taken) {
+            poll.run();
+            candidate = peek.get();
+        }
+        return candidate;
+    }
+
+    /**
+     * 取出所有未处理的包（取消时使用）
+     */
+    public synchronized List<File> drain() {
+        List<File> remaining = new ArrayList<>(queue.size());
+        for (Candidate candidate : arrivals) {
+            if (!candidate.taken) {
+                remaining.add(candidate.file);
+            }
+        }
+        queue.clear();
+        arrivals.clear();
+        pending = 0;
+        return remaining;
+    }
+
+    public synchronized int size() { return pending; }
+
+    /**
+     * 排队中的包（比较器使用的属性在入队时读取一次）
+     */
+    public static class Candidate {
+        private final File file;
+        private final long size;
+        private final long lastModified;
+        private final boolean mainPackage;
+        private final String appId;
+        private long sequence;
+        private long enqueuedNanos;
+        private boolean taken;
+
+        Candidate(File file, long size, long lastModified, boolean mainPackage, String appId) {
+            this.file = file;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.mainPackage = mainPackage;
+            this.appId = appId;
+        }
+
+        public File getFile() { return file; }
+        public long getSize() { return size; }
+        public long getLastModified() { return lastModified; }
+        public boolean isMainPackage() { return mainPackage; }
+        public String getAppId() { return appId; }
+        public long getSequence() { return sequence; }
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 解析流水线统计：各阶段耗时/字节/次数、每条规则的命中数和耗时、包级进度
+ * 计数全部用LongAdder，解包和扫描线程并发记录无需加锁
+ */
+public class PipelineMetrics {
+    /**
+     * 流水线阶段
+     */
+    public enum Stage {
+        READ("磁盘读取"),
+        KEY_DERIVE("PBKDF2密钥派生"),
+        DECRYPT("AES/XOR解密"),
+        DECRYPT_WRITE("解密文件写出"),
+        INDEX_PARSE("索引解析"),
+        UNPACK_MKDIR("目录创建"),
+        UNPACK_WRITE("解包写出"),
+        SCAN_READ("扫描读取"),
+        SCAN_SPLIT("模块拆分"),
+        SCAN("规则扫描"),
+        QUERY("小程序信息查询"),
+        CLEANUP("缓存清理");
+
+        private final String label;
+        Stage(String label) { this.label = label; }
+        public String getLabel() { return label; }
+    }
+
+    private static final int STAGES = Stage.values().length;
+
+    // ========== 全局累计 ==========
+    private final LongAdder[] stageNanos = newAdders();
+    private final LongAdder[] stageBytes = newAdders();
+    private final LongAdder[] stageCount = newAdders();
+    private final Map<String, RuleStats> ruleStats = new ConcurrentHashMap<>();
+    private final LongAdder entriesWritten = new LongAdder();
+    private final LongAdder unpackSyscalls = new LongAdder();
+    private final LongAdder filesScanned = new LongAdder();
+    private final LongAdder packageBytes = new LongAdder();
+    private final AtomicInteger packagesQueued = new AtomicInteger();
+    private final AtomicInteger packagesInFlight = new AtomicInteger();
+    private final AtomicInteger packagesDone = new AtomicInteger();
+    private volatile long startNanos = System.nanoTime();
+
+    /**
+     * 新一轮批量解析开始前清零
+     */
+    public void reset() {
+        for (int i = 0; i < STAGES; i++) {
+            stageNanos[i].reset();
+            stageBytes[i].reset();
+            stageCount[i].reset();
+        }
+        ruleStats.clear();
+        entriesWritten.reset();
+        unpackSyscalls.reset();
+        filesScanned.reset();
+        packageBytes.reset();
+        packagesQueued.set(0);
+        packagesInFlight.set(0);
+        packagesDone.set(0);
+        startNanos = System.nanoTime();
+    }
+
+    // ========== 包级进度（队列深度/处理中） ==========
+    public void packagesQueued(int count) { packagesQueued.addAndGet(count); }
+
+    /**
+     * 开始处理一个包，返回该包的统计对象（同时累加到全局）
+     */
+    public PackageStats beginPackage(String packagePath) {
+        packagesQueued.updateAndGet(v -> Math.max(0, v - 1));
+        packagesInFlight.incrementAndGet();
+        return new PackageStats(packagePath);
+    }
+
+    // ========== 快照读取（统计页面定时刷新） ==========
+    public long getStageNanos(Stage stage) { return stageNanos[stage.ordinal()].sum(); }
+    public long getStageBytes(Stage stage) { return stageBytes[stage.ordinal()].sum(); }
+    public long getStageCount(Stage stage) { return stageCount[stage.ordinal()].sum(); }
+    public Map<String, RuleStats> getRuleStats() { return ruleStats; }
+    public long getEntriesWritten() { return entriesWritten.sum(); }
+    public long getUnpackSyscalls() { return unpackSyscalls.sum(); }
+    public long getFilesScanned() { return filesScanned.sum(); }
+    public long getPackageBytes() { return packageBytes.sum(); }
+    public int getPackagesQueued() { return packagesQueued.get(); }
+    public int getPackagesInFlight() { return packagesInFlight.get(); }
+    public int getPackagesDone() { return packagesDone.get(); }
+    public double getElapsedSeconds() { return (System.nanoTime() - startNanos) / 1e9; }
+
+    // 按墙钟时间计算的吞吐
+    public double getThroughputMBps() {
+        double seconds = getElapsedSeconds();
+        return seconds <= 0 ? 0 : getPackageBytes() / 1024.0 / 1024.0 / seconds;
+    }
+
+    // 解包写出平均每个文件的系统调用次数（mkdir/open/write/close）
+    public double getSyscallsPerEntry() {
+        long entries = getEntriesWritten();
+        return entries == 0 ? 0 : (double) getUnpackSyscalls() / entries;
+    }
+
+    public double getFilesPerSecond() {
+        double seconds = getElapsedSeconds();
+        return seconds <= 0 ? 0 : getEntriesWritten() / seconds;
+    }
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[STAGES];
+        for (int i = 0; i < STAGES; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * 单条规则统计
+     */
+    public static class RuleStats {
+        private final LongAdder matches = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder runs = new LongAdder();
+        public long getMatches() { return matches.sum(); }
+        public long getNanos() { return nanos.sum(); }
+        public long getRuns() { return runs.sum(); }
+    }
+
+    /**
+     * 单包统计（解包线程并发写入）
+     */
+    public class PackageStats {
+        private final String packagePath;
+        private final long beginNanos = System.nanoTime();
+        private final AtomicLongArray nanos = new AtomicLongArray(STAGES);
+        private final AtomicLongArray bytes = new AtomicLongArray(STAGES);
+        private final LongAdder entries = new LongAdder();
+        private final LongAdder syscalls = new LongAdder();
+        private final LongAdder scannedFiles = new LongAdder();
+        private volatile long size;
+        private volatile boolean finished;
+        private volatile long endNanos;     // finish()时记录，0表示未结束
+
+        PackageStats(String packagePath) {
+            this.packagePath = packagePath;
+        }
+
+        public void packageSize(long size) {
+            this.size = size;
+            packageBytes.add(size);
+        }
+
+        public void record(Stage stage, long elapsedNanos, long byteCount) {
+            int i = stage.ordinal();
+            nanos.addAndGet(i, elapsedNanos);
+            bytes.addAndGet(i, byteCount);
+            stageNanos[i].add(elapsedNanos);
+            stageBytes[i].add(byteCount);
+            stageCount[i].increment();
+        }
+
+        /**
+         * 解包写出完成：写出的文件数及发出的系统调用次数
+         */
+        public void entriesWritten(long count, long syscallCount) {
+            entries.add(count);
+            entriesWritten.add(count);
+            syscalls.add(syscallCount);
+            unpackSyscalls.add(syscallCount);
+        }
+
+        public void fileScanned() {
+            scannedFiles.increment();
+            filesScanned.increment();
+        }
+
+        public void recordRule(String rule, long elapsedNanos, int matchCount) {
+            RuleStats stats = ruleStats.computeIfAbsent(rule, k -> new RuleStats());
+            stats.nanos.add(elapsedNanos);
+            stats.matches.add(matchCount);
+            stats.runs.increment();
+        }
+
+        public long getNanos(Stage stage) { return nanos.get(stage.ordinal()); }
+
+        /**
+         * 包处理结束（重复调用只生效一次）
+         */
+        public void finish() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            endNanos = System.nanoTime();
+            packagesInFlight.decrementAndGet();
+            packagesDone.incrementAndGet();
+        }
+
+        /**
+         * 单行摘要，用于写入Burp日志（总耗时截止到finish()，之后何时调用都不变）
+         */
+        public String summary(String appId, int apiCount, int sensitiveCount) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("[JaySenWxapkg] ").append(new File(packagePath).getName())
+                    .append(" (").append(appId).append(") ")
+                    .append(String.format("%.2fMB", size / 1024.0 / 1024.0))
+                    .append(" 总耗时 ").append(((endNanos != 0 ? endNanos : System.nanoTime()) - beginNanos) / 1_000_000).append("ms");
+            for (Stage stage : Stage.values()) {
+                long stageMs = nanos.get(stage.ordinal()) / 1_000_000;
+                if (nanos.get(stage.ordinal()) > 0) {
+                    sb.append(" | ").append(stage.getLabel()).append(' ').append(stageMs).append("ms");
+                }
+            }
+            long entryCount = entries.sum();
+            sb.append(" | 解包文件 ").append(entryCount);
+            if (entryCount > 0) {
+                sb.append(String.format("（系统调用 %.1f/文件）", (double) syscalls.sum() / entryCount));
+            }
+            sb.append(" | 扫描文件 ").append(scannedFiles.sum())
+                    .append(" | API ").append(apiCount)
+                    .append(" | 敏感信息 ").append(sensitiveCount);
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 敏感信息正则规则：每个命中（整个匹配）记为一条敏感信息
+ * 从正则中提取每个匹配都必须包含的最长字面量作为前置条件，文件中没有该字面量时不执行正则
+ */
+public class RegexDetector implements Detector {
+    private final String name;
+    private final Pattern pattern;
+    private final List<String> prerequisites;
+
+    public RegexDetector(String name, Pattern pattern) {
+        this.name = name;
+        this.pattern = pattern;
+        Literal literal = Literal.required(pattern);
+        this.prerequisites = literal == null ? List.of() : List.of(literal.text);
+    }
+
+    /**
+     * 按规则内容选择实现：整个正则就是一段字面量时用 LiteralDetector（不走正则引擎），否则用正则
+     */
+    public static Detector forRule(String name, Pattern pattern) {
+        Literal literal = Literal.required(pattern);
+        if (literal != null && literal.whole) {
+            return new LiteralDetector(name, literal.text, literal.ignoreCase);
+        }
+        return new RegexDetector(name, pattern);
+    }
+
+    @Override
+    public String getName() { return name; }
+
+    @Override
+    public long getEstimatedCost() { return 20_000; }
+
+    @Override
+    public List<String> getPrerequisites() { return prerequisites; }
+
+    @Override
+    public int detect(Context context, Sink sink) {
+        int matches = 0;
+        Matcher matcher = pattern.matcher(context.getText());
+        while (matcher.find()) {
+            matches++;
+            sink.sensitive(name, matcher.group(), matcher.start());
+        }
+        return matches;
+    }
+
+    /**
+     * 正则中必须出现的字面量（保守提取：无法确定时返回null，不会得到匹配中可能不出现的字面量）
+     */
+    static class Literal {
+        final String text;
+        final boolean ignoreCase;
+        final boolean whole;     // 整个正则就是这段字面量
+
+        private Literal(String text, boolean ignoreCase, boolean whole) {
+            this.text = text;
+            this.ignoreCase = ignoreCase;
+            this.whole = whole;
+        }
+
+        static Literal required(Pattern pattern) {
+            int flags = pattern.flags();
+            String regex = pattern.pattern();
+            if ((flags & Pattern.LITERAL) != 0) {
+                return regex.isEmpty() || (flags & Pattern.CASE_INSENSITIVE) != 0 && (flags & Pattern.UNICODE_CASE) != 0
+                        ? null : new Literal(regex, (flags & Pattern.CASE_INSENSITIVE) != 0, true);
+            }
+            if ((flags & (Pattern.COMMENTS | Pattern.UNICODE_CASE | Pattern.CANON_EQ)) != 0) {
+                return null;
+            }
+            boolean ignoreCase = (flags & Pattern.CASE_INSENSITIVE) != 0;
+            if (regex.startsWith("(?i)")) {
+                ignoreCase = true;
+                regex = regex.substring(4);
+            }
+            // 其他内嵌标志（(?x)、(?iu)、中途的(?i)等）会改变后续字面量的含义
+            if (regex.matches("(?s).*\\(\\?[a-zA-Z-].*")) {
+                return null;
+            }
+            String best = "";
+            StringBuilder run = new StringBuilder();
+            boolean whole = true;
+            int i = 0;
+            int n = regex.length();
+            while (i < n) {
+                char c = regex.charAt(i);
+                int atomEnd;
+                Character literal = null;
+                if (c == '\\') {
+                    if (i + 1 >= n) {
+                        return null;
+                    }
+                    char e = regex.charAt(i + 1);
+                    if (Character.isLetterOrDigit(e)) {
+                        // \d \w \b \Q \x41 \1 等：不是单个字面字符
+                        atomEnd = skipEscape(regex, i);
+                    } else {
+                        literal = e;
+                        atomEnd = i + 2;
+                    }
+                } else if (c == '[') {
+                    atomEnd = skipClass(regex, i);
+                } else if (c == '(') {
+                    atomEnd = skipGroup(regex, i);
+                } else if (c == '|') {
+                    return null;
+                } else if (c == '.' || c == '^' || c == '$') {
+                    atomEnd = i + 1;
+                } else if (c == '*' || c == '+' || c == '?' || c == '{' || c == ')' || c == ']') {
+                    return null;
+                } else {
+                    literal = c;
+                    atomEnd = i + 1;
+                }
+                if (atomEnd < 0) {
+                    return null;
+                }
+                // 量词
+                int quantEnd = atomEnd;
+                boolean optional = false;
+                if (quantEnd < n && "*+?{".indexOf(regex.charAt(quantEnd)) >= 0) {
+                    char q = regex.charAt(quantEnd);
+                    if (q == '{') {
+                        int close = regex.indexOf('}', quantEnd);
+                        if (close < 0) {
+                            return null;
+                        }
+                        String min = regex.substring(quantEnd + 1, close).split(",", -1)[0].trim();
+                        optional = min.isEmpty() || min.equals("0");
+                        quantEnd = close + 1;
+                    } else {
+                        optional = q != '+';
+                        quantEnd++;
+                    }
+                    if (quantEnd < n && (regex.charAt(quantEnd) == '?' || regex.charAt(quantEnd) == '+')) {
+                        quantEnd++;
+                    }
+                }
+                boolean quantified = quantEnd > atomEnd;
+                if (literal != null && !optional) {
+                    run.append(literal.charValue());
+                }
+                if (literal == null || quantified) {
+                    whole = false;
+                    if (run.length() > best.length()) {
+                        best = run.toString();
+                    }
+                    run.setLength(0);
+                }
+                i = quantEnd;
+            }
+            if (run.length() > best.length()) {
+                best = run.toString();
+            }
+            if (best.isEmpty()) {
+                return null;
+            }
+            // 不区分大小写时只处理ASCII字面量（与正则默认的ASCII大小写规则一致）
+            if (ignoreCase && !best.chars().allMatch(ch -> ch < 128)) {
+                return null;
+            }
+            return new Literal(best, ignoreCase, whole);
+        }
+
+        private static int skipEscape(String regex, int i) {
+            char e = regex.charAt(i + 1);
+            if (e == 'Q') {
+                // \Q...\E 内的内容按字面处理，这里整体视为非字面原子（保守）
+                int end = regex.indexOf("\\E", i + 2);
+                return end < 0 ? regex.length() : end + 2;
+            }
+            if ((e == 'p' || e == 'P' || e == 'x' || e == 'k' || e == 'N') && i + 2 < regex.length()
+                    && (regex.charAt(i + 2) == '{' || regex.charAt(i + 2) == '<')) {
+                int end = regex.indexOf(regex.charAt(i + 2) == '{' ? '}' : '>', i + 2);
+                return end < 0 ? -1 : end + 1;
+            }
+            int j = i + 2;
+            if (e == 'x') {
+                j = Math.min(regex.length(), i + 4);
+            } else if (e == 'u') {
+                j = Math.min(regex.length(), i + 6);
+            } else if (e == 'c') {
+                j = Math.min(regex.length(), i + 3);
+            } else if (Character.isDigit(e)) {
+                while (j < regex.length() && Character.isDigit(regex.charAt(j))) {
+                    j++;
+                }
+            }
+            return j;
+        }
+
+        // 跳过字符类（支持嵌套和转义）
+        private static int skipClass(String regex, int i) {
+            int depth = 0;
+            for (int j = i; j < regex.length(); j++) {
+                char c = regex.charAt(j);
+                if (c == '\\') {
+                    j++;
+                } else if (c == '[') {
+                    depth++;
+                } else if (c == ']' && j > i + 1 && !(j == i + 2 && regex.charAt(i + 1) == '^')) {
+                    if (--depth == 0) {
+                        return j + 1;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        // 跳过分组（支持嵌套、转义和组内字符类）
+        private static int skipGroup(String regex, int i) {
+            int depth = 0;
+            for (int j = i; j < regex.length(); j++) {
+                char c = regex.charAt(j);
+                if (c == '\\') {
+                    j++;
+                } else if (c == '[') {
+                    j = skipClass(regex, j);
+                    if (j < 0) {
+                        return -1;
+                    }
+                    j--;
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')' && --depth == 0) {
+                    return j + 1;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.util.*;
+
+/**
+ * 批量结果聚合器：同一API/敏感信息只保存一份，记录命中次数、出现文件（有上限）、来源包和AppID
+ * 原始明细以紧凑列式存储（ResultStore）保留一份，供UI按需切换查看
+ * 修改只在EDT上进行，修改方法都持有本对象的锁；其他线程读取（导出）时需持有同一把锁
+ */
+public class ResultAggregator {
+    // 每条聚合结果最多记录的文件/包/AppID数量（超出只计数不保存）
+    public static final int DEFAULT_MAX_FILES = 20;
+
+    private final int maxFiles;
+    // 原始明细（聚合结果的字符串也引用这里的字典）
+    private final ResultStore rawApiStore = new ResultStore();
+    private final ResultStore rawSensitiveStore = new ResultStore();
+    // 小程序信息（类型列=配置项，内容列=值），用于导出
+    private final ResultStore appInfoStore = new ResultStore();
+    // 聚合结果（按首次出现顺序，下标即表格行号）
+    private final List<AggregatedEntry> apiEntries = new ArrayList<>();
+    private final List<AggregatedEntry> sensitiveEntries = new ArrayList<>();
+    // (类型id, 内容id) → 聚合结果下标
+    private final LongIntMap apiEntryIndex = new LongIntMap();
+    private final LongIntMap sensitiveEntryIndex = new LongIntMap();
+    // 新增文件/包/AppID的聚合结果下标（表格搜索索引据此增量更新，取走后清空）
+    private final List<Integer> changedApiRows = new ArrayList<>();
+    private final List<Integer> changedSensitiveRows = new ArrayList<>();
+
+    public ResultAggregator() {
+        this(DEFAULT_MAX_FILES);
+    }
+
+    public ResultAggregator(int maxFiles) {
+        this.maxFiles = Math.max(1, maxFiles);
+    }
+
+    /**
+     * 合并一个包的解析结果
+     */
+    public synchronized void add(WxAppletDecompiler decompiler) {
+        add(decompiler.getWxapkgFilePath(), decompiler.getAppId(), decompiler.getAppInfoList(),
+                decompiler.getApiStore(), decompiler.getSensitiveStore());
+    }
+
+    /**
+     * 合并一个包的结果（从项目数据恢复时不经过解析器）
+     */
+    public synchronized void add(String pkg, String appId, List<WxAppletDecompiler.AppInfo> appInfos,
+                    ResultStore apiStore, ResultStore sensitiveStore) {
+        for (WxAppletDecompiler.AppInfo appInfo : appInfos) {
+            appInfoStore.add(appInfoStore.size() + 1, null, appInfo.getKey(), appInfo.getValue(), 0, pkg, appId);
+        }
+        merge(apiStore, rawApiStore, apiEntries, apiEntryIndex, changedApiRows, pkg, appId);
+        merge(sensitiveStore, rawSensitiveStore, sensitiveEntries, sensitiveEntryIndex, changedSensitiveRows, pkg, appId);
+    }
+
+    public synchronized void addApi(String api, String file, String pkg, String appId) {
+        int row = rawApiStore.add(rawApiStore.size() + 1, file, null, api, 0, pkg, appId);
+        hit(rawApiStore, row, apiEntries, apiEntryIndex, changedApiRows);
+    }
+
+    public synchronized void addSensitive(String type, String content, String file, String pkg, String appId) {
+        int row = rawSensitiveStore.add(rawSensitiveStore.size() + 1, file, type, content, 0, pkg, appId);
+        hit(rawSensitiveStore, row, sensitiveEntries, sensitiveEntryIndex, changedSensitiveRows);
+    }
+
+    // 把单包结果按id翻译进聚合器的字典（每个唯一字符串每包只查一次字典）
+    private void merge(ResultStore src, ResultStore dst, List<AggregatedEntry> entries, LongIntMap entryIndex,
+                       List<Integer> changedRows, String pkg, String appId) {
+        int pkgId = dst.getPackages().intern(pkg);
+        int appIdId = dst.getAppIds().intern(appId);
+        int[] pathMap = ResultStore.newIdMap(src.getPaths().size());
+        int[] typeMap = ResultStore.newIdMap(src.getTypes().size());
+        int[] valueMap = ResultStore.newIdMap(src.getValues().size());
+        for (int row = 0; row < src.size(); row++) {
+            int pathId = ResultStore.translate(pathMap, src.getPathId(row), id -> dst.getPaths().intern(src.getPaths().get(id)));
+            int typeId = ResultStore.translate(typeMap, src.getTypeId(row), id -> dst.getTypes().intern(src.getTypes().get(id)));
+            int valueId = ResultStore.translate(valueMap, src.getValueId(row), id -> dst.getValues().intern(src.getValues().get(id)));
+            int rawRow = dst.addIds(dst.size() + 1, pathId, typeId, valueId, src.getOffset(row), pkgId, appIdId);
+            hit(dst, rawRow, entries, entryIndex, changedRows);
+        }
+    }
+
+    private void hit(ResultStore store, int row, List<AggregatedEntry> entries, LongIntMap entryIndex,
+                     List<Integer> changedRows) {
+        long key = ((long) store.getTypeId(row) << 32) | (store.getValueId(row) & 0xFFFFFFFFL);
+        int entryIdx = entryIndex.get(key);
+        AggregatedEntry entry;
+        if (entryIdx < 0) {
+            entry = new AggregatedEntry(store, store.getTypeId(row), store.getValueId(row));
+            entryIndex.put(key, entries.size());
+            entries.add(entry);
+        } else {
+            entry = entries.get(entryIdx);
+        }
+        if (entry.hit(store.getPathId(row), store.getPackageId(row), store.getAppIdId(row), maxFiles)
+                && entryIdx >= 0 && !entry.changed) {
+            entry.changed = true;
+            changedRows.add(entryIdx);
+        }
+    }
+
+    public synchronized void clear() {
+        apiEntries.clear();
+        sensitiveEntries.clear();
+        apiEntryIndex.clear();
+        sensitiveEntryIndex.clear();
+        changedApiRows.clear();
+        changedSensitiveRows.clear();
+        rawApiStore.clear();
+        rawSensitiveStore.clear();
+        appInfoStore.clear();
+    }
+
+    // ========== 获取结果的方法 ==========
+    public List<AggregatedEntry> getApiEntries() { return apiEntries; }
+    public List<AggregatedEntry> getSensitiveEntries() { return sensitiveEntries; }
+    public ResultStore getRawApiStore() { return rawApiStore; }
+    public ResultStore getRawSensitiveStore() { return rawSensitiveStore; }
+    public ResultStore getAppInfoStore() { return appInfoStore; }
+
+    /**
+     * 取走上次调用之后文件/包/AppID有新增的已有聚合结果下标（新增的结果不在其中）
+     */
+    public synchronized int[] takeChangedApiRows() { return takeChanged(changedApiRows, apiEntries); }
+    public synchronized int[] takeChangedSensitiveRows() { return takeChanged(changedSensitiveRows, sensitiveEntries); }
+
+    private static int[] takeChanged(List<Integer> changedRows, List<AggregatedEntry> entries) {
+        int[] rows = new int[changedRows.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = changedRows.get(i);
+            entries.get(rows[i]).changed = false;
+        }
+        changedRows.clear();
+        return rows;
+    }
+
+    /**
+     * 聚合后的一条结果（只保存字典id，字符串按需还原）
+     */
+    public static class AggregatedEntry {
+        private static final int[] EMPTY = new int[0];
+        private final ResultStore store;
+        private final int typeId;    // 敏感信息类型（API为-1）
+        private final int valueId;   // API接口 / 泄露内容
+        private int hitCount;
+        private int fileCount;       // 出现过的不同文件数（含未保存的部分）
+        private int[] filePkgIds = EMPTY;
+        private int[] filePathIds = EMPTY;
+        private int fileSize;
+        private int[] pkgIds = EMPTY;
+        private int pkgSize;
+        private int[] appIdIds = EMPTY;
+        private int appIdSize;
+        // 超出上限后不再保存的文件：(包id, 路径id) → 0，只用于准确计数，首次超出时创建
+        private LongIntMap overflowFiles;
+        // 同一文件的命中通常连续到达，与上一个文件相同时直接跳过查找
+        private int lastPkgId = Integer.MIN_VALUE;
+        private int lastPathId = Integer.MIN_VALUE;
+        private boolean changed;     // 已记录在变更列表中
+
+        AggregatedEntry(ResultStore store, int typeId, int valueId) {
+            this.store = store;
+            this.typeId = typeId;
+            this.valueId = valueId;
+        }
+
+        // 返回保存的文件/包/AppID是否有新增
+        boolean hit(int pathId, int pkgId, int appIdId, int max) {
+            hitCount++;
+            if (pathId == lastPathId && pkgId == lastPkgId) {
+                return false;
+            }
+            lastPathId = pathId;
+            lastPkgId = pkgId;
+            for (int i = 0; i < fileSize; i++) {
+                if (filePathIds[i] == pathId && filePkgIds[i] == pkgId) {
+                    return false;
+                }
+            }
+            boolean stored = false;
+            if (fileSize < max) {
+                filePathIds = grow(filePathIds, fileSize, max);
+                filePkgIds = grow(filePkgIds, fileSize, max);
+                filePathIds[fileSize] = pathId;
+                filePkgIds[fileSize] = pkgId;
+                fileSize++;
+                stored = true;
+            } else {
+                long fileKey = ((long) pkgId << 32) | (pathId & 0xFFFFFFFFL);
+                if (overflowFiles == null) {
+                    overflowFiles = new LongIntMap();
+                } else if (overflowFiles.get(fileKey) >= 0) {
+                    return false;
+                }
+                overflowFiles.put(fileKey, 0);
+            }
+            fileCount++;
+            if (pkgId >= 0 && pkgSize < max && !contains(pkgIds, pkgSize, pkgId)) {
+                pkgIds = grow(pkgIds, pkgSize, max);
+                pkgIds[pkgSize++] = pkgId;
+                stored = true;
+            }
+            if (appIdId >= 0 && appIdSize < max && !contains(appIdIds, appIdSize, appIdId)) {
+                appIdIds = grow(appIdIds, appIdSize, max);
+                appIdIds[appIdSize++] = appIdId;
+                stored = true;
+            }
+            return stored;
+        }
+
+        public String getType() { return store.getTypes().get(typeId); }
+        public String getValue() { return store.getValues().get(valueId); }
+        public int getHitCount() { return hitCount; }
+        public int getFileCount() { return fileCount; }
+
+        public List<String> getFiles() {
+            List<String> result = new ArrayList<>(fileSize);
+            for (int i = 0; i < fileSize; i++) {
+                result.add(store.getPaths().get(filePathIds[i]));
+            }
+            return result;
+        }
+
+        public Set<String> getPackages() {
+            Set<String> result = new LinkedHashSet<>();
+            for (int i = 0; i < pkgSize; i++) {
+                result.add(store.getPackages().get(pkgIds[i]));
+            }
+            return result;
+        }
+
+        public Set<String> getAppIds() {
+            Set<String> result = new LinkedHashSet<>();
+            for (int i = 0; i < appIdSize; i++) {
+                result.add(store.getAppIds().get(appIdIds[i]));
+            }
+            return result;
+        }
+
+        // 表格展示用：超出上限时追加省略提示
+        public String getFilesText() {
+            String text = String.join(", ", getFiles());
+            return fileCount > fileSize ? text + " …等" + fileCount + "个文件" : text;
+        }
+
+        private static boolean contains(int[] arr, int len, int value) {
+            for (int i = 0; i < len; i++) {
+                if (arr[i] == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static int[] grow(int[] arr, int len, int max) {
+            return len < arr.length ? arr : Arrays.copyOf(arr, Math.min(max, Math.max(2, arr.length * 2)));
+        }
+    }
+
+    /**
+     * long → int 开放寻址哈希表（未命中返回-1），避免查找时装箱
+     */
+    static class LongIntMap {
+        private long[] keys = new long[64];
+        private int[] values = new int[64];
+        private boolean[] used = new boolean[64];
+        private int size;
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (used[slot]) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (used[slot]) {
+                if (keys[slot] == key) {
+                    values[slot] = value;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            values[slot] = value;
+            size++;
+        }
+
+        void clear() {
+            Arrays.fill(used, false);
+            size = 0;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * 并发结果收集器：每个扫描线程写自己的ResultStore分段（热路径无锁），
+ * 扫描结束后 seal() 归并为一个ResultStore
+ * 归并时按(文件路径, 偏移, 类型, 内容)排序再分配序号，序号与线程调度无关，多次运行结果一致
+ */
+public class ResultCollector {
+    private final ConcurrentLinkedQueue<ResultStore> shards = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<ResultStore> localShard = ThreadLocal.withInitial(() -> {
+        ResultStore shard = new ResultStore();
+        shards.add(shard);
+        return shard;
+    });
+    private final AtomicInteger nextIndex;
+
+    public ResultCollector() {
+        this(1);
+    }
+
+    public ResultCollector(int firstIndex) {
+        this.nextIndex = new AtomicInteger(firstIndex);
+    }
+
+    /**
+     * 当前线程的分段，只能由当前线程写入（序号在seal时分配，写入时填0即可）
+     */
+    public ResultStore shard() {
+        return localShard.get();
+    }
+
+    /**
+     * 归并所有分段，应在所有写线程结束后调用
+     */
+    public ResultStore seal() {
+        List<ResultStore> all = new ArrayList<>(shards);
+        if (all.isEmpty()) {
+            return new ResultStore();
+        }
+        // 1. 路径、类型、内容按字符串排序得到全局名次（每个字符串只解码一次），排序时只比较int
+        int[][] pathRanks = rank(all, s -> strings(s.getPaths().size(), s.getPaths()::get));
+        int[][] typeRanks = rank(all, s -> strings(s.getTypes().size(), s.getTypes()::get));
+        int[][] valueRanks = rank(all, s -> strings(s.getValues().size(), s.getValues()::get));
+
+        // 2. 所有行按 路径 → 偏移 → 类型 → 内容 排序
+        int total = 0;
+        for (ResultStore shard : all) {
+            total += shard.size();
+        }
+        long[] order = new long[total]; // 高32位分段下标，低32位行号
+        int n = 0;
+        for (int s = 0; s < all.size(); s++) {
+            for (int row = 0; row < all.get(s).size(); row++) {
+                order[n++] = ((long) s << 32) | row;
+            }
+        }
+        sort(order, (a, b) -> {
+            int shardA = (int) (a >>> 32);
+            int shardB = (int) (b >>> 32);
+            ResultStore sa = all.get(shardA);
+            ResultStore sb = all.get(shardB);
+            int ra = (int) a;
+            int rb = (int) b;
+            int c = Integer.compare(rankOf(pathRanks[shardA], sa.getPathId(ra)), rankOf(pathRanks[shardB], sb.getPathId(rb)));
+            if (c != 0) return c;
+            c = Integer.compare(sa.getOffset(ra), sb.getOffset(rb));
+            if (c != 0) return c;
+            c = Integer.compare(rankOf(typeRanks[shardA], sa.getTypeId(ra)), rankOf(typeRanks[shardB], sb.getTypeId(rb)));
+            if (c != 0) return c;
+            // null排在最前（名次-1）
+            return Integer.compare(rankOf(valueRanks[shardA], sa.getValueId(ra)), rankOf(valueRanks[shardB], sb.getValueId(rb)));
+        });
+
+        // 3. 按顺序写入新的ResultStore并分配序号（字典id逐分段翻译）
+        ResultStore merged = new ResultStore();
+        Map<ResultStore, int[][]> idMaps = new IdentityHashMap<>();
+        for (long ref : order) {
+            ResultStore shard = all.get((int) (ref >>> 32));
+            int row = (int) ref;
+            int[][] maps = idMaps.computeIfAbsent(shard, k -> new int[][]{
+                    ResultStore.newIdMap(k.getPaths().size()), ResultStore.newIdMap(k.getTypes().size()),
+                    ResultStore.newIdMap(k.getValues().size()), ResultStore.newIdMap(k.getPackages().size()),
+                    ResultStore.newIdMap(k.getAppIds().size())});
+            int pathId = ResultStore.translate(maps[0], shard.getPathId(row), id -> merged.getPaths().intern(shard.getPaths().get(id)));
+            int typeId = ResultStore.translate(maps[1], shard.getTypeId(row), id -> merged.getTypes().intern(shard.getTypes().get(id)));
+            int valueId = ResultStore.translate(maps[2], shard.getValueId(row), id -> merged.getValues().intern(shard.getValues().get(id)));
+            int pkgId = ResultStore.translate(maps[3], shard.getPackageId(row), id -> merged.getPackages().intern(shard.getPackages().get(id)));
+            int appIdId = ResultStore.translate(maps[4], shard.getAppIdId(row), id -> merged.getAppIds().intern(shard.getAppIds().get(id)));
+            merged.addIds(nextIndex.getAndIncrement(), pathId, typeId, valueId, shard.getOffset(row), pkgId, appIdId);
+        }
+        return merged;
+    }
+
+    // 每个分段的 本地id → 全局名次
+    private static int[][] rank(List<ResultStore> all, Function<ResultStore, String[]> dict) {
+        // 先哈希去重，只对不同的字符串排一次序
+        String[][] strings = new String[all.size()][];
+        HashMap<String, Integer> sorted = new HashMap<>();
+        for (int s = 0; s < all.size(); s++) {
+            strings[s] = dict.apply(all.get(s));
+            for (String string : strings[s]) {
+                sorted.putIfAbsent(string, 0);
+            }
+        }
+        String[] distinct = sorted.keySet().toArray(new String[0]);
+        Arrays.sort(distinct);
+        for (int rank = 0; rank < distinct.length; rank++) {
+            sorted.put(distinct[rank], rank);
+        }
+        int[][] ranks = new int[all.size()][];
+        for (int s = 0; s < all.size(); s++) {
+            ranks[s] = new int[strings[s].length];
+            for (int id = 0; id < strings[s].length; id++) {
+                ranks[s][id] = sorted.get(strings[s][id]);
+            }
+        }
+        return ranks;
+    }
+
+    // 字典内容按id取出（内容字典是字节数组，get会新建字符串）
+    private static String[] strings(int size, IntFunction<String> get) {
+        String[] strings = new String[size];
+        for (int id = 0; id < size; id++) {
+            strings[id] = get.apply(id);
+        }
+        return strings;
+    }
+
+    private static int rankOf(int[] ranks, int id) {
+        return id < 0 ? -1 : ranks[id];
+    }
+
+    // ========== 行排序（long不装箱） ==========
+    private interface RefComparator {
+        int compare(long a, long b);
+    }
+
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    // 稳定归并排序，相等的行保持分段顺序（与原先的对象排序结果一致）
+    private static void sort(long[] refs, RefComparator comparator) {
+        if (refs.length > 1) {
+            mergeSort(refs, refs.clone(), 0, refs.length, comparator);
+        }
+    }
+
+    // 把 src[from, to) 排好序写入 dst[from, to)（src与dst初始内容相同）
+    private static void mergeSort(long[] dst, long[] src, int from, int to, RefComparator comparator) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                long ref = dst[i];
+                int j = i - 1;
+                while (j >= from && comparator.compare(dst[j], ref) > 0) {
+                    dst[j + 1] = dst[j];
+                    j--;
+                }
+                dst[j + 1] = ref;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(src, dst, from, mid, comparator);
+        mergeSort(src, dst, mid, to, comparator);
+        if (comparator.compare(src[mid - 1], src[mid]) <= 0) {
+            System.arraycopy(src, from, dst, from, to - from);
+            return;
+        }
+        for (int i = from, p = from, q = mid; i < to; i++) {
+            if (q >= to || p < mid && comparator.compare(src[p], src[q]) <= 0) {
+                dst[i] = src[p++];
+            } else {
+                dst[i] = src[q++];
+            }
+        }
+    }
+}
@@ -0,0 +1,379 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 结果流式导出（JSONL / CSV）
+ * 逐行写出，不拼接大字符串，内存占用与结果条数无关
+ */
+public class ResultExporter {
+    public enum Format { JSONL, CSV }
+    public enum Scope { API, SENSITIVE, APP_INFO }
+
+    // 每写多少行回调一次进度
+    private static final int PROGRESS_STEP = 1000;
+
+    private final Format format;
+    private final Scope scope;
+    private final boolean raw;
+    // 过滤条件（为空不过滤，均为包含匹配，不区分大小写）
+    private String keyword;
+    private String typeFilter;
+    private String appIdFilter;
+    private String packageFilter;
+
+    public ResultExporter(Format format, Scope scope, boolean raw) {
+        this.format = format;
+        this.scope = scope;
+        this.raw = raw;
+    }
+
+    public ResultExporter keyword(String keyword) { this.keyword = normalize(keyword); return this; }
+    public ResultExporter typeFilter(String typeFilter) { this.typeFilter = normalize(typeFilter); return this; }
+    public ResultExporter appIdFilter(String appIdFilter) { this.appIdFilter = normalize(appIdFilter); return this; }
+    public ResultExporter packageFilter(String packageFilter) { this.packageFilter = normalize(packageFilter); return this; }
+
+    /**
+     * 进度回调
+     */
+    public interface ProgressListener {
+        void onProgress(int done, int total);
+    }
+
+    /**
+     * 导出到文件
+     * @return 实际写出的行数
+     */
+    public int export(ResultAggregator aggregator, File target, ProgressListener listener, BooleanSupplier cancelled) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(target), 64 * 1024)) {
+            return export(aggregator, out, listener, cancelled);
+        }
+    }
+
+    /**
+     * 导出到输出流（不关闭流）
+     * 聚合器在EDT上持续追加结果，导出线程每次持有聚合器的锁取出一批行的快照，写出时不持锁
+     */
+    public int export(ResultAggregator aggregator, OutputStream out, ProgressListener listener, BooleanSupplier cancelled) throws IOException {
+        RowWriter writer = format == Format.JSONL ? new JsonlRowWriter(out) : new CsvRowWriter(out);
+        // 开始时固定行数，导出过程中新增的结果不计入
+        int total;
+        synchronized (aggregator) {
+            total = size(aggregator);
+        }
+        int written = 0;
+        List<Row> batch = new ArrayList<>(PROGRESS_STEP);
+        writer.header();
+        for (int from = 0; from < total; from += PROGRESS_STEP) {
+            if (cancelled != null && cancelled.getAsBoolean()) {
+                break;
+            }
+            batch.clear();
+            synchronized (aggregator) {
+                // 导出期间结果被清空时只导出仍存在的行
+                int to = Math.min(Math.min(total, from + PROGRESS_STEP), size(aggregator));
+                for (int i = from; i < to; i++) {
+                    Row row = snapshot(aggregator, i);
+                    if (row != null) {
+                        batch.add(row);
+                    }
+                }
+            }
+            for (Row row : batch) {
+                writer.row(row);
+                written++;
+            }
+            if (listener != null) {
+                listener.onProgress(Math.min(total, from + PROGRESS_STEP), total);
+            }
+        }
+        writer.finish();
+        if (listener != null) {
+            listener.onProgress(total, total);
+        }
+        return written;
+    }
+
+    private int size(ResultAggregator aggregator) {
+        return switch (scope) {
+            case API -> raw ? aggregator.getRawApiStore().size() : aggregator.getApiEntries().size();
+            case SENSITIVE -> raw ? aggregator.getRawSensitiveStore().size() : aggregator.getSensitiveEntries().size();
+            case APP_INFO -> aggregator.getAppInfoStore().size();
+        };
+    }
+
+    // 取出第i行（调用方持有聚合器的锁），不满足过滤条件返回null
+    private Row snapshot(ResultAggregator aggregator, int i) {
+        Row row = new Row();
+        if (scope == Scope.APP_INFO || raw) {
+            ResultStore store = switch (scope) {
+                case API -> aggregator.getRawApiStore();
+                case SENSITIVE -> aggregator.getRawSensitiveStore();
+                case APP_INFO -> aggregator.getAppInfoStore();
+            };
+            row.value = store.getValue(i);
+            row.type = store.getType(i);
+            row.pkg = store.getPackage(i);
+            row.appId = store.getAppId(i);
+            if (!accept(row.value, row.type, row.pkg, row.appId)) {
+                return null;
+            }
+            row.index = store.getIndex(i);
+            row.path = store.getPath(i);
+            row.offset = store.getOffset(i);
+            return row;
+        }
+        ResultAggregator.AggregatedEntry entry = scope == Scope.API
+                ? aggregator.getApiEntries().get(i)
+                : aggregator.getSensitiveEntries().get(i);
+        row.aggregated = true;
+        row.value = entry.getValue();
+        row.type = entry.getType();
+        row.packages = entry.getPackages();
+        row.appIds = entry.getAppIds();
+        if (!accept(row.value, row.type, row.packages, row.appIds)) {
+            return null;
+        }
+        row.hits = entry.getHitCount();
+        row.fileCount = entry.getFileCount();
+        row.files = entry.getFiles();
+        return row;
+    }
+
+    private boolean accept(String value, String type, String pkg, String appId) {
+        return matches(value, keyword) && matches(type, typeFilter) && matches(pkg, packageFilter) && matches(appId, appIdFilter);
+    }
+
+    private boolean accept(String value, String type, Collection<String> pkgs, Collection<String> appIds) {
+        return matches(value, keyword) && matches(type, typeFilter) && matchesAny(pkgs, packageFilter) && matchesAny(appIds, appIdFilter);
+    }
+
+    private static boolean matches(String text, String filter) {
+        return filter == null || (text != null && text.toLowerCase().contains(filter));
+    }
+
+    private static boolean matchesAny(Collection<String> texts, String filter) {
+        if (filter == null) {
+            return true;
+        }
+        for (String text : texts) {
+            if (matches(text, filter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String normalize(String filter) {
+        return filter == null || filter.trim().isEmpty() ? null : filter.trim().toLowerCase();
+    }
+
+    /**
+     * 一行结果的快照（原始明细或聚合结果）
+     */
+    private static class Row {
+        boolean aggregated;
+        String value;
+        String type;
+        String pkg;
+        String appId;
+        String path;
+        int index;
+        int offset;
+        int hits;
+        int fileCount;
+        List<String> files;
+        Collection<String> packages;
+        Collection<String> appIds;
+    }
+
+    // ========== 行写出器 ==========
+    private abstract class RowWriter {
+        abstract void header() throws IOException;
+        abstract void row(String[] names, Object... values) throws IOException;
+        abstract void aggregatedRow(String type, String value, Row row) throws IOException;
+        abstract void finish() throws IOException;
+
+        void row(Row row) throws IOException {
+            if (row.aggregated) {
+                aggregatedRow(scope == Scope.API ? null : row.type, row.value, row);
+            } else if (scope == Scope.APP_INFO) {
+                row(new String[]{"package", "appId", "key", "value"}, row.pkg, row.appId, row.type, row.value);
+            } else if (scope == Scope.API) {
+                row(new String[]{"index", "package", "appId", "file", "offset", "api"},
+                        row.index, row.pkg, row.appId, row.path, row.offset, row.value);
+            } else {
+                row(new String[]{"package", "appId", "file", "offset", "type", "content"},
+                        row.pkg, row.appId, row.path, row.offset, row.type, row.value);
+            }
+        }
+    }
+
+    /**
+     * JSONL：每行一个JSON对象，JsonGenerator直接写入输出流
+     */
+    private class JsonlRowWriter extends RowWriter {
+        private final JsonGenerator generator;
+
+        JsonlRowWriter(OutputStream out) throws IOException {
+            generator = new JsonFactory().createGenerator(out, JsonEncoding.UTF8);
+            generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            // 输出流由调用方关闭
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        void header() {}
+
+        @Override
+        void row(String[] names, Object... values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < names.length; i++) {
+                if (values[i] instanceof Integer number) {
+                    generator.writeNumberField(names[i], number);
+                } else {
+                    generator.writeStringField(names[i], (String) values[i]);
+                }
+            }
+            generator.writeEndObject();
+        }
+
+        @Override
+        void aggregatedRow(String type, String value, Row entry) throws IOException {
+            generator.writeStartObject();
+            if (type != null) {
+                generator.writeStringField("type", type);
+                generator.writeStringField("content", value);
+            } else {
+                generator.writeStringField("api", value);
+            }
+            generator.writeNumberField("hits", entry.hits);
+            generator.writeNumberField("fileCount", entry.fileCount);
+            writeArray("files", entry.files);
+            writeArray("packages", entry.packages);
+            writeArray("appIds", entry.appIds);
+            generator.writeEndObject();
+        }
+
+        private void writeArray(String name, Collection<String> values) throws IOException {
+            generator.writeArrayFieldStart(name);
+            for (String value : values) {
+                generator.writeString(value);
+            }
+            generator.writeEndArray();
+        }
+
+        @Override
+        void finish() throws IOException {
+            generator.writeRaw('\n');
+            generator.flush();
+            generator.close();
+        }
+    }
+
+    /**
+     * CSV：带BOM的UTF-8（Excel直接打开不乱码），按RFC 4180转义
+     */
+    private class CsvRowWriter extends RowWriter {
+        private final Writer writer;
+        private boolean headerWritten;
+
+        CsvRowWriter(OutputStream out) {
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        @Override
+        void header() throws IOException {
+            writer.write('\uFEFF');
+            // 聚合视图列固定，原始视图在写第一行时输出列名
+            if (scope != Scope.APP_INFO && !raw) {
+                writeLine(scope == Scope.API
+                        ? List.of("api", "hits", "fileCount", "files", "packages", "appIds")
+                        : List.of("type", "content", "hits", "fileCount", "files", "packages", "appIds"));
+                headerWritten = true;
+            }
+        }
+
+        @Override
+        void row(String[] names, Object... values) throws IOException {
+            if (!headerWritten) {
+                writeLine(List.of(names));
+                headerWritten = true;
+            }
+            writeLine(List.of(toCells(values)));
+        }
+
+        @Override
+        void aggregatedRow(String type, String value, Row entry) throws IOException {
+            String hits = String.valueOf(entry.hits);
+            String fileCount = String.valueOf(entry.fileCount);
+            String files = String.join(";", entry.files);
+            String packages = String.join(";", entry.packages);
+            String appIds = String.join(";", entry.appIds);
+            writeLine(type == null
+                    ? List.of(value, hits, fileCount, files, packages, appIds)
+                    : List.of(type, value, hits, fileCount, files, packages, appIds));
+        }
+
+        private void writeLine(List<String> cells) throws IOException {
+            for (int i = 0; i < cells.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeCell(cells.get(i));
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeCell(String cell) throws IOException {
+            boolean quote = cell.indexOf(',') >= 0 || cell.indexOf('"') >= 0 || cell.indexOf('\n') >= 0 || cell.indexOf('\r') >= 0;
+            if (!quote) {
+                writer.write(cell);
+                return;
+            }
+            writer.write('"');
+            for (int i = 0; i < cell.length(); i++) {
+                char c = cell.charAt(i);
+                if (c == '"') {
+                    writer.write('"');
+                }
+                writer.write(c);
+            }
+            writer.write('"');
+        }
+
+        private String[] toCells(Object[] values) {
+            String[] cells = new String[values.length];
+            for (int i = 0; i < values.length; i++) {
+                cells[i] = values[i] == null ? "" : values[i].toString();
+            }
+            return cells;
+        }
+
+        @Override
+        void finish() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.persistence.PersistedObject;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 扫描结果持久化：每个包的小程序信息、API和敏感信息结果编码为一个压缩块，
+ * 写入Burp项目的插件数据（重启Burp后随项目恢复，不需要重新读取和扫描wxapkg）
+ * 块内按ResultStore的列式结构保存：先写路径/类型/内容字典，再写每行的字典id（变长整数），最后整体Deflate压缩
+ */
+public class ResultPersistence {
+    private static final String KEY_PREFIX = "jaysenwxapkg.results.";
+    private static final String COUNT_KEY = KEY_PREFIX + "count";
+    private static final int VERSION = 1;
+
+    /**
+     * 键值存储（Burp项目数据；测试时可用内存实现）
+     */
+    public interface Storage {
+        byte[] get(String key);
+        void put(String key, byte[] value);
+        void delete(String key);
+        int getCount(String key);
+        void setCount(String key, int count);
+    }
+
+    private final Storage storage;
+    private int count;
+
+    public ResultPersistence(Storage storage) {
+        this.storage = storage;
+        this.count = Math.max(0, storage.getCount(COUNT_KEY));
+    }
+
+    /**
+     * 使用当前Burp项目的插件数据
+     */
+    public static ResultPersistence forProject(MontoyaApi montoyaApi) {
+        PersistedObject data = montoyaApi.persistence().extensionData();
+        return new ResultPersistence(new Storage() {
+            @Override
+            public byte[] get(String key) {
+                ByteArray value = data.getByteArray(key);
+                return value != null ? value.getBytes() : null;
+            }
+
+            @Override
+            public void put(String key, byte[] value) { data.setByteArray(key, ByteArray.byteArray(value)); }
+
+            @Override
+            public void delete(String key) { data.deleteByteArray(key); }
+
+            @Override
+            public int getCount(String key) {
+                Integer value = data.getInteger(key);
+                return value != null ? value : 0;
+            }
+
+            @Override
+            public void setCount(String key, int count) { data.setInteger(key, count); }
+        });
+    }
+
+    public synchronized int getChunkCount() { return count; }
+
+    /**
+     * 追加一个包的结果（解析线程调用）
+     */
+    public void save(WxAppletDecompiler decompiler) throws IOException {
+        byte[] chunk = encode(Chunk.of(decompiler));
+        synchronized (this) {
+            storage.put(KEY_PREFIX + count, chunk);
+            count++;
+            storage.setCount(COUNT_KEY, count);
+        }
+    }
+
+    /**
+     * 删除所有已保存的结果（清空结果时调用）
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < count; i++) {
+            storage.delete(KEY_PREFIX + i);
+        }
+        count = 0;
+        storage.setCount(COUNT_KEY, 0);
+    }
+
+    /**
+     * 读取第 index 个块，不存在返回null
+     */
+    public Chunk load(int index) throws IOException {
+        byte[] data;
+        synchronized (this) {
+            data = index < count ? storage.get(KEY_PREFIX + index) : null;
+        }
+        return data != null ? decode(data) : null;
+    }
+
+    // ========== 编码 ==========
+    static byte[] encode(Chunk chunk) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater, 8192))) {
+            out.writeByte(VERSION);
+            writeString(out, chunk.packageType);
+            writeString(out, chunk.packagePath);
+            writeString(out, chunk.pkg);
+            writeString(out, chunk.appId);
+            writeVarInt(out, chunk.appInfos.size());
+            for (WxAppletDecompiler.AppInfo appInfo : chunk.appInfos) {
+                writeString(out, appInfo.getKey());
+                writeString(out, appInfo.getValue());
+            }
+            writeStore(out, chunk.apiStore);
+            writeStore(out, chunk.sensitiveStore);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeStore(DataOutputStream out, ResultStore store) throws IOException {
+        ResultStore.StringDictionary paths = store.getPaths();
+        writeVarInt(out, paths.size());
+        for (int i = 0; i < paths.size(); i++) {
+            writeString(out, paths.get(i));
+        }
+        ResultStore.StringDictionary types = store.getTypes();
+        writeVarInt(out, types.size());
+        for (int i = 0; i < types.size(); i++) {
+            writeString(out, types.get(i));
+        }
+        ResultStore.StringArena values = store.getValues();
+        writeVarInt(out, values.size());
+        for (int i = 0; i < values.size(); i++) {
+            writeString(out, values.get(i));
+        }
+        // id可能为-1（null），统一+1后写入
+        writeVarInt(out, store.size());
+        for (int row = 0; row < store.size(); row++) {
+            writeVarInt(out, store.getPathId(row) + 1);
+            writeVarInt(out, store.getTypeId(row) + 1);
+            writeVarInt(out, store.getValueId(row) + 1);
+            writeVarInt(out, store.getOffset(row));
+        }
+    }
+
+    // 长度+1后写入，0表示null
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] data = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, data.length + 1);
+        out.write(data);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    // ========== 解码 ==========
+    static Chunk decode(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(data)), 8192))) {
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("不支持的结果块版本：" + version);
+            }
+            String packageType = readString(in);
+            String packagePath = readString(in);
+            String pkg = readString(in);
+            String appId = readString(in);
+            int appInfoCount = readVarInt(in);
+            List<WxAppletDecompiler.AppInfo> appInfos = new ArrayList<>(appInfoCount);
+            for (int i = 0; i < appInfoCount; i++) {
+                appInfos.add(new WxAppletDecompiler.AppInfo(readString(in), readString(in)));
+            }
+            ResultStore apiStore = readStore(in);
+            ResultStore sensitiveStore = readStore(in);
+            return new Chunk(packageType, packagePath, pkg, appId, appInfos, apiStore, sensitiveStore);
+        }
+    }
+
+    // 字典按写入顺序重新intern，id与写入时一致
+    private static ResultStore readStore(DataInputStream in) throws IOException {
+        ResultStore store = new ResultStore();
+        int pathCount = readVarInt(in);
+        for (int i = 0; i < pathCount; i++) {
+            store.getPaths().intern(readString(in));
+        }
+        int typeCount = readVarInt(in);
+        for (int i = 0; i < typeCount; i++) {
+            store.getTypes().intern(readString(in));
+        }
+        int valueCount = readVarInt(in);
+        for (int i = 0; i < valueCount; i++) {
+            store.getValues().intern(readString(in));
+        }
+        int rows = readVarInt(in);
+        for (int row = 0; row < rows; row++) {
+            int pathId = readVarInt(in) - 1;
+            int typeId = readVarInt(in) - 1;
+            int valueId = readVarInt(in) - 1;
+            int offset = readVarInt(in);
+            if (pathId >= pathCount || typeId >= typeCount || valueId >= valueCount) {
+                throw new IOException("结果块已损坏：字典id越界");
+            }
+            store.addIds(row + 1, pathId, typeId, valueId, offset, -1, -1);
+        }
+        return store;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] data = new byte[length];
+        in.readFully(data);
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("结果块已损坏：变长整数过长");
+    }
+
+    /**
+     * 一个包的结果
+     */
+    public static class Chunk {
+        private final String packageType;
+        private final String packagePath;
+        private final String pkg;
+        private final String appId;
+        private final List<WxAppletDecompiler.AppInfo> appInfos;
+        private final ResultStore apiStore;
+        private final ResultStore sensitiveStore;
+
+        public Chunk(String packageType, String packagePath, String pkg, String appId,
+                     List<WxAppletDecompiler.AppInfo> appInfos, ResultStore apiStore, ResultStore sensitiveStore) {
+            this.packageType = packageType;
+            this.packagePath = packagePath;
+            this.pkg = pkg;
+            this.appId = appId;
+            this.appInfos = appInfos;
+            this.apiStore = apiStore;
+            this.sensitiveStore = sensitiveStore;
+        }
+
+        /**
+         * 取解析器的结果（包路径取法与小程序信息页一致）
+         */
+        public static Chunk of(WxAppletDecompiler decompiler) {
+            List<WxAppletDecompiler.AppInfo> appInfos = decompiler.getAppInfoList();
+            String packagePath = appInfos.get(0).getValue().contains("解包wxapkg文件")
+                    ? appInfos.get(0).getValue().split("：")[1]
+                    : appInfos.get(1).getValue();
+            return new Chunk(decompiler.getPackageType(), packagePath, decompiler.getWxapkgFilePath(),
+                    decompiler.getAppId(), appInfos, decompiler.getApiStore(), decompiler.getSensitiveStore());
+        }
+
+        public String getPackageType() { return packageType; }
+        public String getPackagePath() { return packagePath; }
+        public String getPackage() { return pkg; }
+        public String getAppId() { return appId; }
+        public List<WxAppletDecompiler.AppInfo> getAppInfos() { return appInfos; }
+        public ResultStore getApiStore() { return apiStore; }
+        public ResultStore getSensitiveStore() { return sensitiveStore; }
+    }
+}
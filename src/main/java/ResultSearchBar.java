@@ -0,0 +1,223 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.TableModel;
+import javax.swing.table.TableRowSorter;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 结果表格的搜索框：索引（ResultSearchIndex）在后台线程中增量维护和查询，
+ * 结果以行号位图通过 RowFilter 作用在表格视图上，不复制行数据；EDT上只做分批取行快照和按位图过滤
+ */
+public class ResultSearchBar {
+    /**
+     * 表格行的可搜索内容（EDT调用）
+     */
+    public interface RowSource {
+        int getRowCount();
+        ResultSearchIndex.Row getRow(int row);
+    }
+
+    // 每次在EDT上最多取快照的行数（表格整体替换时分批追上，避免一次取几十万行卡住界面）
+    private static final int SNAPSHOT_BATCH = 2000;
+
+    // 后台线程：索引更新和查询按提交顺序执行，查询总能看到之前到达的行（插件卸载时 close）
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "JaySenWxapkg-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final RowSource source;
+    private final TableRowSorter<TableModel> sorter;
+    private final JPanel panel = new JPanel(new BorderLayout(5, 0));
+    private final JTextField queryField = new JTextField(36);
+    private final JLabel statusLabel = new JLabel(" ");
+    // 只在后台线程中访问
+    private ResultSearchIndex index = new ResultSearchIndex();
+    // 每次输入/行变化递增，过期的查询结果不再应用
+    private final AtomicLong generation = new AtomicLong();
+    private String query = "";
+    // 以下只在EDT访问：已取快照的行数、需要索引的行数、是否已安排下一批
+    private int snapshotRows;
+    private int targetRows;
+    private boolean catchUpScheduled;
+
+    public ResultSearchBar(JTable table, RowSource source) {
+        this.source = source;
+        // 只过滤不排序：聚合结果按首次出现顺序展示，排序需要逐行还原字符串，大表会卡住界面
+        this.sorter = new TableRowSorter<>(table.getModel()) {
+            @Override
+            public boolean isSortable(int column) { return false; }
+        };
+        table.setRowSorter(sorter);
+    }
+
+    /**
+     * 构建搜索框并注册监听（加入界面时调用一次）
+     */
+    public Component getUiComponent() {
+        queryField.setToolTipText("空格分隔多个条件（同时满足）：普通文本匹配内容，type:类型 pkg:来源包 appid:AppID file:文件，均忽略大小写");
+        queryField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) { queryChanged(); }
+            @Override
+            public void removeUpdate(DocumentEvent e) { queryChanged(); }
+            @Override
+            public void changedUpdate(DocumentEvent e) { queryChanged(); }
+        });
+        panel.setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
+        panel.add(new JLabel("🔎"), BorderLayout.WEST);
+        panel.add(queryField, BorderLayout.CENTER);
+        panel.add(statusLabel, BorderLayout.EAST);
+        return panel;
+    }
+
+    private void queryChanged() {
+        query = queryField.getText().trim();
+        if (query.isEmpty()) {
+            generation.incrementAndGet();
+            sorter.setRowFilter(null);
+            statusLabel.setText(" ");
+            return;
+        }
+        submitSearch();
+    }
+
+    /**
+     * 表格新增行 [from, to) 以及已有行 updatedRows 有变化（EDT调用）：已取快照的行立即重取交给后台索引，
+     * 新增行由分批追赶取快照，有查询时重新查询
+     */
+    public void rowsChanged(int from, int to, int[] updatedRows) {
+        List<Integer> rows = new ArrayList<>(updatedRows.length);
+        List<ResultSearchIndex.Row> data = new ArrayList<>(updatedRows.length);
+        for (int row : updatedRows) {
+            // 尚未取快照的行追赶到时会取最新内容
+            if (row < from && row < snapshotRows) {
+                rows.add(row);
+                data.add(source.getRow(row));
+            }
+        }
+        submitRows(rows, data);
+        targetRows = Math.max(targetRows, to);
+        catchUp();
+    }
+
+    /**
+     * 表格内容整体替换（清空、切换原始明细）：清空索引后分批重新取快照（EDT调用）
+     */
+    public void reset() {
+        snapshotRows = 0;
+        targetRows = source.getRowCount();
+        submit(() -> index = new ResultSearchIndex());
+        catchUp();
+    }
+
+    // 取一批尚未索引的行，剩余的在之后的EDT事件中继续，界面在两批之间可以响应
+    private void catchUp() {
+        int end = Math.min(Math.min(targetRows, source.getRowCount()), snapshotRows + SNAPSHOT_BATCH);
+        if (end > snapshotRows) {
+            List<Integer> rows = new ArrayList<>(end - snapshotRows);
+            List<ResultSearchIndex.Row> data = new ArrayList<>(end - snapshotRows);
+            for (int row = snapshotRows; row < end; row++) {
+                rows.add(row);
+                data.add(source.getRow(row));
+            }
+            snapshotRows = end;
+            submitRows(rows, data);
+        }
+        if (!query.isEmpty()) {
+            submitSearch();
+        }
+        if (snapshotRows < Math.min(targetRows, source.getRowCount()) && !catchUpScheduled) {
+            catchUpScheduled = true;
+            SwingUtilities.invokeLater(() -> {
+                catchUpScheduled = false;
+                catchUp();
+            });
+        }
+    }
+
+    private void submitRows(List<Integer> rows, List<ResultSearchIndex.Row> data) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        submit(() -> {
+            for (int i = 0; i < rows.size(); i++) {
+                index.put(rows.get(i), data.get(i));
+            }
+        });
+    }
+
+    // 卸载后EDT上仍可能有待处理的刷新事件，提交时忽略
+    private void submit(Runnable task) {
+        if (!worker.isShutdown()) {
+            try {
+                worker.execute(task);
+            } catch (java.util.concurrent.RejectedExecutionException ignored) {
+                // 已关闭
+            }
+        }
+    }
+
+    /**
+     * 停止后台线程（插件卸载时调用）
+     */
+    public void close() {
+        generation.incrementAndGet();
+        worker.shutdownNow();
+    }
+
+    private void submitSearch() {
+        long current = generation.incrementAndGet();
+        String text = query;
+        submit(() -> {
+            // 连续输入时只执行最后一次
+            if (current != generation.get()) {
+                return;
+            }
+            ResultSearchIndex.Result result = index.search(text);
+            SwingUtilities.invokeLater(() -> {
+                if (current == generation.get()) {
+                    apply(result);
+                }
+            });
+        });
+    }
+
+    private void apply(ResultSearchIndex.Result result) {
+        if (result == null) {
+            sorter.setRowFilter(null);
+            statusLabel.setText(" ");
+            return;
+        }
+        BitSet rows = result.getRows();
+        sorter.setRowFilter(new RowFilter<>() {
+            @Override
+            public boolean include(Entry<? extends TableModel, ? extends Integer> entry) {
+                return rows.get(entry.getIdentifier());
+            }
+        });
+        statusLabel.setText(String.format("匹配 %d / %d 行 ｜ %.2fms", result.getMatchCount(),
+                result.getIndexedRows(), result.getElapsedNanos() / 1_000_000.0));
+    }
+}
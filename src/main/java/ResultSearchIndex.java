@@ -0,0 +1,274 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.util.*;
+
+/**
+ * 结果表格的搜索索引：内容列按3字符片段（trigram）建倒排，类型/来源包/AppID/文件按词项建倒排，
+ * 行到达时增量加入，查询时只校验倒排中最短的候选列表，不逐行扫描整个表格
+ * 查询语法：空格分隔的条件取交集，普通文本匹配内容，type:/pkg:/appid:/file: 前缀匹配对应列，均为忽略大小写的包含匹配
+ * 非线程安全，由调用方限定在一个线程中使用（表格搜索在后台线程中维护和查询）
+ */
+public class ResultSearchIndex {
+    // 少于3个字符的内容条件无法用trigram缩小范围，逐行校验
+    private static final int GRAM = 3;
+
+    /**
+     * 可搜索的列（VALUE 不需要前缀）
+     */
+    public enum Field {
+        VALUE(""),
+        TYPE("type:"),
+        PACKAGE("pkg:"),
+        APPID("appid:"),
+        FILE("file:");
+
+        private final String prefix;
+
+        Field(String prefix) {
+            this.prefix = prefix;
+        }
+
+        public String getPrefix() { return prefix; }
+    }
+
+    // ========== 内容列：trigram → 行号列表（行号递增加入，天然有序且不重复） ==========
+    private final List<String> values = new ArrayList<>();
+    private final ResultAggregator.LongIntMap gramIds = new ResultAggregator.LongIntMap();
+    private final List<IntList> gramPostings = new ArrayList<>();
+    // ========== 其他列：小写词项 → 行号列表 ==========
+    private final TermColumn[] columns = new TermColumn[Field.values().length];
+
+    public ResultSearchIndex() {
+        for (Field field : Field.values()) {
+            if (field != Field.VALUE) {
+                columns[field.ordinal()] = new TermColumn();
+            }
+        }
+    }
+
+    public int size() { return values.size(); }
+
+    /**
+     * 加入新行（row == size()）或更新已有行（row < size()，只追加新出现的包/AppID/文件，内容和类型不变）
+     */
+    public void put(int row, Row data) {
+        if (row > values.size()) {
+            throw new IllegalArgumentException("行号不连续：" + row + "，当前 " + values.size() + " 行");
+        }
+        if (row == values.size()) {
+            String value = lower(data.value);
+            values.add(value);
+            addGrams(row, value);
+            columns[Field.TYPE.ordinal()].add(row, data.type == null ? List.of() : List.of(data.type));
+        }
+        columns[Field.PACKAGE.ordinal()].add(row, data.packages);
+        columns[Field.APPID.ordinal()].add(row, data.appIds);
+        columns[Field.FILE.ordinal()].add(row, data.files);
+    }
+
+    private void addGrams(int row, String value) {
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            long key = gram(value, i);
+            int id = gramIds.get(key);
+            if (id < 0) {
+                id = gramPostings.size();
+                gramIds.put(key, id);
+                gramPostings.add(new IntList());
+            }
+            gramPostings.get(id).addIfLast(row);
+        }
+    }
+
+    private static long gram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    private static String lower(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+
+    // ========== 查询 ==========
+
+    /**
+     * 执行查询
+     * @return 命中的行；查询为空（没有任何条件）时返回null，表示不过滤
+     */
+    public Result search(String query) {
+        long start = System.nanoTime();
+        BitSet result = null;
+        for (String token : query.trim().split("\\s+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            Field field = Field.VALUE;
+            String text = lower(token);
+            for (Field candidate : Field.values()) {
+                if (candidate != Field.VALUE && text.startsWith(candidate.prefix)) {
+                    field = candidate;
+                    text = text.substring(candidate.prefix.length());
+                    break;
+                }
+            }
+            if (text.isEmpty()) {
+                continue;
+            }
+            BitSet rows = field == Field.VALUE ? matchValue(text) : columns[field.ordinal()].match(text);
+            if (result == null) {
+                result = rows;
+            } else {
+                result.and(rows);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result == null ? null : new Result(result, values.size(), System.nanoTime() - start);
+    }
+
+    // 取条件中最短的trigram倒排作为候选，逐个校验完整包含关系
+    private BitSet matchValue(String text) {
+        BitSet rows = new BitSet(values.size());
+        if (text.length() < GRAM) {
+            for (int row = 0; row < values.size(); row++) {
+                if (values.get(row).contains(text)) {
+                    rows.set(row);
+                }
+            }
+            return rows;
+        }
+        IntList shortest = null;
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            int id = gramIds.get(gram(text, i));
+            if (id < 0) {
+                return rows;
+            }
+            IntList posting = gramPostings.get(id);
+            if (shortest == null || posting.size < shortest.size) {
+                shortest = posting;
+            }
+        }
+        for (int i = 0; i < shortest.size; i++) {
+            int row = shortest.data[i];
+            if (text.length() == GRAM || values.get(row).contains(text)) {
+                rows.set(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 一行的可搜索内容（在表格所在线程从聚合结果中取出，交给索引线程）
+     */
+    public static class Row {
+        private final String value;
+        private final String type;
+        private final List<String> packages;
+        private final List<String> appIds;
+        private final List<String> files;
+
+        /**
+         * @param type 类型（API为null）
+         * @param packages 来源包/AppID/文件按出现顺序，更新时只会在末尾追加
+         */
+        public Row(String value, String type, List<String> packages, List<String> appIds, List<String> files) {
+            this.value = value;
+            this.type = type;
+            this.packages = packages;
+            this.appIds = appIds;
+            this.files = files;
+        }
+    }
+
+    /**
+     * 查询结果
+     */
+    public static class Result {
+        private final BitSet rows;
+        private final int indexedRows;
+        private final long elapsedNanos;
+
+        Result(BitSet rows, int indexedRows, long elapsedNanos) {
+            this.rows = rows;
+            this.indexedRows = indexedRows;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /** 命中的行号（模型行号） */
+        public BitSet getRows() { return rows; }
+        /** 查询时已索引的行数（之后到达的行不在结果中） */
+        public int getIndexedRows() { return indexedRows; }
+        public int getMatchCount() { return rows.cardinality(); }
+        public long getElapsedNanos() { return elapsedNanos; }
+    }
+
+    // ========== 词项列 ==========
+    private static class TermColumn {
+        private final Map<String, Integer> termIds = new HashMap<>();
+        private final List<String> terms = new ArrayList<>();
+        private final List<IntList> postings = new ArrayList<>();
+        // 每行已加入的词项数（行的词项只在末尾追加，更新时从这里继续）
+        private final IntList indexedCounts = new IntList();
+
+        void add(int row, List<String> rowTerms) {
+            if (row == indexedCounts.size) {
+                indexedCounts.add(0);
+            }
+            for (int i = indexedCounts.data[row]; i < rowTerms.size(); i++) {
+                String term = lower(rowTerms.get(i));
+                Integer id = termIds.get(term);
+                if (id == null) {
+                    id = terms.size();
+                    termIds.put(term, id);
+                    terms.add(term);
+                    postings.add(new IntList());
+                }
+                postings.get(id).add(row);
+            }
+            indexedCounts.data[row] = Math.max(indexedCounts.data[row], rowTerms.size());
+        }
+
+        // 词项数远少于行数（同一批结果的包、文件、类型大量重复），逐个词项校验后合并倒排
+        BitSet match(String text) {
+            BitSet rows = new BitSet();
+            for (int id = 0; id < terms.size(); id++) {
+                if (terms.get(id).contains(text)) {
+                    IntList posting = postings.get(id);
+                    for (int i = 0; i < posting.size; i++) {
+                        rows.set(posting.data[i]);
+                    }
+                }
+            }
+            return rows;
+        }
+    }
+
+    private static class IntList {
+        private int[] data = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        // 同一行的重复片段只记一次
+        void addIfLast(int value) {
+            if (size == 0 || data[size - 1] != value) {
+                add(value);
+            }
+        }
+    }
+}
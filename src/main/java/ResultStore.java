@@ -0,0 +1,308 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.util.*;
+
+/**
+ * 紧凑结果存储（列式）
+ * 文件路径/类型/包/AppID 走字典编码，序号和偏移用int列存储，匹配内容放在去重的字符串池中，
+ * 每行只占几个int，避免几十万个结果对象各自持有重复的路径和类型字符串
+ */
+public class ResultStore {
+    private final StringDictionary paths = new StringDictionary();
+    private final StringDictionary types = new StringDictionary();
+    private final StringDictionary packages = new StringDictionary();
+    private final StringDictionary appIds = new StringDictionary();
+    private final StringArena values = new StringArena();
+
+    // ========== 列数据 ==========
+    private int size;
+    private int[] indexCol = new int[64];
+    private int[] pathCol = new int[64];
+    private int[] typeCol = new int[64];
+    private int[] valueCol = new int[64];
+    private int[] offsetCol = new int[64];
+    private int[] packageCol = new int[64];
+    private int[] appIdCol = new int[64];
+
+    /**
+     * 追加一行（type/pkg/appId可为null）
+     * @return 行号
+     */
+    public int add(int index, String path, String type, String value, int offset, String pkg, String appId) {
+        return addIds(index, paths.intern(path), types.intern(type), values.intern(value), offset,
+                packages.intern(pkg), appIds.intern(appId));
+    }
+
+    /**
+     * 按已编码的id追加一行（同一文件的多条结果可复用路径id，避免重复查字典）
+     */
+    public int addIds(int index, int pathId, int typeId, int valueId, int offset, int pkgId, int appIdId) {
+        if (size == indexCol.length) {
+            int newCap = size * 2;
+            indexCol = Arrays.copyOf(indexCol, newCap);
+            pathCol = Arrays.copyOf(pathCol, newCap);
+            typeCol = Arrays.copyOf(typeCol, newCap);
+            valueCol = Arrays.copyOf(valueCol, newCap);
+            offsetCol = Arrays.copyOf(offsetCol, newCap);
+            packageCol = Arrays.copyOf(packageCol, newCap);
+            appIdCol = Arrays.copyOf(appIdCol, newCap);
+        }
+        indexCol[size] = index;
+        pathCol[size] = pathId;
+        typeCol[size] = typeId;
+        valueCol[size] = valueId;
+        offsetCol[size] = offset;
+        packageCol[size] = pkgId;
+        appIdCol[size] = appIdId;
+        return size++;
+    }
+
+    public void clear() {
+        size = 0;
+        paths.clear();
+        types.clear();
+        packages.clear();
+        appIds.clear();
+        values.clear();
+    }
+
+    // ========== 按行读取 ==========
+    public int size() { return size; }
+    public int getIndex(int row) { return indexCol[checkRow(row)]; }
+    public int getOffset(int row) { return offsetCol[checkRow(row)]; }
+    public String getPath(int row) { return paths.get(pathCol[checkRow(row)]); }
+    public String getType(int row) { return types.get(typeCol[checkRow(row)]); }
+    public String getValue(int row) { return values.get(valueCol[checkRow(row)]); }
+    public String getPackage(int row) { return packages.get(packageCol[checkRow(row)]); }
+    public String getAppId(int row) { return appIds.get(appIdCol[checkRow(row)]); }
+    public int getPathId(int row) { return pathCol[checkRow(row)]; }
+    public int getTypeId(int row) { return typeCol[checkRow(row)]; }
+    public int getValueId(int row) { return valueCol[checkRow(row)]; }
+    public int getPackageId(int row) { return packageCol[checkRow(row)]; }
+    public int getAppIdId(int row) { return appIdCol[checkRow(row)]; }
+
+    // ========== 字典访问 ==========
+    public StringDictionary getPaths() { return paths; }
+    public StringDictionary getTypes() { return types; }
+    public StringDictionary getPackages() { return packages; }
+    public StringDictionary getAppIds() { return appIds; }
+    public StringArena getValues() { return values; }
+
+    // ========== 跨Store合并时的字典id翻译 ==========
+    static int[] newIdMap(int size) {
+        int[] map = new int[size];
+        Arrays.fill(map, Integer.MIN_VALUE);
+        return map;
+    }
+
+    // 源id首次出现时才查目标字典，之后直接查表
+    static int translate(int[] map, int id, java.util.function.IntUnaryOperator intern) {
+        if (id < 0) {
+            return -1;
+        }
+        if (map[id] == Integer.MIN_VALUE) {
+            map[id] = intern.applyAsInt(id);
+        }
+        return map[id];
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row " + row + ", size " + size);
+        }
+        return row;
+    }
+
+    /**
+     * 以ApiInfo视图访问（不复制数据，按需生成轻量对象）
+     */
+    public List<WxAppletDecompiler.ApiInfo> apiView() {
+        return new AbstractList<>() {
+            @Override
+            public WxAppletDecompiler.ApiInfo get(int row) { return new WxAppletDecompiler.ApiInfo(ResultStore.this, checkRow(row)); }
+            @Override
+            public int size() { return size; }
+        };
+    }
+
+    /**
+     * 以SensitiveInfo视图访问
+     */
+    public List<WxAppletDecompiler.SensitiveInfo> sensitiveView() {
+        return new AbstractList<>() {
+            @Override
+            public WxAppletDecompiler.SensitiveInfo get(int row) { return new WxAppletDecompiler.SensitiveInfo(ResultStore.this, checkRow(row)); }
+            @Override
+            public int size() { return size; }
+        };
+    }
+
+    /**
+     * 小集合字符串字典（路径、类型、包、AppID），null编码为-1
+     */
+    public static class StringDictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        public int intern(String s) {
+            if (s == null) {
+                return -1;
+            }
+            Integer id = ids.get(s);
+            if (id == null) {
+                id = strings.size();
+                ids.put(s, id);
+                strings.add(s);
+            }
+            return id;
+        }
+
+        public String get(int id) { return id < 0 ? null : strings.get(id); }
+        public int size() { return strings.size(); }
+
+        public void clear() {
+            ids.clear();
+            strings.clear();
+        }
+    }
+
+    /**
+     * 去重字符串池：所有唯一字符串连续存放在一个byte[]中（Latin1单字节，否则UTF-16双字节），
+     * 开放寻址哈希表查重，比较时逐字符对比不产生临时对象
+     */
+    public static class StringArena {
+        private static final int UTF16_FLAG = 0x80000000;
+        private byte[] data = new byte[4096];
+        private int dataLen;
+        private int[] offsets = new int[256];
+        private int[] lengths = new int[256]; // 字符数，最高位标记UTF-16
+        private int[] hashes = new int[256];
+        private int count;
+        private int[] table = new int[512];   // 存 id+1，0为空槽
+
+        public int intern(String s) {
+            if (s == null) {
+                return -1;
+            }
+            int hash = s.hashCode();
+            int mask = table.length - 1;
+            int slot = mix(hash) & mask;
+            while (table[slot] != 0) {
+                int id = table[slot] - 1;
+                if (hashes[id] == hash && equalsAt(id, s)) {
+                    return id;
+                }
+                slot = (slot + 1) & mask;
+            }
+            int id = append(s, hash);
+            table[slot] = id + 1;
+            if (count * 2 > table.length) {
+                rehash();
+            }
+            return id;
+        }
+
+        public String get(int id) {
+            if (id < 0) {
+                return null;
+            }
+            int len = lengths[id];
+            if ((len & UTF16_FLAG) == 0) {
+                return new String(data, offsets[id], len, java.nio.charset.StandardCharsets.ISO_8859_1);
+            }
+            len &= ~UTF16_FLAG;
+            char[] chars = new char[len];
+            int off = offsets[id];
+            for (int i = 0; i < len; i++) {
+                chars[i] = (char) (((data[off + 2 * i] & 0xFF) << 8) | (data[off + 2 * i + 1] & 0xFF));
+            }
+            return new String(chars);
+        }
+
+        public int size() { return count; }
+        public long byteSize() { return dataLen; }
+
+        public void clear() {
+            dataLen = 0;
+            count = 0;
+            Arrays.fill(table, 0);
+        }
+
+        private boolean equalsAt(int id, String s) {
+            int len = lengths[id];
+            boolean utf16 = (len & UTF16_FLAG) != 0;
+            len &= ~UTF16_FLAG;
+            if (len != s.length()) {
+                return false;
+            }
+            int off = offsets[id];
+            for (int i = 0; i < len; i++) {
+                char c = utf16 ? (char) (((data[off + 2 * i] & 0xFF) << 8) | (data[off + 2 * i + 1] & 0xFF))
+                        : (char) (data[off + i] & 0xFF);
+                if (c != s.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int append(String s, int hash) {
+            int len = s.length();
+            boolean latin1 = true;
+            for (int i = 0; i < len && latin1; i++) {
+                latin1 = s.charAt(i) < 256;
+            }
+            int bytes = latin1 ? len : len * 2;
+            if (dataLen + bytes > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, dataLen + bytes));
+            }
+            for (int i = 0; i < len; i++) {
+                char c = s.charAt(i);
+                if (latin1) {
+                    data[dataLen + i] = (byte) c;
+                } else {
+                    data[dataLen + 2 * i] = (byte) (c >>> 8);
+                    data[dataLen + 2 * i + 1] = (byte) c;
+                }
+            }
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+                hashes = Arrays.copyOf(hashes, count * 2);
+            }
+            offsets[count] = dataLen;
+            lengths[count] = latin1 ? len : (len | UTF16_FLAG);
+            hashes[count] = hash;
+            dataLen += bytes;
+            return count++;
+        }
+
+        private void rehash() {
+            int[] newTable = new int[table.length * 2];
+            int mask = newTable.length - 1;
+            for (int id = 0; id < count; id++) {
+                int slot = mix(hashes[id]) & mask;
+                while (newTable[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                newTable[slot] = id + 1;
+            }
+            table = newTable;
+        }
+
+        private static int mix(int h) {
+            return h ^ (h >>> 16);
+        }
+    }
+}
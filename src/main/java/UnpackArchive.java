@@ -0,0 +1,185 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 单文件归档输出：一个包解出的所有文件顺序写入同一个zip（STORED不压缩），
+ * 代替成千上万个零散小文件；zip中央目录即随机读取索引，扫描和包浏览直接从归档读取，
+ * 清理时只需删除一个文件
+ */
+public class UnpackArchive implements EntrySource {
+    public static final String SUFFIX = ".zip";
+    static final int WRITE_BUFFER = 256 * 1024;
+
+    private final File file;
+    private final ZipFile zipFile;
+    private final List<WxAppletDecompiler.FileMeta> entries;
+    private volatile long bytesRead;
+
+    private UnpackArchive(File file) throws IOException {
+        this.file = file;
+        this.zipFile = new ZipFile(file);
+        List<WxAppletDecompiler.FileMeta> list = new ArrayList<>(zipFile.size());
+        Enumeration<? extends ZipEntry> all = zipFile.entries();
+        while (all.hasMoreElements()) {
+            ZipEntry entry = all.nextElement();
+            if (!entry.isDirectory()) {
+                // 归档内没有包偏移，offset 记为在归档中的序号
+                list.add(new WxAppletDecompiler.FileMeta("/" + entry.getName(), list.size(), entry.getSize()));
+            }
+        }
+        this.entries = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * 打开归档（只读取zip中央目录）
+     */
+    public static UnpackArchive open(File file) throws IOException {
+        return new UnpackArchive(file);
+    }
+
+    /**
+     * 判断是否为归档输出文件
+     */
+    public static boolean isArchive(File file) {
+        return file.getName().toLowerCase().endsWith(SUFFIX);
+    }
+
+    /**
+     * 把解密后的包数据按索引顺序写入归档
+     * @param errors 出错的文件及原因（文件名 → 错误信息）
+     * @return 写入的文件数
+     */
+    public static int write(Path archive, byte[] data, List<WxAppletDecompiler.FileMeta> fileList,
+                            BooleanSupplier cancelled, Map<String, String> errors) throws IOException {
+        return write(archive, data, data.length, fileList, cancelled, errors);
+    }
+
+    /**
+     * 同上，data 只有前 length 字节有效（池中借用的缓冲区）
+     */
+    public static int write(Path archive, byte[] data, int length, List<WxAppletDecompiler.FileMeta> fileList,
+                            BooleanSupplier cancelled, Map<String, String> errors) throws IOException {
+        if (archive.getParent() != null) {
+            Files.createDirectories(archive.getParent());
+        }
+        int count = 0;
+        CRC32 crc = new CRC32();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(archive), WRITE_BUFFER);
+             ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.setMethod(ZipOutputStream.STORED);
+            for (WxAppletDecompiler.FileMeta meta : fileList) {
+                if (cancelled.getAsBoolean()) {
+                    break;
+                }
+                long offset = meta.getOffset();
+                long size = meta.getSize();
+                if (offset + size > length) {
+                    errors.put(meta.getName(), "文件数据越界");
+                    continue;
+                }
+                // STORED需要预先给出大小和CRC
+                crc.reset();
+                crc.update(data, (int) offset, (int) size);
+                ZipEntry entry = new ZipEntry(entryName(meta.getName()));
+                entry.setSize(size);
+                entry.setCompressedSize(size);
+                entry.setCrc(crc.getValue());
+                try {
+                    zip.putNextEntry(entry);
+                } catch (java.util.zip.ZipException e) {
+                    // 重名文件等，跳过该文件
+                    errors.put(meta.getName(), e.getMessage());
+                    continue;
+                }
+                zip.write(data, (int) offset, (int) size);
+                zip.closeEntry();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // zip条目名不带开头的"/"
+    private static String entryName(String name) {
+        int start = 0;
+        while (start < name.length() && (name.charAt(start) == '/' || name.charAt(start) == '\\')) {
+            start++;
+        }
+        return name.substring(start);
+    }
+
+    @Override
+    public File getFile() { return file; }
+
+    @Override
+    public List<WxAppletDecompiler.FileMeta> getEntries() { return entries; }
+
+    @Override
+    public long getBytesRead() { return bytesRead; }
+
+    @Override
+    public String describe() {
+        return "归档输出";
+    }
+
+    @Override
+    public byte[] read(WxAppletDecompiler.FileMeta meta, int limit) throws IOException {
+        ZipEntry entry = zipFile.getEntry(entryName(meta.getName()));
+        if (entry == null) {
+            throw new IOException("归档中不存在：" + meta.getName());
+        }
+        try (InputStream in = zipFile.getInputStream(entry)) {
+            byte[] data = in.readNBytes((int) Math.min(entry.getSize(), limit));
+            bytesRead += data.length;
+            return data;
+        }
+    }
+
+    /**
+     * 读取整个条目到 buffer（buffer 不够大时返回-1，调用方换更大的缓冲区后重试）
+     * @return 读取的字节数
+     */
+    public int read(WxAppletDecompiler.FileMeta meta, byte[] buffer) throws IOException {
+        ZipEntry entry = zipFile.getEntry(entryName(meta.getName()));
+        if (entry == null) {
+            throw new IOException("归档中不存在：" + meta.getName());
+        }
+        if (entry.getSize() > buffer.length) {
+            return -1;
+        }
+        try (InputStream in = zipFile.getInputStream(entry)) {
+            int n = in.readNBytes(buffer, 0, (int) entry.getSize());
+            bytesRead += n;
+            return n;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        zipFile.close();
+    }
+}
@@ -0,0 +1,425 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.util.*;
+
+/**
+ * 编译后的URL过滤规则：接口黑名单的包含匹配用Aho-Corasick自动机，后缀黑名单和域名规则用反向字典树，
+ * 每个URL扫描一遍即可判断是否过滤，判断过程不分配对象（规则再多也不逐条 contains）
+ * 接口黑名单条目：
+ *   普通文本      URL包含该文本即过滤（与原有行为一致）
+ *   host:域名     URL主机为该域名或其子域名时过滤（忽略大小写），例如 host:qq.com
+ *   glob:模式     整个URL匹配通配符时过滤（* 任意字符串，? 单个字符），例如 glob:https://*.qq.com/cgi-bin/*
+ * 后缀黑名单：不带参数的URL最后一个"."之后的部分（忽略大小写，"#"之后不算）命中即过滤
+ * 编译后只读，可在多个扫描线程间共享
+ */
+public class UrlFilter {
+    public static final String HOST_PREFIX = "host:";
+    public static final String GLOB_PREFIX = "glob:";
+
+    private final Transitions transitions = new Transitions();
+    private final int nodeCount;
+    // 包含匹配自动机
+    private final int containsRoot;
+    private final int[] rootNext;        // 根状态的ASCII转移直接查表（大部分字符都停在根状态，不走哈希）
+    private int[] fail;
+    private boolean[] containsHit;       // 该状态（或其失配链上）有包含规则结束
+    private int[][] globsAt;             // 以该状态结束的通配符锚点 → 通配符序号
+    private int[] globLink;              // 失配链上下一个有通配符锚点的状态，0表示没有
+    private final String[] globs;
+    private final int[] unanchoredGlobs; // 没有字面量锚点的通配符（例如 *），每个URL都要检查
+    // 反向字典树（后缀、域名）
+    private final int suffixRoot;
+    private final int hostRoot;
+    private final boolean hasHosts;
+    private boolean[] terminal;
+    private final int ruleCount;
+
+    private UrlFilter(Collection<String> blacklist, Collection<String> suffixes) {
+        List<String> contains = new ArrayList<>();
+        List<String> hosts = new ArrayList<>();
+        List<String> globList = new ArrayList<>();
+        for (String rule : blacklist) {
+            if (rule.startsWith(HOST_PREFIX) && rule.length() > HOST_PREFIX.length()) {
+                hosts.add(rule.substring(HOST_PREFIX.length()).toLowerCase());
+            } else if (rule.startsWith(GLOB_PREFIX) && rule.length() > GLOB_PREFIX.length()) {
+                globList.add(rule.substring(GLOB_PREFIX.length()));
+            } else {
+                contains.add(rule);
+            }
+        }
+        this.globs = globList.toArray(new String[0]);
+        this.hasHosts = !hosts.isEmpty();
+        this.ruleCount = blacklist.size() + suffixes.size();
+
+        Builder builder = new Builder();
+        containsRoot = builder.newNode();
+        suffixRoot = builder.newNode();
+        hostRoot = builder.newNode();
+        // 1. 包含规则和通配符锚点插入同一个自动机
+        for (String rule : contains) {
+            builder.terminal.set(builder.insert(containsRoot, rule, false));
+        }
+        List<Integer> unanchored = new ArrayList<>();
+        Map<Integer, List<Integer>> anchors = new HashMap<>();
+        for (int g = 0; g < globs.length; g++) {
+            String anchor = longestLiteral(globs[g]);
+            if (anchor.isEmpty()) {
+                unanchored.add(g);
+            } else {
+                anchors.computeIfAbsent(builder.insert(containsRoot, anchor, false), k -> new ArrayList<>()).add(g);
+            }
+        }
+        this.unanchoredGlobs = unanchored.stream().mapToInt(Integer::intValue).toArray();
+        // 2. 后缀和域名按反向插入（查找时从URL末尾往前走）
+        for (String suffix : suffixes) {
+            if (!suffix.isEmpty()) {
+                builder.terminal.set(builder.insert(suffixRoot, suffix, true));
+            }
+        }
+        for (String host : hosts) {
+            builder.terminal.set(builder.insert(hostRoot, host, true));
+        }
+        nodeCount = builder.size();
+        terminal = new boolean[nodeCount];
+        for (int node = builder.terminal.nextSetBit(0); node >= 0; node = builder.terminal.nextSetBit(node + 1)) {
+            terminal[node] = true;
+        }
+        globsAt = new int[nodeCount][];
+        for (Map.Entry<Integer, List<Integer>> entry : anchors.entrySet()) {
+            globsAt[entry.getKey()] = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+        }
+        buildFailureLinks(builder);
+        rootNext = new int[128];
+        for (char c = 0; c < rootNext.length; c++) {
+            rootNext[c] = transitions.get(containsRoot, c);
+        }
+    }
+
+    /**
+     * 编译规则
+     * @param blacklist 接口黑名单（普通文本 / host: / glob:）
+     * @param suffixes 后缀黑名单（不含"."，已统一为小写）
+     */
+    public static UrlFilter compile(Collection<String> blacklist, Collection<String> suffixes) {
+        return new UrlFilter(blacklist != null ? blacklist : List.of(), suffixes != null ? suffixes : List.of());
+    }
+
+    public int getRuleCount() { return ruleCount; }
+    public int getNodeCount() { return nodeCount; }
+
+    // BFS计算失配链（只涉及包含匹配自动机），同时把失配链上的命中合并到每个状态
+    private void buildFailureLinks(Builder builder) {
+        fail = new int[nodeCount];
+        containsHit = new boolean[nodeCount];
+        globLink = new int[nodeCount];
+        containsHit[containsRoot] = terminal[containsRoot];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int[] edge : builder.children(containsRoot)) {
+            fail[edge[1]] = containsRoot;
+            queue.add(edge[1]);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            int f = fail[node];
+            containsHit[node] = terminal[node] || containsHit[f];
+            globLink[node] = globsAt[f] != null ? f : globLink[f];
+            for (int[] edge : builder.children(node)) {
+                char c = (char) edge[0];
+                int child = edge[1];
+                int state = f;
+                int next;
+                while ((next = transitions.get(state, c)) < 0 && state != containsRoot) {
+                    state = fail[state];
+                }
+                fail[child] = next >= 0 && next != child ? next : containsRoot;
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * URL是否应过滤（url 已去掉首尾空白）
+     */
+    public boolean isFiltered(CharSequence url) {
+        return matchesContains(url) || matchesUnanchoredGlob(url) || matchesHost(url)
+                || (indexOf(url, '?') < 0 && matchesSuffix(url));
+    }
+
+    // 一遍扫描同时检查包含规则和通配符锚点
+    private boolean matchesContains(CharSequence url) {
+        if (containsHit[containsRoot]) {
+            return true;
+        }
+        int state = containsRoot;
+        for (int i = 0, n = url.length(); i < n; i++) {
+            state = step(state, url.charAt(i));
+            // 根状态没有命中也没有通配符锚点（空规则已在循环前判断）
+            if (state == containsRoot) {
+                continue;
+            }
+            if (containsHit[state]) {
+                return true;
+            }
+            for (int s = globsAt[state] != null ? state : globLink[state]; s != 0; s = globLink[s]) {
+                for (int g : globsAt[s]) {
+                    if (globMatches(url, globs[g])) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // 沿失配链找到能接受 c 的状态，都不能接受时回到根
+    private int step(int state, char c) {
+        while (state != containsRoot) {
+            int next = transitions.get(state, c);
+            if (next >= 0) {
+                return next;
+            }
+            state = fail[state];
+        }
+        int next = c < rootNext.length ? rootNext[c] : transitions.get(containsRoot, c);
+        return next < 0 ? containsRoot : next;
+    }
+
+    private boolean matchesUnanchoredGlob(CharSequence url) {
+        for (int g : unanchoredGlobs) {
+            if (globMatches(url, globs[g])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 最后一个"."之后的部分（"#"之前）整体命中后缀树
+    private boolean matchesSuffix(CharSequence url) {
+        int end = indexOf(url, '#');
+        if (end < 0) {
+            end = url.length();
+        }
+        int state = suffixRoot;
+        for (int i = end - 1; i >= 0; i--) {
+            char c = Character.toLowerCase(url.charAt(i));
+            if (c == '.') {
+                return state != suffixRoot && terminal[state];
+            }
+            state = transitions.get(state, c);
+            if (state < 0) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // 主机从末尾往前匹配，命中的规则须在"."或主机开头处结束（qq.com 命中 a.qq.com，不命中 aqq.com）
+    private boolean matchesHost(CharSequence url) {
+        if (!hasHosts) {
+            return false;
+        }
+        int start = hostStart(url);
+        if (start < 0) {
+            return false;
+        }
+        int end = start;
+        int n = url.length();
+        while (end < n) {
+            char c = url.charAt(end);
+            if (c == '/' || c == '?' || c == '#' || c == ':' || c == '\\') {
+                break;
+            }
+            if (c == '@') {
+                start = end + 1;
+            }
+            end++;
+        }
+        int state = hostRoot;
+        for (int i = end - 1; i >= start; i--) {
+            state = transitions.get(state, Character.toLowerCase(url.charAt(i)));
+            if (state < 0) {
+                return false;
+            }
+            if (terminal[state] && (i == start || url.charAt(i - 1) == '.')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // "scheme://" 或 "//" 之后为主机；相对路径没有主机
+    private static int hostStart(CharSequence url) {
+        int n = url.length();
+        if (n >= 2 && url.charAt(0) == '/' && url.charAt(1) == '/') {
+            return 2;
+        }
+        for (int i = 0; i + 2 < n; i++) {
+            char c = url.charAt(i);
+            if (c == ':') {
+                return url.charAt(i + 1) == '/' && url.charAt(i + 2) == '/' ? i + 3 : -1;
+            }
+            if (c == '/' || c == '?' || c == '#') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 通配符匹配整个字符串（* 任意字符串，? 单个字符），贪婪匹配+回溯到最近的 *，不分配对象
+     */
+    static boolean globMatches(CharSequence text, String glob) {
+        int t = 0, g = 0, starG = -1, starT = 0;
+        int n = text.length(), m = glob.length();
+        while (t < n) {
+            if (g < m && (glob.charAt(g) == '?' || glob.charAt(g) == text.charAt(t))) {
+                t++;
+                g++;
+            } else if (g < m && glob.charAt(g) == '*') {
+                starG = g++;
+                starT = t;
+            } else if (starG >= 0) {
+                g = starG + 1;
+                t = ++starT;
+            } else {
+                return false;
+            }
+        }
+        while (g < m && glob.charAt(g) == '*') {
+            g++;
+        }
+        return g == m;
+    }
+
+    // 通配符中最长的字面量片段（URL必须包含它，作为自动机中的锚点）
+    private static String longestLiteral(String glob) {
+        String best = "";
+        int start = 0;
+        for (int i = 0; i <= glob.length(); i++) {
+            if (i == glob.length() || glob.charAt(i) == '*' || glob.charAt(i) == '?') {
+                if (i - start > best.length()) {
+                    best = glob.substring(start, i);
+                }
+                start = i + 1;
+            }
+        }
+        return best;
+    }
+
+    private static int indexOf(CharSequence s, char c) {
+        for (int i = 0, n = s.length(); i < n; i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // ========== 构建 ==========
+    private class Builder {
+        final BitSet terminal = new BitSet();
+        final List<List<int[]>> children = new ArrayList<>();
+
+        int newNode() {
+            children.add(new ArrayList<>());
+            return children.size() - 1;
+        }
+
+        int size() { return children.size(); }
+
+        List<int[]> children(int node) { return children.get(node); }
+
+        // 插入一条规则，返回结束状态
+        int insert(int root, String text, boolean reversed) {
+            int node = root;
+            for (int k = 0; k < text.length(); k++) {
+                char c = text.charAt(reversed ? text.length() - 1 - k : k);
+                int next = transitions.get(node, c);
+                if (next < 0) {
+                    next = newNode();
+                    transitions.put(node, c, next);
+                    children.get(node).add(new int[]{c, next});
+                }
+                node = next;
+            }
+            return node;
+        }
+    }
+
+    /**
+     * 状态转移表：(状态, 字符) → 子状态，开放寻址哈希，查找不装箱
+     */
+    private static final class Transitions {
+        private long[] keys = new long[1024];
+        private int[] values = new int[1024];
+        private int size;
+
+        int get(int node, char c) {
+            long key = key(node, c);
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+                long k = keys[i];
+                if (k == key) {
+                    return values[i];
+                }
+                if (k == 0) {
+                    return -1;
+                }
+            }
+        }
+
+        void put(int node, char c, int child) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            long key = key(node, c);
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = child;
+            size++;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] != 0) {
+                    int i = hash(oldKeys[j]) & mask;
+                    while (keys[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+
+        // +1 保证key不为0（0表示空槽）
+        private static long key(int node, char c) {
+            return (((long) node << 16) | c) + 1;
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -15,13 +15,18 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import okhttp3.*;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 /**
@@ -37,22 +42,62 @@ public class WxAppletDecompiler {
     private Map<String, Pattern> customSensitivePatterns; // 自定义敏感信息正则
     private Set<String> suffixBlacklist;    // URL后缀黑名单（仅用于URL过滤）
     private Set<String> prefixBlacklist; // 接口前缀过滤黑名单
+    private volatile UrlFilter urlFilter; // 黑名单编译后的过滤器（批量解析时共用，未设置则首次扫描时编译）
+    private volatile DetectorEngine detectorEngine; // 检测引擎（批量解析时共用，未设置则首次扫描时按上述配置创建）
+    private final Set<String> failedRules = ConcurrentHashMap.newKeySet();
+    private EntropyDetector entropyDetector = new EntropyDetector(); // 高熵字符串（疑似密钥）检测
 
     // ========== 结构化结果容器 ==========
-    private final List<AppInfo> appInfoList = new ArrayList<>();
-    private final List<ApiInfo> apiInfoList = new ArrayList<>();
-    private final List<SensitiveInfo> sensitiveInfoList = new ArrayList<>();
+    // 解包/扫描线程并发写入，均为无锁追加
+    private final ConcurrentAppendLog<AppInfo> appInfoList = new ConcurrentAppendLog<>();
+    private final ResultCollector apiCollector = new ResultCollector();
+    private final ResultCollector sensitiveCollector = new ResultCollector();
+    // API/敏感信息结果以列式紧凑存储，路径和类型字典编码（扫描结束后由收集器归并得到）
+    private volatile ResultStore apiStore = new ResultStore();
+    private volatile ResultStore sensitiveStore = new ResultStore();
     private final StringBuilder errorBuilder = new StringBuilder();
-    private int apiIndex = 1;
+    private String appId;
 
-    // 全局工具
-    private final OkHttpClient okHttpClient = new OkHttpClient.Builder()
+    // 全局工具（OkHttpClient自带连接池和线程池，所有实例共用一个）
+    private static final OkHttpClient okHttpClient = new OkHttpClient.Builder()
             .connectTimeout(10, TimeUnit.SECONDS)
             .readTimeout(10, TimeUnit.SECONDS)
             .build();
     private final ObjectMapper objectMapper = new ObjectMapper();
     // AES解密工具实例
     private final WxapkgAesDe aesDecompiler = new WxapkgAesDe();
+    // 运行统计（外部传入则汇总到同一个实例）
+    private PipelineMetrics metrics = new PipelineMetrics();
+    private volatile PipelineMetrics.PackageStats stats;
+    // 是否联网查询小程序信息（压测/离线环境可关闭）
+    private boolean queryAppInfoEnabled = true;
+    // 单文件归档输出：解包结果写入 <AppID>.zip，而不是逐个文件写到 <AppID> 目录
+    private boolean archiveOutput;
+    // 内存模式（代理捕获），wxapkgFilePath 为来源URL
+    private boolean inMemory;
+    // app-service.js 拆出的模块同时写成真实文件（仅目录输出模式）
+    private boolean moduleFiles;
+    // 解包索引中的 app-service.js，以及模块已落盘的合并文件（扫描时只扫前导段）
+    private final List<String> bundlePaths = new ArrayList<>();
+    private final Set<String> materializedBundles = ConcurrentHashMap.newKeySet();
+    // 单个模块扫描任务的最小字节数，避免大量小模块各自成任务
+    private static final int MODULE_TASK_BYTES = 256 * 1024;
+    // 读包、解密、解包、扫描用的大数组从缓冲池借用，每个包一个借用期，处理结束统一归还
+    private BufferPool bufferPool = BufferPool.SHARED;
+    private volatile BufferPool.Lease buffers;
+    // 扫描时的UTF-8解码器（每线程一个，非法字节替换为U+FFFD，与 new String 的结果一致）
+    private static final ThreadLocal<CharsetDecoder> UTF8_DECODERS = ThreadLocal.withInitial(() -> StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE));
+    // 路径中没有AppID时的候选wxid（批量解析时共享，包含同批其他包路径、代理历史和用户列表）
+    private WxidRecovery wxidRecovery = new WxidRecovery();
+    // 模块扫描线程池（批量解析时由BatchRunner共用，未设置则首次拆分合并文件时创建、本包扫描结束时关闭）
+    private volatile ExecutorService scanExecutor;
+    private ExecutorService ownScanExecutor;
+    // 取消标记（批量解析取消时由调度线程设置，各阶段之间和逐文件处理时检查）
+    private volatile boolean cancelled;
+    // 包路径中的AppID
+    static final Pattern WX_ID_PATTERN = Pattern.compile("\\bwx[a-f0-9]{16}\\b");
     // 默认正则
     private static final Pattern DEFAULT_API_PATTERN = Config.DEFAULT_API_PATTERN;
     // 默认敏感信息正则
@@ -92,6 +137,19 @@ public class WxAppletDecompiler {
      * 核心执行函数
      */
     public void execute() {
+        stats = metrics.beginPackage(wxapkgFilePath);
+        aesDecompiler.setStats(stats);
+        try (BufferPool.Lease lease = bufferPool.lease()) {
+            useBuffers(lease);
+            doExecute();
+        } finally {
+            closeOwnScanExecutor();
+            useBuffers(null);
+            stats.finish();
+        }
+    }
+
+    private void doExecute() {
         // 1. 校验文件
         File wxapkgFile = new File(wxapkgFilePath);
         if (!wxapkgFile.exists() || !wxapkgFile.isFile()) {
@@ -99,15 +157,34 @@ public class WxAppletDecompiler {
             addAppInfo("错误信息", errorBuilder.toString());
             return;
         }
+        stats.packageSize(wxapkgFile.length());
+
+        // 整包只读取一次，直接解包和解密后解包都在这份数据上完成
+        byte[] data;
+        int length;
+        long readStart = System.nanoTime();
+        try {
+            length = (int) wxapkgFile.length();
+            data = borrowBytes(length);
+            length = BufferPool.readFully(wxapkgFile.toPath(), data, length);
+        } catch (IOException e) {
+            addAppInfo("错误信息", "❌ 读取wxapkg文件失败：" + e.getMessage());
+            return;
+        }
+        record(PipelineMetrics.Stage.READ, readStart, length);
 
-        // 2. 提取AppID
+        // 2. 提取AppID（路径中没有时，加密包从附近目录名和候选列表中查找）
         String appID = extractWxId();
+        if (appID.equals("unknown") && WxapkgAesDe.isEncrypted(data, length)) {
+            appID = recoverWxId(data, length, WxidRecovery.siblingCandidates(wxapkgFile, WxidRecovery.DEFAULT_SIBLING_LEVELS));
+        }
         if (appID.equals("unknown")) {
             addAppInfo("AppID", "未提取到（使用默认：unknown_appid）");
             appID = "unknown_appid";
         } else {
             addAppInfo("AppID", appID);
         }
+        this.appId = appID;
 
         // 3. 创建输出目录（默认=C:\Users\${USER}\.burp）
         String finalOutputDir = outputDir + File.separator + appID;
@@ -115,10 +192,12 @@ public class WxAppletDecompiler {
         // 清除原有解包缓存
         try {
             if (Files.exists(outputPath)) {
+                long cleanupStart = System.nanoTime();
                 removeWxFile(outputPath, "原有解包缓存");
+                record(PipelineMetrics.Stage.CLEANUP, cleanupStart, 0);
             }
             Files.createDirectories(outputPath);
-            addAppInfo("解包输出目录", finalOutputDir);
+            addAppInfo("解包输出目录", archiveOutput ? finalOutputDir + UnpackArchive.SUFFIX : finalOutputDir);
         } catch (IOException e) {
             errorBuilder.append("❌ 创建输出目录失败：").append(e.getMessage());
             addAppInfo("错误信息", errorBuilder.toString());
@@ -127,25 +206,35 @@ public class WxAppletDecompiler {
 
         //  尝试直接执行解包
         addAppInfo("解包状态", "开始解包wxapkg文件：" + wxapkgFilePath);
-        int fileCount = unpack(wxapkgFilePath, finalOutputDir, threadNum);
+        int fileCount = unpack(data, length, finalOutputDir, threadNum);
+        if (checkCancelled()) {
+            return;
+        }
         if (fileCount == 0) {
             addAppInfo("解包状态", "❌ 直接解包失败，尝试AES解密后重试...");
             try {
                 // 校验是否为加密的wxapkg
-                if (!aesDecompiler.isEncryptedWxapkg(wxapkgFilePath)) {
+                if (!WxapkgAesDe.isEncrypted(data, length)) {
                     addAppInfo("解包状态", "❌ 非加密wxapkg包，解包失败！");
                     return;
                 }
-                // 生成临时解密文件
-                File srcFile = new File(wxapkgFilePath);
-                String tempFileName = srcFile.getName().replace(".wxapkg", "") + "_jaysentmp.wxapkg";
-                String tempDecryptedFile = new File(finalOutputDir, tempFileName).getAbsolutePath();
-                // 执行AES解密（使用提取的AppID作为wxid）
-                aesDecompiler.decrypt(appID, wxapkgFilePath, tempDecryptedFile);
-                addAppInfo("AES解密", "✅ 加密包解密成功：" + tempDecryptedFile);
-
-                // 用解密后的文件重新解包
-                fileCount = unpack(tempDecryptedFile, finalOutputDir, threadNum);
+                // 原地解密（使用提取的AppID作为wxid）
+                int plainLength = aesDecompiler.decryptInPlace(appID, data, length);
+                if (archiveOutput) {
+                    // 归档模式输出只保留一个归档，不写解密文件
+                    addAppInfo("AES解密", "✅ 加密包解密成功");
+                } else {
+                    String tempFileName = wxapkgFile.getName().replace(".wxapkg", "") + "_jaysentmp.wxapkg";
+                    File tempDecryptedFile = new File(finalOutputDir, tempFileName).getAbsoluteFile();
+                    writeDecrypted(data, plainLength, tempDecryptedFile);
+                    addAppInfo("AES解密", "✅ 加密包解密成功：" + tempDecryptedFile);
+                }
+
+                // 用解密后的数据重新解包
+                fileCount = unpack(data, plainLength, finalOutputDir, threadNum);
+                if (checkCancelled()) {
+                    return;
+                }
                 if (fileCount == 0) {
                     addAppInfo("解包状态", "❌ AES解密后解包仍失败！");
                     return;
@@ -158,128 +247,259 @@ public class WxAppletDecompiler {
         } else {
             addAppInfo("解包结果", "✅ 直接解包完成！共解压 " + fileCount + " 个文件");
         }
+        // 包数据已写出，缓冲区留给扫描阶段复用
+        releaseBytes(data);
 
         // 查询小程序信息
-        Map<String, String> wxapkgInfo = queryAppInfo(appID);
-        addAppInfo("小程序名称", wxapkgInfo.get("nickName"));
-        addAppInfo("用户名", wxapkgInfo.get("userName"));
-        addAppInfo("描述", wxapkgInfo.get("description"));
-        addAppInfo("主体名称", wxapkgInfo.get("principalName"));
+        if (checkCancelled()) {
+            return;
+        }
+        addQueriedAppInfo(appID);
+
+        if (moduleFiles && !archiveOutput) {
+            writeModuleFiles(finalOutputDir);
+        }
 
         // 信息泄露检测（不过滤文件，仅过滤URL）
         addAppInfo("检测状态", "🔍 开始执行信息泄露检测（所有文件都扫描）...");
         infoLeakDetect(finalOutputDir);
+        if (checkCancelled()) {
+            return;
+        }
         addAppInfo("检测状态", "✅ 信息泄露检测完成！");
     }
 
+    /**
+     * 内存模式：直接处理包数据（如代理捕获的响应体），解密、索引解析和扫描都在内存中完成，不落盘
+     * 构造时的 wxapkgFilePath 作为来源标识（例如下载URL），AppID 从中提取
+     */
+    public void executeInMemory(byte[] data) {
+        inMemory = true;
+        stats = metrics.beginPackage(wxapkgFilePath);
+        aesDecompiler.setStats(stats);
+        try (BufferPool.Lease lease = bufferPool.lease()) {
+            useBuffers(lease);
+            doExecuteInMemory(data);
+        } finally {
+            closeOwnScanExecutor();
+            useBuffers(null);
+            stats.finish();
+        }
+    }
+
+    private void doExecuteInMemory(byte[] data) {
+        stats.packageSize(data.length);
+        String appID = extractWxId();
+        if (appID.equals("unknown") && WxapkgAesDe.isEncrypted(data)) {
+            appID = recoverWxId(data, data.length, List.of());
+        }
+        addAppInfo("AppID", appID.equals("unknown") ? "未提取到（使用默认：unknown_appid）" : appID);
+        addAppInfo("捕获来源", wxapkgFilePath);
+        this.appId = appID.equals("unknown") ? "unknown_appid" : appID;
+
+        // 加密包需要AppID作为密钥（复制到借用的缓冲区后原地解密，不修改传入的数据）
+        byte[] plainData = data;
+        int plainLength = data.length;
+        if (WxapkgAesDe.isEncrypted(data)) {
+            if (appID.equals("unknown")) {
+                addAppInfo("AES解密失败", "❌ 加密包需要AppID，来源中未找到wx开头的AppID");
+                return;
+            }
+            try {
+                plainData = borrowBytes(data.length);
+                System.arraycopy(data, 0, plainData, 0, data.length);
+                plainLength = aesDecompiler.decryptInPlace(appID, plainData, data.length);
+                addAppInfo("AES解密", "✅ 加密包内存解密成功");
+            } catch (Exception e) {
+                addAppInfo("AES解密失败", "❌ " + e.getMessage());
+                return;
+            }
+        }
+        long indexStart = System.nanoTime();
+        List<FileMeta> fileList;
+        try {
+            fileList = WxapkgReader.parseIndex(plainData, plainLength);
+        } catch (IOException e) {
+            addAppInfo("解包状态", "❌ 解析索引失败：" + e.getMessage());
+            return;
+        }
+        record(PipelineMetrics.Stage.INDEX_PARSE, indexStart, 0);
+        addAppInfo("解包结果", "✅ 内存解析完成！共 " + fileList.size() + " 个文件");
+        if (checkCancelled()) {
+            return;
+        }
+        addQueriedAppInfo(this.appId);
+
+        // 直接按索引区间扫描，不复制文件内容
+        addAppInfo("检测状态", "🔍 开始执行信息泄露检测（所有文件都扫描）...");
+        for (FileMeta meta : fileList) {
+            if (cancelled) {
+                break;
+            }
+            if (meta.getOffset() + meta.getSize() > plainLength) {
+                addAppInfo("警告", "文件数据越界：" + meta.getName());
+                continue;
+            }
+            scanEntry(meta.getName(), plainData, (int) meta.getOffset(), (int) meta.getSize());
+        }
+        apiStore = apiCollector.seal();
+        sensitiveStore = sensitiveCollector.seal();
+        if (checkCancelled()) {
+            return;
+        }
+        addAppInfo("检测状态", "✅ 信息泄露检测完成！");
+    }
+
+    // 并行尝试候选wxid（只解密第一个AES分组），找不到返回unknown
+    private String recoverWxId(byte[] data, int length, List<String> preferred) {
+        if (length < 6 + 1024) {
+            return "unknown";
+        }
+        long recoverStart = System.nanoTime();
+        WxidRecovery.Result result = wxidRecovery.recover(data, length, preferred);
+        record(PipelineMetrics.Stage.KEY_DERIVE, recoverStart, 0);
+        if (result.getWxid() == null) {
+            addAppInfo("AppID恢复", result.getTried() == 0 ? "❌ 没有候选AppID（可在候选列表中补充）"
+                    : "❌ " + result.getTried() + " 个候选AppID均不匹配");
+            return "unknown";
+        }
+        addAppInfo("AppID恢复", String.format("✅ 尝试 %d 个候选后找到 %s（耗时 %.0fms）",
+                result.getTried(), result.getWxid(), result.getElapsedNanos() / 1_000_000.0));
+        return result.getWxid();
+    }
+
+    // 查询（或填充默认的）小程序名称/主体等信息
+    private void addQueriedAppInfo(String appID) {
+        long queryStart = System.nanoTime();
+        Map<String, String> wxapkgInfo = queryAppInfoEnabled ? queryAppInfo(appID) : defaultAppInfo(appID);
+        record(PipelineMetrics.Stage.QUERY, queryStart, 0);
+        addAppInfo("小程序名称", wxapkgInfo.get("nickName"));
+        addAppInfo("用户名", wxapkgInfo.get("userName"));
+        addAppInfo("描述", wxapkgInfo.get("description"));
+        addAppInfo("主体名称", wxapkgInfo.get("principalName"));
+    }
+
     /**
      * 解包wxapkg文件
      */
     public int unpack(String wxapkgPath, String outputPath, int threadNum) {
-        File wxapkgFile = new File(wxapkgPath);
+        Path wxapkgFile = Paths.get(wxapkgPath);
         byte[] decryptedData;
+        int length;
+        long readStart = System.nanoTime();
         try {
-            decryptedData = Files.readAllBytes(wxapkgFile.toPath());
+            length = (int) Files.size(wxapkgFile);
+            decryptedData = borrowBytes(length);
+            length = BufferPool.readFully(wxapkgFile, decryptedData, length);
+            record(PipelineMetrics.Stage.READ, readStart, length);
         } catch (IOException e) {
 //            addAppInfo("错误信息", "❌ 读取wxapkg文件失败：" + e.getMessage());
             return 0;
         }
-        if (decryptedData.length < 14 || decryptedData[0] != (byte) 0xBE || decryptedData[13] != (byte) 0xED) {
-//            addAppInfo("错误信息", "❌ 解包失败：文件不是可用的wxapkg文件（头标记不匹配）");
-            return 0;
+        try {
+            return unpack(decryptedData, length, outputPath, threadNum);
+        } finally {
+            releaseBytes(decryptedData);
         }
-        long fileCount = readUnit(Arrays.copyOfRange(decryptedData, 14, 18));
-        if (fileCount <= 0 || fileCount > Integer.MAX_VALUE) {
-//            addAppInfo("错误信息", "❌ 解包失败：文件数量异常");
+    }
+
+    // 解包内存中的包数据（decryptedData 只有前 length 字节有效）
+    private int unpack(byte[] decryptedData, int length, String outputPath, int threadNum) {
+        long indexStart = System.nanoTime();
+        List<FileMeta> fileList;
+        try {
+            fileList = WxapkgReader.parseIndex(decryptedData, length);
+        } catch (IOException e) {
+//            addAppInfo("错误信息", "❌ 解包失败：" + e.getMessage());
             return 0;
         }
-        List<FileMeta> fileList = new ArrayList<>();
-        int idx = 18;
-        for (int i = 0; i < fileCount; i++) {
-            byte[] nameLenByte = Arrays.copyOfRange(decryptedData, idx, idx + 4);
-            idx += 4;
-            long nameLen = readUnit(nameLenByte);
-            if (nameLen > 10485760) {
-//                addAppInfo("错误信息", "❌ 解包失败：文件名长度异常");
-                return 0;
+        record(PipelineMetrics.Stage.INDEX_PARSE, indexStart, 0);
+        bundlePaths.clear();
+        for (FileMeta meta : fileList) {
+            if (ModuleSplitter.isBundle(meta.getName())) {
+                bundlePaths.add(meta.getName());
             }
-            byte[] nameBytes = Arrays.copyOfRange(decryptedData, idx, idx + (int) nameLen);
-            idx += (int) nameLen;
-            String name = new String(nameBytes, StandardCharsets.UTF_8);
-            byte[] offsetByte = Arrays.copyOfRange(decryptedData, idx, idx + 4);
-            idx += 4;
-            byte[] sizeByte = Arrays.copyOfRange(decryptedData, idx, idx + 4);
-            idx += 4;
-            fileList.add(new FileMeta(name, readUnit(offsetByte), readUnit(sizeByte)));
         }
+        if (archiveOutput) {
+            return unpackToArchive(decryptedData, length, fileList, Paths.get(outputPath + UnpackArchive.SUFFIX));
+        }
+        // 目录树一次性创建，之后各线程只管写文件
+        EntryWriter writer = new EntryWriter(outputPath, decryptedData, length);
+        long mkdirStart = System.nanoTime();
+        try {
+            writer.prepareDirectories(fileList);
+        } catch (IOException e) {
+            addAppInfo("警告", "创建解包目录失败：" + e.getMessage());
+            return 0;
+        }
+        record(PipelineMetrics.Stage.UNPACK_MKDIR, mkdirStart, 0);
         ExecutorService executor = Executors.newFixedThreadPool(threadNum);
-        CountDownLatch producerLatch = new CountDownLatch(1);
-        CountDownLatch consumerLatch = new CountDownLatch(fileList.size());
-        BlockingQueue<FileMeta> fileQueue = new ArrayBlockingQueue<>(100);
-        executor.submit(() -> {
-            try {
-                for (FileMeta meta : fileList) {
-                    fileQueue.put(meta);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (List<FileMeta> batch : writer.batches(fileList)) {
+            tasks.add(() -> {
+                long writeStart = System.nanoTime();
+                Map<String, String> errors = writer.writeBatch(batch, () -> cancelled);
+                long batchBytes = 0;
+                for (FileMeta meta : batch) {
+                    batchBytes += meta.getSize();
                 }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            } finally {
-                producerLatch.countDown();
-            }
-        });
-        for (int i = 0; i < threadNum; i++) {
-            executor.submit(() -> {
-                while (true) {
-                    FileMeta meta;
-                    try {
-                        if (producerLatch.getCount() == 0 && fileQueue.isEmpty()) {
-                            break;
-                        }
-                        meta = fileQueue.poll(1, TimeUnit.SECONDS);
-                        if (meta == null) {
-                            continue;
-                        }
-                        String outputFilePath = outputPath + File.separator + meta.getName();
-                        Path outputFile = Paths.get(outputFilePath);
-                        Files.createDirectories(outputFile.getParent());
-                        long offset = meta.getOffset();
-                        long size = meta.getSize();
-                        if (offset + size > decryptedData.length) {
-                            addAppInfo("警告", "文件数据越界：" + meta.getName());
-                            consumerLatch.countDown();
-                            continue;
-                        }
-                        byte[] fileData = Arrays.copyOfRange(decryptedData, (int) offset, (int) (offset + size));
-                        Files.write(outputFile, fileData);
-                    } catch (IOException | InterruptedException e) {
-                        addAppInfo("警告", "解包错误：" + e.getMessage());
-                    } finally {
-                        consumerLatch.countDown();
-                    }
+                record(PipelineMetrics.Stage.UNPACK_WRITE, writeStart, batchBytes);
+                for (Map.Entry<String, String> error : errors.entrySet()) {
+                    addAppInfo("警告", "解包错误：" + error.getKey() + "（" + error.getValue() + "）");
                 }
+                return null;
             });
         }
         try {
-            consumerLatch.await();
-            executor.shutdown();
-            executor.awaitTermination(5, TimeUnit.MINUTES);
+            executor.invokeAll(tasks);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+        } finally {
             executor.shutdownNow();
         }
+        if (stats != null) {
+            stats.entriesWritten(writer.getEntriesWritten(), writer.getSyscalls());
+        }
+        return fileList.size();
+    }
+
+    // 归档输出：单线程顺序写入一个zip
+    private int unpackToArchive(byte[] decryptedData, int length, List<FileMeta> fileList, Path archive) {
+        long writeStart = System.nanoTime();
+        Map<String, String> errors = new LinkedHashMap<>();
+        int written;
+        try {
+            written = UnpackArchive.write(archive, decryptedData, length, fileList, () -> cancelled, errors);
+        } catch (IOException e) {
+            addAppInfo("警告", "写入归档失败：" + e.getMessage());
+            return 0;
+        }
+        record(PipelineMetrics.Stage.UNPACK_WRITE, writeStart, length);
+        for (Map.Entry<String, String> error : errors.entrySet()) {
+            addAppInfo("警告", "解包错误：" + error.getKey() + "（" + error.getValue() + "）");
+        }
+        if (stats != null) {
+            // 归档只有 open/close 和缓冲区满时的写入
+            stats.entriesWritten(written, 2 + length / UnpackArchive.WRITE_BUFFER + 1);
+        }
         return fileList.size();
     }
 
+    // 解密后的包写成文件（目录模式保留，便于其他工具分析）
+    private void writeDecrypted(byte[] data, int length, File file) throws IOException {
+        long writeStart = System.nanoTime();
+        Files.createDirectories(file.toPath().getParent());
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(data, 0, length);
+        }
+        record(PipelineMetrics.Stage.DECRYPT_WRITE, writeStart, length);
+    }
+
     /**
      * 查询小程序信息
      */
     public Map<String, String> queryAppInfo(String appid) {
-        Map<String, String> result = new HashMap<>();
-        result.put("appid", appid);
-        result.put("nickName", "未知小程序");
-        result.put("userName", "");
-        result.put("description", "");
-        result.put("principalName", "");
+        Map<String, String> result = defaultAppInfo(appid);
         String url = "https://kainy.cn/api/weapp/info/";
         RequestBody body = RequestBody.create(
                 "{\"appid\":\"" + appid + "\"}",
@@ -324,71 +544,51 @@ public class WxAppletDecompiler {
         return result;
     }
 
+    // 查询失败/未查询时的默认小程序信息
+    private Map<String, String> defaultAppInfo(String appid) {
+        Map<String, String> result = new HashMap<>();
+        result.put("appid", appid);
+        result.put("nickName", "未知小程序");
+        result.put("userName", "");
+        result.put("description", "");
+        result.put("principalName", "");
+        return result;
+    }
+
     /**
      * 信息泄露检测
      */
-    private void infoLeakDetect(String outputPath) {
+    void infoLeakDetect(String outputPath) {
+        try {
+            if (archiveOutput) {
+                infoLeakDetectArchive(new File(outputPath + UnpackArchive.SUFFIX));
+            } else {
+                infoLeakDetectDirectory(outputPath);
+            }
+        } finally {
+            closeOwnScanExecutor();
+        }
+    }
+
+    private void infoLeakDetectDirectory(String outputPath) {
+        // 逐个文件复用同一块缓冲区（scanEntry 返回时该文件的扫描已全部结束），不够大时换更大的
+        byte[][] buffer = {null};
         try {
             Files.walkFileTree(Paths.get(outputPath), new SimpleFileVisitor<Path>() {
                 @Override
                 public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                    // 读取文件内容（编码容错）
-                    String content;
-                    try {
-                        content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
-                    } catch (Exception e) {
-                        content = new String(Files.readAllBytes(file), Charset.defaultCharset());
+                    if (cancelled) {
+                        return FileVisitResult.TERMINATE;
                     }
-
-                    // 提取API接口
-                    java.util.regex.Matcher urlMatcher = customApiPattern.matcher(content);
-                    while (urlMatcher.find()) {
-                        String url = null;
-                        // 遍历正则分组，获取有效URL
-                        for (int i = 1; i <= 5; i++) {
-                            String group = urlMatcher.group(i);
-                            if (group != null && !group.trim().isEmpty()) {
-                                url = group.trim();
-                                break;
-                            }
-                        }
-                        // 空值过滤
-                        if (url == null || url.isEmpty()) {
-                            continue;
-                        }
-
-                        boolean needFilter = false;
-                        //过滤api前端路径
-                        for (String prefix : prefixBlacklist) {
-                            if (url.contains(prefix)) {
-                                needFilter = true;
-                                break;
-                            }
-                        }
-                        // 无参数URL：过滤黑名单后缀
-                        if (!needFilter && !url.contains("?")) {
-                            String urlSuffix = getUrlSuffix(url);
-                            if (!urlSuffix.isEmpty() && suffixBlacklist.contains(urlSuffix)) {
-                                needFilter = true;
-                            }
-                        }
-
-                        // 非过滤项添加到API列表
-                        if (!needFilter) {
-                            apiInfoList.add(new ApiInfo(apiIndex++, file.toString().replace(outputPath,""), url));
-                        }
-                    }
-
-                    // 检测敏感信息（所有文件都扫描）
-                    for (Map.Entry<String, Pattern> entry : customSensitivePatterns.entrySet()) {
-                        String type = entry.getKey();
-                        Pattern pattern = entry.getValue();
-                        java.util.regex.Matcher matcher = pattern.matcher(content);
-                        while (matcher.find()) {
-                            String sensitiveContent = matcher.group();
-                            sensitiveInfoList.add(new SensitiveInfo(file.toString().replace(outputPath,""), type, sensitiveContent));
-                        }
+                    long readStart = System.nanoTime();
+                    int size = (int) attrs.size();
+                    if (buffer[0] == null || buffer[0].length < size) {
+                        releaseBytes(buffer[0]);
+                        buffer[0] = borrowBytes(size);
                     }
+                    int length = BufferPool.readFully(file, buffer[0], size);
+                    record(PipelineMetrics.Stage.SCAN_READ, readStart, length);
+                    scanEntry(file.toString().replace(outputPath, ""), buffer[0], 0, length);
                     return FileVisitResult.CONTINUE;
                 }
 
@@ -400,16 +600,355 @@ public class WxAppletDecompiler {
         } catch (IOException e) {
             addAppInfo("错误信息", "❌ 信息泄露检测失败：" + e.getMessage());
         }
+        releaseBytes(buffer[0]);
+        // 归并各线程结果，按文件和偏移确定序号
+        apiStore = apiCollector.seal();
+        sensitiveStore = sensitiveCollector.seal();
+    }
+
+    // 归档输出：按zip中央目录逐个读取条目扫描，路径与目录模式一致（以"/"开头）
+    private void infoLeakDetectArchive(File archive) {
+        byte[] buffer = null;
+        try (UnpackArchive source = UnpackArchive.open(archive)) {
+            for (FileMeta meta : source.getEntries()) {
+                if (cancelled) {
+                    break;
+                }
+                long readStart = System.nanoTime();
+                if (buffer == null || buffer.length < meta.getSize()) {
+                    releaseBytes(buffer);
+                    buffer = borrowBytes((int) meta.getSize());
+                }
+                int length = source.read(meta, buffer);
+                record(PipelineMetrics.Stage.SCAN_READ, readStart, length);
+                scanEntry(meta.getName(), buffer, 0, length);
+            }
+        } catch (IOException e) {
+            addAppInfo("错误信息", "❌ 信息泄露检测失败：" + e.getMessage());
+        }
+        releaseBytes(buffer);
+        apiStore = apiCollector.seal();
+        sensitiveStore = sensitiveCollector.seal();
+    }
+
+    /**
+     * 扫描一个文件：app-service.js 按 define 拆成模块后并行扫描，结果归属到模块的原始路径；
+     * 第一个 define 之前的代码和无法拆分的文件仍按合并文件本身扫描
+     */
+    private void scanEntry(String relativePath, byte[] bytes, int offset, int length) {
+        if (!ModuleSplitter.isBundle(relativePath)) {
+            scanFile(relativePath, bytes, offset, length);
+            return;
+        }
+        long splitStart = System.nanoTime();
+        List<ModuleSplitter.Module> modules = ModuleSplitter.split(bytes, offset, length);
+        record(PipelineMetrics.Stage.SCAN_SPLIT, splitStart, length);
+        if (modules.isEmpty()) {
+            scanFile(relativePath, bytes, offset, length);
+            return;
+        }
+        // 模块已写成真实文件时由目录遍历扫描，这里只扫前导段
+        boolean materialized = materializedBundles.contains(relativePath.replace('\\', '/'));
+        List<List<ModuleSplitter.Module>> tasks = new ArrayList<>();
+        List<ModuleSplitter.Module> current = new ArrayList<>();
+        long currentBytes = 0;
+        for (ModuleSplitter.Module module : modules) {
+            if (materialized && module.getName() != null) {
+                continue;
+            }
+            current.add(module);
+            currentBytes += module.getLength();
+            if (currentBytes >= MODULE_TASK_BYTES) {
+                tasks.add(current);
+                current = new ArrayList<>();
+                currentBytes = 0;
+            }
+        }
+        if (!current.isEmpty()) {
+            tasks.add(current);
+        }
+        if (threadNum <= 1 || tasks.size() <= 1) {
+            for (List<ModuleSplitter.Module> task : tasks) {
+                scanModules(relativePath, bytes, task);
+            }
+            return;
+        }
+        // 当前线程和线程池中的帮手一起按序号领取任务；当前线程领完时，还没开始的帮手直接取消，
+        // 不必等共用线程池被其他包占满时排队
+        AtomicInteger next = new AtomicInteger();
+        Callable<Void> drain = () -> {
+            int i;
+            while ((i = next.getAndIncrement()) < tasks.size()) {
+                scanModules(relativePath, bytes, tasks.get(i));
+            }
+            return null;
+        };
+        ExecutorService executor = scanExecutor();
+        List<Future<Void>> helpers = new ArrayList<>();
+        try {
+            int helperCount = Math.min(threadNum, tasks.size()) - 1;
+            for (int i = 0; i < helperCount; i++) {
+                helpers.add(executor.submit(drain));
+            }
+        } catch (RejectedExecutionException e) {
+            // 线程池已关闭（批量解析被取消），剩下的任务由当前线程完成
+        }
+        try {
+            drain.call();
+            // scanEntry 返回后 bytes 会被复用，必须等已经开始的帮手结束
+            for (Future<Void> helper : helpers) {
+                if (!helper.cancel(false)) {
+                    helper.get();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            addAppInfo("警告", "模块扫描失败：" + relativePath + "（" + e.getCause() + "）");
+        } catch (Exception e) {
+            addAppInfo("警告", "模块扫描失败：" + relativePath + "（" + e + "）");
+        }
+    }
+
+    private ExecutorService scanExecutor() {
+        ExecutorService shared = scanExecutor;
+        if (shared != null) {
+            return shared;
+        }
+        if (ownScanExecutor == null) {
+            ownScanExecutor = Executors.newFixedThreadPool(Math.max(1, threadNum - 1), r -> {
+                Thread thread = new Thread(r, "JaySenWxapkg-scan");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return ownScanExecutor;
+    }
+
+    private void closeOwnScanExecutor() {
+        if (ownScanExecutor != null) {
+            ownScanExecutor.shutdownNow();
+            ownScanExecutor = null;
+        }
+    }
+
+    private void scanModules(String bundlePath, byte[] bytes, List<ModuleSplitter.Module> modules) {
+        for (ModuleSplitter.Module module : modules) {
+            if (cancelled) {
+                return;
+            }
+            String path = module.getName() == null ? bundlePath : modulePath(module.getName());
+            scanFile(path, bytes, module.getOffset(), module.getLength());
+        }
+    }
+
+    // 模块路径统一为以"/"开头的包内路径
+    private static String modulePath(String name) {
+        String path = name.replace('\\', '/');
+        while (path.startsWith("./")) {
+            path = path.substring(2);
+        }
+        return path.startsWith("/") ? path : "/" + path;
+    }
+
+    /**
+     * 把 app-service.js 中的模块按原始路径写成真实文件；
+     * 任一模块路径已存在于解包结果中或越出输出目录时，该合并文件保持虚拟拆分
+     */
+    private void writeModuleFiles(String outputPath) {
+        Path root = Paths.get(outputPath).normalize();
+        for (String bundle : bundlePaths) {
+            if (cancelled) {
+                return;
+            }
+            try {
+                byte[] bytes = Files.readAllBytes(root.resolve(bundle.replaceFirst("^/+", "")));
+                List<ModuleSplitter.Module> modules = ModuleSplitter.split(bytes, 0, bytes.length);
+                Map<Path, ModuleSplitter.Module> targets = new LinkedHashMap<>();
+                boolean conflict = modules.isEmpty();
+                for (ModuleSplitter.Module module : modules) {
+                    if (module.getName() == null) {
+                        continue;
+                    }
+                    Path target = root.resolve(modulePath(module.getName()).substring(1)).normalize();
+                    if (!target.startsWith(root) || Files.exists(target) || targets.put(target, module) != null) {
+                        conflict = true;
+                        break;
+                    }
+                }
+                if (conflict) {
+                    continue;
+                }
+                for (Map.Entry<Path, ModuleSplitter.Module> entry : targets.entrySet()) {
+                    Files.createDirectories(entry.getKey().getParent());
+                    try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(entry.getKey(),
+                            StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                        java.nio.ByteBuffer buffer = java.nio.ByteBuffer.wrap(bytes, entry.getValue().getOffset(), entry.getValue().getLength());
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer);
+                        }
+                    }
+                }
+                materializedBundles.add(bundle.replace('\\', '/'));
+                addAppInfo("模块拆分", "✅ " + bundle + " 拆分为 " + targets.size() + " 个模块文件");
+            } catch (IOException e) {
+                addAppInfo("警告", "模块拆分失败：" + bundle + "（" + e.getMessage() + "）");
+            }
+        }
+    }
+
+    // 单个文件的API提取和敏感信息检测
+    private void scanFile(String relativePath, byte[] bytes, int offset, int length) {
+        // 解码到借用的字符数组（UTF-8解码后字符数不超过字节数），不为每个文件生成完整String
+        char[] chars = borrowChars(length);
+        try {
+            scanContent(relativePath, bytes, offset, length, decodeUtf8(bytes, offset, length, chars));
+        } finally {
+            releaseChars(chars);
+        }
+    }
+
+    private static CharBuffer decodeUtf8(byte[] bytes, int offset, int length, char[] chars) {
+        CharsetDecoder decoder = UTF8_DECODERS.get().reset();
+        CharBuffer content = CharBuffer.wrap(chars);
+        decoder.decode(ByteBuffer.wrap(bytes, offset, length), content, true);
+        decoder.flush(content);
+        return content.flip();
+    }
+
+    private void scanContent(String relativePath, byte[] bytes, int offset, int length, CharBuffer content) {
+        long scanStart = System.nanoTime();
+
+        // 写入当前线程的分段，同一文件的结果共用一个路径id
+        ResultStore apiShard = apiCollector.shard();
+        ResultStore sensitiveShard = sensitiveCollector.shard();
+        int apiPathId = apiShard.getPaths().intern(relativePath);
+        int sensitivePathId = sensitiveShard.getPaths().intern(relativePath);
+        Detector.Sink sink = new Detector.Sink() {
+            // 同一检测器的命中连续到达，类型id只在类型变化时查字典
+            private String lastType;
+            private int lastTypeId;
+
+            @Override
+            public void api(String url, int offset) {
+                apiShard.addIds(0, apiPathId, -1, apiShard.getValues().intern(url), offset, -1, -1);
+            }
+
+            @Override
+            public void sensitive(String type, String value, int offset) {
+                if (!type.equals(lastType)) {
+                    lastTypeId = sensitiveShard.getTypes().intern(type);
+                    lastType = type;
+                }
+                sensitiveShard.addIds(0, sensitivePathId, lastTypeId, sensitiveShard.getValues().intern(value), offset, -1, -1);
+            }
+
+            @Override
+            public void failed(String rule, RuntimeException error) {
+                if (failedRules.add(rule)) {
+                    addAppInfo("警告", "检测规则执行失败：" + rule + "（" + error + "）");
+                }
+            }
+        };
+        // API提取、敏感信息规则、高熵字符串和插件检测器，按成本从低到高执行
+        detectorEngine().scan(new Detector.Context(relativePath, bytes, offset, length, content, () -> cancelled), sink, stats);
+        record(PipelineMetrics.Stage.SCAN, scanStart, content.length());
+        if (stats != null) {
+            stats.fileScanned();
+        }
+    }
+
+    private DetectorEngine detectorEngine() {
+        DetectorEngine engine = detectorEngine;
+        if (engine == null) {
+            engine = createDetectorEngine(customApiPattern, customSensitivePatterns, entropyDetector, urlFilter());
+            detectorEngine = engine;
+        }
+        return engine;
+    }
+
+    /**
+     * 按构造函数相同的默认规则创建检测引擎（内置检测器 + 插件目录中的检测器），批量解析时创建一次供所有包共用
+     */
+    public static DetectorEngine createDetectorEngine(Pattern apiPattern, Map<String, Pattern> sensitivePatterns,
+                                                      EntropyDetector entropyDetector, UrlFilter urlFilter) {
+        List<Detector> detectors = new ArrayList<>();
+        detectors.add(new ApiDetector(apiPattern != null ? apiPattern : DEFAULT_API_PATTERN, urlFilter));
+        Map<String, Pattern> rules = sensitivePatterns != null && !sensitivePatterns.isEmpty()
+                ? sensitivePatterns : DEFAULT_SENSITIVE_PATTERNS;
+        for (Map.Entry<String, Pattern> entry : rules.entrySet()) {
+            detectors.add(RegexDetector.forRule(entry.getKey(), entry.getValue()));
+        }
+        if (entropyDetector != null) {
+            detectors.add(entropyDetector);
+        }
+        detectors.addAll(DetectorEngine.plugins().getDetectors());
+        return new DetectorEngine(detectors);
+    }
+
+    // ========== 缓冲区借用（不在 execute 期间时直接分配） ==========
+    private void useBuffers(BufferPool.Lease lease) {
+        buffers = lease;
+        aesDecompiler.setBuffers(lease);
+    }
+
+    private byte[] borrowBytes(int length) {
+        BufferPool.Lease lease = buffers;
+        return lease != null ? lease.bytes(length) : new byte[length];
+    }
+
+    private char[] borrowChars(int length) {
+        BufferPool.Lease lease = buffers;
+        return lease != null ? lease.chars(length) : new char[length];
+    }
+
+    private void releaseBytes(byte[] array) {
+        BufferPool.Lease lease = buffers;
+        if (lease != null) {
+            lease.release(array);
+        }
+    }
+
+    private void releaseChars(char[] array) {
+        BufferPool.Lease lease = buffers;
+        if (lease != null) {
+            lease.release(array);
+        }
     }
 
-    // 获取url后缀名
-    private String getUrlSuffix(String url) {
-        String cleanUrl = url.split("\\?")[0].split("#")[0];
-        int lastDotIndex = cleanUrl.lastIndexOf(".");
-        if (lastDotIndex == -1 || lastDotIndex == cleanUrl.length() - 1) {
-            return "";
+    // 已取消则记录状态，调用方直接返回
+    private boolean checkCancelled() {
+        if (cancelled) {
+            addAppInfo("解包状态", "⏹ 已取消");
         }
-        return cleanUrl.substring(lastDotIndex + 1).toLowerCase().replace(".", "");
+        return cancelled;
+    }
+
+    // 记录阶段耗时（未开始统计时忽略）
+    private void record(PipelineMetrics.Stage stage, long stageStart, long bytes) {
+        PipelineMetrics.PackageStats current = stats;
+        if (current != null) {
+            current.record(stage, System.nanoTime() - stageStart, bytes);
+        }
+    }
+
+    // 编译后的URL过滤器（多个扫描线程可能同时编译，结果相同，保留任意一个即可）
+    private UrlFilter urlFilter() {
+        UrlFilter filter = urlFilter;
+        if (filter == null) {
+            filter = UrlFilter.compile(prefixBlacklist, suffixBlacklist);
+            urlFilter = filter;
+        }
+        return filter;
+    }
+
+    /**
+     * 按构造函数相同的默认规则编译黑名单（自定义为空时用默认），批量解析时编译一次供所有包共用
+     */
+    public static UrlFilter compileUrlFilter(Set<String> suffixBlacklist, Set<String> prefixBlacklist) {
+        return UrlFilter.compile(
+                prefixBlacklist != null && !prefixBlacklist.isEmpty() ? prefixBlacklist : Config.DEFAULT_PREFIX_BLACKLIST,
+                suffixBlacklist != null && !suffixBlacklist.isEmpty() ? suffixBlacklist : DEFAULT_SUFFIX_BLACKLIST);
     }
     // 小程序信息添加UI
     public void addAppInfo(String key, String value) {
@@ -437,23 +976,19 @@ public class WxAppletDecompiler {
     }
 
     public String extractWxId() {
-        Pattern pattern = Pattern.compile("\\bwx[a-f0-9]{16}\\b");
-        java.util.regex.Matcher matcher = pattern.matcher(this.wxapkgFilePath);
+        return extractWxId(this.wxapkgFilePath);
+    }
+
+    /**
+     * 从包路径中提取AppID（微信缓存目录为 .../wx开头16位十六进制/...），找不到返回unknown
+     */
+    public static String extractWxId(String wxapkgFilePath) {
+        java.util.regex.Matcher matcher = WX_ID_PATTERN.matcher(wxapkgFilePath);
         return matcher.find() ? matcher.group() : "unknown";
     }
 
-    private long readUnit(byte[] b) {
-        int len = b.length;
-        switch (len) {
-            case 1:
-                return b[0] & 0xFF;
-            case 2:
-                return ((b[0] & 0xFF) << 8) | (b[1] & 0xFF);
-            case 4:
-                return ((long) (b[0] & 0xFF) << 24) | ((long) (b[1] & 0xFF) << 16) | ((long) (b[2] & 0xFF) << 8) | (b[3] & 0xFF);
-            default:
-                return 0;
-        }
+    public static boolean isMainPackage(File wxapkgFile) {
+        return wxapkgFile.getName().equals("__APP__.wxapkg");
     }
 
     private String getJsonNodeValue(JsonNode parentNode, String fieldName, String defaultValue) {
@@ -476,42 +1011,62 @@ public class WxAppletDecompiler {
         public String getValue() { return value; }
     }
 
+    // API结果：ResultStore中一行的轻量视图
     public static class ApiInfo {
-        private final int index;
-        private final String file;
-        private final String api;
-        public ApiInfo(int index, String file, String api) {
-            this.index = index;
-            this.file = file;
-            this.api = api;
+        private final ResultStore store;
+        private final int row;
+        public ApiInfo(ResultStore store, int row) {
+            this.store = store;
+            this.row = row;
         }
-        public int getIndex() { return index; }
-        public String getFile() { return file; }
-        public String getApi() { return api; }
+        public int getIndex() { return store.getIndex(row); }
+        public String getFile() { return store.getPath(row); }
+        public String getApi() { return store.getValue(row); }
+        public int getOffset() { return store.getOffset(row); }
     }
 
+    // 敏感信息结果：ResultStore中一行的轻量视图
     public static class SensitiveInfo {
-        private final String file;
-        private final String type;
-        private final String content;
-        public SensitiveInfo(String file, String type, String content) {
-            this.file = file;
-            this.type = type;
-            this.content = content;
+        private final ResultStore store;
+        private final int row;
+        public SensitiveInfo(ResultStore store, int row) {
+            this.store = store;
+            this.row = row;
         }
-        public String getFile() { return file; }
-        public String getType() { return type; }
-        public String getContent() { return content; }
+        public String getFile() { return store.getPath(row); }
+        public String getType() { return store.getType(row); }
+        public String getContent() { return store.getValue(row); }
+        public int getOffset() { return store.getOffset(row); }
     }
 
     // ========== 获取结果的方法 ==========
-    public List<AppInfo> getAppInfoList() { return appInfoList; }
-    public List<ApiInfo> getApiInfoList() { return apiInfoList; }
-    public List<SensitiveInfo> getSensitiveInfoList() { return sensitiveInfoList; }
+    public List<AppInfo> getAppInfoList() { return appInfoList.toList(); }
+    public List<ApiInfo> getApiInfoList() { return apiStore.apiView(); }
+    public List<SensitiveInfo> getSensitiveInfoList() { return sensitiveStore.sensitiveView(); }
+    public ResultStore getApiStore() { return apiStore; }
+    public ResultStore getSensitiveStore() { return sensitiveStore; }
+
+    public void setMetrics(PipelineMetrics metrics) { this.metrics = metrics; }
+    public void setQueryAppInfoEnabled(boolean queryAppInfoEnabled) { this.queryAppInfoEnabled = queryAppInfoEnabled; }
+    public void setArchiveOutput(boolean archiveOutput) { this.archiveOutput = archiveOutput; }
+    public void setModuleFiles(boolean moduleFiles) { this.moduleFiles = moduleFiles; }
+    public void setEntropyDetector(EntropyDetector entropyDetector) { this.entropyDetector = entropyDetector; this.detectorEngine = null; }
+    public void setBufferPool(BufferPool bufferPool) { this.bufferPool = bufferPool; }
+    public void setWxidRecovery(WxidRecovery wxidRecovery) { this.wxidRecovery = wxidRecovery; }
+    public void setUrlFilter(UrlFilter urlFilter) { this.urlFilter = urlFilter; this.detectorEngine = null; }
+    public void setDetectorEngine(DetectorEngine detectorEngine) { this.detectorEngine = detectorEngine; }
+    public void setScanExecutor(ExecutorService scanExecutor) { this.scanExecutor = scanExecutor; }
+    public void cancel() { this.cancelled = true; }
+    public boolean isCancelled() { return cancelled; }
+    public PipelineMetrics.PackageStats getStats() { return stats; }
+    public String getWxapkgFilePath() { return wxapkgFilePath; }
+    public String getAppId() { return appId != null ? appId : extractWxId(); }
 
     public String getPackageType() {
-        File wxapkgFile = new File(this.wxapkgFilePath);
-        return wxapkgFile.getName().equals("__APP__.wxapkg") ? "主包" : "分包";
+        if (inMemory) {
+            return "代理捕获";
+        }
+        return isMainPackage(new File(this.wxapkgFilePath)) ? "主包" : "分包";
     }
 
     /**
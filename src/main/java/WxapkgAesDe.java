@@ -36,6 +36,27 @@ public class WxapkgAesDe {
     private static final String DEFAULT_SALT = "saltiest";
     private static final int AES_KEY_SIZE = 32; // 256位密钥
     private static final int PBKDF2_ITERATIONS = 1000;
+    // 加密头：FLAG之后1024字节密文，解密后取前1023字节；之后的明文位置p对应数据位置p+7
+    private static final int ENCRYPTED_HEAD = 1023;
+    private static final int ENCRYPTED_SHIFT = 7;
+    // 阶段统计（可选）
+    private PipelineMetrics.PackageStats stats;
+    // 当前包的缓冲区借用（可选，为null时按需新分配）
+    private BufferPool.Lease buffers;
+
+    /**
+     * 设置当前包的阶段统计（为null则不统计）
+     */
+    public void setStats(PipelineMetrics.PackageStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * 设置当前包的缓冲区借用（文件解密时从中借用读缓冲）
+     */
+    public void setBuffers(BufferPool.Lease buffers) {
+        this.buffers = buffers;
+    }
 
     /**
      * 解密wxapkg文件
@@ -64,48 +85,197 @@ public class WxapkgAesDe {
             throw new Exception("加密文件不存在：" + encryptedFile);
         }
 
-        // 2. 读取文件字节
-        byte[] dataByte = readFileToBytes(srcFile);
+        // 2. 读取文件字节（有借用时读入池中缓冲区）
+        long stageStart = System.nanoTime();
+        int length = (int) srcFile.length();
+        byte[] dataByte = buffers != null ? buffers.bytes(length) : new byte[length];
+        length = BufferPool.readFully(srcFile.toPath(), dataByte, length);
+        record(PipelineMetrics.Stage.READ, stageStart, length);
+
+        // 3. 原地解密
+        int plainLength = decryptInPlace(wxid, iv, salt, dataByte, length);
+
+        // 4. 保存解密后的文件
+        stageStart = System.nanoTime();
+        writeBytesToFile(dataByte, plainLength, new File(decryptedFile));
+        record(PipelineMetrics.Stage.DECRYPT_WRITE, stageStart, plainLength);
+        if (buffers != null) {
+            buffers.release(dataByte);
+        }
+    }
+
+    /**
+     * 内存解密（不读写文件，代理捕获等场景使用）
+     * @param wxid 微信小程序ID
+     * @param dataByte 加密的wxapkg数据
+     * @return 解密后的wxapkg数据
+     */
+    public byte[] decrypt(String wxid, byte[] dataByte) throws Exception {
+        byte[] data = dataByte.clone();
+        return Arrays.copyOf(data, decryptInPlace(wxid, DEFAULT_IV, DEFAULT_SALT, data, data.length));
+    }
+
+    /**
+     * 原地解密：data[0, length) 为加密包，解密后明文写回 data[0, 返回值)，不分配整包大小的数组
+     * @return 明文长度（length - 7）
+     */
+    public int decryptInPlace(String wxid, byte[] data, int length) throws Exception {
+        return decryptInPlace(wxid, DEFAULT_IV, DEFAULT_SALT, data, length);
+    }
 
-        // 3. 校验文件头标识
-        String flag = new String(Arrays.copyOfRange(dataByte, 0, WXAPKG_FLAG_LEN), StandardCharsets.UTF_8);
-        if (!WXAPKG_FLAG.equals(flag)) {
+    private int decryptInPlace(String wxid, String iv, String salt, byte[] data, int length) throws Exception {
+        if (!isEncrypted(data, length) || length < WXAPKG_FLAG_LEN + 1024) {
+            String flag = new String(data, 0, Math.min(WXAPKG_FLAG_LEN, length), StandardCharsets.UTF_8);
             throw new Exception("文件无需解密，或不是加密的wxapkg包（标识不匹配：" + flag + "）");
         }
 
-        // 4. PBKDF2生成AES密钥（兼容Python的PBKDF2逻辑）
+        // PBKDF2生成AES密钥（兼容Python的PBKDF2逻辑）
+        long stageStart = System.nanoTime();
         SecretKey secretKey = generatePBKDF2Key(wxid, salt);
         SecretKeySpec aesKey = new SecretKeySpec(secretKey.getEncoded(), "AES");
+        record(PipelineMetrics.Stage.KEY_DERIVE, stageStart, 0);
 
-        // 5. AES-CBC解密前1024字节（跳过FLAG）
-        byte[] encryptedHead = Arrays.copyOfRange(dataByte, WXAPKG_FLAG_LEN, WXAPKG_FLAG_LEN + 1024);
+        // AES-CBC解密前1024字节（跳过FLAG），明文头先放在小数组里，密文区域马上会被覆盖
+        stageStart = System.nanoTime();
         Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding"); // Python的PKCS7Padding兼容PKCS5Padding
         cipher.init(Cipher.DECRYPT_MODE, aesKey, new IvParameterSpec(iv.getBytes(StandardCharsets.UTF_8)));
-        byte[] originHead = cipher.doFinal(encryptedHead);
+        byte[] originHead = new byte[1024];
+        cipher.doFinal(data, WXAPKG_FLAG_LEN, 1024, originHead, 0);
 
-        // 6. 计算XOR密钥（默认0x66，wxid长度>=2则取倒数第二个字符的ASCII）
-        int xorKey = 0x66;
-        if (wxid != null && wxid.length() >= 2) {
-            xorKey = (int) wxid.charAt(wxid.length() - 2);
+        // 剩余字节XOR解密并前移7字节（目标位置总在源位置之前，顺序处理不会覆盖未读数据）
+        int tailLength = length - WXAPKG_FLAG_LEN - 1024;
+        xorDecrypt(data, WXAPKG_FLAG_LEN + 1024, data, ENCRYPTED_HEAD, tailLength, xorKey(wxid));
+
+        // 明文 = 截断后的前1023字节 + XOR数据
+        System.arraycopy(originHead, 0, data, 0, ENCRYPTED_HEAD);
+        record(PipelineMetrics.Stage.DECRYPT, stageStart, length);
+        return length - ENCRYPTED_SHIFT;
+    }
+
+    /**
+     * 数据是否以加密标识 V1MMWX 开头
+     */
+    public static boolean isEncrypted(byte[] data) {
+        return isEncrypted(data, data.length);
+    }
+
+    /**
+     * 同上，data 只有前 length 字节有效（池中借用的缓冲区）
+     */
+    public static boolean isEncrypted(byte[] data, int length) {
+        if (length < WXAPKG_FLAG_LEN) {
+            return false;
+        }
+        for (int i = 0; i < WXAPKG_FLAG_LEN; i++) {
+            if (data[i] != WXAPKG_FLAG.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * V1MMWX加密（decrypt的逆过程，用于生成测试包）
+     * 前1023字节AES-CBC加密为1024字节，其余按XOR密钥异或，头部加FLAG
+     * @param wxid 微信小程序ID
+     * @param plainData 未加密的wxapkg数据
+     * @return 加密后的数据
+     */
+    public byte[] encrypt(String wxid, byte[] plainData) throws Exception {
+        SecretKeySpec aesKey = new SecretKeySpec(generatePBKDF2Key(wxid, DEFAULT_SALT).getEncoded(), "AES");
+        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, aesKey, new IvParameterSpec(DEFAULT_IV.getBytes(StandardCharsets.UTF_8)));
+        // 不足1023字节时补0，解密端固定截取1023字节
+        byte[] encryptedHead = cipher.doFinal(Arrays.copyOf(plainData, 1023));
+
+        int xorKey = xorKey(wxid);
+        int tailLen = Math.max(0, plainData.length - 1023);
+        byte[] result = new byte[WXAPKG_FLAG_LEN + encryptedHead.length + tailLen];
+        System.arraycopy(WXAPKG_FLAG.getBytes(StandardCharsets.UTF_8), 0, result, 0, WXAPKG_FLAG_LEN);
+        System.arraycopy(encryptedHead, 0, result, WXAPKG_FLAG_LEN, encryptedHead.length);
+        int base = WXAPKG_FLAG_LEN + encryptedHead.length;
+        for (int i = 0; i < tailLen; i++) {
+            result[base + i] = (byte) (plainData[1023 + i] ^ xorKey);
+        }
+        return result;
+    }
+
+    /**
+     * 只解密加密头（随机读取时使用）：输入为文件开头的 FLAG + 1024字节密文，返回明文前1023字节
+     * 明文第1023字节起等于 文件[p + 7] ^ xorKey，无需整体解密
+     */
+    public byte[] decryptHead(String wxid, byte[] fileHead) throws Exception {
+        if (fileHead.length < WXAPKG_FLAG_LEN + 1024
+                || !WXAPKG_FLAG.equals(new String(fileHead, 0, WXAPKG_FLAG_LEN, StandardCharsets.UTF_8))) {
+            throw new Exception("不是加密的wxapkg包（标识不匹配或长度不足）");
+        }
+        SecretKeySpec aesKey = new SecretKeySpec(generatePBKDF2Key(wxid, DEFAULT_SALT).getEncoded(), "AES");
+        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        cipher.init(Cipher.DECRYPT_MODE, aesKey, new IvParameterSpec(DEFAULT_IV.getBytes(StandardCharsets.UTF_8)));
+        byte[] originHead = cipher.doFinal(fileHead, WXAPKG_FLAG_LEN, 1024);
+        return Arrays.copyOf(originHead, 1023);
+    }
+
+    /**
+     * 只解密加密头的第一个AES分组（CBC首块只依赖IV和密钥），检查明文是否是合法的wxapkg头：
+     * 0xBE … 0xED 标记、保留字段为0、索引长度和数据长度不超过包大小
+     * 用于在候选wxid中快速排除，通过后还需 verifyHead 确认；data 至少为 FLAG + 16 字节
+     * @param fileLength 加密包的文件长度
+     */
+    public boolean matchesFirstBlock(String wxid, byte[] data, long fileLength) throws Exception {
+        if (data.length < WXAPKG_FLAG_LEN + 16 || !isEncrypted(data)) {
+            return false;
+        }
+        SecretKeySpec aesKey = new SecretKeySpec(generatePBKDF2Key(wxid, DEFAULT_SALT).getEncoded(), "AES");
+        Cipher cipher = Cipher.getInstance("AES/CBC/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, aesKey, new IvParameterSpec(DEFAULT_IV.getBytes(StandardCharsets.UTF_8)));
+        byte[] block = cipher.doFinal(data, WXAPKG_FLAG_LEN, 16);
+        if (block[0] != (byte) 0xBE || block[13] != (byte) 0xED || WxapkgReader.readInt(block, 1) != 0) {
+            return false;
         }
+        // 明文长度 = 文件长度 - 7（FLAG 6字节 + 加密头补齐的1字节）
+        long plainSize = fileLength - WXAPKG_FLAG_LEN - 1;
+        long indexLength = WxapkgReader.readInt(block, 5);
+        long dataLength = WxapkgReader.readInt(block, 9);
+        return indexLength >= 4 && 14 + indexLength + dataLength <= plainSize;
+    }
 
-        // 7. 剩余字节进行XOR解密
-        byte[] afData = Arrays.copyOfRange(dataByte, WXAPKG_FLAG_LEN + 1024, dataByte.length);
-        byte[] xorData = xorDecrypt(afData, xorKey);
+    /**
+     * 确认wxid：解密整个加密头（校验填充）并按文件索引解析头中的部分，索引在1023字节内不完整视为通过
+     * data 至少为 FLAG + 1024 字节
+     */
+    public boolean verifyHead(String wxid, byte[] data) {
+        try {
+            byte[] plainHead = decryptHead(wxid, Arrays.copyOf(data, WXAPKG_FLAG_LEN + 1024));
+            WxapkgReader.parseIndex(plainHead, plainHead.length);
+            return true;
+        } catch (WxapkgReader.IndexTruncatedException e) {
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
 
-        // 8. 拼接解密后的数据（截断前1023字节 + XOR数据）
-        byte[] originData = new byte[1023 + xorData.length];
-        System.arraycopy(originHead, 0, originData, 0, 1023);
-        System.arraycopy(xorData, 0, originData, 1023, xorData.length);
+    /**
+     * XOR密钥（默认0x66，wxid长度>=2则取倒数第二个字符的ASCII）
+     */
+    public static int xorKey(String wxid) {
+        if (wxid != null && wxid.length() >= 2) {
+            return wxid.charAt(wxid.length() - 2);
+        }
+        return 0x66;
+    }
 
-        // 9. 保存解密后的文件
-        writeBytesToFile(originData, new File(decryptedFile));
+    private void record(PipelineMetrics.Stage stage, long stageStart, long bytes) {
+        if (stats != null) {
+            stats.record(stage, System.nanoTime() - stageStart, bytes);
+        }
     }
 
     /**
      * PBKDF2生成AES密钥（复刻Python的PBKDF2逻辑）
      */
-    private SecretKey generatePBKDF2Key(String password, String salt) throws Exception {
+    SecretKey generatePBKDF2Key(String password, String salt) throws Exception {
         SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
         KeySpec spec = new PBEKeySpec(
                 password.toCharArray(),
@@ -119,45 +289,42 @@ public class WxapkgAesDe {
     /**
      * XOR异或解密
      */
-    private byte[] xorDecrypt(byte[] data, int xorKey) {
+    byte[] xorDecrypt(byte[] data, int xorKey) {
         byte[] result = new byte[data.length];
-        for (int i = 0; i < data.length; i++) {
-            result[i] = (byte) (data[i] ^ xorKey);
-        }
+        xorDecrypt(data, 0, result, 0, data.length, xorKey);
         return result;
     }
 
-    /**
-     * 文件读取为字节数组
-     */
-    private byte[] readFileToBytes(File file) throws Exception {
-        try (FileInputStream fis = new FileInputStream(file)) {
-            byte[] buffer = new byte[(int) file.length()];
-            fis.read(buffer);
-            return buffer;
+    // src[srcPos, srcPos+length) 异或后写入 dst[dstPos...)，同一数组时要求 dstPos ≤ srcPos
+    static void xorDecrypt(byte[] src, int srcPos, byte[] dst, int dstPos, int length, int xorKey) {
+        byte key = (byte) xorKey;
+        for (int i = 0; i < length; i++) {
+            dst[dstPos + i] = (byte) (src[srcPos + i] ^ key);
         }
     }
 
     /**
      * 字节数组写入文件
      */
-    private void writeBytesToFile(byte[] data, File file) throws Exception {
+    private void writeBytesToFile(byte[] data, int length, File file) throws Exception {
         File parentDir = file.getParentFile();
         if (!parentDir.exists()) {
             parentDir.mkdirs();
         }
         try (FileOutputStream fos = new FileOutputStream(file)) {
-            fos.write(data);
+            fos.write(data, 0, length);
         }
     }
 
     /**
-     * 快速校验文件是否为加密的wxapkg
+     * 快速校验文件是否为加密的wxapkg（只读文件头）
      */
     public boolean isEncryptedWxapkg(String filePath) throws Exception {
         File file = new File(filePath);
         if (!file.exists()) return false;
-        byte[] header = Arrays.copyOfRange(readFileToBytes(file), 0, WXAPKG_FLAG_LEN);
-        return WXAPKG_FLAG.equals(new String(header, StandardCharsets.UTF_8));
+        byte[] header = new byte[WXAPKG_FLAG_LEN];
+        try (FileInputStream fis = new FileInputStream(file)) {
+            return fis.readNBytes(header, 0, WXAPKG_FLAG_LEN) == WXAPKG_FLAG_LEN && isEncrypted(header);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,324 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * 命令行批量解析（无界面，不加载Swing/Montoya，适合在服务器上处理大量包）
+ * 结果逐包以JSONL流式写出，每行一条：
+ *   {"kind":"app_info",...} / {"kind":"api",...} / {"kind":"sensitive",...} / {"kind":"package",...}
+ * 用法：java -jar JaySenWxapkg-1.0.jar [选项] <目录或wxapkg文件>...
+ */
+public class WxapkgBatchCli {
+    private static final String USAGE = """
+            用法：java -jar JaySenWxapkg-1.0.jar [选项] <目录或wxapkg文件>...
+              --list <文件>           从文件读取输入路径（每行一个，#开头为注释）
+              --max-depth <N>         目录遍历最大深度（目录下的文件为第1层，默认不限制）
+              --follow-links          遍历时跟随符号链接（成环的链接会报告并跳过）
+              --priority <策略,...>   处理顺序，依次比较：pinned/main/smallest/newest（默认 pinned,main,smallest）
+              --pin <AppID,...>       置顶的AppID，配合 pinned 策略优先处理
+              --aging <秒>            排队超过该时间的包不论优先级先处理（默认30，0不老化）
+              --wxid-list <文件>      路径中没有AppID的加密包从该文件中的wxid里查找密钥（同批其他包路径、附近目录名自动加入）
+              --config <json>         规则配置（格式同 ~/.burp/jaysenwxapkg.json），默认使用内置规则
+              --parallel <N>          同时处理的包数（默认CPU核数）
+              --threads <N>           每个包的解包线程数（默认2）
+              --output <文件|->       JSONL输出位置（默认 - 即标准输出）
+              --work-dir <目录>       解包临时目录（默认系统临时目录）
+              --memory-budget <MB>    处理中包的内存预算（默认最大堆的一半）
+              --keep-output           保留解包文件（默认每个包扫描完即删除）
+              --archive               每个包解包为单个zip归档，而不是零散文件
+              --module-files          把app-service.js中的模块按原始路径写成文件（默认只在扫描时虚拟拆分）
+              --index <目录>          把结果追加到持久化倒排索引（与插件「索引搜索」共用格式）
+              --query-app-info        联网查询小程序名称/主体（默认关闭）
+            """;
+
+    public static void main(String[] args) throws Exception {
+        System.exit(run(args));
+    }
+
+    static int run(String[] args) throws Exception {
+        List<File> inputs = new ArrayList<>();
+        File configFile = null;
+        String output = "-";
+        File workDir = null;
+        int parallel = Math.max(1, Runtime.getRuntime().availableProcessors());
+        int threads = 2;
+        long memoryBudget = Runtime.getRuntime().maxMemory() / 2;
+        boolean keepOutput = false;
+        boolean queryAppInfo = false;
+        boolean archive = false;
+        boolean moduleFiles = false;
+        File indexDir = null;
+        WxapkgDiscovery discovery = new WxapkgDiscovery();
+        List<PackageScheduler.Policy> policies = PackageScheduler.DEFAULT_POLICIES;
+        Set<String> pinnedAppIds = new LinkedHashSet<>();
+        long agingMillis = PackageScheduler.DEFAULT_AGING_MILLIS;
+        WxidRecovery wxidRecovery = new WxidRecovery();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--list" -> inputs.addAll(readList(new File(args[++i])));
+                    case "--config" -> configFile = new File(args[++i]);
+                    case "--max-depth" -> discovery.maxDepth(Integer.parseInt(args[++i]));
+                    case "--follow-links" -> discovery.followLinks(true);
+                    case "--priority" -> {
+                        policies = new ArrayList<>();
+                        for (String id : args[++i].split(",")) {
+                            policies.add(PackageScheduler.Policy.parse(id));
+                        }
+                    }
+                    case "--pin" -> pinnedAppIds.addAll(Config.parsePrefixTextToSet(args[++i]));
+                    case "--aging" -> agingMillis = Long.parseLong(args[++i]) * 1000;
+                    case "--wxid-list" -> wxidRecovery.addFrom(Files.readString(new File(args[++i]).toPath(), StandardCharsets.UTF_8));
+                    case "--parallel" -> parallel = Integer.parseInt(args[++i]);
+                    case "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "--output" -> output = args[++i];
+                    case "--work-dir" -> workDir = new File(args[++i]);
+                    case "--memory-budget" -> memoryBudget = Long.parseLong(args[++i]) * 1024 * 1024;
+                    case "--keep-output" -> keepOutput = true;
+                    case "--query-app-info" -> queryAppInfo = true;
+                    case "--archive" -> archive = true;
+                    case "--module-files" -> moduleFiles = true;
+                    case "--index" -> indexDir = new File(args[++i]);
+                    case "-h", "--help" -> {
+                        System.err.print(USAGE);
+                        return 0;
+                    }
+                    default -> {
+                        if (args[i].startsWith("--")) {
+                            throw new IllegalArgumentException("未知参数：" + args[i]);
+                        }
+                        inputs.add(new File(args[i]));
+                    }
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println("❌ 参数错误：" + (e instanceof ArrayIndexOutOfBoundsException ? "缺少参数值" : e.getMessage()));
+            System.err.print(USAGE);
+            return 2;
+        }
+        if (inputs.isEmpty()) {
+            System.err.print(USAGE);
+            return 2;
+        }
+
+        // 1. 规则（与插件界面相同的SavedConfig格式）
+        Config.SavedConfig config;
+        Pattern apiPattern;
+        Map<String, Pattern> sensitivePatterns = new LinkedHashMap<>();
+        try {
+            config = configFile != null ? Config.readConfigFile(configFile) : new Config.SavedConfig();
+            apiPattern = config.getApiRegex() != null && !config.getApiRegex().trim().isEmpty()
+                    ? Pattern.compile(config.getApiRegex().trim()) : null;
+            if (config.getSensitiveRegexMap() != null) {
+                for (Map.Entry<String, String> entry : config.getSensitiveRegexMap().entrySet()) {
+                    sensitivePatterns.put(entry.getKey(), Pattern.compile(entry.getValue()));
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("❌ 规则配置无效：" + e.getMessage());
+            return 2;
+        }
+
+        // 2. 输入（边遍历边解析，不预先收集完整列表）
+        File outputRoot = workDir != null ? workDir : Files.createTempDirectory("jaysenwxapkg-cli").toFile();
+
+        EndpointIndex index = null;
+        if (indexDir != null) {
+            try {
+                index = EndpointIndex.open(indexDir.toPath());
+            } catch (IOException e) {
+                System.err.println("❌ 打开索引失败：" + e.getMessage());
+                return 2;
+            }
+        }
+
+        // 3. 运行
+        BatchRunner runner = new BatchRunner(outputRoot, apiPattern, sensitivePatterns,
+                config.getSuffixBlacklist(), config.getPrefixBlacklist())
+                .parallelism(parallel)
+                .unpackThreads(threads)
+                .memoryBudget(memoryBudget)
+                .keepOutput(keepOutput)
+                .queryAppInfo(queryAppInfo)
+                .archiveOutput(archive)
+                .moduleFiles(moduleFiles)
+                .entropyDetector(config.entropyDetector())
+                .index(index)
+                .priority(PackageScheduler.comparator(policies, pinnedAppIds))
+                .agingMillis(agingMillis)
+                .wxidRecovery(wxidRecovery);
+        System.err.printf("[JaySenWxapkg] 并发 %d，内存预算 %dMB，解包目录 %s%n",
+                parallel, memoryBudget / 1024 / 1024, outputRoot.getAbsolutePath());
+        AtomicInteger found = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger discoveryErrors = new AtomicInteger();
+        // Ctrl+C：取消批量解析，等处理中的包停下并清理输出后再退出
+        java.util.concurrent.CountDownLatch exited = new java.util.concurrent.CountDownLatch(1);
+        Thread shutdownHook = new Thread(() -> {
+            runner.cancel();
+            try {
+                exited.await(30, java.util.concurrent.TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        OutputStream out = "-".equals(output) ? new FileOutputStream(FileDescriptor.out)
+                : new FileOutputStream(output);
+        try (JsonlSink sink = new JsonlSink(new BufferedOutputStream(out, 64 * 1024))) {
+            runner.run(inputs, discovery, new BatchRunner.Listener() {
+                @Override
+                public void onPackageDone(WxAppletDecompiler decompiler) {
+                    try {
+                        sink.write(decompiler);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    PipelineMetrics.PackageStats stats = decompiler.getStats();
+                    System.err.printf("[%d/%d] %s%n", finished.incrementAndGet(), found.get(),
+                            stats != null ? stats.summary(decompiler.getAppId(), decompiler.getApiStore().size(),
+                                    decompiler.getSensitiveStore().size()) : decompiler.getWxapkgFilePath());
+                }
+
+                @Override
+                public void onPackageFailed(File wxapkgFile, Throwable error) {
+                    failed.incrementAndGet();
+                    System.err.printf("[%d/%d] ❌ %s：%s%n", finished.incrementAndGet(), found.get(),
+                            wxapkgFile, error);
+                }
+
+                @Override
+                public void onPackageFound(File wxapkgFile) {
+                    found.incrementAndGet();
+                }
+
+                @Override
+                public void onDiscoveryFailed(java.nio.file.Path path, IOException error) {
+                    discoveryErrors.incrementAndGet();
+                    System.err.printf("⚠️ 遍历失败 %s：%s%n", path, error);
+                }
+            });
+        }
+        if (index != null) {
+            System.err.printf("[JaySenWxapkg] 索引：%d 个段，%d 条倒排，%s%n",
+                    index.getSegmentCount(), index.getPostingCount(), index.getDirectory());
+            index.close();
+        }
+        PipelineMetrics metrics = runner.getMetrics();
+        if (runner.isCancelled()) {
+            System.err.println("[JaySenWxapkg] 已取消，未完成的包输出已清理");
+        }
+        System.err.printf("[JaySenWxapkg] 完成：%d 个包，失败 %d，遍历错误 %d，耗时 %.1fs，%.2f MB/s%n",
+                found.get(), failed.get(), discoveryErrors.get(), metrics.getElapsedSeconds(), metrics.getThroughputMBps());
+        if (!keepOutput && workDir == null) {
+            BatchRunner.deleteQuietly(outputRoot.toPath());
+        }
+        exited.countDown();
+        if (!runner.isCancelled()) {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        }
+        if (found.get() == 0 && !runner.isCancelled()) {
+            System.err.println("未找到任何wxapkg文件");
+            return 1;
+        }
+        return runner.isCancelled() ? 130 : failed.get() > 0 || discoveryErrors.get() > 0 ? 1 : 0;
+    }
+
+    private static List<File> readList(File listFile) throws IOException {
+        List<File> files = new ArrayList<>();
+        for (String line : Files.readAllLines(listFile.toPath(), StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                files.add(new File(line));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * JSONL写出（多个工作线程完成的包串行写入，包内各行连续）
+     */
+    private static class JsonlSink implements Closeable {
+        private final OutputStream out;
+        private final JsonGenerator generator;
+
+        JsonlSink(OutputStream out) throws IOException {
+            this.out = out;
+            generator = new JsonFactory().createGenerator(out, JsonEncoding.UTF8);
+            generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        synchronized void write(WxAppletDecompiler decompiler) throws IOException {
+            String pkg = decompiler.getWxapkgFilePath();
+            String appId = decompiler.getAppId();
+            for (WxAppletDecompiler.AppInfo info : decompiler.getAppInfoList()) {
+                start("app_info", pkg, appId);
+                generator.writeStringField("key", info.getKey());
+                generator.writeStringField("value", info.getValue());
+                generator.writeEndObject();
+            }
+            ResultStore apis = decompiler.getApiStore();
+            for (int row = 0; row < apis.size(); row++) {
+                start("api", pkg, appId);
+                generator.writeNumberField("index", apis.getIndex(row));
+                generator.writeStringField("file", apis.getPath(row));
+                generator.writeNumberField("offset", apis.getOffset(row));
+                generator.writeStringField("api", apis.getValue(row));
+                generator.writeEndObject();
+            }
+            ResultStore sensitive = decompiler.getSensitiveStore();
+            for (int row = 0; row < sensitive.size(); row++) {
+                start("sensitive", pkg, appId);
+                generator.writeStringField("file", sensitive.getPath(row));
+                generator.writeNumberField("offset", sensitive.getOffset(row));
+                generator.writeStringField("type", sensitive.getType(row));
+                generator.writeStringField("content", sensitive.getValue(row));
+                generator.writeEndObject();
+            }
+            // 包结束标记，下游可据此判断一个包的结果已完整
+            start("package", pkg, appId);
+            generator.writeNumberField("apis", apis.size());
+            generator.writeNumberField("sensitive", sensitive.size());
+            generator.writeNumberField("bytes", new File(pkg).length());
+            generator.writeEndObject();
+            generator.flush();
+        }
+
+        private void start(String kind, String pkg, String appId) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("kind", kind);
+            generator.writeStringField("package", pkg);
+            generator.writeStringField("appId", appId);
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            generator.writeRaw('\n');
+            generator.close();
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.handler.*;
+import burp.api.montoya.logging.Logging;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 代理流量捕获：按头部字节识别响应体中的wxapkg（明文 0xBE…0xED 或加密标识 V1MMWX），
+ * 把响应体直接交给内存解析流水线（WxAppletDecompiler.executeInMemory），不落盘
+ * 代理线程只做头部判断和入队；队列有界，满了直接丢弃并计数，不会拖慢代理
+ */
+public class WxapkgCaptureHandler implements HttpHandler, AutoCloseable {
+    private static final String ENCRYPTED_FLAG = "V1MMWX";
+
+    /**
+     * 解析结果回调（在捕获工作线程中调用）
+     */
+    public interface Sink {
+        void onCaptured(WxAppletDecompiler decompiler);
+    }
+
+    private final Logging logging;
+    private final Function<String, WxAppletDecompiler> decompilerFactory;
+    private final Sink sink;
+    private final BlockingQueue<Captured> queue;
+    private final long maxBodyBytes;
+    private final Thread worker;
+    private volatile boolean enabled;
+    private volatile WxAppletDecompiler current;
+
+    // ========== 统计 ==========
+    private final AtomicLong captured = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+
+    /**
+     * @param decompilerFactory 按来源URL创建解析器（使用当前规则）
+     * @param queueCapacity 等待解析的最大包数
+     * @param maxBodyBytes 超过该大小的响应体不捕获
+     */
+    public WxapkgCaptureHandler(Logging logging, Function<String, WxAppletDecompiler> decompilerFactory, Sink sink,
+                                int queueCapacity, long maxBodyBytes) {
+        this.logging = logging;
+        this.decompilerFactory = decompilerFactory;
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.maxBodyBytes = maxBodyBytes;
+        this.worker = new Thread(this::drain, "JaySenWxapkg-capture");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public boolean isEnabled() { return enabled; }
+    public long getCaptured() { return captured.get(); }
+    public long getDropped() { return dropped.get(); }
+    public long getProcessed() { return processed.get(); }
+    public int getQueued() { return queue.size(); }
+
+    @Override
+    public RequestToBeSentAction handleHttpRequestToBeSent(HttpRequestToBeSent requestToBeSent) {
+        return RequestToBeSentAction.continueWith(requestToBeSent);
+    }
+
+    @Override
+    public ResponseReceivedAction handleHttpResponseReceived(HttpResponseReceived responseReceived) {
+        inspect(responseReceived);
+        return ResponseReceivedAction.continueWith(responseReceived);
+    }
+
+    /**
+     * 判断并入队（代理线程调用，不做任何解析）
+     * @return 是否已入队
+     */
+    boolean inspect(HttpResponseReceived response) {
+        if (!enabled || !response.toolSource().isFromTool(ToolType.PROXY)) {
+            return false;
+        }
+        ByteArray body = response.body();
+        if (body == null || !isWxapkg(body)) {
+            return false;
+        }
+        String url = response.initiatingRequest().url();
+        if (body.length() > maxBodyBytes) {
+            dropped.incrementAndGet();
+            logging.logToError("[JaySenWxapkg] 捕获的wxapkg超过大小上限，已跳过：" + url);
+            return false;
+        }
+        if (!queue.offer(new Captured(url, body.getBytes()))) {
+            dropped.incrementAndGet();
+            logging.logToError("[JaySenWxapkg] 捕获队列已满，已丢弃：" + url);
+            return false;
+        }
+        captured.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 头部识别：明文包第0字节0xBE、第13字节0xED，加密包以 V1MMWX 开头
+     */
+    static boolean isWxapkg(ByteArray body) {
+        int length = body.length();
+        if (length >= 14 && body.getByte(0) == (byte) 0xBE && body.getByte(13) == (byte) 0xED) {
+            return true;
+        }
+        if (length < ENCRYPTED_FLAG.length() + 1024) {
+            return false;
+        }
+        for (int i = 0; i < ENCRYPTED_FLAG.length(); i++) {
+            if (body.getByte(i) != ENCRYPTED_FLAG.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 工作线程：逐个取出并在内存中解析
+    private void drain() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Captured item;
+            try {
+                item = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                WxAppletDecompiler decompiler = decompilerFactory.apply(item.url);
+                current = decompiler;
+                decompiler.executeInMemory(item.data);
+                processed.incrementAndGet();
+                if (!decompiler.isCancelled()) {
+                    sink.onCaptured(decompiler);
+                }
+            } catch (Throwable t) {
+                logging.logToError("[JaySenWxapkg] 解析捕获的wxapkg失败 " + item.url + "：" + t);
+            } finally {
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * 停止工作线程，丢弃未处理的包（插件卸载时调用）
+     */
+    @Override
+    public void close() {
+        enabled = false;
+        queue.clear();
+        worker.interrupt();
+        WxAppletDecompiler running = current;
+        if (running != null) {
+            running.cancel();
+        }
+    }
+
+    // 待解析的响应体
+    private static class Captured {
+        private final String url;
+        private final byte[] data;
+
+        Captured(String url, byte[] data) {
+            this.url = url;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * 合成wxapkg语料生成器（压测/基准用，不依赖真实小程序包）
+ * 生成的包与unpack解析的格式一致：0xBE头 + 大端索引 + 0xED + 文件索引 + 数据区，
+ * 内容为类压缩JS，按密度埋入API和敏感信息，可混入跨包重复的框架文件，可选V1MMWX加密
+ * 随机种子固定时输出完全可复现
+ */
+public class WxapkgCorpusGenerator {
+    /**
+     * 单文件大小分布
+     */
+    public enum SizeDistribution { UNIFORM, LOG_NORMAL }
+
+    // ========== 生成参数（均有默认值） ==========
+    private int fileCount = 200;
+    private int minFileBytes = 512;
+    private int maxFileBytes = 64 * 1024;
+    private SizeDistribution distribution = SizeDistribution.LOG_NORMAL;
+    private double apiPerKb = 0.5;      // 每KB埋入的API数
+    private double secretPerKb = 0.1;   // 每KB埋入的敏感信息数
+    private int frameworkFiles = 8;     // 每个包都带的相同框架文件数
+    private int frameworkFileBytes = 32 * 1024;
+    private boolean encrypted;
+    private String wxid;                // 为空则每个包生成不同的wxid
+    private long seed = 20251229L;
+
+    // 框架文件所有包共用一份
+    private Map<String, byte[]> frameworkEntries;
+
+    public WxapkgCorpusGenerator fileCount(int fileCount) { this.fileCount = fileCount; return this; }
+    public WxapkgCorpusGenerator fileBytes(int min, int max) { this.minFileBytes = Math.max(1, min); this.maxFileBytes = Math.max(this.minFileBytes, max); return this; }
+    public WxapkgCorpusGenerator distribution(SizeDistribution distribution) { this.distribution = distribution; return this; }
+    public WxapkgCorpusGenerator apiPerKb(double apiPerKb) { this.apiPerKb = apiPerKb; return this; }
+    public WxapkgCorpusGenerator secretPerKb(double secretPerKb) { this.secretPerKb = secretPerKb; return this; }
+    public WxapkgCorpusGenerator frameworkFiles(int count, int bytes) { this.frameworkFiles = count; this.frameworkFileBytes = bytes; this.frameworkEntries = null; return this; }
+    public WxapkgCorpusGenerator encrypted(boolean encrypted) { this.encrypted = encrypted; return this; }
+    public WxapkgCorpusGenerator wxid(String wxid) { this.wxid = wxid; return this; }
+    public WxapkgCorpusGenerator seed(long seed) { this.seed = seed; this.frameworkEntries = null; return this; }
+
+    /**
+     * 生成语料目录：dir/00000/wx.../__APP__.wxapkg（路径中带wxid，解包时可提取AppID用于解密）
+     */
+    public List<GeneratedPackage> generateCorpus(Path dir, int packages) throws Exception {
+        List<GeneratedPackage> result = new ArrayList<>(packages);
+        for (int i = 0; i < packages; i++) {
+            String packageWxid = wxid != null ? wxid : String.format("wx%016x", new Random(seed + i).nextLong());
+            Path file = dir.resolve(String.format("%05d", i)).resolve(packageWxid).resolve("__APP__.wxapkg");
+            result.add(generate(file, packageWxid, i));
+        }
+        return result;
+    }
+
+    /**
+     * 生成单个包
+     * @param index 包序号（参与随机种子，相同序号生成相同内容）
+     */
+    public GeneratedPackage generate(Path file, String packageWxid, int index) throws Exception {
+        Random random = new Random(seed * 31 + index);
+        int[] planted = new int[2];
+        Map<String, byte[]> entries = new LinkedHashMap<>(frameworkEntries());
+        for (int i = 0; i < fileCount; i++) {
+            String name = "/pages/" + ident(random) + i + "/index.js";
+            entries.put(name, minifiedJs(random, nextFileSize(random), planted).getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] data = pack(entries);
+        if (encrypted) {
+            data = new WxapkgAesDe().encrypt(packageWxid, data);
+        }
+        Files.createDirectories(file.getParent());
+        Files.write(file, data);
+        return new GeneratedPackage(file, packageWxid, entries.size(), data.length, planted[0], planted[1], encrypted);
+    }
+
+    /**
+     * 按unpack解析的格式打包（条目顺序即数据区顺序）
+     */
+    public static byte[] pack(Map<String, byte[]> entries) throws IOException {
+        int indexLen = 4;
+        long dataLen = 0;
+        for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+            indexLen += 4 + entry.getKey().getBytes(StandardCharsets.UTF_8).length + 8;
+            dataLen += entry.getValue().length;
+        }
+        int dataOffset = 14 + indexLen;
+        if (dataOffset + dataLen > Integer.MAX_VALUE) {
+            throw new IOException("包大小超过2GB：" + (dataOffset + dataLen));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) (dataOffset + dataLen));
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(0xBE);
+        out.writeInt(0);
+        out.writeInt(indexLen);
+        out.writeInt((int) dataLen);
+        out.writeByte(0xED);
+        out.writeInt(entries.size());
+        int offset = dataOffset;
+        for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+            byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(name.length);
+            out.write(name);
+            out.writeInt(offset);
+            out.writeInt(entry.getValue().length);
+            offset += entry.getValue().length;
+        }
+        for (byte[] data : entries.values()) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 生成类压缩JS，按密度埋入API和敏感信息
+     * @param planted 累加埋入数量：[0]=API，[1]=敏感信息（可为null）
+     */
+    public String minifiedJs(Random random, int approxBytes, int[] planted) {
+        StringBuilder sb = new StringBuilder(approxBytes + 128);
+        while (sb.length() < approxBytes) {
+            int before = sb.length();
+            appendFiller(random, sb);
+            // 按本段长度折算埋点概率，使密度与文件大小无关
+            double perByte = (sb.length() - before) / 1024.0;
+            if (random.nextDouble() < apiPerKb * perByte) {
+                appendApi(random, sb);
+                if (planted != null) planted[0]++;
+            }
+            if (random.nextDouble() < secretPerKb * perByte) {
+                appendSecret(random, sb);
+                if (planted != null) planted[1]++;
+            }
+        }
+        return sb.toString();
+    }
+
+    // ========== 内容片段 ==========
+    // 填充代码不含引号字符串、长数字和secret字样，避免意外命中规则
+    private static void appendFiller(Random random, StringBuilder sb) {
+        switch (random.nextInt(5)) {
+            case 0 -> sb.append("var ").append(ident(random)).append('=').append(random.nextInt(10000)).append(';');
+            case 1 -> sb.append("function ").append(ident(random)).append("(t,n,r){return t&&n?r(t):n||")
+                    .append(random.nextInt(100)).append('}');
+            case 2 -> sb.append(ident(random)).append('.').append(ident(random)).append('(')
+                    .append(ident(random)).append(',').append(random.nextInt(64)).append(");");
+            case 3 -> sb.append("if(").append(ident(random)).append('[').append(random.nextInt(64))
+                    .append("]!==void 0){").append(ident(random)).append("++}");
+            default -> sb.append("Object.defineProperty(").append(ident(random)).append(",{value:!0});");
+        }
+    }
+
+    private static void appendApi(Random random, StringBuilder sb) {
+        switch (random.nextInt(3)) {
+            case 0 -> sb.append(ident(random)).append(".request({url:\"/api/").append(ident(random)).append('/')
+                    .append(ident(random)).append("?id=").append(random.nextInt(1000)).append("\",method:\"POST\"});");
+            case 1 -> sb.append("var ").append(ident(random)).append("=\"https://api.").append(ident(random))
+                    .append(".com/v").append(1 + random.nextInt(3)).append('/').append(ident(random)).append("\";");
+            default -> sb.append(ident(random)).append("({url:'").append(ident(random)).append('/').append(ident(random))
+                    .append(".action'});");
+        }
+    }
+
+    private static void appendSecret(Random random, StringBuilder sb) {
+        switch (random.nextInt(4)) {
+            case 0 -> sb.append("e.phone=\"1").append(3 + random.nextInt(7))
+                    .append(String.format("%09d", random.nextInt(1_000_000_000))).append("\";");
+            case 1 -> sb.append("e.mail=\"").append(ident(random)).append('@').append(ident(random)).append(".com\";");
+            case 2 -> sb.append("e.appSecret=").append(random.nextInt(100)).append(';');
+            default -> sb.append("e.session_key=").append(ident(random)).append(';');
+        }
+    }
+
+    private Map<String, byte[]> frameworkEntries() {
+        if (frameworkEntries == null) {
+            Map<String, byte[]> entries = new LinkedHashMap<>();
+            Random random = new Random(seed ^ 0x5DEECE66DL);
+            for (int i = 0; i < frameworkFiles; i++) {
+                String name = i == 0 ? "/common/vendor.js" : i == 1 ? "/common/runtime.js"
+                        : "/miniprogram_npm/lib" + i + "/index.js";
+                entries.put(name, minifiedJs(random, frameworkFileBytes, null).getBytes(StandardCharsets.UTF_8));
+            }
+            frameworkEntries = entries;
+        }
+        return frameworkEntries;
+    }
+
+    private int nextFileSize(Random random) {
+        if (minFileBytes == maxFileBytes) {
+            return minFileBytes;
+        }
+        if (distribution == SizeDistribution.UNIFORM) {
+            return minFileBytes + random.nextInt(maxFileBytes - minFileBytes + 1);
+        }
+        // 对数正态：中位数为min和max的几何平均，约95%落在区间内
+        double mu = (Math.log(minFileBytes) + Math.log(maxFileBytes)) / 2;
+        double sigma = (Math.log(maxFileBytes) - Math.log(minFileBytes)) / 4;
+        double size = Math.exp(mu + sigma * random.nextGaussian());
+        return (int) Math.max(minFileBytes, Math.min(maxFileBytes, size));
+    }
+
+    private static String ident(Random random) {
+        int len = 1 + random.nextInt(6);
+        char[] chars = new char[len];
+        for (int i = 0; i < len; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 生成结果
+     */
+    public static class GeneratedPackage {
+        private final Path path;
+        private final String wxid;
+        private final int entryCount;
+        private final long bytes;
+        private final int plantedApis;
+        private final int plantedSecrets;
+        private final boolean encrypted;
+        public GeneratedPackage(Path path, String wxid, int entryCount, long bytes, int plantedApis, int plantedSecrets, boolean encrypted) {
+            this.path = path;
+            this.wxid = wxid;
+            this.entryCount = entryCount;
+            this.bytes = bytes;
+            this.plantedApis = plantedApis;
+            this.plantedSecrets = plantedSecrets;
+            this.encrypted = encrypted;
+        }
+        public Path getPath() { return path; }
+        public String getWxid() { return wxid; }
+        public int getEntryCount() { return entryCount; }
+        public long getBytes() { return bytes; }
+        public int getPlantedApis() { return plantedApis; }
+        public int getPlantedSecrets() { return plantedSecrets; }
+        public boolean isEncrypted() { return encrypted; }
+    }
+
+    /**
+     * 命令行生成语料：
+     * java WxapkgCorpusGenerator --out dir [--packages 10] [--files 200] [--min 512] [--max 65536]
+     *   [--dist LOG_NORMAL|UNIFORM] [--api-per-kb 0.5] [--secret-per-kb 0.1] [--framework 8]
+     *   [--encrypted] [--wxid wx...] [--seed n]
+     */
+    public static void main(String[] args) throws Exception {
+        WxapkgCorpusGenerator generator = new WxapkgCorpusGenerator();
+        Path out = null;
+        int packages = 10;
+        int min = generator.minFileBytes;
+        int max = generator.maxFileBytes;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out" -> out = Paths.get(args[++i]);
+                case "--packages" -> packages = Integer.parseInt(args[++i]);
+                case "--files" -> generator.fileCount(Integer.parseInt(args[++i]));
+                case "--min" -> min = Integer.parseInt(args[++i]);
+                case "--max" -> max = Integer.parseInt(args[++i]);
+                case "--dist" -> generator.distribution(SizeDistribution.valueOf(args[++i].toUpperCase()));
+                case "--api-per-kb" -> generator.apiPerKb(Double.parseDouble(args[++i]));
+                case "--secret-per-kb" -> generator.secretPerKb(Double.parseDouble(args[++i]));
+                case "--framework" -> generator.frameworkFiles(Integer.parseInt(args[++i]), generator.frameworkFileBytes);
+                case "--encrypted" -> generator.encrypted(true);
+                case "--wxid" -> generator.wxid(args[++i]);
+                case "--seed" -> generator.seed(Long.parseLong(args[++i]));
+                default -> throw new IllegalArgumentException("未知参数：" + args[i]);
+            }
+        }
+        if (out == null) {
+            System.err.println("用法：WxapkgCorpusGenerator --out <目录> [--packages N] [--files N] [--min 字节] [--max 字节] "
+                    + "[--dist LOG_NORMAL|UNIFORM] [--api-per-kb x] [--secret-per-kb x] [--framework N] [--encrypted] [--wxid wx...] [--seed n]");
+            System.exit(2);
+        }
+        generator.fileBytes(min, max);
+        long totalBytes = 0;
+        int apis = 0, secrets = 0;
+        for (GeneratedPackage pkg : generator.generateCorpus(out, packages)) {
+            totalBytes += pkg.getBytes();
+            apis += pkg.getPlantedApis();
+            secrets += pkg.getPlantedSecrets();
+        }
+        System.out.printf("已生成 %d 个包，共 %.2fMB，埋入API %d 个，敏感信息 %d 个：%s%n",
+                packages, totalBytes / 1024.0 / 1024.0, apis, secrets, out.toAbsolutePath());
+    }
+}
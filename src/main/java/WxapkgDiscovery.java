@@ -0,0 +1,124 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * wxapkg文件发现：用 Files.walkFileTree 遍历输入目录，每找到一个包立即回调（不先收集完整列表），
+ * 大目录或网络共享上第一个包找到即可开始解析；可限制遍历深度、选择是否跟随符号链接（成环时报告并跳过），
+ * 无法访问的目录和文件通过回调报告后继续遍历
+ */
+public class WxapkgDiscovery {
+    /**
+     * 发现回调（在遍历线程中调用）
+     */
+    public interface Listener {
+        void onFound(File wxapkgFile);
+
+        default void onError(Path path, IOException error) {}
+    }
+
+    private int maxDepth = Integer.MAX_VALUE;
+    private boolean followLinks;
+    private volatile boolean cancelled;
+
+    /**
+     * @param maxDepth 最大目录深度（输入目录下的文件为第1层），≤0 不限制
+     */
+    public WxapkgDiscovery maxDepth(int maxDepth) { this.maxDepth = maxDepth > 0 ? maxDepth : Integer.MAX_VALUE; return this; }
+    public WxapkgDiscovery followLinks(boolean followLinks) { this.followLinks = followLinks; return this; }
+
+    public int getMaxDepth() { return maxDepth; }
+    public boolean isFollowLinks() { return followLinks; }
+
+    /**
+     * 停止遍历（可在任意线程调用，遍历在下一个文件/目录处结束）
+     */
+    public void cancel() { cancelled = true; }
+    public boolean isCancelled() { return cancelled; }
+
+    /**
+     * 依次遍历输入（目录递归查找 .wxapkg，文件直接作为包）
+     * @return 找到的包数
+     */
+    public int walk(List<File> inputs, Listener listener) {
+        int found = 0;
+        Set<FileVisitOption> options = followLinks ? EnumSet.of(FileVisitOption.FOLLOW_LINKS) : EnumSet.noneOf(FileVisitOption.class);
+        for (File input : inputs) {
+            if (cancelled) {
+                break;
+            }
+            if (input.isFile()) {
+                listener.onFound(input);
+                found++;
+                continue;
+            }
+            if (!input.isDirectory()) {
+                listener.onError(input.toPath(), new NoSuchFileException(input.getPath(), null, "路径不存在"));
+                continue;
+            }
+            int[] count = {0};
+            try {
+                Files.walkFileTree(input.toPath(), options, maxDepth, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        return cancelled ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (cancelled) {
+                            return FileVisitResult.TERMINATE;
+                        }
+                        // 到达深度上限的目录也会以visitFile回调，需排除
+                        if (attrs.isRegularFile() && isWxapkg(file)) {
+                            listener.onFound(file.toFile());
+                            count[0]++;
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        // 无权限、链接成环（FileSystemLoopException）、遍历中被删除等
+                        listener.onError(file, exc);
+                        return cancelled ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+                        // 目录读取到一半失败（例如网络中断），已找到的包照常处理
+                        if (exc != null) {
+                            listener.onError(dir, exc);
+                        }
+                        return cancelled ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                listener.onError(input.toPath(), e);
+            }
+            found += count[0];
+        }
+        return found;
+    }
+
+    public static boolean isWxapkg(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".wxapkg");
+    }
+}
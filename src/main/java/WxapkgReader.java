@@ -0,0 +1,238 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * wxapkg随机读取：打开时只读取并解析文件索引，单个文件按 offset/size 按需读取
+ * 加密包（V1MMWX）只解密开头1024字节，其余位置按XOR就地还原，不生成整包解密文件
+ */
+public class WxapkgReader implements EntrySource {
+    private static final String WXAPKG_FLAG = "V1MMWX";
+    // 加密包：明文前1023字节来自AES头，之后的明文位置p对应文件位置p+7
+    private static final int ENCRYPTED_HEAD = 1023;
+    private static final int ENCRYPTED_SHIFT = 7;
+    // 索引声明长度不可信时，按此大小逐步扩大读取窗口
+    private static final int INDEX_WINDOW = 64 * 1024;
+
+    private final File file;
+    private final FileChannel channel;
+    private final boolean encrypted;
+    private final byte[] plainHead;  // 加密包的明文头
+    private final int xorKey;
+    private final long plainSize;
+    private final List<WxAppletDecompiler.FileMeta> entries;
+    private long bytesRead;          // 实际读取的文件字节数（验证按需读取）
+
+    private WxapkgReader(File file, String wxid, WxidRecovery recovery) throws Exception {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            byte[] flag = readRaw(0, (int) Math.min(WXAPKG_FLAG.length(), channel.size()));
+            this.encrypted = WXAPKG_FLAG.equals(new String(flag, StandardCharsets.UTF_8));
+            if (encrypted) {
+                if (channel.size() < WXAPKG_FLAG.length() + 1024) {
+                    throw new IOException("加密包长度不足：" + file);
+                }
+                byte[] head = readRaw(0, WXAPKG_FLAG.length() + 1024);
+                String key = wxid != null ? wxid : WxAppletDecompiler.extractWxId(file.getPath());
+                if (key.equals("unknown")) {
+                    // 路径中没有AppID：与解析时一样从附近目录名和候选列表中查找
+                    key = (recovery != null ? recovery : new WxidRecovery()).recover(head, channel.size(),
+                            WxidRecovery.siblingCandidates(file, WxidRecovery.DEFAULT_SIBLING_LEVELS)).getWxid();
+                    if (key == null) {
+                        throw new IOException("加密包需要wxid（路径中未找到wx开头的AppID，候选AppID均不匹配）");
+                    }
+                }
+                this.plainHead = new WxapkgAesDe().decryptHead(key, head);
+                this.xorKey = WxapkgAesDe.xorKey(key);
+                this.plainSize = channel.size() - ENCRYPTED_SHIFT;
+            } else {
+                this.plainHead = null;
+                this.xorKey = 0;
+                this.plainSize = channel.size();
+            }
+            this.entries = Collections.unmodifiableList(readIndex());
+        } catch (Exception e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 打开包并解析索引
+     * @param wxid 加密包的wxid，为null时从路径中提取
+     */
+    public static WxapkgReader open(File file, String wxid) throws Exception {
+        return new WxapkgReader(file, wxid, null);
+    }
+
+    /**
+     * 打开包并解析索引，加密包路径中没有wxid时从 recovery 的候选（及附近目录名）中查找
+     */
+    public static WxapkgReader open(File file, String wxid, WxidRecovery recovery) throws Exception {
+        return new WxapkgReader(file, wxid, recovery);
+    }
+
+    @Override
+    public File getFile() { return file; }
+    public boolean isEncrypted() { return encrypted; }
+    @Override
+    public List<WxAppletDecompiler.FileMeta> getEntries() { return entries; }
+    @Override
+    public long getBytesRead() { return bytesRead; }
+
+    @Override
+    public String describe() {
+        return encrypted ? "加密包" : "明文包";
+    }
+
+    /**
+     * 读取单个文件的前 limit 字节（只读取该文件的 offset/size 区间）
+     */
+    @Override
+    public byte[] read(WxAppletDecompiler.FileMeta meta, int limit) throws IOException {
+        if (meta.getOffset() + meta.getSize() > plainSize) {
+            throw new IOException("文件数据越界：" + meta.getName());
+        }
+        return readPlain(meta.getOffset(), (int) Math.min(meta.getSize(), limit));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // ========== 索引 ==========
+    private List<WxAppletDecompiler.FileMeta> readIndex() throws IOException {
+        if (plainSize < 18) {
+            throw new IOException("文件过小，不是可用的wxapkg文件");
+        }
+        byte[] header = readPlain(0, 14);
+        if (header[0] != (byte) 0xBE || header[13] != (byte) 0xED) {
+            throw new IOException("文件不是可用的wxapkg文件（头标记不匹配）");
+        }
+        // 优先按头部声明的索引长度一次读完，声明不可信时逐步扩大窗口
+        long declared = readInt(header, 5);
+        long window = declared >= 4 && 14 + declared <= plainSize ? 14 + declared : INDEX_WINDOW;
+        while (true) {
+            byte[] buf = readPlain(0, (int) Math.min(window, plainSize));
+            try {
+                return parseIndex(buf);
+            } catch (IndexTruncatedException e) {
+                if (buf.length >= plainSize) {
+                    throw new IOException("索引不完整");
+                }
+                window = Math.max(window * 4, INDEX_WINDOW);
+            }
+        }
+    }
+
+    /**
+     * 从包数据（从文件头开始，至少包含完整索引）解析文件索引
+     * unpack 与随机读取共用
+     */
+    static List<WxAppletDecompiler.FileMeta> parseIndex(byte[] data) throws IOException {
+        return parseIndex(data, data.length);
+    }
+
+    /**
+     * 同上，data 只有前 length 字节有效（池中借用的缓冲区）
+     */
+    static List<WxAppletDecompiler.FileMeta> parseIndex(byte[] data, int length) throws IOException {
+        if (length < 18 || data[0] != (byte) 0xBE || data[13] != (byte) 0xED) {
+            throw new IOException("文件不是可用的wxapkg文件（头标记不匹配）");
+        }
+        long fileCount = readInt(data, 14);
+        if (fileCount <= 0 || fileCount > Integer.MAX_VALUE) {
+            throw new IOException("文件数量异常：" + fileCount);
+        }
+        List<WxAppletDecompiler.FileMeta> result = new ArrayList<>((int) Math.min(fileCount, 65536));
+        int idx = 18;
+        for (long i = 0; i < fileCount; i++) {
+            if (idx + 4 > length) {
+                throw new IndexTruncatedException();
+            }
+            long nameLen = readInt(data, idx);
+            idx += 4;
+            if (nameLen > 10485760) {
+                throw new IOException("文件名长度异常：" + nameLen);
+            }
+            if (idx + nameLen + 8 > length) {
+                throw new IndexTruncatedException();
+            }
+            String name = new String(data, idx, (int) nameLen, StandardCharsets.UTF_8);
+            idx += (int) nameLen;
+            long offset = readInt(data, idx);
+            long size = readInt(data, idx + 4);
+            idx += 8;
+            result.add(new WxAppletDecompiler.FileMeta(name, offset, size));
+        }
+        return result;
+    }
+
+    // 索引还没读完整（随机读取时扩大窗口重试）
+    static class IndexTruncatedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        IndexTruncatedException() {
+            super("索引数据不完整");
+        }
+    }
+
+    static long readInt(byte[] b, int pos) {
+        return ((long) (b[pos] & 0xFF) << 24) | ((long) (b[pos + 1] & 0xFF) << 16)
+                | ((long) (b[pos + 2] & 0xFF) << 8) | (b[pos + 3] & 0xFF);
+    }
+
+    // ========== 读取 ==========
+    // 按明文位置读取（加密包做位置换算和XOR还原）
+    private byte[] readPlain(long position, int length) throws IOException {
+        if (!encrypted) {
+            return readRaw(position, length);
+        }
+        byte[] result = new byte[length];
+        int headPart = 0;
+        if (position < ENCRYPTED_HEAD) {
+            headPart = (int) Math.min(length, ENCRYPTED_HEAD - position);
+            System.arraycopy(plainHead, (int) position, result, 0, headPart);
+        }
+        if (headPart < length) {
+            byte[] tail = readRaw(position + headPart + ENCRYPTED_SHIFT, length - headPart);
+            for (int i = 0; i < tail.length; i++) {
+                result[headPart + i] = (byte) (tail[i] ^ xorKey);
+            }
+        }
+        return result;
+    }
+
+    private synchronized byte[] readRaw(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) {
+                throw new IOException("读取越界：" + file);
+            }
+        }
+        bytesRead += length;
+        return buffer.array();
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+
+/**
+ * AppID（wxid）恢复：加密包路径中没有AppID时，从候选wxid中并行查找密钥
+ * 每个候选只派生密钥并解密加密头的第一个AES分组，头部合法（标记、保留字段、长度）时再解密整个加密头确认，整包解密在匹配之后才做
+ * 候选来源：包所在目录附近的目录名、同批其他包的路径、Burp代理历史中的URL、用户提供的列表
+ */
+public class WxidRecovery {
+    // 向上查找同级目录的层数（微信缓存为 .../Applet/wx.../N/__APP__.wxapkg）
+    public static final int DEFAULT_SIBLING_LEVELS = 3;
+    // 单层目录最多列出的子目录数，避免在巨大目录中长时间遍历
+    private static final int SIBLING_LIMIT = 10_000;
+
+    // 共享候选（批量解析时多个包同时读写）
+    private final Set<String> candidates = Collections.synchronizedSet(new LinkedHashSet<>());
+    private int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors());
+    // 读取代价较高的候选来源（例如代理历史），第一次需要查找时才加载
+    private final List<Consumer<WxidRecovery>> deferredSources = new ArrayList<>();
+
+    public WxidRecovery parallelism(int parallelism) { this.parallelism = Math.max(1, parallelism); return this; }
+
+    /**
+     * 延迟加载的候选来源：第一次 recover 时调用一次（批量中没有需要恢复的包则不调用）
+     */
+    public WxidRecovery deferred(Consumer<WxidRecovery> source) {
+        synchronized (deferredSources) {
+            deferredSources.add(source);
+        }
+        return this;
+    }
+
+    // 并发查找时后来者等待加载完成，保证看到完整的候选
+    private void loadDeferred() {
+        synchronized (deferredSources) {
+            List<Consumer<WxidRecovery>> sources = new ArrayList<>(deferredSources);
+            deferredSources.clear();
+            for (Consumer<WxidRecovery> source : sources) {
+                source.accept(this);
+            }
+        }
+    }
+
+    /**
+     * 从文本中提取所有wxid加入候选（文件路径、URL、用户粘贴的列表等）
+     * @return 新增的候选数
+     */
+    public int addFrom(CharSequence text) {
+        int added = 0;
+        Matcher matcher = WxAppletDecompiler.WX_ID_PATTERN.matcher(text);
+        while (matcher.find()) {
+            if (candidates.add(matcher.group())) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    public int size() { return candidates.size(); }
+
+    public List<String> getCandidates() {
+        synchronized (candidates) {
+            return new ArrayList<>(candidates);
+        }
+    }
+
+    /**
+     * 包所在目录向上 levels 层，每层目录名及其子目录名中的wxid（近的在前）
+     */
+    public static List<String> siblingCandidates(File wxapkgFile, int levels) {
+        Set<String> result = new LinkedHashSet<>();
+        File dir = wxapkgFile.getAbsoluteFile().getParentFile();
+        for (int level = 0; level < levels && dir != null; level++, dir = dir.getParentFile()) {
+            collect(dir.getName(), result);
+            String[] children = dir.list();
+            if (children == null) {
+                continue;
+            }
+            for (int i = 0; i < children.length && i < SIBLING_LIMIT; i++) {
+                collect(children[i], result);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    private static void collect(String name, Set<String> result) {
+        Matcher matcher = WxAppletDecompiler.WX_ID_PATTERN.matcher(name);
+        while (matcher.find()) {
+            result.add(matcher.group());
+        }
+    }
+
+    /**
+     * 并行尝试候选：先试 preferred（例如同级目录），再试共享候选
+     * 首个分组通过头部检查后再解密整个加密头确认；多个候选都匹配时取顺序最靠前的（与线程调度无关）
+     * @param data 加密包开头（至少 FLAG + 1024 字节）
+     * @param fileLength 加密包的文件长度
+     */
+    public Result recover(byte[] data, long fileLength, Collection<String> preferred) {
+        long start = System.nanoTime();
+        loadDeferred();
+        LinkedHashSet<String> ordered = new LinkedHashSet<>(preferred);
+        ordered.addAll(getCandidates());
+        List<String> all = new ArrayList<>(ordered);
+        if (all.isEmpty() || !WxapkgAesDe.isEncrypted(data)) {
+            return new Result(null, 0, System.nanoTime() - start);
+        }
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger tried = new AtomicInteger();
+        // 已确认的最靠前的候选下标：更靠后的候选不再尝试，更靠前的仍在尝试中的会继续完成
+        AtomicInteger best = new AtomicInteger(Integer.MAX_VALUE);
+        int workers = Math.min(parallelism, all.size());
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            tasks.add(() -> {
+                WxapkgAesDe aes = new WxapkgAesDe();
+                int i;
+                while ((i = next.getAndIncrement()) < Math.min(all.size(), best.get())) {
+                    tried.incrementAndGet();
+                    String wxid = all.get(i);
+                    if (aes.matchesFirstBlock(wxid, data, fileLength) && aes.verifyHead(wxid, data)) {
+                        best.accumulateAndGet(i, Math::min);
+                    }
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // 密钥派生失败（JCE不可用等），按未找到处理
+        } finally {
+            executor.shutdownNow();
+        }
+        int found = best.get();
+        return new Result(found < all.size() ? all.get(found) : null, tried.get(), System.nanoTime() - start);
+    }
+
+    /**
+     * 查找结果
+     */
+    public static class Result {
+        private final String wxid;
+        private final int tried;
+        private final long elapsedNanos;
+
+        Result(String wxid, int tried, long elapsedNanos) {
+            this.wxid = wxid;
+            this.tried = tried;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /** 匹配的wxid，未找到为null */
+        public String getWxid() { return wxid; }
+        public int getTried() { return tried; }
+        public long getElapsedNanos() { return elapsedNanos; }
+    }
+}
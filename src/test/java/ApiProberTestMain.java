@@ -0,0 +1,143 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import com.sun.net.httpserver.HttpServer;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * 独立测试类：本地桩HTTP服务器上验证API存活探测的URL解析、状态/长度/耗时记录、并发、每主机限速、
+ * 默认只探测基础URL主机，以及限速等待中取消能立即返回
+ * 运行：java ApiProberTestMain（失败时抛出AssertionError）
+ */
+public class ApiProberTestMain {
+    public static void main(String[] args) throws Exception {
+        // URL解析
+        check("https://a.com/v1/api/user".equals(ApiProber.resolve("https://a.com/v1", "/api/user")), "绝对路径拼接");
+        check("https://a.com/v1/api/user".equals(ApiProber.resolve("https://a.com/v1/", "./api/user")), "./路径拼接");
+        check("http://b.com/x".equals(ApiProber.resolve("https://a.com", "http://b.com/x")), "完整URL原样使用");
+        check("https://cdn.com/x.js".equals(ApiProber.resolve("https://a.com", "//cdn.com/x.js")), "//开头补协议");
+        check(ApiProber.resolve(null, "/api/user") == null, "无基础URL时相对路径无法解析");
+
+        // 桩服务器：/ok/* 返回200和固定内容，/slow 超时，其余404
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(32));
+        byte[] okBody = "{\"code\":0}".getBytes(StandardCharsets.UTF_8);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            if (path.startsWith("/ok/")) {
+                boolean head = "HEAD".equals(exchange.getRequestMethod());
+                exchange.getResponseHeaders().add("Content-Length", String.valueOf(okBody.length));
+                exchange.sendResponseHeaders(200, head ? -1 : okBody.length);
+                if (!head) {
+                    exchange.getResponseBody().write(okBody);
+                }
+            } else if (path.equals("/slow")) {
+                try {
+                    Thread.sleep(3000);
+                } catch (InterruptedException ignored) {
+                    // 服务器关闭
+                }
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        try {
+            // 1. 2000个接口不限速并发探测
+            List<String> endpoints = new ArrayList<>();
+            for (int i = 0; i < 1990; i++) {
+                endpoints.add("/ok/" + i);
+            }
+            for (int i = 0; i < 10; i++) {
+                endpoints.add("/missing/" + i);
+            }
+            endpoints.add("/slow");
+            endpoints.add("not a url %%");
+            Map<String, ApiProber.ProbeResult> results = new ConcurrentHashMap<>();
+            long start = System.nanoTime();
+            new ApiProber().baseUrl(base).method(ApiProber.Method.GET).perHostRate(0).timeoutMs(500)
+                    .probe(endpoints, results::put);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            check(results.size() == endpoints.size(), "每个接口都应有结果：" + results.size());
+            check(results.get("/ok/7").getStatus() == 200 && results.get("/ok/7").getLength() == okBody.length,
+                    "200及长度：" + results.get("/ok/7"));
+            check(results.get("/missing/3").getStatus() == 404, "404：" + results.get("/missing/3"));
+            check(results.get("/slow").getStatus() == -1, "超时应记为失败：" + results.get("/slow"));
+            check(results.get("not a url %%").getStatus() == -1, "非法URL应记为失败");
+            check(elapsedMs < 15_000, "2000个接口应在数秒内完成：" + elapsedMs + "ms");
+            System.out.println("并发探测 " + endpoints.size() + " 个接口耗时 " + elapsedMs + "ms");
+
+            // 2. 每主机限速：100次/秒时200个请求至少需要约2秒
+            List<String> limited = endpoints.subList(0, 200);
+            start = System.nanoTime();
+            new ApiProber().baseUrl(base).perHostRate(100).probe(limited, (e, r) -> {});
+            elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            check(elapsedMs >= 1900, "限速未生效：" + elapsedMs + "ms");
+            System.out.println("限速 100/s 探测 200 个接口耗时 " + elapsedMs + "ms");
+
+            // 3. 其他主机：默认跳过不发请求，显式开启后才探测（localhost 与 127.0.0.1 视为不同主机）
+            String other = "http://localhost:" + server.getAddress().getPort() + "/ok/other";
+            List<String> mixed = List.of("/ok/1", other, "//localhost/ok/cdn");
+            Map<String, ApiProber.ProbeResult> sameHost = new ConcurrentHashMap<>();
+            int probed = new ApiProber().baseUrl(base).perHostRate(0).probe(mixed, sameHost::put);
+            check(probed == 1 && sameHost.get("/ok/1").getStatus() == 200, "基础URL主机应正常探测：" + sameHost);
+            check(sameHost.get(other).getStatus() == -1 && sameHost.get(other).getError().startsWith("已跳过"),
+                    "其他主机默认应跳过：" + sameHost.get(other));
+            check(sameHost.get("//localhost/ok/cdn").getError().startsWith("已跳过"), "//开头的其他主机默认应跳过");
+            check(new ApiProber().perHostRate(0).probe(List.of(other), (e, r) -> {}) == 0, "没有基础URL时默认不探测完整URL");
+            Map<String, ApiProber.ProbeResult> allHosts = new ConcurrentHashMap<>();
+            new ApiProber().baseUrl(base).perHostRate(0).allowOtherHosts(true).probe(List.of(other), allHosts::put);
+            check(allHosts.get(other).getStatus() == 200, "开启后应探测其他主机：" + allHosts.get(other));
+
+            // 4. 限速1次/秒时30个接口需要约30秒，取消后应立即返回，未发送的请求不再发出
+            ApiProber slowProber = new ApiProber().baseUrl(base).perHostRate(1);
+            Set<String> answered = ConcurrentHashMap.newKeySet();
+            Thread canceller = new Thread(() -> {
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException ignored) {
+                    return;
+                }
+                slowProber.cancel();
+            });
+            start = System.nanoTime();
+            canceller.start();
+            slowProber.probe(endpoints.subList(0, 30), (e, r) -> answered.add(e));
+            elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            canceller.join();
+            check(slowProber.isCancelled(), "应处于取消状态");
+            check(elapsedMs < 2000, "取消后应立即返回：" + elapsedMs + "ms");
+            Thread.sleep(1500);
+            check(answered.size() <= 2, "取消后不应再发送限速中的请求：" + answered.size());
+            System.out.println("限速 1/s 时取消耗时 " + elapsedMs + "ms");
+        } finally {
+            server.stop(0);
+            ((java.util.concurrent.ExecutorService) server.getExecutor()).shutdownNow();
+        }
+        System.out.println("✅ ApiProber 测试通过");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
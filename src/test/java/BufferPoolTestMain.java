@@ -0,0 +1,124 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+/**
+ * 独立测试类：验证缓冲池的容量分级和复用，并统计处理每MB包数据的堆分配字节数，超过预算即失败
+ * 运行：java BufferPoolTestMain（失败时抛出AssertionError）
+ */
+public class BufferPoolTestMain {
+    // 每MB包数据允许的分配字节数（加密包解密+解包+扫描全流程，预热后测量）
+    // 未使用缓冲池时约15MB（整包读取/解密拼接/逐文件读取和String解码各一份），使用后约1.2MB（主要是正则和结果）
+    private static final long BYTES_PER_MB_BUDGET = 4L * 1024 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        // 1. 容量分级：2的幂之间分4级，小申请按最小级别
+        check(BufferPool.capacityFor(1) == 4096, "最小级别应为4096");
+        check(BufferPool.capacityFor(4097) == 5120, "4097应取整到5120：" + BufferPool.capacityFor(4097));
+        check(BufferPool.capacityFor(8192) == 8192, "2的幂不应再取整");
+        check(BufferPool.capacityFor(1_000_000) >= 1_000_000 && BufferPool.capacityFor(1_000_000) <= 1_250_000,
+                "浪费不应超过25%");
+
+        // 2. 借用期结束后归还，下一个借用期复用同一数组
+        BufferPool pool = new BufferPool(64L * 1024 * 1024);
+        byte[] first;
+        try (BufferPool.Lease lease = pool.lease()) {
+            first = lease.bytes(100_000);
+            check(first.length >= 100_000, "借出的数组不应小于申请长度");
+            lease.release(first);
+            check(lease.bytes(90_000) == first, "同一借用期内归还的数组应优先复用");
+        }
+        long allocated = pool.getAllocatedBytes();
+        try (BufferPool.Lease lease = pool.lease()) {
+            check(lease.bytes(100_000) == first, "下一个借用期应复用池中的数组");
+            check(lease.bytes(100_000) != first, "未归还的数组不应重复借出");
+        }
+        check(pool.getReuses() >= 1, "复用次数应被统计");
+        check(pool.getAllocatedBytes() > allocated, "第二个数组应为新分配");
+        BufferPool empty = new BufferPool(0);
+        try (BufferPool.Lease lease = empty.lease()) {
+            lease.bytes(10_000);
+        }
+        check(empty.getRetainedBytes() == 0, "上限为0时不应保留数组");
+
+        // 3. 分配预算：加密包全流程（读取、原地解密、解包、扫描），预热后每MB包数据的分配量
+        Path dir = Files.createTempDirectory("jaysenwxapkg-pool");
+        try {
+            List<WxapkgCorpusGenerator.GeneratedPackage> packages = new WxapkgCorpusGenerator()
+                    .fileCount(24).fileBytes(8 * 1024, 64 * 1024).encrypted(true).seed(7)
+                    .generateCorpus(dir.resolve("in"), 4);
+            long packageBytes = 0;
+            for (WxapkgCorpusGenerator.GeneratedPackage pkg : packages) {
+                packageBytes += pkg.getBytes();
+            }
+            BufferPool jobPool = new BufferPool(256L * 1024 * 1024);
+            for (int i = 0; i < 2; i++) {
+                runAll(packages, dir.resolve("out"), jobPool);
+            }
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long poolBefore = jobPool.getAllocatedBytes();
+            long before = threads.getTotalThreadAllocatedBytes();
+            int rounds = 3;
+            for (int i = 0; i < rounds; i++) {
+                runAll(packages, dir.resolve("out"), jobPool);
+            }
+            long perMb = (threads.getTotalThreadAllocatedBytes() - before) / Math.max(1, rounds * packageBytes / (1024 * 1024));
+            System.out.printf("✅ 每MB包数据分配 %.2fMB（预算 %dMB），预热后池新分配 %d 字节%n",
+                    perMb / 1024.0 / 1024.0, BYTES_PER_MB_BUDGET / 1024 / 1024, jobPool.getAllocatedBytes() - poolBefore);
+            check(jobPool.getAllocatedBytes() == poolBefore, "预热后缓冲池不应再新分配数组");
+            check(perMb <= BYTES_PER_MB_BUDGET, "每MB包数据分配 " + perMb + " 字节，超过预算 " + BYTES_PER_MB_BUDGET);
+        } finally {
+            deleteTree(dir);
+        }
+        System.out.println("✅ BufferPool 测试通过");
+    }
+
+    private static void runAll(List<WxapkgCorpusGenerator.GeneratedPackage> packages, Path out, BufferPool pool) {
+        for (WxapkgCorpusGenerator.GeneratedPackage pkg : packages) {
+            WxAppletDecompiler decompiler = new WxAppletDecompiler(pkg.getPath().toString(), out.toString(), 2,
+                    null, null, null, null);
+            decompiler.setQueryAppInfoEnabled(false);
+            decompiler.setBufferPool(pool);
+            decompiler.execute();
+            check(decompiler.getApiInfoList().size() > 0, "应提取到API：" + decompiler.getAppInfoList().stream()
+                    .map(WxAppletDecompiler.AppInfo::getValue).toList());
+        }
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path d, IOException exc) throws IOException {
+                Files.delete(d);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 独立测试类：验证正则前置字面量提取（随机正则下与正则逐个匹配结果一致）、检测引擎的成本排序、
+ * 前置条件跳过、出错隔离和取消，以及插件目录为空时的加载
+ * 运行：java DetectorEngineTestMain（失败时抛出AssertionError）
+ */
+public class DetectorEngineTestMain {
+
+    public static void main(String[] args) throws Exception {
+        // 1. 前置字面量提取
+        checkLiteral("(?i)password", "password", true);
+        checkLiteral("AKIA[0-9A-Z]{16}", "AKIA", false);
+        checkLiteral("eyJ[a-z]+\\.eyJ", ".eyJ", false);
+        checkLiteral("a{0,2}bc", "bc", false);
+        checkLiteral("\\.env", ".env", true);
+        check(RegexDetector.Literal.required(Pattern.compile("[abc]def|g")) == null, "顶层分支不应提取字面量");
+        check(RegexDetector.Literal.required(Pattern.compile("x(?i)yz")) == null, "中途的内嵌标志不应提取字面量");
+        check(RegexDetector.forRule("r", Pattern.compile("(?i)session_key")) instanceof LiteralDetector,
+                "整个正则是字面量时应使用LiteralDetector");
+        for (Map.Entry<String, Pattern> rule : Config.DEFAULT_SENSITIVE_PATTERNS.entrySet()) {
+            RegexDetector.forRule(rule.getKey(), rule.getValue());
+        }
+
+        // 2. 随机正则：前置字面量必须出现在每个匹配中，检测结果与正则逐个匹配一致
+        Random random = new Random(3);
+        String[] atoms = {"a", "b", "A", "\\.", "[ab]", "(a|b)", "\\d", "x", "(?:ab)", "."};
+        String[] quantifiers = {"", "", "", "?", "*", "+", "{2}", "{0,1}"};
+        for (int t = 0; t < 5000; t++) {
+            StringBuilder regex = new StringBuilder(random.nextBoolean() ? "(?i)" : "");
+            for (int k = 1 + random.nextInt(5); k > 0; k--) {
+                regex.append(atoms[random.nextInt(atoms.length)]).append(quantifiers[random.nextInt(quantifiers.length)]);
+            }
+            Pattern pattern = Pattern.compile(regex.toString());
+            RegexDetector.Literal literal = RegexDetector.Literal.required(pattern);
+            Detector detector = RegexDetector.forRule("r", pattern);
+            for (int u = 0; u < 20; u++) {
+                StringBuilder text = new StringBuilder();
+                for (int i = random.nextInt(12); i > 0; i--) {
+                    text.append("abAB.1x2".charAt(random.nextInt(8)));
+                }
+                List<String> expected = new ArrayList<>();
+                Matcher matcher = pattern.matcher(text);
+                while (matcher.find()) {
+                    expected.add(matcher.start() + ":" + matcher.group());
+                    if (literal != null) {
+                        check(LiteralDetector.indexOf(matcher.group(), literal.text, 0, true) >= 0,
+                                "前置字面量 " + literal.text + " 不在匹配 " + matcher.group() + " 中：" + regex);
+                    }
+                }
+                List<String> actual = new ArrayList<>();
+                detector.detect(new Detector.Context("t.js", null, 0, 0, text, null),
+                        collect(new ArrayList<>(), actual));
+                check(actual.equals(expected), regex + " 在 " + text + " 上应为 " + expected + "，实际 " + actual);
+            }
+        }
+
+        // 3. 引擎：按成本排序、前置条件不满足跳过、出错不影响其他检测器
+        List<String> order = new ArrayList<>();
+        Detector cheap = detector("cheap", 10, List.of(), order, null);
+        Detector expensive = detector("expensive", 1000, List.of(), order, null);
+        Detector gated = detector("gated", 1, List.of("NEEDLE"), order, null);
+        Detector broken = detector("broken", 5, List.of(), order, new IllegalStateException("boom"));
+        DetectorEngine engine = new DetectorEngine(List.of(expensive, gated, broken, cheap));
+        List<String> failed = new ArrayList<>();
+        List<String> sensitive = new ArrayList<>();
+        Detector.Sink sink = new Detector.Sink() {
+            @Override public void api(String url, int offset) {}
+            @Override public void sensitive(String type, String value, int offset) { sensitive.add(type); }
+            @Override public void failed(String rule, RuntimeException error) { failed.add(rule); }
+        };
+        int matches = engine.scan(new Detector.Context("a.js", null, 0, 0, "nothing here", null), sink, null);
+        check(order.equals(List.of("broken", "cheap", "expensive")), "应按成本执行且跳过前置条件不满足的检测器：" + order);
+        check(failed.equals(List.of("broken")), "出错的检测器应报告：" + failed);
+        check(matches == 2 && sensitive.equals(List.of("cheap", "expensive")), "其他检测器应照常输出：" + sensitive);
+        check(engine.getFailures().equals(Map.of("broken", 1L)), "应统计失败次数：" + engine.getFailures());
+        order.clear();
+        engine.scan(new Detector.Context("b.js", null, 0, 0, "has a needle", null), sink, null);
+        check(order.get(0).equals("gated"), "前置字面量忽略大小写出现时应执行：" + order);
+        order.clear();
+        engine.scan(new Detector.Context("c.js", new byte[0], 0, 0, null, null), sink, null);
+        check(order.isEmpty(), "没有文本时需要文本的检测器应跳过：" + order);
+        order.clear();
+        engine.scan(new Detector.Context("d.js", null, 0, 0, "x", () -> true), sink, null);
+        check(order.isEmpty(), "取消后不应再执行检测器：" + order);
+
+        // 4. 字符串字面量区间：未结束的字面量不计入
+        int[] literals = new Detector.Context("e.js", null, 0, 0, "a='x\\'y' + \"z\" + `tail", null).getLiterals();
+        check(Arrays.equals(literals, new int[]{3, 7, 12, 13}), "字面量区间不对：" + Arrays.toString(literals));
+
+        // 5. 空插件目录
+        Path dir = Files.createTempDirectory("jaysenwxapkg-detectors");
+        DetectorEngine.Plugins plugins = DetectorEngine.loadPlugins(dir.toFile());
+        check(plugins.getDetectors().isEmpty() && plugins.getErrors().isEmpty(), "空目录不应加载到检测器");
+        Files.delete(dir);
+
+        System.out.println("DetectorEngineTestMain 通过");
+    }
+
+    private static void checkLiteral(String regex, String text, boolean whole) {
+        RegexDetector.Literal literal = RegexDetector.Literal.required(Pattern.compile(regex));
+        check(literal != null && literal.text.equals(text) && literal.whole == whole,
+                regex + " 的前置字面量应为 " + text + "，实际 " + (literal == null ? null : literal.text));
+    }
+
+    private static Detector.Sink collect(List<String> apis, List<String> sensitive) {
+        return new Detector.Sink() {
+            @Override public void api(String url, int offset) { apis.add(offset + ":" + url); }
+            @Override public void sensitive(String type, String value, int offset) { sensitive.add(offset + ":" + value); }
+        };
+    }
+
+    private static Detector detector(String name, long cost, List<String> prerequisites, List<String> order, RuntimeException error) {
+        return new Detector() {
+            @Override public String getName() { return name; }
+            @Override public long getEstimatedCost() { return cost; }
+            @Override public List<String> getPrerequisites() { return prerequisites; }
+            @Override public int detect(Context context, Sink sink) {
+                order.add(name);
+                if (error != null) {
+                    throw error;
+                }
+                sink.sensitive(name, name, 0);
+                return 1;
+            }
+        };
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.util.*;
+
+/**
+ * 独立测试类：验证聚合结果的命中次数和文件数在文件列表达到上限后仍然准确（同一结果的命中来自交错到达的文件），
+ * 以及按包合并与逐条添加的结果一致
+ * 运行：java ResultAggregatorTestMain（失败时抛出AssertionError）
+ */
+public class ResultAggregatorTestMain {
+    private static final int MAX_FILES = 3;
+
+    public static void main(String[] args) {
+        // 1. 超出上限后交错命中：F4 F1 F5 F4 F5 F4 不应重复计数
+        ResultAggregator aggregator = new ResultAggregator(MAX_FILES);
+        for (String file : List.of("F1", "F2", "F3", "F4", "F1", "F5", "F4", "F5", "F4")) {
+            aggregator.addApi("/api/user", file, "a.wxapkg", "wx0000000000000001");
+        }
+        ResultAggregator.AggregatedEntry entry = aggregator.getApiEntries().get(0);
+        check(entry.getHitCount() == 9, "命中次数：" + entry.getHitCount());
+        check(entry.getFileCount() == 5, "文件数应为5，实际 " + entry.getFileCount());
+        check(entry.getFiles().equals(List.of("F1", "F2", "F3")), "只保存前" + MAX_FILES + "个文件：" + entry.getFiles());
+        check(entry.getFilesText().endsWith("…等5个文件"), "省略提示：" + entry.getFilesText());
+
+        // 2. 同名文件在不同包中算不同文件
+        aggregator.addApi("/api/user", "F4", "b.wxapkg", "wx0000000000000002");
+        aggregator.addApi("/api/user", "F4", "a.wxapkg", "wx0000000000000001");
+        check(entry.getFileCount() == 6, "不同包的同名文件应分别计数：" + entry.getFileCount());
+
+        // 3. 随机交错（多个检测器、按模块拆分扫描时同一文件的命中不连续），与逐个去重的结果比较
+        Random random = new Random(26);
+        ResultAggregator fuzz = new ResultAggregator(MAX_FILES);
+        Map<String, Set<String>> expectedFiles = new HashMap<>();
+        Map<String, Integer> expectedHits = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            String value = "/api/" + random.nextInt(20);
+            String pkg = "p" + random.nextInt(4) + ".wxapkg";
+            String file = "f" + random.nextInt(random.nextBoolean() ? 3 : 40) + ".js";
+            if (random.nextInt(5) == 0) {
+                fuzz.addSensitive("手机号", value, file, pkg, null);
+            } else {
+                fuzz.addApi(value, file, pkg, null);
+                expectedFiles.computeIfAbsent(value, k -> new HashSet<>()).add(pkg + "|" + file);
+                expectedHits.merge(value, 1, Integer::sum);
+            }
+        }
+        for (ResultAggregator.AggregatedEntry api : fuzz.getApiEntries()) {
+            int files = expectedFiles.get(api.getValue()).size();
+            check(api.getFileCount() == files, api.getValue() + " 文件数应为 " + files + "，实际 " + api.getFileCount());
+            check(api.getHitCount() == expectedHits.get(api.getValue()), api.getValue() + " 命中次数不对");
+            check(api.getFiles().size() == Math.min(MAX_FILES, files), api.getValue() + " 保存的文件数不对");
+        }
+
+        // 4. 按包合并（ResultStore）与逐条添加一致
+        ResultStore apiStore = new ResultStore();
+        ResultAggregator single = new ResultAggregator(MAX_FILES);
+        String[] files = {"F1", "F2", "F3", "F4", "F1", "F5", "F4", "F2"};
+        for (int i = 0; i < files.length; i++) {
+            apiStore.add(i + 1, files[i], null, "/api/pay", i, "c.wxapkg", "wx0000000000000003");
+            single.addApi("/api/pay", files[i], "c.wxapkg", "wx0000000000000003");
+        }
+        ResultAggregator merged = new ResultAggregator(MAX_FILES);
+        merged.add("c.wxapkg", "wx0000000000000003", List.of(), apiStore, new ResultStore());
+        ResultAggregator.AggregatedEntry a = merged.getApiEntries().get(0);
+        ResultAggregator.AggregatedEntry b = single.getApiEntries().get(0);
+        check(a.getFileCount() == 5 && b.getFileCount() == 5 && a.getHitCount() == b.getHitCount(),
+                "合并与逐条添加应一致：" + a.getFileCount() + " / " + b.getFileCount());
+
+        System.out.println("ResultAggregatorTestMain 通过");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.util.*;
+
+/**
+ * 独立测试类：验证多个线程分段写入后 seal() 的顺序与按字符串比较 (路径, 偏移, 类型, 内容) 排序的结果一致，
+ * 序号从起始值连续分配（内容含null、非Latin-1字符和同一内容在不同分段中出现）
+ * 运行：java ResultCollectorTestMain（失败时抛出AssertionError）
+ */
+public class ResultCollectorTestMain {
+    private static final String[] VALUES = {"/api/user", "/api/pay", "/api/用户", "13800138000", "AKIDz8krbsJ5", "", null};
+
+    public static void main(String[] args) throws Exception {
+        ResultCollector collector = new ResultCollector(7);
+        List<String[]> expected = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long seed = 29 + t;
+            Thread thread = new Thread(() -> {
+                Random random = new Random(seed);
+                ResultStore shard = collector.shard();
+                for (int i = 0; i < 5_000; i++) {
+                    String path = "/pages/p" + random.nextInt(8) + "/index.js";
+                    String type = random.nextBoolean() ? "手机号" : "密钥";
+                    String value = VALUES[random.nextInt(VALUES.length)];
+                    int offset = random.nextInt(50);
+                    shard.add(0, path, type, value, offset, "a.wxapkg", "wx0000000000000001");
+                    expected.add(new String[]{path, String.valueOf(offset), type, value});
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        expected.sort(Comparator.<String[], String>comparing(r -> r[0])
+                .thenComparingInt(r -> Integer.parseInt(r[1]))
+                .thenComparing(r -> r[2])
+                .thenComparing(r -> r[3], Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        ResultStore merged = collector.seal();
+        check(merged.size() == expected.size(), "行数：" + merged.size());
+        for (int row = 0; row < merged.size(); row++) {
+            String[] e = expected.get(row);
+            check(merged.getIndex(row) == 7 + row, "第" + row + "行序号：" + merged.getIndex(row));
+            check(merged.getPath(row).equals(e[0]) && merged.getOffset(row) == Integer.parseInt(e[1])
+                            && merged.getType(row).equals(e[2]) && Objects.equals(merged.getValue(row), e[3]),
+                    "第" + row + "行顺序不对：" + merged.getPath(row) + " " + merged.getValue(row));
+        }
+        System.out.println("ResultCollectorTestMain 通过");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
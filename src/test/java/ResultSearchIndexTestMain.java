@@ -0,0 +1,146 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import java.util.*;
+
+/**
+ * 独立测试类：验证结果搜索索引与逐行包含匹配的结果一致（含增量更新），并检查10万行时的查询耗时
+ * 运行：java ResultSearchIndexTestMain（失败时抛出AssertionError）
+ */
+public class ResultSearchIndexTestMain {
+    private static final int ROWS = 100_000;
+    // 单次查询的耗时上限（预热后，取多次查询中的最大值）
+    private static final long QUERY_BUDGET_NANOS = 50_000_000;
+
+    public static void main(String[] args) {
+        Random random = new Random(11);
+        String[] types = {"手机号", "身份证", "AccessKey", "JWT", "高熵字符串(base64)"};
+        String[] hosts = {"api.example.com", "m.QQ.com", "gw.alipay.com", "cdn.example.cn", "10.0.0.8:8080"};
+        List<String> values = new ArrayList<>();
+        List<String> rowTypes = new ArrayList<>();
+        List<List<String>> packages = new ArrayList<>();
+        List<List<String>> files = new ArrayList<>();
+        ResultSearchIndex index = new ResultSearchIndex();
+
+        // 1. 逐行加入，部分已有行之后追加文件和包（模拟聚合结果在后续包中再次命中）
+        for (int row = 0; row < ROWS; row++) {
+            values.add("https://" + hosts[random.nextInt(hosts.length)] + "/v" + random.nextInt(3) + "/"
+                    + word(random) + "/" + word(random) + (random.nextBoolean() ? "?id=" + random.nextInt(1000) : ""));
+            rowTypes.add(types[random.nextInt(types.length)]);
+            packages.add(new ArrayList<>(List.of("/cache/wx" + random.nextInt(200) + "/__APP__.wxapkg")));
+            files.add(new ArrayList<>(List.of("/pages/" + word(random) + "/index.js")));
+            index.put(row, row(values, rowTypes, packages, files, row));
+            if (row > 0 && random.nextInt(20) == 0) {
+                int updated = random.nextInt(row);
+                files.get(updated).add("/subpkg/" + word(random) + ".js");
+                packages.get(updated).add("/cache/wx" + random.nextInt(200) + "/sub.wxapkg");
+                index.put(updated, row(values, rowTypes, packages, files, updated));
+            }
+        }
+        check(index.size() == ROWS, "行数不一致：" + index.size());
+
+        // 2. 与逐行包含匹配对比
+        String[] queries = {"qq.com", "QQ", "/v1/", "ab", "x", "alipay /v2/ id=1", "type:jwt", "type:高熵",
+                "file:subpkg", "pkg:wx12/ example", "appid:wx", "type:手机号 file:index qq", "不存在的内容", "file:",
+                "https://cdn.example.cn/v0/"};
+        for (String query : queries) {
+            ResultSearchIndex.Result result = index.search(query);
+            BitSet expected = bruteForce(query, values, rowTypes, packages, files);
+            if (expected == null) {
+                check(result == null, "没有条件时应返回null：" + query);
+                continue;
+            }
+            check(result.getRows().equals(expected), "查询结果不一致：" + query + "，索引 " + result.getMatchCount()
+                    + " 行，逐行匹配 " + expected.cardinality() + " 行");
+        }
+        check(index.search("   ") == null, "空查询应返回null");
+
+        // 3. 查询耗时（内容条件走trigram候选，列条件走词项倒排）
+        for (int i = 0; i < 20; i++) {
+            for (String query : queries) {
+                index.search(query);
+            }
+        }
+        long worst = 0;
+        for (String query : queries) {
+            long start = System.nanoTime();
+            index.search(query);
+            worst = Math.max(worst, System.nanoTime() - start);
+        }
+        System.out.printf("✅ %d 行，最慢查询 %.2fms（上限 %dms）%n", ROWS, worst / 1_000_000.0, QUERY_BUDGET_NANOS / 1_000_000);
+        check(worst <= QUERY_BUDGET_NANOS, "查询耗时 " + worst / 1_000_000 + "ms 超过上限");
+        System.out.println("✅ ResultSearchIndex 测试通过");
+    }
+
+    private static ResultSearchIndex.Row row(List<String> values, List<String> types, List<List<String>> packages,
+                                             List<List<String>> files, int row) {
+        return new ResultSearchIndex.Row(values.get(row), types.get(row), new ArrayList<>(packages.get(row)),
+                List.of(), new ArrayList<>(files.get(row)));
+    }
+
+    private static BitSet bruteForce(String query, List<String> values, List<String> types,
+                                     List<List<String>> packages, List<List<String>> files) {
+        BitSet result = null;
+        for (String token : query.trim().split("\\s+")) {
+            String text = token.toLowerCase(Locale.ROOT);
+            String field = "";
+            for (String prefix : new String[]{"type:", "pkg:", "appid:", "file:"}) {
+                if (text.startsWith(prefix)) {
+                    field = prefix;
+                    text = text.substring(prefix.length());
+                    break;
+                }
+            }
+            if (text.isEmpty()) {
+                continue;
+            }
+            BitSet rows = new BitSet();
+            for (int row = 0; row < values.size(); row++) {
+                List<String> cells = switch (field) {
+                    case "type:" -> List.of(types.get(row));
+                    case "pkg:" -> packages.get(row);
+                    case "appid:" -> List.of();
+                    case "file:" -> files.get(row);
+                    default -> List.of(values.get(row));
+                };
+                for (String cell : cells) {
+                    if (cell.toLowerCase(Locale.ROOT).contains(text)) {
+                        rows.set(row);
+                        break;
+                    }
+                }
+            }
+            if (result == null) {
+                result = rows;
+            } else {
+                result.and(rows);
+            }
+        }
+        return result;
+    }
+
+    private static String word(Random random) {
+        int length = 3 + random.nextInt(5);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
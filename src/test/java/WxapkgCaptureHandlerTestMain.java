@@ -0,0 +1,154 @@
+/*
+ * JaySenWxapkg - Burp Suite 微信小程序解包插件
+ *
+ * Copyright (C) 2025 JaySen (Jaysen13)
+ *
+ * 本软件采用 CC BY-NC-SA 4.0 许可证进行许可
+ * 禁止用于商业售卖，允许非商业使用、修改和分享，衍生品需采用相同许可证
+ *
+ * 作者：JaySen
+ * 邮箱：3147330392@qq.com
+ * GitHub：https://github.com/Jaysen13/jaysenwxapkg
+ * 许可证详情：参见项目根目录 LICENSE 文件
+ */
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.core.ToolSource;
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.handler.HttpResponseReceived;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.logging.Logging;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 独立测试类：用动态代理模拟Montoya接口，验证代理捕获的识别、内存解析和有界队列
+ * 运行：java WxapkgCaptureHandlerTestMain（失败时抛出AssertionError）
+ */
+public class WxapkgCaptureHandlerTestMain {
+    private static final String WXID = "wx0123456789abcdef";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("/app-service.js", "var a=\"https://api.example.com/user/login?id=1\";var p=\"13812345678\";"
+                .getBytes(StandardCharsets.UTF_8));
+        entries.put("/app-config.json", "{\"pages\":[\"pages/index/index\"]}".getBytes(StandardCharsets.UTF_8));
+        byte[] plain = WxapkgCorpusGenerator.pack(entries);
+        byte[] encrypted = new WxapkgAesDe().encrypt(WXID, plain);
+        String url = "https://servicewechat.com/" + WXID + "/1/__APP__.wxapkg";
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+        // 1. 识别明文包和加密包，在内存中解析出API和敏感信息
+        BlockingQueue<WxAppletDecompiler> results = new LinkedBlockingQueue<>();
+        WxapkgCaptureHandler handler = new WxapkgCaptureHandler(logging(errors), WxapkgCaptureHandlerTestMain::decompiler,
+                results::add, 8, 1024 * 1024);
+        check(!handler.inspect(response(url, plain, ToolType.PROXY)), "未启用时不应捕获");
+        handler.setEnabled(true);
+        check(handler.inspect(response(url, plain, ToolType.PROXY)), "明文包应被捕获");
+        check(handler.inspect(response(url, encrypted, ToolType.PROXY)), "加密包应被捕获");
+        check(!handler.inspect(response(url, "{\"ok\":true}".getBytes(StandardCharsets.UTF_8), ToolType.PROXY)), "普通响应不应捕获");
+        check(!handler.inspect(response(url, plain, ToolType.REPEATER)), "非代理流量不应捕获");
+        for (int i = 0; i < 2; i++) {
+            WxAppletDecompiler decompiler = results.poll(10, TimeUnit.SECONDS);
+            check(decompiler != null, "解析超时");
+            check(WXID.equals(decompiler.getAppId()), "AppID应从URL提取：" + decompiler.getAppId());
+            check(decompiler.getApiInfoList().stream().anyMatch(api -> api.getApi().contains("api.example.com/user/login")),
+                    "应提取到API：" + decompiler.getAppInfoList().stream().map(WxAppletDecompiler.AppInfo::getValue).toList());
+            check(decompiler.getSensitiveInfoList().stream().anyMatch(info -> info.getContent().equals("13812345678")),
+                    "应检测到手机号");
+        }
+        handler.close();
+
+        // 2. 解析线程忙时队列有界：超出容量直接丢弃，代理线程不阻塞
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        WxapkgCaptureHandler bounded = new WxapkgCaptureHandler(logging(errors), source -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return decompiler(source);
+        }, d -> {}, 1, 1024 * 1024);
+        bounded.setEnabled(true);
+        check(bounded.inspect(response(url, plain, ToolType.PROXY)), "第一个包应入队");
+        check(started.await(10, TimeUnit.SECONDS), "解析线程未启动");
+        check(bounded.inspect(response(url, plain, ToolType.PROXY)), "第二个包应入队");
+        long start = System.nanoTime();
+        check(!bounded.inspect(response(url, plain, ToolType.PROXY)), "队列已满时应丢弃");
+        check(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100), "队列满时不应阻塞代理线程");
+        check(bounded.getDropped() == 1, "丢弃计数应为1：" + bounded.getDropped());
+        release.countDown();
+        bounded.close();
+
+        // 3. 超过大小上限的包不捕获
+        WxapkgCaptureHandler small = new WxapkgCaptureHandler(logging(errors), WxapkgCaptureHandlerTestMain::decompiler,
+                d -> {}, 8, 16);
+        small.setEnabled(true);
+        check(!small.inspect(response(url, plain, ToolType.PROXY)), "超过上限的包不应捕获");
+        small.close();
+
+        System.out.println("✅ WxapkgCaptureHandler 测试通过（错误日志 " + errors.size() + " 条）");
+    }
+
+    private static WxAppletDecompiler decompiler(String source) {
+        WxAppletDecompiler decompiler = new WxAppletDecompiler(source, null, 1, null, null, null, null);
+        decompiler.setQueryAppInfoEnabled(false);
+        return decompiler;
+    }
+
+    // ========== Montoya接口模拟 ==========
+    private static HttpResponseReceived response(String url, byte[] body, ToolType tool) {
+        HttpRequest request = mock(HttpRequest.class, (name, args) -> "url".equals(name) ? url : null);
+        ToolSource source = mock(ToolSource.class, (name, args) -> switch (name) {
+            case "toolType" -> tool;
+            case "isFromTool" -> Arrays.asList((ToolType[]) args[0]).contains(tool);
+            default -> null;
+        });
+        ByteArray bytes = byteArray(body);
+        return mock(HttpResponseReceived.class, (name, args) -> switch (name) {
+            case "body" -> bytes;
+            case "toolSource" -> source;
+            case "initiatingRequest" -> request;
+            case "statusCode" -> (short) 200;
+            default -> null;
+        });
+    }
+
+    private static ByteArray byteArray(byte[] data) {
+        return mock(ByteArray.class, (name, args) -> switch (name) {
+            case "getByte" -> data[(Integer) args[0]];
+            case "length" -> data.length;
+            case "getBytes" -> data.clone();
+            default -> null;
+        });
+    }
+
+    private static Logging logging(List<String> errors) {
+        return mock(Logging.class, (name, args) -> {
+            if (name.startsWith("logToError")) {
+                errors.add(String.valueOf(args[0]));
+            }
+            return null;
+        });
+    }
+
+    private interface Answer {
+        Object answer(String method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T mock(Class<T> type, Answer answer) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> answer.answer(method.getName(), args));
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}